@@ -0,0 +1,83 @@
+package com.ifba.web.iot.api.spring.jwt;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Mede o custo por requisição do {@link JwtAuthenticationFilter}:
+ * <ul>
+ * <li>{@code completo}: requisição do painel, com os detalhes da
+ * requisição na autenticação;</li>
+ * <li>{@code enxuto}: envio de leitura por um gateway
+ * ({@code POST /api/sensores}), sem os detalhes;</li>
+ * <li>{@code tokenInvalido}: envio de gateway com token inválido, recusado
+ * com 401 e log limitado.</li>
+ * </ul>
+ * Execute com
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.includes=JwtAuthenticationFilterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class JwtAuthenticationFilterBenchmark {
+
+  private JwtAuthenticationFilter filter;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    JwtUtil jwtUtil = new JwtUtil(10_000);
+    filter = new JwtAuthenticationFilter(jwtUtil, new String[] { "/api/sensores", "/api/sensores/enviar/**" },
+        10_000);
+    token = "Bearer " + jwtUtil.generateToken("gateway@example.com");
+  }
+
+  @TearDown
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Benchmark
+  public MockHttpServletResponse completo() throws Exception {
+    return filtrar("GET", "/api/sensores/historico", token);
+  }
+
+  @Benchmark
+  public MockHttpServletResponse enxuto() throws Exception {
+    return filtrar("POST", "/api/sensores", token);
+  }
+
+  @Benchmark
+  public MockHttpServletResponse tokenInvalido() throws Exception {
+    return filtrar("POST", "/api/sensores", "Bearer invalido");
+  }
+
+  private MockHttpServletResponse filtrar(String metodo, String caminho, String authorization) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest(metodo, caminho);
+    request.addHeader("Authorization", authorization);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, new MockFilterChain());
+    SecurityContextHolder.clearContext();
+    return response;
+  }
+}
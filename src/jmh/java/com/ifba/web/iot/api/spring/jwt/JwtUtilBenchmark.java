@@ -0,0 +1,91 @@
+package com.ifba.web.iot.api.spring.jwt;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Compara o custo de validar o mesmo token repetidamente, como acontece nas
+ * consultas periódicas do painel:
+ * <ul>
+ * <li>{@code parserPorChamada}: constrói um parser a cada validação (como era
+ * antes);</li>
+ * <li>{@code parserCompartilhado}: um único parser pré-construído;</li>
+ * <li>{@code jwtUtilSemCache}: {@link JwtUtil} com o cache desativado;</li>
+ * <li>{@code jwtUtilComCache}: {@link JwtUtil} com o cache de tokens
+ * verificados.</li>
+ * </ul>
+ * Execute com {@code mvn -Pjmh test-compile exec:exec -Djmh.includes=JwtUtilBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class JwtUtilBenchmark {
+
+  private Key key;
+  private String token;
+  private JwtParser parser;
+
+  private JwtUtil comCache;
+  private JwtUtil semCache;
+  private String tokenComCache;
+  private String tokenSemCache;
+
+  @Setup
+  public void setUp() {
+    key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    token = Jwts.builder()
+        .setSubject("usuario@example.com")
+        .setIssuedAt(new Date())
+        .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+        .signWith(key)
+        .compact();
+    parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    comCache = new JwtUtil(10_000);
+    semCache = new JwtUtil(0);
+    tokenComCache = comCache.generateToken("usuario@example.com");
+    tokenSemCache = semCache.generateToken("usuario@example.com");
+  }
+
+  @Benchmark
+  public String parserPorChamada() {
+    return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject();
+  }
+
+  @Benchmark
+  public String parserCompartilhado() {
+    return parser.parseClaimsJws(token).getBody().getSubject();
+  }
+
+  @Benchmark
+  public String jwtUtilSemCache() {
+    return semCache.validateToken(tokenSemCache);
+  }
+
+  @Benchmark
+  public String jwtUtilComCache() {
+    return comCache.validateToken(tokenComCache);
+  }
+}
@@ -0,0 +1,37 @@
+package com.ifba.web.iot.api.spring.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import com.ifba.web.iot.api.spring.protocolos.mqtt.EmbeddedMqttBroker;
+
+/**
+ * Sobe um broker MQTT dentro da própria JVM no perfil {@code mqtt-embutido}.
+ * <p>
+ * O perfil aponta {@code mqtt.url} para o loopback (ver
+ * {@code application-mqtt-embutido.properties}), então o
+ * {@link MqttAmqpConfig} se conecta a ele sem nenhum serviço externo. Útil
+ * para testes de carga da ponte MQTT → AMQP em máquinas de build; combine com
+ * {@code amqp.producer.destino=memoria} para dispensar também o RabbitMQ.
+ * </p>
+ */
+@Configuration
+@Profile("mqtt-embutido")
+public class EmbeddedMqttBrokerConfig {
+
+  /**
+   * Define o bean do broker embutido; ele é encerrado junto com o contexto.
+   *
+   * @param porta Porta na interface de loopback.
+   * @return O broker iniciado.
+   * @throws IOException se a porta não puder ser aberta.
+   */
+  @Bean(destroyMethod = "close")
+  public EmbeddedMqttBroker embeddedMqttBroker(@Value("${mqtt.embutido.porta:1883}") int porta) throws IOException {
+    return new EmbeddedMqttBroker(porta);
+  }
+}
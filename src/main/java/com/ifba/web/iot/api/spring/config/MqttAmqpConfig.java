@@ -1,15 +1,22 @@
 package com.ifba.web.iot.api.spring.config;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.mqtt.core.DefaultMqttPahoClientFactory;
 import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
 import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
-import org.springframework.messaging.MessageChannel;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 
+import com.ifba.web.iot.api.spring.protocolos.mqtt.MqttInboundPool;
+import com.ifba.web.iot.api.spring.protocolos.mqtt.PartitionedLaneChannel;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,20 +62,72 @@ public class MqttAmqpConfig {
   @Value("${mqtt.topic}")
   private String mqttTopic;
 
+  /**
+   * Prefixo dos client ids das conexões de entrada.
+   */
+  @Value("${mqtt.client.id:my-spring-client-id}")
+  private String mqttClientId;
+
+  /**
+   * Quantidade de conexões de entrada com o broker.
+   */
+  @Value("${mqtt.inbound.conexoes:1}")
+  private int conexoes;
+
+  /**
+   * Como repartir as mensagens entre as conexões: {@code compartilhada}
+   * (assinatura compartilhada do MQTT) ou {@code fragmentada} (cada conexão
+   * assina parte dos tópicos de {@code mqtt.topic}, separados por vírgula).
+   */
+  @Value("${mqtt.inbound.modo:compartilhada}")
+  private String modo;
+
+  /**
+   * Grupo das assinaturas compartilhadas.
+   */
+  @Value("${mqtt.inbound.grupo:iot-api}")
+  private String grupo;
+
+  /**
+   * Quantidade de faixas que processam as mensagens recebidas em paralelo
+   * (0 = número de núcleos).
+   */
+  @Value("${mqtt.inbound.faixas:0}")
+  private int faixas;
+
+  /**
+   * Capacidade da fila de cada faixa.
+   */
+  @Value("${mqtt.inbound.faixa.capacidade:1000}")
+  private int capacidadeFaixa;
+
+  /**
+   * Chave que define a faixa de cada mensagem: {@code sensor} (campo
+   * {@code "sensor"} do payload, ou o tópico se ausente) ou {@code topico}.
+   */
+  @Value("${mqtt.inbound.particao:sensor}")
+  private String particao;
+
   /**
    * Define um bean para o canal de mensagens de entrada.
    * <p>
    * Este canal é o destino para o qual o
    * {@link MqttPahoMessageDrivenChannelAdapter}
-   * enviará as mensagens recebidas do broker MQTT. Um {@link DirectChannel}
-   * é usado para garantir que a mensagem seja entregue a um único assinante.
+   * enviará as mensagens recebidas do broker MQTT. Um
+   * {@link PartitionedLaneChannel} tira o processamento da thread do cliente
+   * MQTT: as mensagens de um mesmo sensor seguem em ordem por uma única faixa,
+   * enquanto sensores diferentes são processados em paralelo.
    * </p>
    * 
    * @return O canal de mensagens de entrada.
    */
   @Bean
-  public MessageChannel mqttInputChannel() {
-    return new DirectChannel();
+  public PartitionedLaneChannel mqttInputChannel() {
+    int quantidade = (faixas > 0) ? faixas : Runtime.getRuntime().availableProcessors();
+    boolean porSensor = "sensor".equalsIgnoreCase(particao);
+    logger.info("⚙️ Canal de entrada MQTT com {} faixas de {} mensagens, particionado por {}.", quantidade,
+        capacidadeFaixa, porSensor ? "sensor" : "tópico");
+    return new PartitionedLaneChannel(quantidade, capacidadeFaixa, message -> chaveDaMensagem(message, porSensor));
   }
 
   /**
@@ -93,23 +152,51 @@ public class MqttAmqpConfig {
   }
 
   /**
-   * Define um bean para o adaptador de canal de entrada acionado por mensagens
-   * MQTT.
+   * Define um bean para as conexões de entrada acionadas por mensagens MQTT.
    * <p>
-   * Este adaptador se conecta ao broker MQTT, se inscreve no tópico configurado
-   * e transfere as mensagens recebidas para o canal de entrada.
+   * São abertas {@code mqtt.inbound.conexoes} conexões, cada uma um
+   * {@link MqttPahoMessageDrivenChannelAdapter} com client id próprio, que
+   * transferem as mensagens recebidas para o canal de entrada. Com mais de uma
+   * conexão, o broker reparte as mensagens entre elas por assinatura
+   * compartilhada ou por fragmentação dos tópicos.
    * </p>
    * 
-   * @return O adaptador de entrada configurado.
+   * @return As conexões de entrada configuradas.
    */
   @Bean
-  public MqttPahoMessageDrivenChannelAdapter inbound() {
-    logger.info("⚙️ Configurando o adaptador de entrada MQTT para o tópico: {}", mqttTopic);
-    MqttPahoMessageDrivenChannelAdapter adapter = new MqttPahoMessageDrivenChannelAdapter("my-spring-client-id",
-        mqttClientFactory(), mqttTopic);
-    adapter.setCompletionTimeout(5000);
-    adapter.setQos(1);
-    adapter.setOutputChannel(mqttInputChannel());
-    return adapter;
+  public MqttInboundPool inbound() {
+    boolean compartilhada = !"fragmentada".equalsIgnoreCase(modo);
+    List<String> topicos = Arrays.stream(mqttTopic.split(",")).map(String::trim).filter(t -> !t.isEmpty()).toList();
+    logger.info("⚙️ Configurando {} conexões de entrada MQTT ({}) para os tópicos: {}", conexoes,
+        compartilhada ? "compartilhada" : "fragmentada", topicos);
+    return new MqttInboundPool(mqttClientFactory(), mqttClientId,
+        MqttInboundPool.distribuir(topicos, conexoes, compartilhada, grupo), 1, mqttInputChannel());
+  }
+
+  /**
+   * Extrai a chave de partição de uma mensagem MQTT.
+   * <p>
+   * Por sensor, procura o valor do campo {@code "sensor"} no payload JSON sem
+   * desserializá-lo (a extração roda na thread do cliente MQTT); se não
+   * houver, usa o tópico.
+   * </p>
+   */
+  static Object chaveDaMensagem(Message<?> message, boolean porSensor) {
+    Object topico = message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC);
+    if (!porSensor) {
+      return topico;
+    }
+    Object payload = message.getPayload();
+    String texto = (payload instanceof byte[] bytes)
+        ? new String(bytes, StandardCharsets.UTF_8)
+        : payload.toString();
+    int campo = texto.indexOf("\"sensor\"");
+    if (campo < 0) {
+      return topico;
+    }
+    int doisPontos = texto.indexOf(':', campo + 8);
+    int inicio = (doisPontos < 0) ? -1 : texto.indexOf('"', doisPontos + 1);
+    int fim = (inicio < 0) ? -1 : texto.indexOf('"', inicio + 1);
+    return (fim < 0) ? topico : texto.substring(inicio + 1, fim);
   }
 }
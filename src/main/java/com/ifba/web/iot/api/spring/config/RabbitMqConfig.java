@@ -6,7 +6,12 @@ import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -44,6 +49,24 @@ public class RabbitMqConfig {
   @Value("${amqp.routing.key}")
   private String amqpRoutingKey;
 
+  /**
+   * Fila que recebe as mensagens que não puderam ser processadas.
+   */
+  @Value("${amqp.dlq:${amqp.queue}.dlq}")
+  private String amqpDeadLetterQueue;
+
+  /**
+   * Quantidade máxima de mensagens entregues de uma vez ao consumidor em lote.
+   */
+  @Value("${amqp.consumer.lote:100}")
+  private int tamanhoLote;
+
+  /**
+   * Tempo máximo de espera para completar um lote, em milissegundos.
+   */
+  @Value("${amqp.consumer.lote-timeout-ms:200}")
+  private long loteTimeoutMs;
+
   /**
    * Define um bean para a fila do RabbitMQ.
    * <p>
@@ -60,6 +83,79 @@ public class RabbitMqConfig {
     return new Queue(amqpQueue, false);
   }
 
+  /**
+   * Define um bean para a fila de mensagens mortas (DLQ).
+   * <p>
+   * O consumidor republica nesta fila, uma a uma, as mensagens que não
+   * conseguiu converter ou gravar, para inspeção e reprocessamento manual.
+   * </p>
+   *
+   * @return A fila de mensagens mortas.
+   */
+  @Bean
+  Queue deadLetterQueue() {
+    logger.info("⚙️ Configurando a fila de mensagens mortas RabbitMQ: {}", amqpDeadLetterQueue);
+    return new Queue(amqpDeadLetterQueue, true);
+  }
+
+  /**
+   * Define a fábrica de containers para consumidores em lote.
+   * <p>
+   * O container acumula até {@code amqp.consumer.lote} mensagens, ou o que
+   * chegar em {@code amqp.consumer.lote-timeout-ms}, e entrega a lista inteira
+   * ao listener em uma única chamada. O prefetch acompanha o tamanho do lote
+   * para que o broker envie mensagens suficientes para completá-lo.
+   * </p>
+   *
+   * @param configurer        Aplica as propriedades {@code spring.rabbitmq.listener.*}.
+   * @param connectionFactory A conexão com o broker.
+   * @return A fábrica de containers em lote.
+   */
+  @Bean
+  SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+      SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+    logger.info("⚙️ Configurando consumidor em lote: até {} mensagens ou {} ms.", tamanhoLote, loteTimeoutMs);
+    SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+    configurer.configure(factory, connectionFactory);
+    factory.setBatchListener(true);
+    factory.setConsumerBatchEnabled(true);
+    factory.setBatchSize(tamanhoLote);
+    factory.setReceiveTimeout(loteTimeoutMs);
+    factory.setPrefetchCount(tamanhoLote);
+    return factory;
+  }
+
+  /**
+   * Ajusta a fábrica de conexões do RabbitMQ para o produtor em lote.
+   * <p>
+   * Habilita os confirms do tipo {@code CORRELATED}, usados pelo
+   * {@code RabbitConfirmingSender}. O cache de canais só é alterado quando
+   * {@code amqp.producer.canais} é definido; caso contrário vale
+   * {@code spring.rabbitmq.cache.channel.size} (padrão 25).
+   * </p>
+   *
+   * @param canais Tamanho do cache de canais; {@code 0} mantém o configurado
+   *               no Spring Boot.
+   * @return O pós-processador da fábrica de conexões.
+   */
+  @Bean
+  static BeanPostProcessor rabbitConnectionFactoryPostProcessor(@Value("${amqp.producer.canais:0}") int canais) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof CachingConnectionFactory factory) {
+          factory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+          if (canais > 0) {
+            factory.setChannelCacheSize(canais);
+          }
+          logger.info("⚙️ Configurando confirms do publicador e cache de {} canais RabbitMQ.",
+              factory.getChannelCacheSize());
+        }
+        return bean;
+      }
+    };
+  }
+
   /**
    * Define um bean para o exchange do RabbitMQ.
    * <p>
@@ -0,0 +1,105 @@
+package com.ifba.web.iot.api.spring.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ifba.web.iot.api.spring.controller.dto.form.AlertRuleForm;
+import com.ifba.web.iot.api.spring.model.AlertRule;
+import com.ifba.web.iot.api.spring.service.AlertRuleService;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controlador REST para o cadastro das regras de alerta.
+ * <p>
+ * Toda alteração entra em vigor imediatamente, sem reiniciar a aplicação.
+ * </p>
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/sensores/alertas/regras")
+@RequiredArgsConstructor
+public class AlertRuleController {
+
+  private final AlertRuleService alertRuleService;
+
+  /**
+   * @return Todas as regras cadastradas, ativas ou não.
+   */
+  @GetMapping
+  public List<AlertRule> listar() {
+    return alertRuleService.findAll();
+  }
+
+  /**
+   * Cadastra uma nova regra.
+   *
+   * @param form Os dados da regra.
+   * @return A regra criada (201) ou a mensagem de erro (400).
+   */
+  @PostMapping
+  public ResponseEntity<?> criar(@RequestBody @Valid AlertRuleForm form) {
+    try {
+      AlertRule regra = alertRuleService.criar(form);
+      log.info("📋 Regra de alerta {} criada para o sensor '{}'.", regra.getId(), regra.getSensor());
+      return ResponseEntity.status(HttpStatus.CREATED).body(regra);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  /**
+   * Altera uma regra existente.
+   *
+   * @param id   O ID da regra.
+   * @param form Os novos dados da regra.
+   * @return A regra alterada, 404 se ela não existir ou 400 se for inválida.
+   */
+  @PutMapping("/{id}")
+  public ResponseEntity<?> atualizar(@PathVariable Long id, @RequestBody @Valid AlertRuleForm form) {
+    try {
+      return alertRuleService.atualizar(id, form)
+          .<ResponseEntity<?>>map(ResponseEntity::ok)
+          .orElseGet(() -> ResponseEntity.notFound().build());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  /**
+   * Remove uma regra.
+   *
+   * @param id O ID da regra.
+   * @return 204 se removida, 404 se não existir.
+   */
+  @DeleteMapping("/{id}")
+  public ResponseEntity<Void> remover(@PathVariable Long id) {
+    return alertRuleService.remover(id)
+        ? ResponseEntity.noContent().build()
+        : ResponseEntity.notFound().build();
+  }
+
+  /**
+   * Recarrega as regras do banco de dados, por exemplo após alterá-las
+   * diretamente na tabela.
+   *
+   * @return A quantidade de regras ativas carregadas.
+   */
+  @PostMapping("/recarregar")
+  public Map<String, Integer> recarregar() {
+    return Map.of("regrasAtivas", alertRuleService.recarregar());
+  }
+}
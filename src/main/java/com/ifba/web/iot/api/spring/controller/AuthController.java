@@ -5,19 +5,25 @@ import com.ifba.web.iot.api.spring.controller.dto.form.RegisterForm;
 import com.ifba.web.iot.api.spring.controller.dto.view.UsuarioView;
 import com.ifba.web.iot.api.spring.controller.dto.view.LoginView;
 import com.ifba.web.iot.api.spring.jwt.JwtUtil;
+import com.ifba.web.iot.api.spring.jwt.TokenCacheStats;
+import com.ifba.web.iot.api.spring.service.LoginService;
+import com.ifba.web.iot.api.spring.service.LoginStats;
 import com.ifba.web.iot.api.spring.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Controlador REST responsável pela gestão de autenticação e registro de
  * clientes.
@@ -26,6 +32,8 @@ import jakarta.validation.Valid;
  * <ul>
  * <li>Cadastro de novos clientes com criptografia de senha.</li>
  * <li>Autenticação de clientes existentes e emissão de tokens JWT.</li>
+ * <li>Métricas do cache de tokens verificados e dos logins (requerem
+ * autenticação).</li>
  * </ul>
  * Dados sensíveis como senha são criptografados antes do armazenamento,
  * e informações pessoais podem ser mascaradas quando retornadas em DTOs.
@@ -39,7 +47,7 @@ public class AuthController {
 
   private final UsuarioService clienteService;
   private final JwtUtil jwtUtil;
-  private final AuthenticationManager authenticationManager;
+  private final LoginService loginService;
 
   /**
    * Endpoint para registro de um novo cliente.
@@ -76,6 +84,11 @@ public class AuthController {
    * Recebe email e senha do cliente, valida as credenciais e, em caso de sucesso,
    * gera e retorna um token JWT encapsulado no DTO {@link LoginView}.
    * </p>
+   * <p>
+   * A verificação roda no pool limitado do {@link LoginService}, liberando a
+   * thread da requisição; com a fila de logins cheia, a resposta é 429 na
+   * hora, com o cabeçalho {@code Retry-After}.
+   * </p>
    *
    * @param requestBody Objeto {@link LoginForm} contendo email e senha do
    *                    cliente.
@@ -83,28 +96,63 @@ public class AuthController {
    *                    (opcional, usado para logs e headers).
    * @return {@link ResponseEntity} contendo {@link LoginView} com token JWT em
    *         caso de sucesso,
-   *         ou mensagem de erro com status 401 se as credenciais forem inválidas.
+   *         ou mensagem de erro com status 401 se as credenciais forem inválidas
+   *         e 429 se houver logins demais em andamento (503 se o serviço
+   *         estiver encerrando).
    */
   @PostMapping
-  public ResponseEntity<?> autenticar(@RequestBody LoginForm requestBody,
+  public CompletableFuture<ResponseEntity<?>> autenticar(@RequestBody LoginForm requestBody,
       HttpServletRequest request) {
     log.info("Iniciando autenticação para email '{}'", requestBody.getEmail());
 
+    CompletableFuture<String> token;
     try {
-      UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(requestBody.getEmail(),
-          requestBody.getSenha());
-
-      authenticationManager.authenticate(authToken);
+      token = loginService.autenticar(requestBody.getEmail(), requestBody.getSenha());
+    } catch (RejectedExecutionException ex) {
+      log.warn("🚦 Login recusado para email '{}': {}", requestBody.getEmail(), ex.getMessage());
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+          .header(HttpHeaders.RETRY_AFTER, "1")
+          .body("Muitas tentativas de login em andamento. Tente novamente em instantes."));
+    }
 
-      String token = jwtUtil.generateToken(requestBody.getEmail());
+    return token.handle((jwt, erro) -> {
+      Throwable causa = (erro instanceof CompletionException) ? erro.getCause() : erro;
+      if (causa == null) {
+        log.info("Autenticação bem-sucedida para email '{}'", requestBody.getEmail());
+        return ResponseEntity.ok(new LoginView(jwt));
+      }
+      if (causa instanceof AuthenticationException ex) {
+        log.warn("Tentativa de login inválida para email '{}'", requestBody.getEmail(), ex);
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+            .body("Credenciais inválidas");
+      }
+      if (causa instanceof RejectedExecutionException ex) {
+        log.warn("🛑 Login descartado para email '{}': {}", requestBody.getEmail(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body("Serviço de login indisponível. Tente novamente em instantes.");
+      }
+      throw new CompletionException(causa);
+    });
+  }
 
-      log.info("Autenticação bem-sucedida para email '{}'", requestBody.getEmail());
-      return ResponseEntity.ok(new LoginView(token));
+  /**
+   * Endpoint que retorna os acertos e faltas do cache de tokens verificados.
+   *
+   * @return o estado do cache de tokens
+   */
+  @GetMapping("/tokens/cache")
+  public TokenCacheStats cacheDeTokens() {
+    return jwtUtil.getCacheStats();
+  }
 
-    } catch (AuthenticationException ex) {
-      log.warn("Tentativa de login inválida para email '{}'", requestBody.getEmail(), ex);
-      return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-          .body("Credenciais inválidas");
-    }
+  /**
+   * Endpoint que retorna a fila, as recusas e a latência dos logins.
+   *
+   * @return o estado do executor de logins
+   */
+  @GetMapping("/login/estatisticas")
+  public LoginStats estatisticasDeLogin() {
+    return loginService.stats();
   }
 }
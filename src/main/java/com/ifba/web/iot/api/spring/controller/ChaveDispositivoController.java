@@ -0,0 +1,73 @@
+package com.ifba.web.iot.api.spring.controller;
+
+import java.security.Principal;
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ifba.web.iot.api.spring.controller.dto.form.ChaveDispositivoForm;
+import com.ifba.web.iot.api.spring.controller.dto.view.ChaveDispositivoView;
+import com.ifba.web.iot.api.spring.security.ChaveDispositivoFilter;
+import com.ifba.web.iot.api.spring.service.ChaveDispositivoService;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Controlador REST das chaves de acesso dos dispositivos do usuário.
+ * <p>
+ * Um gateway envia a chave no cabeçalho {@value ChaveDispositivoFilter#CABECALHO}
+ * ao publicar leituras, sem login nem renovação de token.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/dispositivos/chaves")
+@RequiredArgsConstructor
+public class ChaveDispositivoController {
+
+  private final ChaveDispositivoService chaveService;
+
+  /**
+   * @param principal O usuário autenticado.
+   * @return As chaves do usuário, ativas ou revogadas, sem os segredos.
+   */
+  @GetMapping
+  public List<ChaveDispositivoView> listar(Principal principal) {
+    return chaveService.listar(principal.getName());
+  }
+
+  /**
+   * Cria uma chave para um dispositivo.
+   *
+   * @param form      O nome do dispositivo.
+   * @param principal O usuário autenticado.
+   * @return A chave criada (201); o valor completo só é exibido nesta resposta.
+   */
+  @PostMapping
+  public ResponseEntity<ChaveDispositivoView> criar(@RequestBody @Valid ChaveDispositivoForm form,
+      Principal principal) {
+    return ResponseEntity.status(HttpStatus.CREATED).body(chaveService.criar(principal.getName(), form.getNome()));
+  }
+
+  /**
+   * Revoga uma chave.
+   *
+   * @param id        O ID da chave.
+   * @param principal O usuário autenticado.
+   * @return 204, ou 404 se a chave não existir ou não for do usuário.
+   */
+  @DeleteMapping("/{id}")
+  public ResponseEntity<Void> revogar(@PathVariable Long id, Principal principal) {
+    return chaveService.revogar(principal.getName(), id)
+        ? ResponseEntity.noContent().build()
+        : ResponseEntity.notFound().build();
+  }
+}
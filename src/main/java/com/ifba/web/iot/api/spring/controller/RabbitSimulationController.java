@@ -1,12 +1,27 @@
 package com.ifba.web.iot.api.spring.controller;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ifba.web.iot.api.spring.controller.dto.view.ProdutorAmqpView;
+import com.ifba.web.iot.api.spring.protocolos.mqtt.InboundPoolStats;
+import com.ifba.web.iot.api.spring.protocolos.mqtt.LaneStats;
+import com.ifba.web.iot.api.spring.protocolos.mqtt.MqttInboundPool;
+import com.ifba.web.iot.api.spring.protocolos.mqtt.PartitionedLaneChannel;
+import com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation.InMemoryQueueStats;
 import com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation.InMemoryRabbitListener;
 import com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation.InMemoryRabbitTemplate;
+import com.ifba.web.iot.api.spring.service.AmqpBatchProducer;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,31 +36,89 @@ import lombok.extern.slf4j.Slf4j;
 @RequestMapping("/api/rabbit")
 public class RabbitSimulationController {
 
+  /** Tempo máximo de espera pela resposta do listener. */
+  private static final Duration TIMEOUT_RESPOSTA = Duration.ofSeconds(2);
+
   private final InMemoryRabbitTemplate rabbitTemplate;
   private final InMemoryRabbitListener rabbitListener;
+  private final AmqpBatchProducer amqpProducer;
+  private final PartitionedLaneChannel mqttInputChannel;
+  private final MqttInboundPool mqttInbound;
 
   /**
    * Endpoint que envia uma mensagem para a fila simulada e retorna a
    * mensagem recebida pelo listener.
+   * <p>
+   * A resposta do listener é correlacionada à mensagem enviada, então o
+   * retorno é sempre o processamento desta mensagem, assim que ele termina.
+   * </p>
    *
    * @param msg a mensagem a ser enviada
-   * @return mensagem confirmando o envio e a recepção pelo listener
-   * @throws InterruptedException caso ocorra uma interrupção durante o {@code Thread.sleep}
+   * @return mensagem confirmando o envio e a recepção pelo listener; 503 se a
+   *         fila estiver cheia ou 504 se o listener não responder a tempo
+   * @throws InterruptedException caso a espera pela resposta seja interrompida
    */
   @PostMapping("/send")
-  public String sendMessage(@RequestParam String msg) throws InterruptedException {
-    rabbitTemplate.send("minha-fila", msg);
+  public ResponseEntity<String> sendMessage(@RequestParam String msg) throws InterruptedException {
+    String fila = rabbitListener.getQueue();
+    log.info("📤 Enviando mensagem para a fila '{}': {}", fila, msg);
 
-    log.info("📤 Enviando mensagem para a fila 'minha-fila': {}", msg);
+    try {
+      String received = rabbitTemplate.sendAndReceive(fila, msg, TIMEOUT_RESPOSTA);
+      log.info("📨 Mensagem processada pelo listener: {}", received);
+      return ResponseEntity.ok("Mensagem enviada: " + msg + "\nMensagem recebida pelo listener: " + received);
+    } catch (TimeoutException e) {
+      log.warn("⏳ Listener não respondeu em {} ms.", TIMEOUT_RESPOSTA.toMillis());
+      return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+          .body("Mensagem enviada: " + msg + "\nO listener não respondeu a tempo.");
+    } catch (IllegalStateException | AmqpException e) {
+      log.warn("🗑️ Mensagem não enfileirada: {}", e.getMessage());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+          .body("Mensagem não enviada: " + e.getMessage());
+    }
+  }
 
-    // Dá um tempinho para o listener "consumir"
-    Thread.sleep(200);
+  /**
+   * Endpoint que lista as filas simuladas com sua profundidade, capacidade e
+   * mensagens descartadas.
+   *
+   * @return o estado de cada fila
+   */
+  @GetMapping("/filas")
+  public List<InMemoryQueueStats> filas() {
+    return rabbitTemplate.stats();
+  }
 
-    String received = rabbitListener.getLastReceivedMessage();
-    log.info("📨 Última mensagem processada pelo listener: {}", received);
+  /**
+   * Endpoint que retorna as métricas do produtor AMQP: mensagens enviadas,
+   * confirmadas, recusadas e em voo, e a latência das confirmações.
+   *
+   * @return as métricas do produtor
+   */
+  @GetMapping("/produtor")
+  public ProdutorAmqpView produtor() {
+    return amqpProducer.getMetricas();
+  }
 
-    // Retorna a última mensagem recebida pelo listener
-    return "Mensagem enviada: " + msg + "\nMensagem recebida pelo listener: " + received;
+  /**
+   * Endpoint que lista as faixas da ponte MQTT → AMQP com sua profundidade e
+   * mensagens processadas.
+   *
+   * @return o estado de cada faixa
+   */
+  @GetMapping("/ponte/faixas")
+  public List<LaneStats> faixasMqtt() {
+    return mqttInputChannel.stats();
   }
 
+  /**
+   * Endpoint que lista as conexões MQTT de entrada com as mensagens recebidas
+   * por cada uma e a vazão somada.
+   *
+   * @return o estado das conexões
+   */
+  @GetMapping("/ponte/conexoes")
+  public InboundPoolStats conexoesMqtt() {
+    return mqttInbound.stats();
+  }
 }
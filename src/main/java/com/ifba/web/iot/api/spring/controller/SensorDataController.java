@@ -2,27 +2,55 @@ package com.ifba.web.iot.api.spring.controller;
 
 import org.apache.commons.lang3.tuple.Triple;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import com.ifba.web.iot.api.spring.protocolos.amqp.AmqpPublisher;
 import com.ifba.web.iot.api.spring.controller.dto.update.SensorUpdateDTO;
+import com.ifba.web.iot.api.spring.controller.dto.view.AgregadoView;
+import com.ifba.web.iot.api.spring.controller.dto.view.HistoricoView;
 import com.ifba.web.iot.api.spring.controller.dto.view.SensorView;
+import com.ifba.web.iot.api.spring.controller.dto.view.UltimaLeituraView;
 import com.ifba.web.iot.api.spring.model.Alert;
+import com.ifba.web.iot.api.spring.model.IntervaloAgregacao;
 import com.ifba.web.iot.api.spring.model.SensorData;
+import com.ifba.web.iot.api.spring.model.SensorReading;
+import com.ifba.web.iot.api.spring.model.StatusAlerta;
+import com.ifba.web.iot.api.spring.model.UltimaLeitura;
 import com.ifba.web.iot.api.spring.protocolos.mqtt.MqttPublisher;
 import com.ifba.web.iot.api.spring.service.AlertService;
+import com.ifba.web.iot.api.spring.service.SensorAggregationService;
 import com.ifba.web.iot.api.spring.service.SensorDataService;
+import com.ifba.web.iot.api.spring.service.SensorIngestionService;
+import com.ifba.web.iot.api.spring.service.SensorStreamService;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
-import java.text.DecimalFormat;
-import java.util.HashMap;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controlador REST responsável pelo gerenciamento das leituras de sensores.
@@ -35,6 +63,15 @@ public class SensorDataController {
     @Autowired
     private SensorDataService sensorService;
 
+    @Autowired
+    private SensorIngestionService ingestionService;
+
+    @Autowired
+    private SensorAggregationService aggregationService;
+
+    @Autowired
+    private SensorStreamService streamService;
+
     @Autowired
     private AmqpPublisher amqpPublisher;
 
@@ -44,8 +81,15 @@ public class SensorDataController {
     @Autowired
     private AlertService alertService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Retorna todas as leituras de sensores registradas no sistema.
+     * <p>
+     * Carrega a tabela inteira; para consultas rotineiras prefira
+     * {@code GET /api/sensores/historico}, que é paginado.
+     * </p>
      *
      * @return Lista de objetos {@link SensorData}.
      */
@@ -54,18 +98,183 @@ public class SensorDataController {
         return sensorService.findAll();
     }
 
+    /**
+     * Retorna uma página do histórico de leituras do usuário autenticado.
+     * <p>
+     * Filtra pela janela {@code [de, ate)} e, opcionalmente, pelo tipo de
+     * sensor. A resposta traz no máximo {@code limite} leituras, da mais recente
+     * para a mais antiga, e um {@code proximoCursor} para buscar a página
+     * seguinte. Exemplo:
+     * {@code /api/sensores/historico?sensor=temperatura&de=2025-01-01T00:00:00&limite=100}
+     * </p>
+     *
+     * @param sensor    Tipo do sensor (opcional).
+     * @param de        Início da janela, inclusivo (opcional).
+     * @param ate       Fim da janela, exclusivo (opcional, padrão: agora).
+     * @param cursor    Cursor retornado pela página anterior (opcional).
+     * @param limite    Tamanho da página (padrão 100, máximo 500).
+     * @param principal Usuário autenticado.
+     * @return {@link ResponseEntity} com a página de leituras, ou 400 se os
+     *         parâmetros forem inválidos.
+     */
+    @GetMapping("/historico")
+    public ResponseEntity<HistoricoView> getHistorico(
+            @RequestParam(required = false) String sensor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limite,
+            Principal principal) {
+        try {
+            return ResponseEntity.ok(sensorService.buscarHistorico(principal.getName(), sensor, de, ate, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Consulta de histórico inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Retorna estatísticas das leituras do usuário autenticado agrupadas por
+     * sensor e intervalo de tempo.
+     * <p>
+     * Para cada intervalo, informa quantidade, mínimo, máximo, média e os
+     * percentis 50 e 95, calculados no servidor. Gráficos de vários dias
+     * recebem assim um ponto por intervalo em vez de todas as leituras brutas.
+     * Exemplo: {@code /api/sensores/agregados?intervalo=1h&sensor=temperatura}
+     * </p>
+     *
+     * @param intervalo Tamanho do intervalo: {@code 1m}, {@code 5m}, {@code 1h}
+     *                  ou {@code 1d} (padrão {@code 1h}).
+     * @param sensor    Tipo do sensor (opcional).
+     * @param de        Início da janela, inclusivo (opcional, padrão: 24 horas
+     *                  antes do fim).
+     * @param ate       Fim da janela, exclusivo (opcional, padrão: agora).
+     * @param principal Usuário autenticado.
+     * @return {@link ResponseEntity} com a lista de agregados, ou 400 se os
+     *         parâmetros forem inválidos.
+     */
+    @GetMapping("/agregados")
+    public ResponseEntity<List<AgregadoView>> getAgregados(
+            @RequestParam(defaultValue = "1h") String intervalo,
+            @RequestParam(required = false) String sensor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            Principal principal) {
+        try {
+            LocalDateTime fim = (ate != null) ? ate : LocalDateTime.now();
+            LocalDateTime inicio = (de != null) ? de : fim.minusDays(1);
+            return ResponseEntity.ok(aggregationService.agregar(principal.getName(), sensor,
+                    IntervaloAgregacao.doCodigo(intervalo), inicio, fim));
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Consulta de agregados inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Exporta o histórico de leituras do usuário autenticado em fluxo contínuo.
+     * <p>
+     * As leituras são escritas linha a linha diretamente na resposta, à medida
+     * que são lidas do banco, nos formatos NDJSON (um objeto JSON por linha) ou
+     * CSV. O consumo de memória não depende da quantidade de linhas. Trechos já
+     * removidos pela retenção saem dos agregados, sem ID. Exemplo:
+     * {@code /api/sensores/exportar?formato=csv&sensor=umidade}
+     * </p>
+     *
+     * @param formato   {@code ndjson} (padrão) ou {@code csv}.
+     * @param sensor    Tipo do sensor (opcional).
+     * @param de        Início da janela, inclusivo (opcional).
+     * @param ate       Fim da janela, exclusivo (opcional, padrão: agora).
+     * @param principal Usuário autenticado.
+     * @return {@link ResponseEntity} com o corpo em fluxo, ou 400 para um formato
+     *         desconhecido.
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(required = false) String sensor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            Principal principal) {
+        String email = principal.getName();
+        log.info("📤 Exportação de leituras solicitada por '{}' no formato {}", email, formato);
+
+        if ("csv".equalsIgnoreCase(formato)) {
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"leituras.csv\"")
+                    .body(out -> exportarCsv(out, email, sensor, de, ate));
+        }
+        if ("ndjson".equalsIgnoreCase(formato)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"leituras.ndjson\"")
+                    .body(out -> exportarNdjson(out, email, sensor, de, ate));
+        }
+        return ResponseEntity.badRequest().build();
+    }
+
+    private void exportarNdjson(OutputStream out, String email, String sensor, LocalDateTime de, LocalDateTime ate)
+            throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.setRootValueSeparator(new SerializedString("\n"));
+            long total = sensorService.exportar(email, sensor, de, ate, leitura -> {
+                try {
+                    writer.writeValue(gen, leitura);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (total > 0) {
+                gen.writeRaw('\n');
+            }
+        }
+    }
+
+    private void exportarCsv(OutputStream out, String email, String sensor, LocalDateTime de, LocalDateTime ate)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,sensor,valor,unidade,timestamp\n");
+        sensorService.exportar(email, sensor, de, ate, leitura -> {
+            try {
+                writer.append((leitura.id() != null) ? String.valueOf(leitura.id()) : "").append(',')
+                        .append(campoCsv(leitura.sensor())).append(',')
+                        .append(String.valueOf(leitura.valor())).append(',')
+                        .append(campoCsv(leitura.unidade())).append(',')
+                        .append(String.valueOf(leitura.timestamp())).append('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
     /**
      * Retorna o histórico de todos os alertas registrados no sistema.
      * <p>
      * Este endpoint utiliza o serviço {@link AlertService} para buscar todos
-     * os registros da tabela de alertas.
+     * os registros da tabela de alertas. Cada alerta representa um episódio,
+     * com abertura e, quando já normalizado, fechamento.
      * </p>
      *
+     * @param status Filtro opcional pela situação ({@code ABERTO} ou
+     *               {@code FECHADO}).
      * @return Lista de objetos {@link Alert}.
      */
     @GetMapping("/alertas")
-    public List<Alert> getAllAlerts() {
-        return alertService.findAll();
+    public List<Alert> getAllAlerts(@RequestParam(required = false) StatusAlerta status) {
+        return (status != null) ? alertService.findByStatus(status) : alertService.findAll();
     }
 
     /**
@@ -90,6 +299,12 @@ public class SensorDataController {
      * Cria uma nova leitura de sensor, processa possíveis alertas e envia
      * a leitura via protocolo apropriado (AMQP ou MQTT).
      *
+     * <p>
+     * Quando a ingestão em lote está ativa e o buffer está cheio, a leitura é
+     * recusada com status HTTP 503 (Service Unavailable) para que o cliente
+     * tente novamente.
+     * </p>
+     *
      * @param sensorData Dados da leitura do sensor recebidos no corpo da
      *                   requisição.
      * @return {@link ResponseEntity} com uma mensagem de resposta e os dados
@@ -99,7 +314,13 @@ public class SensorDataController {
     public ResponseEntity<SensorView> create(@RequestBody SensorData sensorData, Principal principal) {
         log.info("📥 Recebida solicitação para criação de dados do sensor...");
 
-        Triple<String, SensorData, String> result = sensorService.saveAndProcess(sensorData, principal);
+        Triple<String, SensorData, String> result;
+        try {
+            result = ingestionService.ingerir(sensorData, principal);
+        } catch (RejectedExecutionException e) {
+            log.warn("🚦 Leitura recusada: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
         log.info("📌 Tipo: {} | Valor: {} | Unidade (pré-processamento): {}",
                 sensorData.getSensor(), sensorData.getValor(), sensorData.getUnidade());
 
@@ -196,6 +417,9 @@ public class SensorDataController {
 
     /**
      * Envia uma leitura de sensor manualmente via protocolo AMQP.
+     * <p>
+     * A leitura é apenas publicada; ela não é gravada no banco de dados.
+     * </p>
      *
      * @param sensorData Dados da leitura do sensor a ser enviada.
      * @return {@link ResponseEntity} com confirmação do envio via AMQP.
@@ -203,11 +427,15 @@ public class SensorDataController {
     @PostMapping("/enviar/amqp")
     public ResponseEntity<String> enviarAmqp(@RequestBody SensorData sensorData) {
         log.info("📥 Recebida solicitação para envio de dados do sensor via AMQP...");
-        return ResponseEntity.ok(amqpPublisher.publish(sensorData));
+        sensorData.setTimestamp(LocalDateTime.now());
+        return ResponseEntity.ok(amqpPublisher.publish(SensorReading.of(sensorData)));
     }
 
     /**
      * Envia uma leitura de sensor manualmente via protocolo MQTT.
+     * <p>
+     * A leitura é apenas publicada; ela não é gravada no banco de dados.
+     * </p>
      *
      * @param sensorData Dados da leitura do sensor a ser enviada.
      * @return {@link ResponseEntity} com confirmação do envio via MQTT.
@@ -215,27 +443,67 @@ public class SensorDataController {
     @PostMapping("/enviar/mqtt")
     public ResponseEntity<String> enviarMqtt(@RequestBody SensorData sensorData) {
         log.info("📥 Recebida solicitação para envio de dados do sensor via MQTT...");
-        return ResponseEntity.ok(mqttPublisher.publish(sensorData));
+        sensorData.setTimestamp(LocalDateTime.now());
+        return ResponseEntity.ok(mqttPublisher.publish(SensorReading.of(sensorData)));
     }
 
-    // Endpoint para retornar os últimos dados com alerta
+    /**
+     * Retorna a leitura mais recente, com o valor formatado e a mensagem de
+     * alerta.
+     * <p>
+     * Servida pelo cache de últimas leituras, sem acesso ao banco de dados.
+     * </p>
+     *
+     * @return Os dados da leitura mais recente, ou um objeto vazio se não houver
+     *         leituras.
+     */
     @GetMapping("/latest")
-    public Map<String, Object> getLatest() {
-        SensorData latest = sensorService.findLatest();
-        Map<String, Object> response = new HashMap<>();
-        if (latest != null) {
-            String alerta = sensorService.verificarAlerta(latest);
-
-            // Formata o valor para duas casas decimais antes de enviar para o front-end
-            DecimalFormat df = new DecimalFormat("#.##");
-            String valorFormatado = df.format(latest.getValor());
-
-            response.put("sensor", latest.getSensor());
-            response.put("valor", valorFormatado);
-            response.put("unidade", latest.getUnidade());
-            response.put("alertMessage", alerta);
-            response.put("timestamp", latest.getTimestamp());
+    public ResponseEntity<Object> getLatest() {
+        UltimaLeitura latest = sensorService.buscarUltimaLeitura();
+        return ResponseEntity.ok(latest != null ? UltimaLeituraView.of(latest) : Map.of());
+    }
+
+    /**
+     * Retorna a leitura mais recente de cada sensor de uma só vez.
+     *
+     * @param meus      Se {@code true}, considera apenas as leituras do usuário
+     *                  autenticado.
+     * @param principal O usuário autenticado.
+     * @return Uma lista com a última leitura de cada sensor, no mesmo formato de
+     *         {@code /latest}.
+     */
+    @GetMapping("/latest/todos")
+    public List<UltimaLeituraView> getLatestTodos(@RequestParam(defaultValue = "false") boolean meus,
+            Principal principal) {
+        String email = meus ? principal.getName() : null;
+        return sensorService.buscarUltimasLeituras(email).stream().map(UltimaLeituraView::of).toList();
+    }
+
+    /**
+     * Abre um canal de Server-Sent Events com as leituras gravadas.
+     * <p>
+     * Logo após a conexão, envia a última leitura de cada sensor; depois, cada
+     * nova leitura é enviada como um evento {@code leitura}, no mesmo formato de
+     * {@code /latest}, assim que é gravada. Comentários de heartbeat mantêm a
+     * conexão aberta.
+     * </p>
+     *
+     * @param meus      Se {@code true}, envia apenas as leituras do usuário
+     *                  autenticado.
+     * @param principal O usuário autenticado.
+     * @return O {@link SseEmitter} da conexão, ou 503 se o limite de conexões
+     *         foi atingido.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestParam(defaultValue = "false") boolean meus,
+            Principal principal) {
+        String email = meus ? principal.getName() : null;
+        Long usuarioId = meus ? sensorService.buscarUsuarioId(email) : null;
+        try {
+            return ResponseEntity.ok(streamService.assinar(usuarioId, sensorService.buscarUltimasLeituras(email)));
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ Conexão de stream recusada: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
-        return response;
     }
 }
@@ -0,0 +1,42 @@
+package com.ifba.web.iot.api.spring.controller.dto.form;
+
+import com.ifba.web.iot.api.spring.model.OperadorAlerta;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+/**
+ * DTO para cadastro e alteração de uma regra de alerta.
+ */
+@Data
+public class AlertRuleForm {
+
+  @NotBlank(message = "O sensor é obrigatório")
+  private String sensor;
+
+  @NotNull(message = "O operador é obrigatório")
+  private OperadorAlerta operador;
+
+  private double limite;
+
+  /** Obrigatório para os operadores de intervalo. */
+  private Double limiteSuperior;
+
+  @NotBlank(message = "A mensagem é obrigatória")
+  private String mensagem;
+
+  private int prioridade;
+
+  @PositiveOrZero(message = "O tempo sustentado não pode ser negativo")
+  private int sustentadoSegundos;
+
+  @PositiveOrZero(message = "A janela não pode ser negativa")
+  private int janelaSegundos;
+
+  @PositiveOrZero(message = "A histerese não pode ser negativa")
+  private double histerese;
+
+  private boolean ativa = true;
+}
@@ -0,0 +1,16 @@
+package com.ifba.web.iot.api.spring.controller.dto.form;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * DTO para a criação de uma chave de dispositivo.
+ */
+@Data
+public class ChaveDispositivoForm {
+
+  @NotBlank(message = "O nome do dispositivo é obrigatório")
+  @Size(max = 100, message = "O nome do dispositivo deve ter no máximo 100 caracteres")
+  private String nome;
+}
@@ -0,0 +1,44 @@
+package com.ifba.web.iot.api.spring.controller.dto.view;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * DTO com as estatísticas das leituras de um sensor em um intervalo de tempo.
+ */
+@Getter
+@AllArgsConstructor
+public class AgregadoView {
+
+  /** Tipo do sensor (ex: temperatura, umidade). */
+  private String sensor;
+
+  /** Início do intervalo (inclusivo). */
+  private LocalDateTime inicio;
+
+  /** Quantidade de leituras no intervalo. */
+  private long quantidade;
+
+  private double minimo;
+  private double maximo;
+  private double media;
+
+  /** Mediana dos valores (percentil 50, com interpolação linear). */
+  private double p50;
+
+  /** Percentil 95 dos valores (com interpolação linear). */
+  private double p95;
+
+  /**
+   * {@code true} se {@code p50} e {@code p95} foram combinados de agregados
+   * menores (média ponderada dos percentis) e são apenas uma aproximação.
+   */
+  private boolean percentisAproximados;
+
+  public AgregadoView(String sensor, LocalDateTime inicio, long quantidade, double minimo, double maximo,
+      double media, double p50, double p95) {
+    this(sensor, inicio, quantidade, minimo, maximo, media, p50, p95, false);
+  }
+}
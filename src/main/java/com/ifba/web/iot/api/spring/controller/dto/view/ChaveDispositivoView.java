@@ -0,0 +1,32 @@
+package com.ifba.web.iot.api.spring.controller.dto.view;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * DTO de uma chave de dispositivo. O segredo nunca é devolvido; a chave
+ * completa só aparece na resposta da criação.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChaveDispositivoView {
+
+  private Long id;
+  private String nome;
+
+  /** Parte pública da chave. */
+  private String prefixo;
+
+  private LocalDateTime criadaEm;
+
+  /** Momento da revogação, ausente para chaves ativas. */
+  private LocalDateTime revogadaEm;
+
+  /** A chave completa, presente apenas na criação. */
+  private String chave;
+}
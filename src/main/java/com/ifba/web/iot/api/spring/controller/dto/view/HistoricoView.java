@@ -0,0 +1,41 @@
+package com.ifba.web.iot.api.spring.controller.dto.view;
+
+import java.util.List;
+
+import com.ifba.web.iot.api.spring.model.SensorData;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * DTO para uma página do histórico de leituras, paginado por cursor.
+ * <p>
+ * Para obter a página seguinte, o cliente repete a consulta informando o
+ * {@code proximoCursor}. Quando ele é {@code null}, não há mais leituras na
+ * janela solicitada.
+ * </p>
+ * <p>
+ * Na última página, {@code agregados} traz os intervalos da janela cujas
+ * leituras brutas já foram removidas pela retenção.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public class HistoricoView {
+
+  /** Leituras da página, da mais recente para a mais antiga. */
+  private List<SensorData> leituras;
+
+  /** Cursor opaco da próxima página, ou {@code null} na última página. */
+  private String proximoCursor;
+
+  /**
+   * Agregados anteriores às leituras brutas guardadas, do mais recente para o
+   * mais antigo; vazio exceto na última página.
+   */
+  private List<AgregadoView> agregados;
+
+  public HistoricoView(List<SensorData> leituras, String proximoCursor) {
+    this(leituras, proximoCursor, List.of());
+  }
+}
@@ -0,0 +1,37 @@
+package com.ifba.web.iot.api.spring.controller.dto.view;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * DTO com as métricas do produtor AMQP em lote.
+ */
+@Getter
+@AllArgsConstructor
+public class ProdutorAmqpView {
+
+  /** Mensagens entregues ao broker. */
+  private long enviadas;
+
+  /** Mensagens confirmadas pelo broker (ack). */
+  private long confirmadas;
+
+  /** Mensagens recusadas pelo broker (nack). */
+  private long rejeitadas;
+
+  /** Mensagens cuja publicação falhou ou cuja confirmação não chegou a tempo. */
+  private long falhas;
+
+  /** Mensagens publicadas aguardando confirmação. */
+  private int emVoo;
+
+  /** Mensagens aguardando a formação de um lote. */
+  private int aguardandoLote;
+
+  /** Latências de confirmação das últimas mensagens, em microssegundos. */
+  private long latenciaP50Us;
+
+  private long latenciaP99Us;
+
+  private long latenciaMaxUs;
+}
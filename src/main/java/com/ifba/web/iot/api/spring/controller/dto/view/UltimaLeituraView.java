@@ -0,0 +1,34 @@
+package com.ifba.web.iot.api.spring.controller.dto.view;
+
+import java.time.LocalDateTime;
+
+import com.ifba.web.iot.api.spring.model.UltimaLeitura;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * DTO da leitura mais recente de um sensor, como exibida no painel.
+ */
+@Getter
+@AllArgsConstructor
+public class UltimaLeituraView {
+
+  /** Tipo do sensor (ex: temperatura, umidade). */
+  private String sensor;
+
+  /** Valor formatado com no máximo duas casas decimais. */
+  private String valor;
+
+  private String unidade;
+
+  /** Mensagem de alerta, ou {@code null} se a leitura estiver normal. */
+  private String alertMessage;
+
+  private LocalDateTime timestamp;
+
+  public static UltimaLeituraView of(UltimaLeitura leitura) {
+    return new UltimaLeituraView(leitura.sensor(), leitura.valorFormatado(), leitura.unidade(),
+        leitura.alertMessage(), leitura.timestamp());
+  }
+}
@@ -4,16 +4,26 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import io.jsonwebtoken.JwtException;
+
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Filtro de autenticação JWT que intercepta todas as requisições HTTP
@@ -32,13 +42,48 @@ import java.io.IOException;
  * requisição
  * HTTP seja autenticada antes de acessar recursos protegidos.
  * </p>
+ * <p>
+ * As requisições de máquinas (gateways de sensores), identificadas pelos
+ * caminhos {@code POST} de {@code jwt.filtro.enxuto.caminhos}, seguem um
+ * caminho enxuto: a autenticação não carrega os detalhes da requisição e um
+ * token inválido é recusado na hora com 401. Os tokens inválidos são
+ * registrados sem stack trace e no máximo uma vez por
+ * {@code jwt.filtro.log-intervalo-ms}, com a contagem dos omitidos.
+ * </p>
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String BEARER = "Bearer ";
+
     private final JwtUtil jwtUtil;
+    private final RequestMatcher caminhosEnxutos;
+    private final long logIntervaloNanos;
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
+    private final AtomicLong proximoLog = new AtomicLong(System.nanoTime());
+    private final LongAdder invalidosOmitidos = new LongAdder();
+
+    /**
+     * @param jwtUtil         Utilitário de validação dos tokens.
+     * @param caminhosEnxutos Padrões de caminho ({@code POST}) das requisições
+     *                        de máquinas.
+     * @param logIntervaloMs  Intervalo mínimo entre registros de token inválido.
+     */
+    public JwtAuthenticationFilter(JwtUtil jwtUtil,
+            @Value("${jwt.filtro.enxuto.caminhos:/api/sensores,/api/sensores/enviar/**}") String[] caminhosEnxutos,
+            @Value("${jwt.filtro.log-intervalo-ms:10000}") long logIntervaloMs) {
+        this.jwtUtil = jwtUtil;
+        PathPatternRequestMatcher.Builder builder = PathPatternRequestMatcher.withDefaults();
+        List<RequestMatcher> matchers = Arrays.stream(caminhosEnxutos)
+                .map(String::trim)
+                .filter(caminho -> !caminho.isEmpty())
+                .map(caminho -> (RequestMatcher) builder.matcher(HttpMethod.POST, caminho))
+                .toList();
+        this.caminhosEnxutos = matchers.isEmpty() ? request -> false : new OrRequestMatcher(matchers);
+        this.logIntervaloNanos = logIntervaloMs * 1_000_000;
+    }
 
     /**
      * Intercepta a requisição HTTP e valida o token JWT.
@@ -60,21 +105,41 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
+        if (authHeader != null && authHeader.startsWith(BEARER)) {
+            String token = authHeader.substring(BEARER.length());
+            boolean enxuto = caminhosEnxutos.matches(request);
             try {
                 String email = jwtUtil.validateToken(token);
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(email,
                         null, null);
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                if (!enxuto) {
+                    authentication.setDetails(detailsSource.buildDetails(request));
+                }
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-            } catch (Exception e) {
-                logger.warn("Token JWT inválido: {}", e);
+            } catch (JwtException | IllegalArgumentException e) {
+                registrarInvalido(request, e);
+                if (enxuto) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    return;
+                }
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    /** Registra um token inválido, no máximo uma vez por intervalo. */
+    private void registrarInvalido(HttpServletRequest request, RuntimeException e) {
+        long agora = System.nanoTime();
+        long proximo = proximoLog.get();
+        if (agora - proximo < 0 || !proximoLog.compareAndSet(proximo, agora + logIntervaloNanos)) {
+            invalidosOmitidos.increment();
+            return;
+        }
+        log.warn("Token JWT inválido em {} {}: {} ({} omitidos desde o último aviso)", request.getMethod(),
+                request.getRequestURI(), e.getClass().getSimpleName() + ": " + e.getMessage(),
+                invalidosOmitidos.sumThenReset());
+    }
 }
@@ -2,10 +2,19 @@ package com.ifba.web.iot.api.spring.jwt;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Utilitário para geração, validação e extração de informações de tokens JWT
@@ -24,12 +33,41 @@ import java.util.Date;
  * Os tokens gerados possuem validade configurada pelo atributo
  * {@code expiration} (1 hora por padrão).
  * </p>
+ * <p>
+ * A validação usa um único parser pré-construído (imutável e seguro entre
+ * threads) e guarda os tokens já verificados em um cache limitado
+ * ({@code jwt.cache.capacidade}), indexado pelo SHA-256 do token e válido até
+ * o {@code exp} de cada um: o mesmo token, reenviado a cada consulta do
+ * painel, só paga a verificação da assinatura e a leitura das claims uma vez.
+ * </p>
  */
 @Component
 public class JwtUtil {
 
   private final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
   private final long expiration = 1000 * 60 * 60; // 1 hora
+  private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+  private final int capacidadeCache;
+  private final Map<Digest, TokenVerificado> verificados = new ConcurrentHashMap<>();
+  private final LongAdder acertos = new LongAdder();
+  private final LongAdder faltas = new LongAdder();
+
+  private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 indisponível", e);
+    }
+  });
+
+  /**
+   * @param capacidadeCache Quantidade máxima de tokens verificados em cache
+   *                        ({@code 0} desativa o cache).
+   */
+  public JwtUtil(@Value("${jwt.cache.capacidade:10000}") int capacidadeCache) {
+    this.capacidadeCache = capacidadeCache;
+  }
 
   /**
    * Gera um token JWT assinado para o usuário informado.
@@ -61,29 +99,76 @@ public class JwtUtil {
    * @throws JwtException Se o token for inválido ou expirado
    */
   public String validateToken(String token) throws JwtException {
-    Jws<Claims> claims = Jwts.parserBuilder()
-        .setSigningKey(key)
-        .build()
-        .parseClaimsJws(token);
-    return claims.getBody().getSubject();
+    if (capacidadeCache <= 0) {
+      return parser.parseClaimsJws(token).getBody().getSubject();
+    }
+    Digest digest = Digest.of(token);
+    TokenVerificado verificado = verificados.get(digest);
+    if (verificado != null) {
+      if (System.currentTimeMillis() < verificado.expiraEm()) {
+        acertos.increment();
+        return verificado.subject();
+      }
+      verificados.remove(digest, verificado);
+    }
+    faltas.increment();
+
+    Claims claims = parser.parseClaimsJws(token).getBody();
+    if (claims.getExpiration() != null) {
+      guardar(digest, new TokenVerificado(claims.getSubject(), claims.getExpiration().getTime()));
+    }
+    return claims.getSubject();
+  }
+
+  /**
+   * @return Acertos, faltas e ocupação do cache de tokens verificados.
+   */
+  public TokenCacheStats getCacheStats() {
+    return new TokenCacheStats(acertos.sum(), faltas.sum(), verificados.size(), capacidadeCache);
+  }
+
+  /**
+   * Guarda um token verificado. Com o cache cheio, descarta primeiro os
+   * expirados e, se ainda faltar espaço, uma entrada qualquer.
+   */
+  private void guardar(Digest digest, TokenVerificado verificado) {
+    if (verificados.size() >= capacidadeCache) {
+      long agora = System.currentTimeMillis();
+      verificados.values().removeIf(v -> v.expiraEm() <= agora);
+      Iterator<Digest> iterator = verificados.keySet().iterator();
+      while (verificados.size() >= capacidadeCache && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+    verificados.put(digest, verificado);
   }
 
   /**
    * Extrai o email ou username diretamente do token JWT.
    * <p>
-   * Este método não valida explicitamente o token, apenas obtém o "subject".
+   * Equivale a {@link #validateToken(String)}: a assinatura e a validade são
+   * verificadas (ou atendidas pelo cache) antes de obter o "subject".
    * </p>
    *
    * @param token Token JWT
    * @return Email ou username do usuário contido no token
    */
   public String getEmailFromToken(String token) {
-    return Jwts.parserBuilder()
-        .setSigningKey(key) // define a chave
-        .build() // constrói o parser
-        .parseClaimsJws(token)
-        .getBody()
-        .getSubject();
+    return validateToken(token);
+  }
+
+  /** Subject de um token verificado e o instante (ms) em que ele expira. */
+  private record TokenVerificado(String subject, long expiraEm) {
   }
 
+  /** SHA-256 de um token; o cache não guarda o token em si. */
+  private record Digest(long a, long b, long c, long d) {
+
+    private static Digest of(String token) {
+      MessageDigest sha256 = SHA256.get();
+      ByteBuffer hash = ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+      return new Digest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+  }
 }
@@ -0,0 +1,12 @@
+package com.ifba.web.iot.api.spring.jwt;
+
+/**
+ * Estado do cache de tokens verificados do {@link JwtUtil}.
+ *
+ * @param hits     Validações atendidas pelo cache.
+ * @param misses   Validações que verificaram a assinatura e leram as claims.
+ * @param size     Tokens em cache.
+ * @param capacity Capacidade do cache.
+ */
+public record TokenCacheStats(long hits, long misses, int size, int capacity) {
+}
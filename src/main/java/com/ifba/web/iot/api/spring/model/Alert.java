@@ -10,6 +10,10 @@ import java.time.LocalDateTime;
 /**
  * Entidade que representa um alerta gerado por anomalia nos dados de um sensor.
  * Os alertas são persistidos no banco de dados para um histórico de eventos.
+ * <p>
+ * Cada linha representa um episódio: ela é criada quando o alerta abre e
+ * atualizada uma única vez, quando ele fecha.
+ * </p>
  */
 @Data
 @NoArgsConstructor
@@ -46,10 +50,32 @@ public class Alert implements Serializable {
   private String alertMessage;
 
   /**
-   * Momento em que o alerta foi registrado.
+   * Momento em que o alerta foi registrado (aberto).
    */
   private LocalDateTime timestamp;
 
+  /**
+   * ID do usuário dono do sensor.
+   */
+  @Column(name = "usuario_id")
+  private Long usuarioId;
+
+  /**
+   * ID da regra que gerou o alerta.
+   */
+  private Long regraId;
+
+  /**
+   * Situação do alerta.
+   */
+  @Enumerated(EnumType.STRING)
+  private StatusAlerta status;
+
+  /**
+   * Momento em que o alerta fechou, ou {@code null} se ainda estiver aberto.
+   */
+  private LocalDateTime fechadoEm;
+
   /**
    * Construtor para criar uma instância de alerta com as informações do sensor
    * e a mensagem.
@@ -0,0 +1,77 @@
+package com.ifba.web.iot.api.spring.model;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidade que representa uma regra de alerta aplicada às leituras de um tipo
+ * de sensor.
+ * <p>
+ * Para cada leitura, as regras ativas do sensor são avaliadas em ordem de
+ * prioridade; a primeira que disparar define a mensagem de alerta.
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "alert_rules")
+public class AlertRule implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  /** Tipo do sensor ao qual a regra se aplica (ex: temperatura). */
+  @Column(nullable = false)
+  private String sensor;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private OperadorAlerta operador;
+
+  /** Limite da comparação (limite inferior nos operadores de intervalo). */
+  private double limite;
+
+  /** Limite superior, usado apenas nos operadores de intervalo. */
+  private Double limiteSuperior;
+
+  /** Mensagem do alerta gerado quando a regra dispara. */
+  @Column(nullable = false)
+  private String mensagem;
+
+  /** Ordem de avaliação entre as regras do mesmo sensor (menor primeiro). */
+  private int prioridade;
+
+  /**
+   * Tempo, em segundos, que a condição precisa se manter antes de o alerta
+   * abrir (0 = abre na primeira leitura).
+   */
+  private int sustentadoSegundos;
+
+  /**
+   * Janela, em segundos, da média móvel comparada com o limite (0 = compara o
+   * valor de cada leitura).
+   */
+  private int janelaSegundos;
+
+  /** Margem que o valor precisa recuar além do limite para o alerta fechar. */
+  private double histerese;
+
+  @Builder.Default
+  private boolean ativa = true;
+}
@@ -0,0 +1,64 @@
+package com.ifba.web.iot.api.spring.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidade que representa a chave de acesso de um dispositivo (gateway de
+ * sensores) de um usuário.
+ * <p>
+ * A chave em si só é exibida na criação; aqui ficam o prefixo público, que a
+ * identifica, e o HMAC do segredo. Uma chave revogada continua gravada, com
+ * a data da revogação.
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "chave_dispositivo", indexes = {
+    @Index(name = "idx_chave_dispositivo_usuario", columnList = "usuario_id")
+})
+public class ChaveDispositivo implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  /** ID do usuário dono do dispositivo. */
+  @Column(name = "usuario_id", nullable = false)
+  private Long usuarioId;
+
+  /** Nome do dispositivo, definido pelo usuário. */
+  @Column(nullable = false)
+  private String nome;
+
+  /** Parte pública da chave, que a identifica. */
+  @Column(nullable = false, unique = true, length = 32)
+  private String prefixo;
+
+  /** HMAC-SHA256 (em hexadecimal) do segredo da chave. */
+  @Column(nullable = false, length = 64)
+  private String hash;
+
+  /** Momento da criação da chave. */
+  @Column(nullable = false)
+  private LocalDateTime criadaEm;
+
+  /** Momento da revogação, ou {@code null} se a chave estiver ativa. */
+  private LocalDateTime revogadaEm;
+}
@@ -0,0 +1,11 @@
+package com.ifba.web.iot.api.spring.model;
+
+/**
+ * Dados de uma chave de dispositivo ativa usados na autenticação.
+ *
+ * @param prefixo Parte pública da chave.
+ * @param hash    HMAC-SHA256 (em hexadecimal) do segredo.
+ * @param email   Email do usuário dono do dispositivo.
+ */
+public record ChaveDispositivoAtiva(String prefixo, String hash, String email) {
+}
@@ -0,0 +1,62 @@
+package com.ifba.web.iot.api.spring.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Tamanhos de intervalo (bucket) suportados nas agregações de leituras.
+ * <p>
+ * Os intervalos são alinhados à época Unix em UTC: um intervalo de 5 minutos
+ * sempre começa em :00, :05, :10 e assim por diante.
+ * </p>
+ */
+public enum IntervaloAgregacao {
+
+  UM_MINUTO("1m", 60),
+  CINCO_MINUTOS("5m", 5 * 60),
+  UMA_HORA("1h", 60 * 60),
+  UM_DIA("1d", 24 * 60 * 60);
+
+  private final String codigo;
+  private final long segundos;
+
+  IntervaloAgregacao(String codigo, long segundos) {
+    this.codigo = codigo;
+    this.segundos = segundos;
+  }
+
+  public String getCodigo() {
+    return codigo;
+  }
+
+  public long getSegundos() {
+    return segundos;
+  }
+
+  /**
+   * Calcula o início do intervalo que contém o instante informado.
+   *
+   * @param timestamp O instante da leitura.
+   * @return O início do intervalo correspondente.
+   */
+  public LocalDateTime inicioDe(LocalDateTime timestamp) {
+    long epoch = timestamp.toEpochSecond(ZoneOffset.UTC);
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(epoch, segundos) * segundos, 0, ZoneOffset.UTC);
+  }
+
+  /**
+   * Obtém o intervalo pelo código usado na API (ex.: {@code 5m}, {@code 1h}).
+   *
+   * @param codigo O código do intervalo.
+   * @return O intervalo correspondente.
+   * @throws IllegalArgumentException se o código não for suportado.
+   */
+  public static IntervaloAgregacao doCodigo(String codigo) {
+    for (IntervaloAgregacao intervalo : values()) {
+      if (intervalo.codigo.equalsIgnoreCase(codigo)) {
+        return intervalo;
+      }
+    }
+    throw new IllegalArgumentException("Intervalo de agregação não suportado: " + codigo);
+  }
+}
@@ -0,0 +1,111 @@
+package com.ifba.web.iot.api.spring.model;
+
+/**
+ * Operadores de comparação suportados pelas regras de alerta.
+ * <p>
+ * Os operadores de intervalo usam {@code limite} como limite inferior e
+ * {@code limiteSuperior} como limite superior, ambos inclusivos no intervalo.
+ * </p>
+ */
+public enum OperadorAlerta {
+
+  MAIOR_QUE {
+    @Override
+    public boolean dispara(double valor, double limite, double limiteSuperior) {
+      return valor > limite;
+    }
+
+    @Override
+    public boolean mantem(double valor, double limite, double limiteSuperior, double histerese) {
+      return valor > limite - histerese;
+    }
+  },
+  MAIOR_OU_IGUAL {
+    @Override
+    public boolean dispara(double valor, double limite, double limiteSuperior) {
+      return valor >= limite;
+    }
+
+    @Override
+    public boolean mantem(double valor, double limite, double limiteSuperior, double histerese) {
+      return valor >= limite - histerese;
+    }
+  },
+  MENOR_QUE {
+    @Override
+    public boolean dispara(double valor, double limite, double limiteSuperior) {
+      return valor < limite;
+    }
+
+    @Override
+    public boolean mantem(double valor, double limite, double limiteSuperior, double histerese) {
+      return valor < limite + histerese;
+    }
+  },
+  MENOR_OU_IGUAL {
+    @Override
+    public boolean dispara(double valor, double limite, double limiteSuperior) {
+      return valor <= limite;
+    }
+
+    @Override
+    public boolean mantem(double valor, double limite, double limiteSuperior, double histerese) {
+      return valor <= limite + histerese;
+    }
+  },
+  /** Dispara quando o valor está abaixo de {@code limite} ou acima de {@code limiteSuperior}. */
+  FORA_INTERVALO {
+    @Override
+    public boolean dispara(double valor, double limite, double limiteSuperior) {
+      return valor < limite || valor > limiteSuperior;
+    }
+
+    @Override
+    public boolean mantem(double valor, double limite, double limiteSuperior, double histerese) {
+      return valor < limite + histerese || valor > limiteSuperior - histerese;
+    }
+  },
+  /** Dispara quando o valor está entre {@code limite} e {@code limiteSuperior}. */
+  DENTRO_INTERVALO {
+    @Override
+    public boolean dispara(double valor, double limite, double limiteSuperior) {
+      return valor >= limite && valor <= limiteSuperior;
+    }
+
+    @Override
+    public boolean mantem(double valor, double limite, double limiteSuperior, double histerese) {
+      return valor >= limite - histerese && valor <= limiteSuperior + histerese;
+    }
+  };
+
+  /**
+   * Avalia o operador para um valor.
+   *
+   * @param valor          O valor da leitura.
+   * @param limite         O limite (inferior, nos operadores de intervalo).
+   * @param limiteSuperior O limite superior (usado só nos operadores de
+   *                       intervalo).
+   * @return {@code true} se a regra deve disparar.
+   */
+  public abstract boolean dispara(double valor, double limite, double limiteSuperior);
+
+  /**
+   * Indica se um alerta já aberto deve continuar aberto. A histerese afasta o
+   * limite na direção da normalidade: um alerta de "maior que 30" com
+   * histerese 2 só fecha quando o valor volta a 28 ou menos. Com histerese
+   * zero, equivale a {@link #dispara}.
+   *
+   * @param valor          O valor da leitura.
+   * @param limite         O limite (inferior, nos operadores de intervalo).
+   * @param limiteSuperior O limite superior (usado só nos operadores de
+   *                       intervalo).
+   * @param histerese      A margem de histerese (maior ou igual a zero).
+   * @return {@code true} se o alerta deve continuar aberto.
+   */
+  public abstract boolean mantem(double valor, double limite, double limiteSuperior, double histerese);
+
+  /** @return {@code true} se o operador exige {@code limiteSuperior}. */
+  public boolean isIntervalo() {
+    return this == FORA_INTERVALO || this == DENTRO_INTERVALO;
+  }
+}
@@ -14,7 +14,12 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "sensor_data")
+@Table(name = "sensor_data", indexes = {
+        // Atende às consultas de histórico por usuário, tipo de sensor e janela de
+        // tempo, já na ordem usada pela paginação por cursor.
+        @Index(name = "idx_sensor_data_usuario_sensor_ts", columnList = "usuario_id, sensor, timestamp"),
+        @Index(name = "idx_sensor_data_usuario_ts", columnList = "usuario_id, timestamp")
+})
 public class SensorData implements Serializable {
     private static final long serialVersionUID = 1L;
 
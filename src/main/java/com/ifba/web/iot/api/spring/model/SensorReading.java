@@ -0,0 +1,48 @@
+package com.ifba.web.iot.api.spring.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cópia imutável de uma leitura de sensor, usada pelas etapas de publicação.
+ * <p>
+ * Ao contrário de {@link SensorData}, não é uma entidade JPA: alterá-la ou
+ * repassá-la adiante nunca provoca escritas no banco de dados.
+ * </p>
+ *
+ * @param id        Identificador da leitura persistida (pode ser {@code null}).
+ * @param sensor    Tipo do sensor (ex: temperatura, umidade, luminosidade).
+ * @param valor     Valor registrado pelo sensor.
+ * @param unidade   Unidade de medida do valor.
+ * @param timestamp Momento em que a leitura foi realizada.
+ */
+public record SensorReading(Long id, String sensor, double valor, String unidade, LocalDateTime timestamp) {
+
+  /**
+   * Cria a cópia imutável a partir da entidade.
+   *
+   * @param data A entidade {@link SensorData} de origem.
+   * @return A leitura correspondente.
+   */
+  public static SensorReading of(SensorData data) {
+    return new SensorReading(data.getId(), data.getSensor(), data.getValor(), data.getUnidade(),
+        data.getTimestamp());
+  }
+
+  /**
+   * @return A leitura em uma linha, no formato de texto enviado às filas.
+   */
+  public String resumo() {
+    return String.format("Sensor: %s | Valor: %.2f %s | Timestamp: %s", sensor, valor, unidade, timestamp);
+  }
+
+  @Override
+  public String toString() {
+    return "\n--- SensorData ---" +
+        "\nID         : " + id +
+        "\nSensor     : " + sensor +
+        "\nValor      : " + valor +
+        "\nUnidade    : " + unidade +
+        "\nTimestamp  : " + timestamp +
+        "\n-------------------";
+  }
+}
@@ -0,0 +1,51 @@
+package com.ifba.web.iot.api.spring.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estrutura comum das tabelas de agregados pré-calculados (rollups) das
+ * leituras de sensores.
+ * <p>
+ * Cada linha resume as leituras de um sensor de um usuário em um intervalo
+ * fechado de tempo. As subclasses definem a resolução (minuto, hora ou dia),
+ * cada uma em sua própria tabela.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@MappedSuperclass
+public abstract class SensorRollup implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  /** ID do usuário dono das leituras. */
+  @Column(name = "usuario_id", nullable = false)
+  private Long usuarioId;
+
+  /** Tipo do sensor (ex: temperatura, umidade). */
+  @Column(nullable = false)
+  private String sensor;
+
+  /** Início do intervalo (inclusivo). */
+  @Column(nullable = false)
+  private LocalDateTime inicio;
+
+  private long quantidade;
+  private double minimo;
+  private double maximo;
+  private double media;
+  private double p50;
+  private double p95;
+}
@@ -0,0 +1,19 @@
+package com.ifba.web.iot.api.spring.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Agregado das leituras de um sensor em intervalos de um dia.
+ */
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "sensor_rollup_dia", uniqueConstraints = @UniqueConstraint(
+    name = "uk_sensor_rollup_dia", columnNames = { "usuario_id", "sensor", "inicio" }))
+public class SensorRollupDia extends SensorRollup {
+  private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,8 @@
+package com.ifba.web.iot.api.spring.model;
+
+/**
+ * Situação de um {@link Alert}.
+ */
+public enum StatusAlerta {
+  ABERTO, FECHADO
+}
@@ -0,0 +1,52 @@
+package com.ifba.web.iot.api.spring.model;
+
+import java.text.DecimalFormat;
+import java.time.LocalDateTime;
+
+/**
+ * Última leitura conhecida de um sensor, já pronta para ser exibida.
+ * <p>
+ * O valor formatado e a mensagem de alerta são calculados uma única vez, na
+ * gravação, e reaproveitados em todas as consultas do painel.
+ * </p>
+ *
+ * @param id             Identificador da leitura persistida.
+ * @param usuarioId      ID do usuário dono da leitura.
+ * @param sensor         Tipo do sensor (ex: temperatura, umidade).
+ * @param valorFormatado Valor com no máximo duas casas decimais.
+ * @param unidade        Unidade de medida do valor.
+ * @param alertMessage   Mensagem de alerta, ou {@code null} se não houver.
+ * @param timestamp      Momento em que a leitura foi realizada.
+ */
+public record UltimaLeitura(Long id, Long usuarioId, String sensor, String valorFormatado, String unidade,
+    String alertMessage, LocalDateTime timestamp) {
+
+  /**
+   * Cria a última leitura a partir da entidade gravada.
+   *
+   * @param data         A leitura persistida.
+   * @param alertMessage A mensagem de alerta calculada para ela.
+   * @return A última leitura correspondente.
+   */
+  public static UltimaLeitura of(SensorData data, String alertMessage) {
+    // DecimalFormat não é thread-safe; a instância é criada uma vez por gravação.
+    String valorFormatado = new DecimalFormat("#.##").format(data.getValor());
+    Long usuarioId = (data.getUsuario() != null) ? data.getUsuario().getId() : null;
+    return new UltimaLeitura(data.getId(), usuarioId, data.getSensor(), valorFormatado, data.getUnidade(),
+        alertMessage, data.getTimestamp());
+  }
+
+  /**
+   * Indica se esta leitura é mais recente que a outra.
+   *
+   * @param outra A leitura a comparar (pode ser {@code null}).
+   * @return {@code true} se esta leitura deve substituir a outra.
+   */
+  public boolean maisRecenteQue(UltimaLeitura outra) {
+    if (outra == null) {
+      return true;
+    }
+    int comparacao = timestamp.compareTo(outra.timestamp);
+    return comparacao > 0 || (comparacao == 0 && id != null && outra.id != null && id > outra.id);
+  }
+}
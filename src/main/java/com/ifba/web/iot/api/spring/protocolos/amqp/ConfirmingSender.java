@@ -0,0 +1,27 @@
+package com.ifba.web.iot.api.spring.protocolos.amqp;
+
+import java.util.List;
+
+/**
+ * Publica lotes de mensagens em um broker AMQP com confirmação assíncrona.
+ * <p>
+ * {@link #send} retorna assim que o lote foi entregue ao broker; a confirmação
+ * de cada mensagem chega depois, pelo futuro da respectiva
+ * {@link PublicacaoPendente}.
+ * </p>
+ * <p>
+ * Falhas não são lançadas: se a publicação parar no meio do lote, as
+ * mensagens já entregues seguem aguardando a confirmação do broker e apenas
+ * as restantes têm o futuro completado com o erro.
+ * </p>
+ */
+public interface ConfirmingSender {
+
+  /**
+   * Publica as mensagens do lote, na ordem.
+   *
+   * @param lote As mensagens a publicar.
+   * @return A quantidade de mensagens entregues ao broker.
+   */
+  int send(List<PublicacaoPendente> lote);
+}
@@ -0,0 +1,51 @@
+package com.ifba.web.iot.api.spring.protocolos.amqp;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation.InMemoryRabbitTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link ConfirmingSender} que publica no broker em memória, para rodar e
+ * testar o produtor sem um RabbitMQ.
+ * <p>
+ * A mensagem é confirmada (ack) assim que o broker a aceita, e recusada (nack)
+ * se a fila de destino estiver cheia e a descartar ou recusar. Exchanges não
+ * declarados falham a publicação, como um canal fechado no RabbitMQ. O broker
+ * em memória só transporta texto: publicações em outro formato falham.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "amqp.producer.destino", havingValue = "memoria")
+public class InMemoryConfirmingSender implements ConfirmingSender {
+
+  private final InMemoryRabbitTemplate rabbitTemplate;
+
+  @Override
+  public int send(List<PublicacaoPendente> lote) {
+    int entregues = 0;
+    for (PublicacaoPendente publicacao : lote) {
+      if (!publicacao.isTexto()) {
+        publicacao.confirmacao().completeExceptionally(new IllegalArgumentException(
+            "Broker em memória não suporta o formato " + publicacao.contentType()));
+        continue;
+      }
+      try {
+        rabbitTemplate.convertAndSend(publicacao.exchange(), publicacao.routingKey(), publicacao.getTexto());
+        publicacao.confirmacao().complete(true);
+        entregues++;
+      } catch (IllegalStateException e) {
+        publicacao.confirmacao().complete(false);
+        entregues++;
+      } catch (RuntimeException e) {
+        publicacao.confirmacao().completeExceptionally(e);
+      }
+    }
+    return entregues;
+  }
+}
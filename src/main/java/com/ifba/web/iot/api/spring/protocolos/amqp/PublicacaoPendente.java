@@ -0,0 +1,32 @@
+package com.ifba.web.iot.api.spring.protocolos.amqp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Mensagem aguardando publicação e confirmação pelo broker.
+ *
+ * @param exchange    Exchange de destino ({@code ""} para o exchange padrão).
+ * @param routingKey  Chave de roteamento.
+ * @param corpo       Conteúdo da mensagem.
+ * @param contentType Formato do conteúdo (ex: {@value #TEXTO}).
+ * @param confirmacao Completado com {@code true} quando o broker confirma
+ *                    (ack), {@code false} quando recusa (nack), ou com a
+ *                    exceção da falha.
+ */
+public record PublicacaoPendente(String exchange, String routingKey, byte[] corpo, String contentType,
+    CompletableFuture<Boolean> confirmacao) {
+
+  /** Content-type das mensagens de texto (JSON ou texto simples). */
+  public static final String TEXTO = "text/plain";
+
+  /** @return Se o conteúdo é texto em UTF-8. */
+  public boolean isTexto() {
+    return TEXTO.equals(contentType);
+  }
+
+  /** @return O conteúdo decodificado como texto em UTF-8. */
+  public String getTexto() {
+    return new String(corpo, StandardCharsets.UTF_8);
+  }
+}
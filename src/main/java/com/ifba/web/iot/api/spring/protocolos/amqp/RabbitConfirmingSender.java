@@ -0,0 +1,78 @@
+package com.ifba.web.iot.api.spring.protocolos.amqp;
+
+import java.util.List;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link ConfirmingSender} que publica no RabbitMQ.
+ * <p>
+ * Cada lote é publicado em um único canal obtido do cache da conexão, e cada
+ * mensagem leva um {@link CorrelationData} cujo futuro é completado pelo
+ * confirm do broker. Requer confirms do tipo {@code CORRELATED}, habilitados
+ * em {@code RabbitMqConfig}. O content-type da publicação segue na mensagem,
+ * para que o consumidor escolha como decodificá-la.
+ * </p>
+ * <p>
+ * Se o canal falhar no meio do lote, o restante não é publicado: essas
+ * mensagens falham na hora, e as já publicadas recebem o confirm (ou o nack
+ * do fechamento do canal) normalmente.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "amqp.producer.destino", havingValue = "rabbitmq", matchIfMissing = true)
+public class RabbitConfirmingSender implements ConfirmingSender {
+
+  private final RabbitTemplate rabbitTemplate;
+
+  @Override
+  public int send(List<PublicacaoPendente> lote) {
+    int[] entregues = { 0 };
+    try {
+      rabbitTemplate.invoke(operacoes -> {
+        for (PublicacaoPendente publicacao : lote) {
+          publicar(operacoes, publicacao);
+          entregues[0]++;
+        }
+        return null;
+      });
+    } catch (RuntimeException e) {
+      log.error("❌ Falha ao publicar no RabbitMQ após {} de {} mensagens: {}", entregues[0], lote.size(),
+          e.getMessage());
+      lote.subList(entregues[0], lote.size()).forEach(p -> p.confirmacao().completeExceptionally(e));
+    }
+    return entregues[0];
+  }
+
+  private static void publicar(RabbitOperations operacoes, PublicacaoPendente publicacao) {
+    CorrelationData correlacao = new CorrelationData();
+    correlacao.getFuture().whenComplete((confirm, erro) -> {
+      if (erro != null) {
+        publicacao.confirmacao().completeExceptionally(erro);
+      } else {
+        publicacao.confirmacao().complete(confirm.isAck());
+      }
+    });
+    operacoes.send(publicacao.exchange(), publicacao.routingKey(), mensagem(publicacao), correlacao);
+  }
+
+  private static Message mensagem(PublicacaoPendente publicacao) {
+    MessageProperties propriedades = new MessageProperties();
+    propriedades.setContentType(publicacao.contentType());
+    if (publicacao.isTexto()) {
+      propriedades.setContentEncoding("UTF-8");
+    }
+    return new Message(publicacao.corpo(), propriedades);
+  }
+}
@@ -0,0 +1,300 @@
+package com.ifba.web.iot.api.spring.protocolos.codec;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import com.ifba.web.iot.api.spring.model.Alert;
+import com.ifba.web.iot.api.spring.model.SensorReading;
+import com.ifba.web.iot.api.spring.model.StatusAlerta;
+
+/**
+ * Formato binário compacto e versionado para leituras ({@link SensorReading})
+ * e alertas ({@link Alert}).
+ * <p>
+ * Todo registro começa com {@code [versão][tipo][flags]}, um byte cada. Em
+ * seguida vêm o sensor, o valor ({@code double}), a unidade e o instante (em
+ * microssegundos desde a época, UTC). Sensores e unidades conhecidos ocupam um
+ * único byte de código; os demais seguem por extenso (código 0, tamanho e
+ * UTF-8). Os campos opcionais são marcados em {@code flags}.
+ * </p>
+ * <p>
+ * Mensagens neste formato são identificadas pelo content-type
+ * {@value #CONTENT_TYPE}; quem não o reconhece continua usando JSON. Os
+ * códigos de sensores e unidades só podem ser acrescentados, nunca
+ * reaproveitados: mudar o significado de um byte exige uma nova versão.
+ * </p>
+ * <p>
+ * A decodificação confere cada tamanho lido contra os bytes restantes: uma
+ * mensagem truncada ou adulterada resulta em
+ * {@link IllegalArgumentException}, nunca em uma alocação do tamanho
+ * declarado.
+ * </p>
+ */
+public final class SensorCodec {
+
+  /** Content-type das mensagens codificadas neste formato. */
+  public static final String CONTENT_TYPE = "application/vnd.ifba.iot.sensor.v1";
+
+  static final byte VERSAO = 1;
+  static final byte TIPO_LEITURA = 1;
+  static final byte TIPO_ALERTA = 2;
+
+  private static final int FLAG_ID = 1;
+  private static final int FLAG_USUARIO = 1 << 1;
+  private static final int FLAG_REGRA = 1 << 2;
+  private static final int FLAG_FECHADO_EM = 1 << 3;
+
+  private static final int POR_EXTENSO = 0;
+  private static final int NULO = 0xFF;
+  private static final long INSTANTE_NULO = Long.MIN_VALUE;
+
+  /** Sensores conhecidos; o código é a posição + 1. */
+  private static final List<String> SENSORES = List.of("temperatura", "umidade", "luminosidade");
+  /** Unidades conhecidas; o código é a posição + 1. */
+  private static final List<String> UNIDADES = List.of("°C", "%", "lux");
+
+  private static final ThreadLocal<ByteBuffer> RASCUNHO = ThreadLocal.withInitial(() -> ByteBuffer.allocate(256));
+
+  private SensorCodec() {
+  }
+
+  /**
+   * Codifica uma leitura no buffer, a partir da posição atual.
+   *
+   * @param leitura A leitura.
+   * @param destino Buffer de destino.
+   * @throws BufferOverflowException se a leitura não couber no buffer.
+   */
+  public static void encode(SensorReading leitura, ByteBuffer destino) {
+    int flags = (leitura.id() != null) ? FLAG_ID : 0;
+    destino.put(VERSAO).put(TIPO_LEITURA).put((byte) flags);
+    putCorpo(destino, leitura.sensor(), leitura.valor(), leitura.unidade(), leitura.timestamp());
+    if (leitura.id() != null) {
+      destino.putLong(leitura.id());
+    }
+  }
+
+  /**
+   * Codifica um alerta no buffer, a partir da posição atual.
+   *
+   * @param alerta  O alerta.
+   * @param destino Buffer de destino.
+   * @throws BufferOverflowException se o alerta não couber no buffer.
+   */
+  public static void encode(Alert alerta, ByteBuffer destino) {
+    int flags = ((alerta.getId() != null) ? FLAG_ID : 0)
+        | ((alerta.getUsuarioId() != null) ? FLAG_USUARIO : 0)
+        | ((alerta.getRegraId() != null) ? FLAG_REGRA : 0)
+        | ((alerta.getFechadoEm() != null) ? FLAG_FECHADO_EM : 0);
+    destino.put(VERSAO).put(TIPO_ALERTA).put((byte) flags);
+    putCorpo(destino, alerta.getSensor(), alerta.getValor(), alerta.getUnidade(), alerta.getTimestamp());
+    if (alerta.getId() != null) {
+      destino.putLong(alerta.getId());
+    }
+    if (alerta.getUsuarioId() != null) {
+      destino.putLong(alerta.getUsuarioId());
+    }
+    if (alerta.getRegraId() != null) {
+      destino.putLong(alerta.getRegraId());
+    }
+    if (alerta.getFechadoEm() != null) {
+      destino.putLong(micros(alerta.getFechadoEm()));
+    }
+    destino.put((byte) ((alerta.getStatus() != null) ? alerta.getStatus().ordinal() + 1 : 0));
+    if (alerta.getAlertMessage() == null) {
+      destino.putInt(-1);
+    } else {
+      byte[] mensagem = alerta.getAlertMessage().getBytes(StandardCharsets.UTF_8);
+      destino.putInt(mensagem.length).put(mensagem);
+    }
+  }
+
+  /**
+   * Codifica uma leitura usando um buffer de rascunho da thread.
+   *
+   * @param leitura A leitura.
+   * @return Os bytes codificados.
+   */
+  public static byte[] toBytes(SensorReading leitura) {
+    return toBytes(leitura, SensorCodec::encode);
+  }
+
+  /**
+   * Codifica um alerta usando um buffer de rascunho da thread.
+   *
+   * @param alerta O alerta.
+   * @return Os bytes codificados.
+   */
+  public static byte[] toBytes(Alert alerta) {
+    return toBytes(alerta, SensorCodec::encode);
+  }
+
+  /**
+   * Decodifica uma leitura a partir da posição atual do buffer.
+   *
+   * @param origem Buffer com os bytes codificados.
+   * @return A leitura.
+   * @throws IllegalArgumentException se os bytes não forem uma leitura em uma
+   *                                  versão conhecida ou estiverem truncados.
+   */
+  public static SensorReading decodeReading(ByteBuffer origem) {
+    try {
+      int flags = getCabecalho(origem, TIPO_LEITURA);
+      String sensor = getTexto(origem, SENSORES);
+      double valor = origem.getDouble();
+      String unidade = getTexto(origem, UNIDADES);
+      LocalDateTime timestamp = getInstante(origem.getLong());
+      Long id = ((flags & FLAG_ID) != 0) ? origem.getLong() : null;
+      return new SensorReading(id, sensor, valor, unidade, timestamp);
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Registro binário truncado.", e);
+    }
+  }
+
+  /**
+   * Decodifica um alerta a partir da posição atual do buffer.
+   *
+   * @param origem Buffer com os bytes codificados.
+   * @return O alerta.
+   * @throws IllegalArgumentException se os bytes não forem um alerta em uma
+   *                                  versão conhecida ou estiverem truncados.
+   */
+  public static Alert decodeAlert(ByteBuffer origem) {
+    try {
+      return getAlerta(origem);
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Registro binário truncado.", e);
+    }
+  }
+
+  private static Alert getAlerta(ByteBuffer origem) {
+    int flags = getCabecalho(origem, TIPO_ALERTA);
+    Alert alerta = new Alert();
+    alerta.setSensor(getTexto(origem, SENSORES));
+    alerta.setValor(origem.getDouble());
+    alerta.setUnidade(getTexto(origem, UNIDADES));
+    alerta.setTimestamp(getInstante(origem.getLong()));
+    if ((flags & FLAG_ID) != 0) {
+      alerta.setId(origem.getLong());
+    }
+    if ((flags & FLAG_USUARIO) != 0) {
+      alerta.setUsuarioId(origem.getLong());
+    }
+    if ((flags & FLAG_REGRA) != 0) {
+      alerta.setRegraId(origem.getLong());
+    }
+    if ((flags & FLAG_FECHADO_EM) != 0) {
+      alerta.setFechadoEm(getInstante(origem.getLong()));
+    }
+    int status = Byte.toUnsignedInt(origem.get());
+    StatusAlerta[] valores = StatusAlerta.values();
+    if (status > valores.length) {
+      throw new IllegalArgumentException("Status de alerta desconhecido: " + status);
+    }
+    alerta.setStatus((status > 0) ? valores[status - 1] : null);
+    int tamanho = origem.getInt();
+    if (tamanho < -1) {
+      throw new IllegalArgumentException("Tamanho de mensagem inválido: " + tamanho);
+    }
+    if (tamanho >= 0) {
+      alerta.setAlertMessage(getUtf8(origem, tamanho));
+    }
+    return alerta;
+  }
+
+  private static <T> byte[] toBytes(T valor, BiConsumer<T, ByteBuffer> codificador) {
+    ByteBuffer rascunho = RASCUNHO.get();
+    while (true) {
+      rascunho.clear();
+      try {
+        codificador.accept(valor, rascunho);
+        byte[] bytes = new byte[rascunho.position()];
+        rascunho.flip().get(bytes);
+        return bytes;
+      } catch (BufferOverflowException e) {
+        rascunho = ByteBuffer.allocate(rascunho.capacity() * 2);
+        RASCUNHO.set(rascunho);
+      }
+    }
+  }
+
+  private static void putCorpo(ByteBuffer destino, String sensor, double valor, String unidade,
+      LocalDateTime timestamp) {
+    putTexto(destino, sensor, SENSORES);
+    destino.putDouble(valor);
+    putTexto(destino, unidade, UNIDADES);
+    destino.putLong((timestamp != null) ? micros(timestamp) : INSTANTE_NULO);
+  }
+
+  private static void putTexto(ByteBuffer destino, String texto, List<String> conhecidos) {
+    if (texto == null) {
+      destino.put((byte) NULO);
+      return;
+    }
+    int codigo = conhecidos.indexOf(texto) + 1;
+    if (codigo > 0) {
+      destino.put((byte) codigo);
+      return;
+    }
+    byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > 0xFF) {
+      throw new IllegalArgumentException("Texto longo demais para o formato binário: " + texto);
+    }
+    destino.put((byte) POR_EXTENSO).put((byte) bytes.length).put(bytes);
+  }
+
+  private static int getCabecalho(ByteBuffer origem, byte tipoEsperado) {
+    byte versao = origem.get();
+    if (versao != VERSAO) {
+      throw new IllegalArgumentException("Versão do formato binário não suportada: " + versao);
+    }
+    byte tipo = origem.get();
+    if (tipo != tipoEsperado) {
+      throw new IllegalArgumentException("Tipo de registro inesperado: " + tipo);
+    }
+    return Byte.toUnsignedInt(origem.get());
+  }
+
+  private static String getTexto(ByteBuffer origem, List<String> conhecidos) {
+    int codigo = Byte.toUnsignedInt(origem.get());
+    if (codigo == NULO) {
+      return null;
+    }
+    if (codigo == POR_EXTENSO) {
+      return getUtf8(origem, Byte.toUnsignedInt(origem.get()));
+    }
+    if (codigo > conhecidos.size()) {
+      throw new IllegalArgumentException("Código desconhecido no formato binário: " + codigo);
+    }
+    return conhecidos.get(codigo - 1);
+  }
+
+  private static String getUtf8(ByteBuffer origem, int tamanho) {
+    if (tamanho > origem.remaining()) {
+      throw new IllegalArgumentException(
+          "Texto de " + tamanho + " bytes excede os " + origem.remaining() + " bytes restantes.");
+    }
+    byte[] bytes = new byte[tamanho];
+    origem.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static long micros(LocalDateTime instante) {
+    return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), instante);
+  }
+
+  private static LocalDateTime getInstante(long micros) {
+    if (micros == INSTANTE_NULO) {
+      return null;
+    }
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+        (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+  }
+}
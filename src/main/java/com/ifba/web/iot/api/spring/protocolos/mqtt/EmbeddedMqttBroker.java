@@ -0,0 +1,275 @@
+package com.ifba.web.iot.api.spring.protocolos.mqtt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Broker MQTT 3.1.1 mínimo, embutido na JVM, para testes e testes de carga
+ * locais sem serviços de rede externos.
+ * <p>
+ * Aceita CONNECT, SUBSCRIBE (inclusive {@code $share/<grupo>/<filtro>}, com
+ * entrega alternada entre os membros do grupo), UNSUBSCRIBE, PUBLISH com QoS 0
+ * e 1, PINGREQ e DISCONNECT. As mensagens são sempre entregues aos assinantes
+ * com QoS 0; não há autenticação, sessões persistentes nem mensagens retidas.
+ * Escuta apenas na interface de loopback.
+ * </p>
+ */
+@Slf4j
+public class EmbeddedMqttBroker implements Closeable {
+
+  private static final String SHARE = "$share/";
+
+  private final ServerSocket servidor;
+  private final List<Assinatura> assinaturas = new CopyOnWriteArrayList<>();
+  private final Map<String, AtomicInteger> proximoDoGrupo = new ConcurrentHashMap<>();
+  private final List<Cliente> clientes = new CopyOnWriteArrayList<>();
+  private final LongAdder publicadas = new LongAdder();
+
+  /**
+   * Inicia o broker.
+   *
+   * @param porta Porta TCP na interface de loopback ({@code 0} escolhe uma
+   *              porta livre).
+   * @throws IOException se a porta não puder ser aberta.
+   */
+  public EmbeddedMqttBroker(int porta) throws IOException {
+    servidor = new ServerSocket(porta, 50, InetAddress.getLoopbackAddress());
+    Thread aceitador = new Thread(this::aceitar, "mqtt-embutido-accept");
+    aceitador.setDaemon(true);
+    aceitador.start();
+    log.info("🧪 Broker MQTT embutido ouvindo em {}", getUrl());
+  }
+
+  /** @return URL para os clientes Paho. */
+  public String getUrl() {
+    return "tcp://127.0.0.1:" + servidor.getLocalPort();
+  }
+
+  /** @return Quantidade de assinaturas ativas. */
+  public int getAssinaturas() {
+    return assinaturas.size();
+  }
+
+  /** @return Mensagens recebidas dos publicadores desde o início. */
+  public long getPublicadas() {
+    return publicadas.sum();
+  }
+
+  @Override
+  public void close() throws IOException {
+    log.info("🧪 Encerrando broker MQTT embutido em {}", getUrl());
+    servidor.close();
+    for (Cliente cliente : clientes) {
+      cliente.fechar();
+    }
+  }
+
+  private void aceitar() {
+    while (!servidor.isClosed()) {
+      try {
+        Cliente cliente = new Cliente(servidor.accept());
+        clientes.add(cliente);
+        Thread thread = new Thread(cliente::ler, "mqtt-embutido-client");
+        thread.setDaemon(true);
+        thread.start();
+      } catch (IOException e) {
+        return;
+      }
+    }
+  }
+
+  private void publicar(String topico, byte[] payload) {
+    publicadas.increment();
+    Map<String, List<Assinatura>> grupos = new HashMap<>();
+    for (Assinatura assinatura : assinaturas) {
+      if (!corresponde(assinatura.filtro, topico)) {
+        continue;
+      }
+      if (assinatura.grupo == null) {
+        assinatura.cliente.entregar(topico, payload);
+      } else {
+        grupos.computeIfAbsent(assinatura.grupo + "/" + assinatura.filtro, g -> new ArrayList<>()).add(assinatura);
+      }
+    }
+    grupos.forEach((grupo, membros) -> {
+      int proximo = proximoDoGrupo.computeIfAbsent(grupo, g -> new AtomicInteger()).getAndIncrement();
+      membros.get(Math.floorMod(proximo, membros.size())).cliente.entregar(topico, payload);
+    });
+  }
+
+  private static boolean corresponde(String filtro, String topico) {
+    String[] f = filtro.split("/", -1);
+    String[] t = topico.split("/", -1);
+    for (int i = 0; i < f.length; i++) {
+      if (f[i].equals("#")) {
+        return true;
+      }
+      if (i >= t.length || (!f[i].equals("+") && !f[i].equals(t[i]))) {
+        return false;
+      }
+    }
+    return f.length == t.length;
+  }
+
+  private record Assinatura(Cliente cliente, String grupo, String filtro) {
+  }
+
+  private final class Cliente {
+    private final Socket socket;
+    private final DataInputStream entrada;
+    private final OutputStream saida;
+
+    private Cliente(Socket socket) throws IOException {
+      this.socket = socket;
+      this.entrada = new DataInputStream(socket.getInputStream());
+      this.saida = socket.getOutputStream();
+    }
+
+    private void ler() {
+      try {
+        while (true) {
+          int cabecalho = entrada.readUnsignedByte();
+          byte[] corpo = new byte[lerTamanho()];
+          entrada.readFully(corpo);
+          if (!tratar(cabecalho >> 4, cabecalho & 0x0F, new DataInputStream(new ByteArrayInputStream(corpo)),
+              corpo.length)) {
+            break;
+          }
+        }
+      } catch (EOFException e) {
+        // cliente desconectou
+      } catch (IOException e) {
+        // conexão encerrada
+      } finally {
+        fechar();
+      }
+    }
+
+    private boolean tratar(int tipo, int flags, DataInputStream pacote, int tamanho) throws IOException {
+      switch (tipo) {
+        case 1 -> enviar(0x20, new byte[] { 0, 0 }); // CONNECT -> CONNACK
+        case 3 -> { // PUBLISH
+          String topico = pacote.readUTF();
+          int qos = (flags >> 1) & 0x03;
+          int consumido = 2 + topico.getBytes(StandardCharsets.UTF_8).length;
+          int id = 0;
+          if (qos > 0) {
+            id = pacote.readUnsignedShort();
+            consumido += 2;
+          }
+          byte[] payload = new byte[tamanho - consumido];
+          pacote.readFully(payload);
+          publicar(topico, payload);
+          if (qos > 0) {
+            enviar(0x40, new byte[] { (byte) (id >> 8), (byte) id }); // PUBACK
+          }
+        }
+        case 8 -> { // SUBSCRIBE
+          int id = pacote.readUnsignedShort();
+          ByteArrayOutputStream concedidos = new ByteArrayOutputStream();
+          concedidos.write(id >> 8);
+          concedidos.write(id);
+          while (pacote.available() > 0) {
+            String filtro = pacote.readUTF();
+            int qos = pacote.readUnsignedByte();
+            String grupo = null;
+            if (filtro.startsWith(SHARE)) {
+              int barra = filtro.indexOf('/', SHARE.length());
+              grupo = filtro.substring(SHARE.length(), barra);
+              filtro = filtro.substring(barra + 1);
+            }
+            assinaturas.add(new Assinatura(this, grupo, filtro));
+            concedidos.write(Math.min(qos, 1));
+          }
+          enviar(0x90, concedidos.toByteArray()); // SUBACK
+        }
+        case 10 -> { // UNSUBSCRIBE
+          int id = pacote.readUnsignedShort();
+          while (pacote.available() > 0) {
+            String filtro = pacote.readUTF();
+            assinaturas.removeIf(a -> a.cliente == this
+                && (a.filtro.equals(filtro) || (SHARE + a.grupo + "/" + a.filtro).equals(filtro)));
+          }
+          enviar(0xB0, new byte[] { (byte) (id >> 8), (byte) id }); // UNSUBACK
+        }
+        case 12 -> enviar(0xD0, new byte[0]); // PINGREQ -> PINGRESP
+        case 14 -> {
+          return false; // DISCONNECT
+        }
+        default -> {
+          // PUBACK e demais confirmações dos clientes são ignorados
+        }
+      }
+      return true;
+    }
+
+    private void entregar(String topico, byte[] payload) {
+      byte[] nome = topico.getBytes(StandardCharsets.UTF_8);
+      byte[] corpo = new byte[2 + nome.length + payload.length];
+      corpo[0] = (byte) (nome.length >> 8);
+      corpo[1] = (byte) nome.length;
+      System.arraycopy(nome, 0, corpo, 2, nome.length);
+      System.arraycopy(payload, 0, corpo, 2 + nome.length, payload.length);
+      try {
+        enviar(0x30, corpo); // PUBLISH, QoS 0
+      } catch (IOException e) {
+        fechar();
+      }
+    }
+
+    private synchronized void enviar(int cabecalho, byte[] corpo) throws IOException {
+      ByteArrayOutputStream pacote = new ByteArrayOutputStream(corpo.length + 5);
+      pacote.write(cabecalho);
+      int restante = corpo.length;
+      do {
+        int digito = restante % 128;
+        restante /= 128;
+        pacote.write((restante > 0) ? digito | 0x80 : digito);
+      } while (restante > 0);
+      pacote.write(corpo);
+      saida.write(pacote.toByteArray());
+      saida.flush();
+    }
+
+    private int lerTamanho() throws IOException {
+      int valor = 0;
+      int multiplicador = 1;
+      int digito;
+      do {
+        digito = entrada.readUnsignedByte();
+        valor += (digito & 0x7F) * multiplicador;
+        multiplicador *= 128;
+      } while ((digito & 0x80) != 0);
+      return valor;
+    }
+
+    private void fechar() {
+      assinaturas.removeIf(a -> a.cliente == this);
+      clientes.remove(this);
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // já fechado
+      }
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.ifba.web.iot.api.spring.protocolos.mqtt;
+
+import java.util.List;
+
+/**
+ * Estado das conexões de entrada do {@link MqttInboundPool}.
+ *
+ * @param connections       Quantidade de conexões.
+ * @param received          Mensagens recebidas somando todas as conexões.
+ * @param messagesPerSecond Vazão média somada desde o início.
+ * @param perConnection     Estado de cada conexão.
+ */
+public record InboundPoolStats(int connections, long received, double messagesPerSecond,
+    List<ConnectionStats> perConnection) {
+
+  /**
+   * Estado de uma conexão de entrada.
+   *
+   * @param clientId Client id da conexão.
+   * @param topics   Tópicos assinados.
+   * @param running  Se o adaptador está ativo.
+   * @param received Mensagens recebidas pela conexão.
+   */
+  public record ConnectionStats(String clientId, List<String> topics, boolean running, long received) {
+  }
+}
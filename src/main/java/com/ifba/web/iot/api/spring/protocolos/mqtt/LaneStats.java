@@ -0,0 +1,14 @@
+package com.ifba.web.iot.api.spring.protocolos.mqtt;
+
+/**
+ * Estado de uma faixa do {@link PartitionedLaneChannel}.
+ *
+ * @param lane      Índice da faixa.
+ * @param capacity  Capacidade da fila da faixa.
+ * @param depth     Mensagens aguardando processamento.
+ * @param maxDepth  Maior profundidade observada desde o início.
+ * @param processed Mensagens processadas com sucesso.
+ * @param failed    Mensagens cujo processamento falhou.
+ */
+public record LaneStats(int lane, int capacity, int depth, int maxDepth, long processed, long failed) {
+}
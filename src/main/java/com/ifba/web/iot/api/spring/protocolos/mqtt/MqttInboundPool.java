@@ -0,0 +1,178 @@
+package com.ifba.web.iot.api.spring.protocolos.mqtt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
+import org.springframework.messaging.MessageChannel;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Conjunto de conexões MQTT de entrada que alimentam o mesmo canal.
+ * <p>
+ * Uma única conexão limita a ingestão a um socket e a uma thread de callback
+ * do cliente Paho. Aqui cada conexão é um
+ * {@link MqttPahoMessageDrivenChannelAdapter} com client id próprio
+ * ({@code <base>-<n>}), e o broker reparte as mensagens entre elas: com
+ * assinaturas compartilhadas ({@code $share/<grupo>/<tópico>}) cada mensagem
+ * vai para uma só conexão do grupo; com fragmentação, cada conexão assina uma
+ * parte dos tópicos (ver {@link #distribuir}).
+ * </p>
+ */
+@Slf4j
+public class MqttInboundPool implements SmartLifecycle, BeanFactoryAware, ApplicationEventPublisherAware,
+    InitializingBean, DisposableBean {
+
+  private final List<Conexao> conexoes = new ArrayList<>();
+  private volatile long inicio;
+  private volatile boolean running;
+
+  /**
+   * @param clientFactory Fábrica de clientes MQTT.
+   * @param clientIdBase  Prefixo dos client ids.
+   * @param assinaturas   Tópicos assinados por cada conexão (uma conexão por
+   *                      elemento).
+   * @param qos           QoS das assinaturas.
+   * @param output        Canal que recebe as mensagens de todas as conexões.
+   */
+  public MqttInboundPool(MqttPahoClientFactory clientFactory, String clientIdBase, List<String[]> assinaturas,
+      int qos, MessageChannel output) {
+    for (int i = 0; i < assinaturas.size(); i++) {
+      String clientId = clientIdBase + "-" + i;
+      LongAdder recebidas = new LongAdder();
+      MqttPahoMessageDrivenChannelAdapter adapter = new MqttPahoMessageDrivenChannelAdapter(clientId, clientFactory,
+          assinaturas.get(i));
+      adapter.setCompletionTimeout(5000);
+      adapter.setQos(qos);
+      adapter.setOutputChannel((message, timeout) -> {
+        recebidas.increment();
+        return output.send(message, timeout);
+      });
+      adapter.setAutoStartup(false);
+      conexoes.add(new Conexao(clientId, adapter, recebidas));
+    }
+  }
+
+  /**
+   * Reparte os tópicos entre as conexões.
+   *
+   * @param topicos       Tópicos a assinar.
+   * @param quantidade    Quantidade de conexões.
+   * @param compartilhada Se {@code true}, todas as conexões assinam todos os
+   *                      tópicos como assinatura compartilhada do grupo; senão,
+   *                      os tópicos são distribuídos entre as conexões (no
+   *                      máximo uma conexão por tópico).
+   * @param grupo         Grupo da assinatura compartilhada.
+   * @return Os tópicos de cada conexão.
+   */
+  public static List<String[]> distribuir(List<String> topicos, int quantidade, boolean compartilhada,
+      String grupo) {
+    List<String[]> assinaturas = new ArrayList<>();
+    if (quantidade <= 1) {
+      assinaturas.add(topicos.toArray(String[]::new));
+    } else if (compartilhada) {
+      String[] compartilhados = topicos.stream().map(t -> "$share/" + grupo + "/" + t).toArray(String[]::new);
+      for (int i = 0; i < quantidade; i++) {
+        assinaturas.add(compartilhados);
+      }
+    } else {
+      int usadas = Math.min(quantidade, topicos.size());
+      List<List<String>> partes = new ArrayList<>();
+      for (int i = 0; i < usadas; i++) {
+        partes.add(new ArrayList<>());
+      }
+      for (int i = 0; i < topicos.size(); i++) {
+        partes.get(i % usadas).add(topicos.get(i));
+      }
+      partes.forEach(parte -> assinaturas.add(parte.toArray(String[]::new)));
+    }
+    return assinaturas;
+  }
+
+  /**
+   * @return Mensagens recebidas por conexão e a vazão somada desde o início.
+   */
+  public InboundPoolStats stats() {
+    List<InboundPoolStats.ConnectionStats> porConexao = new ArrayList<>(conexoes.size());
+    long total = 0;
+    for (Conexao conexao : conexoes) {
+      long recebidas = conexao.recebidas.sum();
+      total += recebidas;
+      porConexao.add(new InboundPoolStats.ConnectionStats(conexao.clientId, List.of(conexao.adapter.getTopic()),
+          conexao.adapter.isRunning(), recebidas));
+    }
+    double segundos = running ? (System.nanoTime() - inicio) / 1e9 : 0;
+    return new InboundPoolStats(conexoes.size(), total, (segundos > 0) ? total / segundos : 0, porConexao);
+  }
+
+  @Override
+  public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+    conexoes.forEach(c -> c.adapter.setBeanFactory(beanFactory));
+  }
+
+  @Override
+  public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+    conexoes.forEach(c -> c.adapter.setApplicationEventPublisher(publisher));
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    conexoes.forEach(c -> c.adapter.afterPropertiesSet());
+  }
+
+  @Override
+  public void start() {
+    inicio = System.nanoTime();
+    for (Conexao conexao : conexoes) {
+      log.info("🔌 Conectando cliente MQTT '{}' aos tópicos {}.", conexao.clientId,
+          String.join(", ", conexao.adapter.getTopic()));
+      conexao.adapter.start();
+    }
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    // Cada desconexão pode esperar até o timeout do cliente; em paralelo, o
+    // encerramento não cresce com o número de conexões.
+    List<Thread> paradas = new ArrayList<>(conexoes.size());
+    for (Conexao conexao : conexoes) {
+      Thread parada = new Thread(conexao.adapter::stop, "mqtt-stop-" + conexao.clientId);
+      parada.start();
+      paradas.add(parada);
+    }
+    for (Thread parada : paradas) {
+      try {
+        parada.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public void destroy() {
+    conexoes.forEach(c -> c.adapter.destroy());
+  }
+
+  private record Conexao(String clientId, MqttPahoMessageDrivenChannelAdapter adapter, LongAdder recebidas) {
+  }
+}
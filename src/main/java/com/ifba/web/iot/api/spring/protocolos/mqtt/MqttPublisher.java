@@ -1,40 +1,34 @@
 package com.ifba.web.iot.api.spring.protocolos.mqtt;
 
-import java.time.LocalDateTime;
-
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import com.ifba.web.iot.api.spring.model.SensorData;
-import com.ifba.web.iot.api.spring.repository.SensorDataRepository;
+import com.ifba.web.iot.api.spring.model.SensorReading;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Componente responsável por simular o envio de dados de sensores via protocolo
  * MQTT.
+ * <p>
+ * É uma etapa pura de publicação: não acessa o banco de dados.
+ * </p>
  */
 @Slf4j
 @Component
 public class MqttPublisher {
 
-    @Autowired
-    private SensorDataRepository sensorDataRepository;
-
     /**
      * Publica os dados do sensor simulando o envio via MQTT.
      *
-     * @param data Objeto {@link SensorData} contendo as informações do sensor a
-     *             serem enviadas.
+     * @param data Cópia imutável {@link SensorReading} com as informações do
+     *             sensor a serem enviadas.
      * @return Mensagem formatada indicando o envio dos dados.
      */
-    public String publish(SensorData data) {
-        String msg = "📡 MQTT >> Enviando dados de " + data.getSensor() +
+    public String publish(SensorReading data) {
+        String msg = "📡 MQTT >> Enviando dados de " + data.sensor() +
                 " para o sistema de monitoramento da fazenda: " +
-                data.getValor() + " " + data.getUnidade();
-        data.setTimestamp(LocalDateTime.now());
-        sensorDataRepository.save(data);
+                data.valor() + " " + data.unidade();
         log.info(data.toString() + "\n" + msg);
         return msg;
     }
-}
\ No newline at end of file
+}
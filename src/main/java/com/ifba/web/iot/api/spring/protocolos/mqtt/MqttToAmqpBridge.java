@@ -1,9 +1,13 @@
 package com.ifba.web.iot.api.spring.protocolos.mqtt;
 
+import org.springframework.amqp.AmqpException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import com.ifba.web.iot.api.spring.model.SensorData;
+import com.ifba.web.iot.api.spring.model.SensorReading;
+import com.ifba.web.iot.api.spring.protocolos.codec.SensorCodec;
+import com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation.InMemoryMessage;
 import com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation.InMemoryRabbitTemplate;
 
 import lombok.extern.slf4j.Slf4j;
@@ -15,18 +19,50 @@ public class MqttToAmqpBridge {
   @Autowired
   private InMemoryRabbitTemplate rabbitTemplate;
 
+  /** Exchange tópico do RabbitMQ simulado que recebe as leituras. */
+  @Value("${rabbit.simulation.exchange:sensores}")
+  private String exchange;
+
+  /**
+   * Formato das leituras: {@code texto} ou {@code binario} (content-type
+   * {@value SensorCodec#CONTENT_TYPE}).
+   */
+  @Value("${rabbit.simulation.formato:texto}")
+  private String formato;
+
   /**
-   * Encaminha os dados publicados via MQTT para a fila "minha-fila" do RabbitMQ
-   * simulado.
+   * Encaminha os dados publicados via MQTT para o exchange do RabbitMQ
+   * simulado, com a chave de roteamento {@code sensor.<tipo>}. As filas
+   * ligadas ao exchange (por padrão, "minha-fila") recebem a mensagem.
+   * <p>
+   * A leitura já foi gravada quando chega aqui, então uma fila cheia ou uma
+   * falha no log de uma fila persistente apenas registra o descarte em vez de
+   * falhar a ingestão.
+   * </p>
+   * <p>
+   * Com {@code rabbit.simulation.formato=binario} a leitura segue no formato
+   * do {@link SensorCodec}, identificado pelo content-type da mensagem; caso
+   * contrário, como texto.
+   * </p>
    *
    * @param data Dados do sensor recebidos do MQTT.
    */
-  public void forwardToQueue(SensorData data) {
-    String message = String.format("Sensor: %s | Valor: %.2f %s | Timestamp: %s",
-        data.getSensor(), data.getValor(), data.getUnidade(), data.getTimestamp());
+  public void forwardToQueue(SensorReading data) {
+    InMemoryMessage message = "binario".equalsIgnoreCase(formato)
+        ? InMemoryMessage.binaria(SensorCodec.toBytes(data), SensorCodec.CONTENT_TYPE)
+        : InMemoryMessage.of(data.resumo());
 
-    log.info("🔄 Encaminhando dados do MQTT para RabbitMQ (fila 'minha-fila')...");
-    rabbitTemplate.send("minha-fila", message);
-    log.info("✅ Dados do sensor '{}' enviados para a fila RabbitMQ.", data.getSensor());
+    String routingKey = "sensor." + data.sensor();
+    log.info("🔄 Encaminhando dados do MQTT para RabbitMQ (exchange '{}', chave '{}')...", exchange, routingKey);
+    try {
+      int entregues = rabbitTemplate.convertAndSend(exchange, routingKey, message);
+      if (entregues > 0) {
+        log.info("✅ Dados do sensor '{}' enviados para {} fila(s) RabbitMQ.", data.sensor(), entregues);
+      } else {
+        log.warn("🗑️ Nenhuma fila aceitou os dados do sensor '{}'; descartados.", data.sensor());
+      }
+    } catch (IllegalArgumentException | IllegalStateException | AmqpException e) {
+      log.warn("⚠️ Dados do sensor '{}' não enviados: {}", data.sensor(), e.getMessage());
+    }
   }
 }
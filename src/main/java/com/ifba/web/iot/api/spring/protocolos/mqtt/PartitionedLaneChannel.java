@@ -0,0 +1,171 @@
+package com.ifba.web.iot.api.spring.protocolos.mqtt;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.integration.channel.AbstractSubscribableChannel;
+import org.springframework.integration.dispatcher.AbstractDispatcher;
+import org.springframework.integration.dispatcher.MessageDispatcher;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandler;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Canal que distribui as mensagens entre faixas (lanes) processadas em
+ * paralelo, preservando a ordem dentro de cada partição.
+ * <p>
+ * A key de partição de cada mensagem (ex: o sensor) é espalhada entre as
+ * faixas; cada faixa tem uma fila limitada e uma única thread, então mensagens
+ * com a mesma key são tratadas na ordem de chegada, enquanto chaves
+ * diferentes avançam em paralelo. Com a fila de uma faixa cheia, o envio
+ * bloqueia quem publica (no caso do MQTT, a thread do cliente Paho) até abrir
+ * espaço.
+ * </p>
+ */
+@Slf4j
+public class PartitionedLaneChannel extends AbstractSubscribableChannel {
+
+  private final LaneDispatcher dispatcher;
+
+  /**
+   * @param lanes        Quantidade de faixas (threads).
+   * @param capacity     Capacidade da fila de cada faixa.
+   * @param partitionKey Extrai a key de partição de uma mensagem; chaves
+   *                     {@code null} vão para a primeira faixa.
+   */
+  public PartitionedLaneChannel(int lanes, int capacity, Function<Message<?>, Object> partitionKey) {
+    this.dispatcher = new LaneDispatcher(lanes, capacity, partitionKey);
+  }
+
+  @Override
+  protected MessageDispatcher getDispatcher() {
+    return dispatcher;
+  }
+
+  /**
+   * @return Profundidade, capacidade e mensagens processadas de cada faixa.
+   */
+  public List<LaneStats> stats() {
+    List<LaneStats> stats = new ArrayList<>(dispatcher.lanes.length);
+    for (int i = 0; i < dispatcher.lanes.length; i++) {
+      LaneDispatcher.Lane lane = dispatcher.lanes[i];
+      stats.add(new LaneStats(i, lane.capacity, lane.queue.size(), lane.maxDepth.get(), lane.processed.sum(),
+          lane.failed.sum()));
+    }
+    return stats;
+  }
+
+  /**
+   * Processa o que ainda estiver nas faixas e encerra as threads.
+   */
+  @Override
+  public void destroy() {
+    super.destroy();
+    try {
+      dispatcher.shutdown(5_000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private final class LaneDispatcher extends AbstractDispatcher {
+
+    private final Lane[] lanes;
+    private final Function<Message<?>, Object> partitionKey;
+    private volatile boolean running = true;
+
+    private LaneDispatcher(int lanes, int capacity, Function<Message<?>, Object> partitionKey) {
+      this.partitionKey = partitionKey;
+      this.lanes = new Lane[Math.max(1, lanes)];
+      for (int i = 0; i < this.lanes.length; i++) {
+        this.lanes[i] = new Lane(capacity, "mqtt-lane-" + i);
+      }
+    }
+
+    @Override
+    public boolean dispatch(Message<?> message) {
+      if (!running) {
+        throw new MessageDeliveryException(message, "Canal " + getComponentName() + " encerrado");
+      }
+      Object key = partitionKey.apply(message);
+      int hash = (key != null) ? key.hashCode() : 0;
+      Lane lane = lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+      try {
+        lane.queue.put(message);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MessageDeliveryException(message, "Interrompido aguardando espaço na faixa", e);
+      }
+      lane.maxDepth.accumulateAndGet(lane.queue.size(), Math::max);
+      return true;
+    }
+
+    private void processar(Message<?> message, Lane lane) {
+      Iterator<MessageHandler> handlers = getHandlers().iterator();
+      if (!handlers.hasNext()) {
+        lane.failed.increment();
+        log.warn("⚠️ Canal {} sem assinantes; mensagem descartada.", getComponentName());
+        return;
+      }
+      try {
+        handlers.next().handleMessage(message);
+        lane.processed.increment();
+      } catch (RuntimeException e) {
+        lane.failed.increment();
+        log.error("❌ Falha ao processar mensagem na faixa {}: {}", lane.thread.getName(), e.getMessage());
+      }
+    }
+
+    private void shutdown(long timeoutMs) throws InterruptedException {
+      running = false;
+      long deadline = System.currentTimeMillis() + timeoutMs;
+      for (Lane lane : lanes) {
+        lane.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+        if (!lane.queue.isEmpty()) {
+          log.warn("⚠️ Faixa {} encerrada com {} mensagens pendentes.", lane.thread.getName(), lane.queue.size());
+        }
+      }
+    }
+
+    /** Uma faixa: fila limitada consumida por uma única thread. */
+    private final class Lane {
+      private final int capacity;
+      private final BlockingQueue<Message<?>> queue;
+      private final AtomicInteger maxDepth = new AtomicInteger();
+      private final LongAdder processed = new LongAdder();
+      private final LongAdder failed = new LongAdder();
+      private final Thread thread;
+
+      private Lane(int capacity, String name) {
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::consumir, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+      }
+
+      private void consumir() {
+        while (running || !queue.isEmpty()) {
+          try {
+            Message<?> message = queue.poll(200, TimeUnit.MILLISECONDS);
+            if (message != null) {
+              processar(message, this);
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
+
+/**
+ * Tipos de exchange suportados pelo broker em memória, com as mesmas regras de
+ * roteamento do RabbitMQ.
+ */
+public enum ExchangeType {
+
+  /** Entrega às filas cuja chave de binding é igual à chave de roteamento. */
+  DIRECT,
+
+  /**
+   * Entrega às filas cujo padrão de binding casa com a chave de roteamento.
+   * As palavras são separadas por ponto; {@code *} casa exatamente uma palavra
+   * e {@code #} casa zero ou mais palavras.
+   */
+  TOPIC,
+
+  /** Entrega a todas as filas ligadas, ignorando a chave de roteamento. */
+  FANOUT;
+
+  /**
+   * @param bindingKey Chave (ou padrão) do binding.
+   * @param routingKey Chave de roteamento da mensagem.
+   * @return {@code true} se a mensagem deve ser entregue pelo binding.
+   */
+  public boolean matches(String bindingKey, String routingKey) {
+    return switch (this) {
+      case DIRECT -> bindingKey.equals(routingKey);
+      case FANOUT -> true;
+      case TOPIC -> topicMatches(palavras(bindingKey), 0, palavras(routingKey), 0);
+    };
+  }
+
+  /** Como no RabbitMQ, a chave vazia tem zero palavras, e não uma palavra vazia. */
+  private static String[] palavras(String chave) {
+    return chave.isEmpty() ? new String[0] : chave.split("\\.", -1);
+  }
+
+  private static boolean topicMatches(String[] padrao, int p, String[] chave, int c) {
+    while (p < padrao.length) {
+      if ("#".equals(padrao[p])) {
+        // '#' no fim casa o restante; no meio, tenta cada ponto de retomada.
+        if (p == padrao.length - 1) {
+          return true;
+        }
+        for (int i = c; i <= chave.length; i++) {
+          if (topicMatches(padrao, p + 1, chave, i)) {
+            return true;
+          }
+        }
+        return false;
+      }
+      if (c == chave.length || !("*".equals(padrao[p]) || padrao[p].equals(chave[c]))) {
+        return false;
+      }
+      p++;
+      c++;
+    }
+    return c == chave.length;
+  }
+}
@@ -0,0 +1,86 @@
+package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exchange do broker em memória: guarda os bindings e resolve para quais
+ * filas uma chave de roteamento é entregue.
+ * <p>
+ * Os bindings mudam raramente e são lidos a cada mensagem, então a lista é
+ * substituída por inteiro a cada alteração e o resultado do roteamento de cada
+ * chave fica em cache até a próxima alteração.
+ * </p>
+ */
+final class InMemoryExchange {
+
+  /** Limite de chaves em cache; acima dele o cache é reiniciado. */
+  private static final int MAX_ROTAS_EM_CACHE = 1024;
+
+  private final String name;
+  private final ExchangeType type;
+  private volatile List<Binding> bindings = List.of();
+  private final Map<String, List<String>> rotas = new ConcurrentHashMap<>();
+
+  InMemoryExchange(String name, ExchangeType type) {
+    this.name = name;
+    this.type = type;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  ExchangeType getType() {
+    return type;
+  }
+
+  /**
+   * Liga uma fila ao exchange. Sem efeito se o binding já existir.
+   */
+  synchronized void bind(String queue, String bindingKey) {
+    Binding binding = new Binding(queue, bindingKey);
+    if (!bindings.contains(binding)) {
+      List<Binding> novos = new ArrayList<>(bindings);
+      novos.add(binding);
+      bindings = List.copyOf(novos);
+      rotas.clear();
+    }
+  }
+
+  /**
+   * Remove o binding entre a fila e o exchange, se existir.
+   */
+  synchronized void unbind(String queue, String bindingKey) {
+    List<Binding> novos = new ArrayList<>(bindings);
+    if (novos.remove(new Binding(queue, bindingKey))) {
+      bindings = List.copyOf(novos);
+      rotas.clear();
+    }
+  }
+
+  /**
+   * @param routingKey Chave de roteamento da mensagem.
+   * @return As filas que devem receber a mensagem, sem repetições.
+   */
+  List<String> route(String routingKey) {
+    List<String> filas = rotas.get(routingKey);
+    if (filas == null) {
+      filas = bindings.stream()
+          .filter(b -> type.matches(b.key(), routingKey))
+          .map(Binding::queue)
+          .distinct()
+          .toList();
+      if (rotas.size() >= MAX_ROTAS_EM_CACHE) {
+        rotas.clear();
+      }
+      rotas.put(routingKey, filas);
+    }
+    return filas;
+  }
+
+  private record Binding(String queue, String key) {
+  }
+}
@@ -0,0 +1,138 @@
+package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumidores concorrentes de uma fila do broker em memória.
+ * <p>
+ * Cada consumidor é uma thread que fica bloqueada na fila até a chegada de uma
+ * mensagem e, a cada despertar, retira de uma vez até {@code prefetch}
+ * mensagens já disponíveis, como o prefetch de um consumidor do RabbitMQ. As
+ * mensagens são divididas entre os consumidores; a ordem só é garantida com um
+ * único consumidor. O retorno do {@code handler} é enviado como resposta às
+ * mensagens que aguardam uma. Cada lote é confirmado ({@link
+ * InMemoryRabbitTemplate#ack}) depois de processado, inclusive as mensagens cujo
+ * processamento falhou (o erro é apenas registrado).
+ * </p>
+ * <p>
+ * Em {@link #stop}, os consumidores deixam de esperar por novas mensagens mas
+ * terminam de processar as que já estão na fila.
+ * </p>
+ */
+@Slf4j
+public final class InMemoryListenerContainer {
+
+  /** Tempo máximo de cada espera, para observar o pedido de encerramento. */
+  private static final Duration ESPERA = Duration.ofMillis(500);
+
+  private final InMemoryRabbitTemplate template;
+  private final String queue;
+  private final int consumers;
+  private final int prefetch;
+  private final Function<InMemoryMessage, String> handler;
+
+  private final List<Thread> threads = new ArrayList<>();
+  private volatile boolean running;
+
+  /**
+   * @param template  O broker em memória.
+   * @param queue     Fila consumida.
+   * @param consumers Quantidade de consumidores concorrentes.
+   * @param prefetch  Mensagens retiradas por consumidor a cada despertar.
+   * @param handler   Processa uma mensagem e devolve a resposta (ou
+   *                  {@code null}).
+   */
+  public InMemoryListenerContainer(InMemoryRabbitTemplate template, String queue, int consumers, int prefetch,
+      Function<InMemoryMessage, String> handler) {
+    if (consumers < 1 || prefetch < 1) {
+      throw new IllegalArgumentException("Consumidores e prefetch devem ser positivos");
+    }
+    this.template = template;
+    this.queue = queue;
+    this.consumers = consumers;
+    this.prefetch = prefetch;
+    this.handler = handler;
+  }
+
+  /**
+   * Inicia os consumidores.
+   */
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    for (int i = 0; i < consumers; i++) {
+      Thread consumidor = new Thread(this::consumir, "in-memory-rabbit-" + queue + "-" + i);
+      consumidor.setDaemon(true);
+      consumidor.start();
+      threads.add(consumidor);
+    }
+  }
+
+  /**
+   * Para de aguardar novas mensagens e espera os consumidores esvaziarem a
+   * fila.
+   *
+   * @param timeout Tempo máximo de espera.
+   * @return {@code true} se a fila foi esvaziada a tempo.
+   * @throws InterruptedException se a espera for interrompida.
+   */
+  public synchronized boolean stop(Duration timeout) throws InterruptedException {
+    running = false;
+    long prazo = System.nanoTime() + timeout.toNanos();
+    boolean esvaziada = true;
+    for (Thread consumidor : threads) {
+      long restanteMs = Math.max(1, (prazo - System.nanoTime()) / 1_000_000);
+      consumidor.join(restanteMs);
+      if (consumidor.isAlive()) {
+        esvaziada = false;
+        consumidor.interrupt();
+      }
+    }
+    threads.clear();
+    return esvaziada;
+  }
+
+  /** @return O nome da fila consumida. */
+  public String getQueue() {
+    return queue;
+  }
+
+  private void consumir() {
+    List<InMemoryMessage> mensagens = new ArrayList<>(prefetch);
+    while (running || template.size(queue) > 0) {
+      try {
+        InMemoryMessage primeira = template.receive(queue, ESPERA);
+        if (primeira == null) {
+          continue;
+        }
+        mensagens.add(primeira);
+        template.drainTo(queue, mensagens, prefetch - 1);
+        for (InMemoryMessage msg : mensagens) {
+          processar(msg);
+        }
+        template.ack(queue, mensagens);
+      } catch (InterruptedException e) {
+        // Encerramento imediato solicitado: o que estiver na fila é descartado.
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        mensagens.clear();
+      }
+    }
+  }
+
+  private void processar(InMemoryMessage msg) {
+    try {
+      template.reply(msg, handler.apply(msg));
+    } catch (RuntimeException e) {
+      log.error("❌ Erro ao processar mensagem da fila '{}': {}", queue, e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mensagem trafegada pelo broker em memória.
+ * <p>
+ * Mensagens com {@code contentType} têm corpo binário, guardado em
+ * {@code body} como ISO-8859-1 (um caractere por byte); com as compact
+ * strings da JVM o texto ocupa exatamente os bytes originais.
+ * </p>
+ *
+ * @param body          Conteúdo da mensagem.
+ * @param correlationId Identificador que associa a resposta à requisição, ou
+ *                      {@code null} se nenhuma resposta for esperada.
+ * @param offset        Posição da mensagem no log da fila, ou {@code -1} se a
+ *                      fila não é persistente.
+ * @param contentType   Formato do corpo binário, ou {@code null} se a
+ *                      mensagem é texto.
+ */
+public record InMemoryMessage(String body, String correlationId, long offset, String contentType) {
+
+  /**
+   * @param body          Conteúdo da mensagem.
+   * @param correlationId Identificador da requisição, ou {@code null}.
+   * @param offset        Posição da mensagem no log da fila, ou {@code -1}.
+   */
+  public InMemoryMessage(String body, String correlationId, long offset) {
+    this(body, correlationId, offset, null);
+  }
+
+  /**
+   * @param body          Conteúdo da mensagem.
+   * @param correlationId Identificador da requisição, ou {@code null}.
+   */
+  public InMemoryMessage(String body, String correlationId) {
+    this(body, correlationId, -1);
+  }
+
+  /**
+   * @param body Conteúdo da mensagem.
+   * @return Uma mensagem que não espera resposta.
+   */
+  public static InMemoryMessage of(String body) {
+    return new InMemoryMessage(body, null);
+  }
+
+  /**
+   * @param corpo       Bytes da mensagem.
+   * @param contentType Formato dos bytes.
+   * @return Uma mensagem binária que não espera resposta.
+   */
+  public static InMemoryMessage binaria(byte[] corpo, String contentType) {
+    return new InMemoryMessage(new String(corpo, StandardCharsets.ISO_8859_1), null, -1, contentType);
+  }
+
+  /** @return {@code true} se o corpo é binário, no formato {@link #contentType()}. */
+  public boolean isBinary() {
+    return contentType != null;
+  }
+
+  /** @return Os bytes do corpo: os originais, se binário, ou o texto em UTF-8. */
+  public byte[] bodyBytes() {
+    return body.getBytes(isBinary() ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+  }
+
+  /** @return O corpo, se texto, ou o tamanho e o formato, se binário; para logs. */
+  public String resumo() {
+    return isBinary() ? "<" + body.length() + " bytes " + contentType + ">" : body;
+  }
+
+  /** @return {@code true} se o remetente aguarda uma resposta. */
+  public boolean expectsReply() {
+    return correlationId != null;
+  }
+
+  /** @return {@code true} se a mensagem foi gravada no log da fila. */
+  public boolean isPersistent() {
+    return offset >= 0;
+  }
+
+  /**
+   * @param offset Posição da mensagem no log da fila.
+   * @return Uma cópia da mensagem com o offset informado.
+   */
+  public InMemoryMessage withOffset(long offset) {
+    return new InMemoryMessage(body, correlationId, offset, contentType);
+  }
+}
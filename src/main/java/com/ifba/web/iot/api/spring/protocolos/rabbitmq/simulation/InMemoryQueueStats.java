@@ -0,0 +1,15 @@
+package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
+
+/**
+ * Estado de uma fila do broker em memória.
+ *
+ * @param queue    Nome da fila.
+ * @param capacity Capacidade da fila (potência de dois).
+ * @param policy   Política aplicada quando a fila está cheia.
+ * @param depth    Mensagens aguardando consumo.
+ * @param dropped  Mensagens descartadas por falta de espaço.
+ * @param rejected Envios recusados por falta de espaço.
+ */
+public record InMemoryQueueStats(String queue, int capacity, OverflowPolicy policy, int depth, long dropped,
+    long rejected) {
+}
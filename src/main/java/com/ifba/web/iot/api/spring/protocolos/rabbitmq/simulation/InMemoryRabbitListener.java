@@ -1,49 +1,105 @@
 package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
 
-import java.util.concurrent.Executors;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.ifba.web.iot.api.spring.protocolos.codec.SensorCodec;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Simula um listener do RabbitMQ que escuta mensagens de uma fila na memória.
  * 
- * Essa classe consome mensagens da fila "minha-fila" criada pela
- * {@link InMemoryRabbitTemplate},
+ * Essa classe consome mensagens da fila {@code rabbit.simulation.fila}
+ * ("minha-fila") criada na {@link InMemoryRabbitTemplate},
  * imprime no console e armazena a última mensagem recebida para possível consulta.
+ * <p>
+ * Ao iniciar, declara a mesma topologia usada com o RabbitMQ real: um exchange
+ * do tipo tópico ({@code rabbit.simulation.exchange}) e o binding da fila com o
+ * padrão {@code rabbit.simulation.binding}. A fila é consumida por
+ * {@code rabbit.simulation.consumidores} consumidores concorrentes (ver
+ * {@link InMemoryListenerContainer}). Mensagens que aguardam resposta são
+ * respondidas com o próprio conteúdo processado. Leituras no formato binário
+ * ({@link SensorCodec}) são decodificadas para o mesmo texto das demais.
+ * </p>
  */
 @Slf4j
 @Service
 public class InMemoryRabbitListener {
 
   private final InMemoryRabbitTemplate rabbitTemplate;
+  private final String exchange;
+  private final String queue;
+  private final String bindingKey;
+  private final Duration encerramento;
+  private final InMemoryListenerContainer container;
 
   /** Armazena a última mensagem recebida da fila. */
   private volatile String lastReceivedMessage = null;
 
   /**
-   * Construtor que inicia um listener em uma thread separada para verificar mensagens
-   * na fila "minha-fila" de forma contínua.
+   * Construtor do listener simulado.
    * 
    * @param rabbitTemplate o template simulado para envio e recebimento de mensagens
+   * @param exchange       exchange do tipo tópico que recebe as leituras
+   * @param queue          fila consumida
+   * @param bindingKey     padrão que liga a fila ao exchange
+   * @param consumidores   quantidade de consumidores concorrentes
+   * @param prefetch       mensagens retiradas por consumidor a cada despertar
+   * @param encerramentoMs tempo máximo para esvaziar a fila no encerramento
    */
-  public InMemoryRabbitListener(InMemoryRabbitTemplate rabbitTemplate) {
+  public InMemoryRabbitListener(InMemoryRabbitTemplate rabbitTemplate,
+      @Value("${rabbit.simulation.exchange:sensores}") String exchange,
+      @Value("${rabbit.simulation.fila:minha-fila}") String queue,
+      @Value("${rabbit.simulation.binding:sensor.#}") String bindingKey,
+      @Value("${rabbit.simulation.consumidores:1}") int consumidores,
+      @Value("${rabbit.simulation.prefetch:256}") int prefetch,
+      @Value("${rabbit.simulation.encerramento-ms:5000}") long encerramentoMs) {
     this.rabbitTemplate = rabbitTemplate;
+    this.exchange = exchange;
+    this.queue = queue;
+    this.bindingKey = bindingKey;
+    this.encerramento = Duration.ofMillis(encerramentoMs);
+    this.container = new InMemoryListenerContainer(rabbitTemplate, queue, consumidores, prefetch, this::processar);
+  }
+
+  /**
+   * Declara a topologia e inicia os consumidores.
+   */
+  @PostConstruct
+  public void iniciar() {
+    rabbitTemplate.declareExchange(exchange, ExchangeType.TOPIC);
+    rabbitTemplate.bind(queue, exchange, bindingKey);
+    container.start();
+    log.info("📦 InMemoryRabbitListener iniciado. Aguardando mensagens na fila: '{}' (exchange '{}', binding '{}')...",
+        queue, exchange, bindingKey);
+  }
+
+  private String processar(InMemoryMessage msg) {
+    log.debug("📨 Mensagem recebida da fila '{}': {}", queue, msg.resumo());
+    String conteudo = SensorCodec.CONTENT_TYPE.equals(msg.contentType())
+        ? SensorCodec.decodeReading(ByteBuffer.wrap(msg.bodyBytes())).resumo()
+        : msg.body();
+    lastReceivedMessage = conteudo; // guarda para retornar depois
+    // Aqui pode processar a mensagem como quiser
+    return conteudo;
+  }
 
-    log.info("📦 InMemoryRabbitListener iniciado. Aguardando mensagens na fila: 'minha-fila'...");
-
-    Executors.newSingleThreadExecutor().submit(() -> {
-      while (true) {
-        String msg = rabbitTemplate.receive("minha-fila");
-        if (msg != null) {
-          log.info("📨 Mensagem recebida da fila 'minha-fila': {}", msg);
-          lastReceivedMessage = msg; // guarda para retornar depois
-          // Aqui pode processar a mensagem como quiser
-        }
-        Thread.sleep(100);
-      }
-    });
+  /**
+   * Para de aguardar novas mensagens e espera os consumidores esvaziarem a
+   * fila.
+   */
+  @PreDestroy
+  public void encerrar() throws InterruptedException {
+    if (!container.stop(encerramento)) {
+      log.warn("⚠️ Fila '{}' não esvaziada em {} ms; {} mensagens descartadas.", queue, encerramento.toMillis(),
+          rabbitTemplate.size(queue));
+    }
   }
 
   /**
@@ -54,4 +110,14 @@ public class InMemoryRabbitListener {
   public String getLastReceivedMessage() {
     return lastReceivedMessage;
   }
+
+  /** @return o exchange em que as leituras são publicadas */
+  public String getExchange() {
+    return exchange;
+  }
+
+  /** @return o nome da fila consumida */
+  public String getQueue() {
+    return queue;
+  }
 }
@@ -1,12 +1,31 @@
 package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -15,13 +34,210 @@ import lombok.extern.slf4j.Slf4j;
  * 
  * Esta classe mantém um mapa de filas nomeadas em memória para permitir
  * testes e simulações sem dependência de um servidor RabbitMQ real.
+ * <p>
+ * As filas são bloqueantes: um consumidor parado em {@link #receive(String,
+ * Duration)} é acordado assim que uma mensagem chega, sem espera ativa. Também
+ * há suporte a requisição/resposta ({@link #sendAndReceive}), no estilo do
+ * direct reply-to do RabbitMQ: a resposta é correlacionada pelo
+ * {@code correlationId} da mensagem.
+ * </p>
+ * <p>
+ * Cada fila é um {@link RingBufferQueue} de capacidade fixa, então a memória
+ * usada não cresce com rajadas de mensagens: quando a fila enche, vale a
+ * {@link OverflowPolicy} configurada ({@code rabbit.simulation.politica}). Os
+ * padrões podem ser sobrescritos por fila com {@link #declareQueue}.
+ * </p>
+ * <p>
+ * Como no RabbitMQ, {@link #send(String, String)} usa o exchange padrão (a
+ * chave de roteamento é o nome da fila), e {@link #convertAndSend} publica em
+ * um exchange declarado com {@link #declareExchange}, que entrega a mensagem a
+ * cada fila ligada por {@link #bind} cuja chave casa com a de roteamento.
+ * </p>
+ * <p>
+ * Com {@code rabbit.simulation.persistencia.habilitada}, cada fila também
+ * grava suas mensagens em um {@link SegmentedLog} antes de entregá-las, e os
+ * consumidores confirmam as mensagens processadas com {@link #ack}. Após um
+ * reinício, as mensagens não confirmadas voltam para a fila (entrega pelo menos
+ * uma vez). As respostas de {@link #sendAndReceive} não sobrevivem ao reinício.
+ * </p>
  */
 @Slf4j
 @Service
 public class InMemoryRabbitTemplate {
 
+  /** Nomes de fila aceitos como nome de diretório no modo persistente. */
+  private static final Pattern NOME_PERSISTENTE = Pattern.compile("[\\w.-]+");
+
   /** Mapa que armazena filas nomeadas com mensagens em memória. */
-  private Map<String, Queue<String>> queues = new ConcurrentHashMap<>();
+  private final Map<String, RingBufferQueue<InMemoryMessage>> queues = new ConcurrentHashMap<>();
+
+  /** Exchanges declarados, por nome. */
+  private final Map<String, InMemoryExchange> exchanges = new ConcurrentHashMap<>();
+
+  /** Respostas aguardadas, por {@code correlationId}. */
+  private final Map<String, CompletableFuture<String>> pendingReplies = new ConcurrentHashMap<>();
+
+  /** Logs das filas persistentes, por nome da fila. */
+  private final Map<String, SegmentedLog> logs = new ConcurrentHashMap<>();
+
+  private final int capacidadePadrao;
+  private final OverflowPolicy politicaPadrao;
+  private final Path diretorio;
+  private final int segmentoBytes;
+  private final ScheduledExecutorService sincronizador;
+
+  /**
+   * Cria um broker apenas em memória.
+   *
+   * @param capacidadePadrao Capacidade das filas criadas automaticamente.
+   * @param politicaPadrao   Política de transbordo das filas criadas
+   *                         automaticamente.
+   */
+  public InMemoryRabbitTemplate(int capacidadePadrao, OverflowPolicy politicaPadrao) {
+    this(capacidadePadrao, politicaPadrao, false, null, 0, 0);
+  }
+
+  /**
+   * @param capacidadePadrao Capacidade das filas criadas automaticamente.
+   * @param politicaPadrao   Política de transbordo das filas criadas
+   *                         automaticamente.
+   * @param persistente      Se as filas gravam suas mensagens em disco.
+   * @param diretorio        Diretório dos logs das filas.
+   * @param segmentoBytes    Tamanho de cada segmento de log.
+   * @param fsyncMs          Intervalo entre as gravações em disco dos logs.
+   */
+  @Autowired
+  public InMemoryRabbitTemplate(@Value("${rabbit.simulation.capacidade:1024}") int capacidadePadrao,
+      @Value("${rabbit.simulation.politica:BLOCK}") OverflowPolicy politicaPadrao,
+      @Value("${rabbit.simulation.persistencia.habilitada:false}") boolean persistente,
+      @Value("${rabbit.simulation.persistencia.diretorio:data/broker}") Path diretorio,
+      @Value("${rabbit.simulation.persistencia.segmento-bytes:16777216}") int segmentoBytes,
+      @Value("${rabbit.simulation.persistencia.fsync-ms:20}") long fsyncMs) {
+    this.capacidadePadrao = capacidadePadrao;
+    this.politicaPadrao = politicaPadrao;
+    this.diretorio = persistente ? diretorio : null;
+    this.segmentoBytes = segmentoBytes;
+    if (persistente) {
+      sincronizador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "in-memory-rabbit-fsync");
+        t.setDaemon(true);
+        return t;
+      });
+      sincronizador.scheduleWithFixedDelay(this::sincronizar, fsyncMs, fsyncMs, TimeUnit.MILLISECONDS);
+      log.info("💾 Broker em memória com persistência em {} (fsync a cada {} ms).", diretorio.toAbsolutePath(),
+          fsyncMs);
+      recuperarFilas();
+    } else {
+      sincronizador = null;
+    }
+  }
+
+  /**
+   * Cria uma fila com capacidade e política próprias. Sem efeito se a fila já
+   * existir.
+   *
+   * @param queueName      o nome da fila
+   * @param capacidade     capacidade mínima (arredondada para potência de dois)
+   * @param politica       comportamento quando a fila está cheia
+   * @param singleProducer {@code true} se apenas uma thread envia para a fila
+   */
+  public void declareQueue(String queueName, int capacidade, OverflowPolicy politica, boolean singleProducer) {
+    queues.computeIfAbsent(queueName, k -> criarFila(k, capacidade, politica, singleProducer));
+  }
+
+  /**
+   * Declara um exchange. Sem efeito se ele já existir com o mesmo tipo.
+   *
+   * @param exchange o nome do exchange
+   * @param type     o tipo do exchange
+   * @throws IllegalStateException se o exchange já existir com outro tipo
+   */
+  public void declareExchange(String exchange, ExchangeType type) {
+    InMemoryExchange existente = exchanges.computeIfAbsent(exchange, k -> new InMemoryExchange(k, type));
+    if (existente.getType() != type) {
+      throw new IllegalStateException(
+          "Exchange '" + exchange + "' já declarado como " + existente.getType() + ", não " + type);
+    }
+  }
+
+  /**
+   * Liga uma fila a um exchange. A fila é criada com os padrões se ainda não
+   * existir.
+   *
+   * @param queueName  o nome da fila
+   * @param exchange   o nome do exchange
+   * @param bindingKey a chave (ou padrão, em exchanges tópico) do binding
+   * @throws IllegalArgumentException se o exchange não foi declarado
+   */
+  public void bind(String queueName, String exchange, String bindingKey) {
+    queue(queueName);
+    exchange(exchange).bind(queueName, bindingKey);
+  }
+
+  /**
+   * Remove a ligação entre uma fila e um exchange.
+   *
+   * @param queueName  o nome da fila
+   * @param exchange   o nome do exchange
+   * @param bindingKey a chave do binding
+   * @throws IllegalArgumentException se o exchange não foi declarado
+   */
+  public void unbind(String queueName, String exchange, String bindingKey) {
+    exchange(exchange).unbind(queueName, bindingKey);
+  }
+
+  /**
+   * Publica uma mensagem em um exchange, que a entrega a cada fila cuja chave
+   * de binding casa com a chave de roteamento. Mensagens sem nenhuma fila de
+   * destino são descartadas, como no RabbitMQ. Com o exchange {@code ""} a
+   * mensagem vai direto para a fila de nome {@code routingKey}.
+   *
+   * @param exchange   o nome do exchange
+   * @param routingKey a chave de roteamento
+   * @param message    a mensagem a ser enviada
+   * @return a quantidade de filas que aceitaram a mensagem
+   * @throws IllegalArgumentException se o exchange não foi declarado
+   * @throws IllegalStateException    se uma fila de destino estiver cheia e
+   *                                  recusar o envio
+   * @throws AmqpIOException          se o log de uma fila persistente não
+   *                                  puder ser gravado
+   */
+  public int convertAndSend(String exchange, String routingKey, String message) {
+    return convertAndSend(exchange, routingKey, InMemoryMessage.of(message));
+  }
+
+  /**
+   * Publica uma mensagem, com seus metadados, em um exchange (ver
+   * {@link #convertAndSend(String, String, String)}).
+   *
+   * @param exchange   o nome do exchange
+   * @param routingKey a chave de roteamento
+   * @param msg        a mensagem a ser enviada
+   * @return a quantidade de filas que aceitaram a mensagem
+   * @throws IllegalArgumentException se o exchange não foi declarado
+   * @throws IllegalStateException    se uma fila de destino estiver cheia e
+   *                                  recusar o envio
+   * @throws AmqpIOException          se o log de uma fila persistente não
+   *                                  puder ser gravado
+   */
+  public int convertAndSend(String exchange, String routingKey, InMemoryMessage msg) {
+    if (exchange.isEmpty()) {
+      return send(routingKey, msg) ? 1 : 0;
+    }
+    List<String> destinos = exchange(exchange).route(routingKey);
+    if (destinos.isEmpty()) {
+      log.debug("📭 Nenhuma fila ligada ao exchange '{}' para a chave '{}'; mensagem descartada.", exchange,
+          routingKey);
+      return 0;
+    }
+    int entregues = 0;
+    for (String destino : destinos) {
+      if (send(destino, msg)) {
+        entregues++;
+      }
+    }
+    return entregues;
+  }
 
   /**
    * Envia uma mensagem para a fila especificada. Caso a fila ainda não exista,
@@ -29,26 +245,284 @@ public class InMemoryRabbitTemplate {
    * 
    * @param queueName o nome da fila
    * @param message   a mensagem a ser enviada
+   * @return {@code false} se a fila estava cheia e a mensagem foi descartada
+   * @throws IllegalStateException se a fila estiver cheia e recusar o envio
+   * @throws AmqpIOException       se o log da fila persistente não puder ser
+   *                               gravado
+   */
+  public boolean send(String queueName, String message) {
+    return send(queueName, InMemoryMessage.of(message));
+  }
+
+  /**
+   * Envia uma mensagem, com seus metadados, para a fila especificada.
+   *
+   * @param queueName o nome da fila
+   * @param message   a mensagem a ser enviada
+   * @return {@code false} se a fila estava cheia e a mensagem foi descartada
+   * @throws IllegalStateException se a fila estiver cheia e recusar o envio, ou
+   *                               se a espera por espaço for interrompida
+   * @throws AmqpIOException       se o log da fila persistente não puder ser
+   *                               aberto ou gravado
    */
-  public void send(String queueName, String message) {
-    queues.computeIfAbsent(queueName, k -> new ConcurrentLinkedQueue<>()).add(message);
-     log.debug("📤 Mensagem enviada para a fila '{}': {}", queueName, message);
+  public boolean send(String queueName, InMemoryMessage message) {
+    RingBufferQueue<InMemoryMessage> queue;
+    SegmentedLog wal;
+    try {
+      queue = queue(queueName);
+      wal = logs.get(queueName);
+      if (wal != null) {
+        message = message.withOffset(wal.append(message));
+      }
+    } catch (UncheckedIOException e) {
+      throw new AmqpIOException("Falha no log da fila '" + queueName + "': " + e.getMessage(), e.getCause());
+    }
+    boolean enfileirada;
+    try {
+      enfileirada = queue.offer(message);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      descartarDoLog(wal, message);
+      throw new IllegalStateException("Envio para a fila '" + queueName + "' interrompido", e);
+    } catch (IllegalStateException e) {
+      descartarDoLog(wal, message);
+      throw e;
+    }
+    if (enfileirada) {
+      log.debug("📤 Mensagem enviada para a fila '{}': {}", queueName, message.resumo());
+    } else {
+      log.debug("🗑️ Fila '{}' cheia; mensagem descartada: {}", queueName, message.resumo());
+    }
+    return enfileirada;
   }
 
   /**
    * Recebe e remove a próxima mensagem da fila especificada, ou retorna
    * {@code null}
-   * se a fila estiver vazia ou não existir.
+   * se a fila estiver vazia ou não existir. A mensagem é confirmada ao ser
+   * recebida.
    * 
    * @param queueName o nome da fila
    * @return a próxima mensagem da fila ou {@code null}
    */
   public String receive(String queueName) {
-    Queue<String> queue = queues.get(queueName);
-    String msg = (queue != null) ? queue.poll() : null;
+    RingBufferQueue<InMemoryMessage> queue = queues.get(queueName);
+    InMemoryMessage msg = (queue != null) ? queue.poll() : null;
     if (msg != null) {
-      log.debug("📥 Mensagem recebida da fila '{}': {}", queueName, msg);
+      descartarDoLog(logs.get(queueName), msg);
+      log.debug("📥 Mensagem recebida da fila '{}': {}", queueName, msg.resumo());
+    }
+    return (msg != null) ? msg.body() : null;
+  }
+
+  /**
+   * Aguarda até a chegada de uma mensagem na fila ou o fim do tempo limite.
+   * Em filas persistentes, a mensagem deve ser confirmada com {@link #ack}
+   * após o processamento.
+   *
+   * @param queueName o nome da fila
+   * @param timeout   tempo máximo de espera
+   * @return a próxima mensagem da fila ou {@code null} se o tempo esgotar
+   * @throws InterruptedException se a thread for interrompida durante a espera
+   */
+  public InMemoryMessage receive(String queueName, Duration timeout) throws InterruptedException {
+    return queue(queueName).poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Move para {@code destino}, sem bloquear, até {@code max} mensagens já
+   * disponíveis na fila.
+   *
+   * @param queueName o nome da fila
+   * @param destino   coleção que recebe as mensagens
+   * @param max       quantidade máxima de mensagens
+   * @return a quantidade de mensagens movidas
+   */
+  public int drainTo(String queueName, Collection<? super InMemoryMessage> destino, int max) {
+    return queue(queueName).drainTo(destino, max);
+  }
+
+  /**
+   * Confirma o processamento de mensagens recebidas da fila. Em filas não
+   * persistentes não tem efeito.
+   *
+   * @param queueName o nome da fila
+   * @param mensagens as mensagens processadas
+   */
+  public void ack(String queueName, List<InMemoryMessage> mensagens) {
+    SegmentedLog wal = logs.get(queueName);
+    if (wal != null) {
+      wal.ack(mensagens);
+    }
+  }
+
+  /**
+   * Envia uma mensagem e aguarda a resposta do consumidor.
+   *
+   * @param queueName o nome da fila
+   * @param message   a mensagem a ser enviada
+   * @param timeout   tempo máximo de espera pela resposta
+   * @return a resposta do consumidor
+   * @throws TimeoutException      se nenhuma resposta chegar a tempo
+   * @throws InterruptedException  se a thread for interrompida durante a espera
+   * @throws IllegalStateException se a fila estiver cheia e não aceitar a
+   *                               mensagem
+   * @throws AmqpIOException       se o log da fila persistente não puder ser
+   *                               gravado
+   */
+  public String sendAndReceive(String queueName, String message, Duration timeout)
+      throws TimeoutException, InterruptedException {
+    String correlationId = UUID.randomUUID().toString();
+    CompletableFuture<String> reply = new CompletableFuture<>();
+    pendingReplies.put(correlationId, reply);
+    try {
+      if (!send(queueName, new InMemoryMessage(message, correlationId))) {
+        throw new IllegalStateException("Fila '" + queueName + "' cheia; mensagem descartada");
+      }
+      return reply.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pendingReplies.remove(correlationId);
+    }
+  }
+
+  /**
+   * Responde a uma mensagem recebida. Sem efeito se o remetente não aguarda
+   * resposta ou já desistiu de esperar.
+   *
+   * @param request a mensagem recebida
+   * @param reply   o conteúdo da resposta
+   */
+  public void reply(InMemoryMessage request, String reply) {
+    if (request.expectsReply()) {
+      CompletableFuture<String> pending = pendingReplies.remove(request.correlationId());
+      if (pending != null) {
+        pending.complete(reply);
+      }
+    }
+  }
+
+  /**
+   * @param queueName o nome da fila
+   * @return a quantidade de mensagens aguardando na fila
+   */
+  public int size(String queueName) {
+    RingBufferQueue<InMemoryMessage> queue = queues.get(queueName);
+    return (queue != null) ? queue.size() : 0;
+  }
+
+  /**
+   * @return profundidade, capacidade e descartes de cada fila, por nome
+   */
+  public List<InMemoryQueueStats> stats() {
+    return queues.entrySet().stream()
+        .map(e -> new InMemoryQueueStats(e.getKey(), e.getValue().capacity(), e.getValue().getPolicy(),
+            e.getValue().size(), e.getValue().getDropped(), e.getValue().getRejected()))
+        .sorted((a, b) -> a.queue().compareTo(b.queue()))
+        .toList();
+  }
+
+  private InMemoryExchange exchange(String exchange) {
+    InMemoryExchange ex = exchanges.get(exchange);
+    if (ex == null) {
+      throw new IllegalArgumentException("Exchange não declarado: " + exchange);
+    }
+    return ex;
+  }
+
+  /**
+   * Grava em disco os logs das filas persistentes.
+   */
+  public void sincronizar() {
+    logs.forEach((fila, wal) -> {
+      try {
+        wal.flush();
+      } catch (RuntimeException e) {
+        log.error("❌ Falha ao gravar o log da fila '{}': {}", fila, e.getMessage(), e);
+      }
+    });
+  }
+
+  /**
+   * Para o sincronizador e fecha os logs, gravando o que estiver pendente.
+   */
+  @PreDestroy
+  public void fechar() {
+    if (sincronizador != null) {
+      sincronizador.shutdown();
+    }
+    logs.forEach((fila, wal) -> {
+      try {
+        wal.close();
+      } catch (IOException e) {
+        log.warn("⚠️ Falha ao fechar o log da fila '{}': {}", fila, e.getMessage());
+      }
+    });
+    logs.clear();
+  }
+
+  /**
+   * Reabre as filas que já têm log no diretório, para que as mensagens
+   * pendentes voltem a ser entregues antes mesmo de a fila ser usada. As filas
+   * recuperadas usam a capacidade e a política padrão.
+   */
+  private void recuperarFilas() {
+    try (Stream<Path> filas = Files.list(Files.createDirectories(diretorio))) {
+      filas.filter(Files::isDirectory)
+          .map(p -> p.getFileName().toString())
+          .filter(nome -> NOME_PERSISTENTE.matcher(nome).matches())
+          .forEach(this::queue);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Falha ao listar os logs em " + diretorio, e);
+    }
+  }
+
+  private RingBufferQueue<InMemoryMessage> queue(String queueName) {
+    return queues.computeIfAbsent(queueName, k -> criarFila(k, capacidadePadrao, politicaPadrao, false));
+  }
+
+  /**
+   * Cria a fila e, no modo persistente, abre o seu log e devolve à fila as
+   * mensagens ainda não confirmadas.
+   */
+  private RingBufferQueue<InMemoryMessage> criarFila(String queueName, int capacidade, OverflowPolicy politica,
+      boolean singleProducer) {
+    if (diretorio == null) {
+      return new RingBufferQueue<>(capacidade, politica, singleProducer);
+    }
+    if (!NOME_PERSISTENTE.matcher(queueName).matches()) {
+      throw new IllegalArgumentException("Nome de fila inválido para persistência: " + queueName);
+    }
+
+    List<InMemoryMessage> pendentes = new ArrayList<>();
+    SegmentedLog wal;
+    try {
+      wal = SegmentedLog.abrir(diretorio.resolve(queueName), segmentoBytes, pendentes);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Falha ao abrir o log da fila '" + queueName + "'", e);
+    }
+    // A fila recuperada precisa caber inteira, mesmo acima da capacidade.
+    RingBufferQueue<InMemoryMessage> queue = new RingBufferQueue<>(Math.max(capacidade, pendentes.size()),
+        politica, singleProducer, m -> wal.ack(m.offset()));
+    for (InMemoryMessage msg : pendentes) {
+      try {
+        queue.offer(msg);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    logs.put(queueName, wal);
+    if (!pendentes.isEmpty()) {
+      log.info("♻️ Fila '{}' recuperada do log com {} mensagens pendentes.", queueName, pendentes.size());
+    }
+    return queue;
+  }
+
+  private static void descartarDoLog(SegmentedLog wal, InMemoryMessage message) {
+    if (wal != null && message.isPersistent()) {
+      wal.ack(message.offset());
     }
-    return msg;
   }
 }
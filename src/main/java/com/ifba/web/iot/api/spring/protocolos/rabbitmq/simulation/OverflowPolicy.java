@@ -0,0 +1,20 @@
+package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
+
+/**
+ * Comportamento de uma fila em memória quando ela está cheia e recebe uma
+ * nova mensagem.
+ */
+public enum OverflowPolicy {
+
+  /** O remetente aguarda até haver espaço na fila. */
+  BLOCK,
+
+  /** A mensagem mais antiga da fila é descartada para abrir espaço. */
+  DROP_OLDEST,
+
+  /** A nova mensagem é descartada. */
+  DROP_NEWEST,
+
+  /** O envio falha com {@link IllegalStateException}. */
+  REJECT
+}
@@ -0,0 +1,304 @@
+package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Fila limitada sobre um buffer circular pré-alocado.
+ * <p>
+ * Enfileirar e desenfileirar não alocam memória nem usam locks: cada posição
+ * do buffer tem um número de sequência que indica se ela está livre para o
+ * produtor ou pronta para o consumidor, e as posições são reservadas por CAS
+ * nos contadores de cabeça e cauda. Com {@code singleProducer} a reserva da
+ * cauda dispensa o CAS; nesse caso apenas uma thread pode enfileirar.
+ * </p>
+ * <p>
+ * O lock só é usado para estacionar threads que precisam esperar (consumidor
+ * com a fila vazia ou produtor com {@link OverflowPolicy#BLOCK} e a fila
+ * cheia) e só é tomado por quem sinaliza quando há alguém esperando.
+ * </p>
+ *
+ * @param <E> Tipo dos elementos.
+ */
+public final class RingBufferQueue<E> {
+
+  private final Object[] elementos;
+  private final AtomicLongArray sequencias;
+  private final int mascara;
+  private final boolean singleProducer;
+  private final OverflowPolicy policy;
+  private final Consumer<? super E> onDrop;
+
+  /** Próxima posição a escrever. */
+  private final AtomicLong cauda = new AtomicLong();
+  /** Próxima posição a ler. */
+  private final AtomicLong cabeca = new AtomicLong();
+
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition naoVazia = lock.newCondition();
+  private final Condition naoCheia = lock.newCondition();
+  private final AtomicInteger consumidoresEsperando = new AtomicInteger();
+  private final AtomicInteger produtoresEsperando = new AtomicInteger();
+
+  /**
+   * @param capacidade     Capacidade mínima; arredondada para a próxima
+   *                       potência de dois.
+   * @param policy         Comportamento quando a fila está cheia.
+   * @param singleProducer {@code true} se apenas uma thread enfileira.
+   */
+  public RingBufferQueue(int capacidade, OverflowPolicy policy, boolean singleProducer) {
+    this(capacidade, policy, singleProducer, null);
+  }
+
+  /**
+   * @param capacidade     Capacidade mínima; arredondada para a próxima
+   *                       potência de dois.
+   * @param policy         Comportamento quando a fila está cheia.
+   * @param singleProducer {@code true} se apenas uma thread enfileira.
+   * @param onDrop         Chamado com cada elemento descartado pelas políticas
+   *                       {@code DROP_*}, ou {@code null}.
+   */
+  public RingBufferQueue(int capacidade, OverflowPolicy policy, boolean singleProducer, Consumer<? super E> onDrop) {
+    if (capacidade < 1) {
+      throw new IllegalArgumentException("Capacidade da fila deve ser positiva: " + capacidade);
+    }
+    int tamanho = Math.max(2, Integer.highestOneBit(capacidade - 1) << 1);
+    if (tamanho < 0) {
+      throw new IllegalArgumentException("Capacidade da fila muito grande: " + capacidade);
+    }
+    this.elementos = new Object[tamanho];
+    this.sequencias = new AtomicLongArray(tamanho);
+    for (int i = 0; i < tamanho; i++) {
+      sequencias.set(i, i);
+    }
+    this.mascara = tamanho - 1;
+    this.policy = policy;
+    this.singleProducer = singleProducer;
+    this.onDrop = onDrop;
+  }
+
+  /**
+   * Enfileira um elemento aplicando a política de transbordo.
+   *
+   * @param e O elemento.
+   * @return {@code true} se o elemento foi enfileirado; {@code false} se foi
+   *         descartado ({@link OverflowPolicy#DROP_NEWEST}).
+   * @throws IllegalStateException se a fila está cheia e a política é
+   *                               {@link OverflowPolicy#REJECT}.
+   * @throws InterruptedException  se a thread for interrompida enquanto
+   *                               aguarda espaço ({@link OverflowPolicy#BLOCK}).
+   */
+  public boolean offer(E e) throws InterruptedException {
+    while (!tryOffer(e)) {
+      switch (policy) {
+        case BLOCK -> aguardar(naoCheia, produtoresEsperando, this::temEspaco, Long.MAX_VALUE);
+        case DROP_OLDEST -> {
+          E descartado = tryPoll();
+          if (descartado != null) {
+            dropped.incrementAndGet();
+            if (onDrop != null) {
+              onDrop.accept(descartado);
+            }
+          }
+        }
+        case DROP_NEWEST -> {
+          dropped.incrementAndGet();
+          if (onDrop != null) {
+            onDrop.accept(e);
+          }
+          return false;
+        }
+        case REJECT -> {
+          rejected.incrementAndGet();
+          throw new IllegalStateException("Fila cheia (capacidade " + capacity() + ")");
+        }
+      }
+    }
+    sinalizar(naoVazia, consumidoresEsperando);
+    return true;
+  }
+
+  /**
+   * Remove o próximo elemento, sem bloquear.
+   *
+   * @return O elemento, ou {@code null} se a fila estiver vazia.
+   */
+  public E poll() {
+    E e = tryPoll();
+    if (e != null) {
+      sinalizar(naoCheia, produtoresEsperando);
+    }
+    return e;
+  }
+
+  /**
+   * Remove o próximo elemento, aguardando até o tempo limite se a fila estiver
+   * vazia.
+   *
+   * @param timeout Tempo máximo de espera.
+   * @param unit    Unidade do tempo.
+   * @return O elemento, ou {@code null} se o tempo esgotar.
+   * @throws InterruptedException se a thread for interrompida durante a espera.
+   */
+  public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long prazo = System.nanoTime() + unit.toNanos(timeout);
+    E e;
+    while ((e = poll()) == null) {
+      long restante = prazo - System.nanoTime();
+      if (restante <= 0 || !aguardar(naoVazia, consumidoresEsperando, this::temElemento, restante)) {
+        return null;
+      }
+    }
+    return e;
+  }
+
+  /**
+   * Move para {@code destino}, sem bloquear, até {@code max} elementos.
+   *
+   * @param destino Coleção que recebe os elementos.
+   * @param max     Quantidade máxima de elementos.
+   * @return A quantidade de elementos movidos.
+   */
+  public int drainTo(Collection<? super E> destino, int max) {
+    int movidos = 0;
+    E e;
+    while (movidos < max && (e = tryPoll()) != null) {
+      destino.add(e);
+      movidos++;
+    }
+    if (movidos > 0) {
+      sinalizar(naoCheia, produtoresEsperando);
+    }
+    return movidos;
+  }
+
+  /** @return A quantidade aproximada de elementos na fila. */
+  public int size() {
+    long tamanho = cauda.get() - cabeca.get();
+    return (int) Math.max(0, Math.min(tamanho, capacity()));
+  }
+
+  /** @return A capacidade da fila. */
+  public int capacity() {
+    return mascara + 1;
+  }
+
+  /** @return A política aplicada quando a fila está cheia. */
+  public OverflowPolicy getPolicy() {
+    return policy;
+  }
+
+  /** @return Quantos elementos foram descartados por falta de espaço. */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  /** @return Quantos envios foram recusados por falta de espaço. */
+  public long getRejected() {
+    return rejected.get();
+  }
+
+  private boolean tryOffer(E e) {
+    long posicao = cauda.get();
+    int indice;
+    while (true) {
+      indice = (int) (posicao & mascara);
+      long diferenca = sequencias.get(indice) - posicao;
+      if (diferenca == 0) {
+        if (singleProducer) {
+          cauda.lazySet(posicao + 1);
+          break;
+        }
+        if (cauda.compareAndSet(posicao, posicao + 1)) {
+          break;
+        }
+        posicao = cauda.get();
+      } else if (diferenca < 0) {
+        return false; // cheia: a posição ainda não foi consumida na volta anterior
+      } else {
+        posicao = cauda.get();
+      }
+    }
+    elementos[indice] = e;
+    sequencias.set(indice, posicao + 1); // publica para os consumidores
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private E tryPoll() {
+    long posicao = cabeca.get();
+    int indice;
+    while (true) {
+      indice = (int) (posicao & mascara);
+      long diferenca = sequencias.get(indice) - (posicao + 1);
+      if (diferenca == 0) {
+        if (cabeca.compareAndSet(posicao, posicao + 1)) {
+          break;
+        }
+        posicao = cabeca.get();
+      } else if (diferenca < 0) {
+        return null; // vazia
+      } else {
+        posicao = cabeca.get();
+      }
+    }
+    E e = (E) elementos[indice];
+    elementos[indice] = null;
+    sequencias.set(indice, posicao + mascara + 1); // libera para a próxima volta
+    return e;
+  }
+
+  private boolean temElemento() {
+    long posicao = cabeca.get();
+    return sequencias.get((int) (posicao & mascara)) == posicao + 1;
+  }
+
+  private boolean temEspaco() {
+    long posicao = cauda.get();
+    return sequencias.get((int) (posicao & mascara)) == posicao;
+  }
+
+  /**
+   * Estaciona a thread até {@code pronto} valer ou o tempo esgotar. O contador
+   * de espera é incrementado antes de reavaliar a condição, então quem
+   * sinaliza depois de alterar a fila sempre enxerga a espera.
+   */
+  private boolean aguardar(Condition condicao, AtomicInteger esperando, BooleanSupplier pronto,
+      long nanos) throws InterruptedException {
+    lock.lockInterruptibly();
+    esperando.incrementAndGet();
+    try {
+      while (!pronto.getAsBoolean()) {
+        if (nanos <= 0) {
+          return false;
+        }
+        nanos = condicao.awaitNanos(nanos);
+      }
+      return true;
+    } finally {
+      esperando.decrementAndGet();
+      lock.unlock();
+    }
+  }
+
+  private void sinalizar(Condition condicao, AtomicInteger esperando) {
+    if (esperando.get() > 0) {
+      lock.lock();
+      try {
+        condicao.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
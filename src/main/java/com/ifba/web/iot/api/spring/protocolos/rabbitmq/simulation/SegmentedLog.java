@@ -0,0 +1,424 @@
+package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Log de escrita antecipada (WAL) de uma fila do broker em memória.
+ * <p>
+ * As mensagens são anexadas a segmentos de tamanho fixo mapeados em memória
+ * ({@code <offset-base>.log}); cada registro é {@code [tamanho][crc][corpo]} e
+ * o offset de uma mensagem é a sua posição na sequência de registros. Nas
+ * mensagens binárias o bit mais alto do tamanho é ligado e o corpo começa com
+ * o content-type ({@code [tamanho][UTF-8]}), seguido dos bytes originais. A
+ * gravação em disco ({@code fsync}) não é feita a cada mensagem: o broker chama
+ * {@link #flush()} periodicamente, então uma queda da máquina perde no máximo
+ * o último intervalo; uma queda apenas do processo não perde nada, pois as
+ * páginas mapeadas já estão no cache do sistema operacional.
+ * </p>
+ * <p>
+ * Os consumidores confirmam cada mensagem processada ({@link #ack}); o maior
+ * offset abaixo do qual tudo foi confirmado é gravado em {@code consumer.offset}.
+ * Ao reabrir o log, as mensagens após esse offset são entregues de novo (pelo
+ * menos uma vez), e os segmentos inteiramente confirmados são apagados.
+ * </p>
+ * <p>
+ * O mapeamento de um segmento apagado é liberado na hora, sem esperar o GC
+ * (que, com heap folgado, pode deixar gigabytes de arquivos apagados
+ * mapeados). Como acessar um mapeamento liberado derruba a JVM, a
+ * compactação e o {@code force} do segmento ativo nunca correm em paralelo
+ * ({@code descarga}), e só segmentos anteriores ao ativo são liberados.
+ * </p>
+ */
+@Slf4j
+final class SegmentedLog implements Closeable {
+
+  private static final String EXTENSAO = ".log";
+  private static final String ARQUIVO_OFFSET = "consumer.offset";
+  /** Tamanho e CRC de cada registro. */
+  private static final int CABECALHO = 8;
+  /** Marca, no tamanho, os registros de mensagens binárias. */
+  private static final int BINARIO = Integer.MIN_VALUE;
+  /** {@code Unsafe.invokeCleaner}, ou {@code null} se indisponível. */
+  private static final MethodHandle LIBERAR_MAPEAMENTO = localizarLiberador();
+
+  private final Path diretorio;
+  private final int segmentoBytes;
+
+  /** Segmentos por offset base; o último é o ativo. */
+  private final NavigableMap<Long, Segmento> segmentos = new ConcurrentSkipListMap<>();
+  private final FileChannel offsetCanal;
+  private final MappedByteBuffer offsetBuffer;
+
+  // Protegidos pelo monitor do log.
+  private Segmento ativo;
+  private long proximoOffset;
+
+  /** Serializa {@link #flush()} e {@link #close()}. */
+  private final Object descarga = new Object();
+
+  // Protegidos por confirmacoes.
+  private final Object confirmacoes = new Object();
+  private final PriorityQueue<Long> foraDeOrdem = new PriorityQueue<>();
+  private long confirmado;
+
+  private volatile boolean pendenteFsync;
+  private long confirmadoGravado;
+
+  private SegmentedLog(Path diretorio, int segmentoBytes) throws IOException {
+    this.diretorio = diretorio;
+    this.segmentoBytes = segmentoBytes;
+    Files.createDirectories(diretorio);
+    this.offsetCanal = FileChannel.open(diretorio.resolve(ARQUIVO_OFFSET),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.offsetBuffer = offsetCanal.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+  }
+
+  /**
+   * Abre (ou cria) o log de uma fila e recupera as mensagens ainda não
+   * confirmadas.
+   *
+   * @param diretorio     Diretório exclusivo da fila.
+   * @param segmentoBytes Tamanho de cada segmento.
+   * @param pendentes     Recebe, em ordem, as mensagens não confirmadas.
+   * @return O log aberto, pronto para anexar.
+   * @throws IOException se os arquivos não puderem ser abertos.
+   */
+  static SegmentedLog abrir(Path diretorio, int segmentoBytes, Collection<InMemoryMessage> pendentes)
+      throws IOException {
+    SegmentedLog wal = new SegmentedLog(diretorio, segmentoBytes);
+    try {
+      wal.recuperar(pendentes);
+    } catch (IOException | RuntimeException e) {
+      wal.close();
+      throw e;
+    }
+    return wal;
+  }
+
+  /**
+   * Anexa uma mensagem de texto ao log.
+   *
+   * @param body Conteúdo da mensagem.
+   * @return O offset atribuído à mensagem.
+   * @throws IllegalArgumentException se a mensagem não couber em um segmento.
+   */
+  long append(String body) {
+    return append(InMemoryMessage.of(body));
+  }
+
+  /**
+   * Anexa uma mensagem ao log, com o seu content-type se for binária.
+   *
+   * @param message A mensagem.
+   * @return O offset atribuído à mensagem.
+   * @throws IllegalArgumentException se a mensagem não couber em um segmento.
+   */
+  long append(InMemoryMessage message) {
+    byte[] dados = registro(message);
+    int tamanho = CABECALHO + dados.length;
+    if (tamanho > segmentoBytes) {
+      throw new IllegalArgumentException(
+          "Mensagem de " + dados.length + " bytes não cabe em um segmento de " + segmentoBytes + " bytes");
+    }
+    CRC32C crc = new CRC32C();
+    crc.update(dados);
+    int checksum = (int) crc.getValue();
+
+    synchronized (this) {
+      if (ativo.posicao + tamanho > segmentoBytes) {
+        rolar();
+      }
+      MappedByteBuffer buffer = ativo.buffer;
+      int posicao = ativo.posicao;
+      buffer.putInt(posicao + 4, checksum);
+      buffer.put(posicao + CABECALHO, dados);
+      int marcado = message.isBinary() ? dados.length | BINARIO : dados.length;
+      buffer.putInt(posicao, marcado); // por último: o registro só "existe" completo
+      ativo.posicao = posicao + tamanho;
+      pendenteFsync = true;
+      return proximoOffset++;
+    }
+  }
+
+  /**
+   * Confirma o processamento de uma mensagem.
+   *
+   * @param offset Offset da mensagem.
+   */
+  void ack(long offset) {
+    synchronized (confirmacoes) {
+      confirmar(offset);
+    }
+  }
+
+  /**
+   * Confirma o processamento de várias mensagens de uma vez.
+   *
+   * @param mensagens Mensagens processadas; as não persistentes são ignoradas.
+   */
+  void ack(List<InMemoryMessage> mensagens) {
+    synchronized (confirmacoes) {
+      for (InMemoryMessage msg : mensagens) {
+        if (msg.isPersistent()) {
+          confirmar(msg.offset());
+        }
+      }
+    }
+  }
+
+  /**
+   * Grava em disco as mensagens anexadas e o offset confirmado, e apaga os
+   * segmentos já inteiramente confirmados.
+   */
+  void flush() {
+    synchronized (descarga) {
+      if (pendenteFsync) {
+        pendenteFsync = false;
+        Segmento segmento;
+        synchronized (this) {
+          segmento = ativo;
+        }
+        segmento.buffer.force();
+      }
+
+      long atual;
+      synchronized (confirmacoes) {
+        atual = confirmado;
+      }
+      if (atual != confirmadoGravado) {
+        offsetBuffer.putLong(0, atual + 1);
+        offsetBuffer.force();
+        confirmadoGravado = atual;
+        compactar(atual);
+      }
+    }
+  }
+
+  /** @return Quantos segmentos existem em disco. */
+  int getSegmentos() {
+    return segmentos.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (descarga) {
+      synchronized (this) {
+        if (ativo != null) {
+          flush();
+        }
+        for (Segmento segmento : segmentos.values()) {
+          segmento.canal.close();
+        }
+        segmentos.clear();
+        offsetCanal.close();
+      }
+    }
+  }
+
+  private void confirmar(long offset) {
+    if (offset == confirmado + 1) {
+      confirmado = offset;
+      while (!foraDeOrdem.isEmpty() && foraDeOrdem.peek() <= confirmado + 1) {
+        confirmado = Math.max(confirmado, foraDeOrdem.poll());
+      }
+    } else if (offset > confirmado) {
+      foraDeOrdem.add(offset);
+    }
+  }
+
+  private void rolar() {
+    ativo.buffer.force();
+    try {
+      ativo = novoSegmento(proximoOffset);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Falha ao criar segmento do log em " + diretorio, e);
+    }
+  }
+
+  private Segmento novoSegmento(long base) throws IOException {
+    Path arquivo = diretorio.resolve(String.format("%020d%s", base, EXTENSAO));
+    FileChannel canal = FileChannel.open(arquivo,
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    Segmento segmento = new Segmento(arquivo, canal, canal.map(FileChannel.MapMode.READ_WRITE, 0, segmentoBytes));
+    segmentos.put(base, segmento);
+    return segmento;
+  }
+
+  /** Apaga os segmentos anteriores ao ativo cujas mensagens foram todas confirmadas. */
+  private void compactar(long confirmadoAte) {
+    for (Map.Entry<Long, Segmento> entrada : segmentos.entrySet()) {
+      Long proximaBase = segmentos.higherKey(entrada.getKey());
+      if (proximaBase == null || proximaBase - 1 > confirmadoAte) {
+        break;
+      }
+      Segmento segmento = entrada.getValue();
+      segmentos.remove(entrada.getKey());
+      try {
+        segmento.canal.close();
+        liberar(segmento.buffer);
+        Files.deleteIfExists(segmento.arquivo);
+        log.debug("🧹 Segmento {} do log compactado.", segmento.arquivo.getFileName());
+      } catch (IOException e) {
+        log.warn("⚠️ Não foi possível apagar o segmento {}: {}", segmento.arquivo, e.getMessage());
+      }
+    }
+  }
+
+  private static byte[] registro(InMemoryMessage message) {
+    if (!message.isBinary()) {
+      return message.body().getBytes(StandardCharsets.UTF_8);
+    }
+    byte[] tipo = message.contentType().getBytes(StandardCharsets.UTF_8);
+    if (tipo.length > 0xFF) {
+      throw new IllegalArgumentException("Content-type longo demais: " + message.contentType());
+    }
+    byte[] corpo = message.bodyBytes();
+    return ByteBuffer.allocate(1 + tipo.length + corpo.length).put((byte) tipo.length).put(tipo).put(corpo).array();
+  }
+
+  /** @return A mensagem gravada no registro, ou {@code null} se o registro for inválido. */
+  private static InMemoryMessage mensagem(byte[] dados, boolean binario, long offset) {
+    if (!binario) {
+      return new InMemoryMessage(new String(dados, StandardCharsets.UTF_8), null, offset);
+    }
+    int tamanhoTipo = (dados.length > 0) ? Byte.toUnsignedInt(dados[0]) : -1;
+    if (tamanhoTipo < 0 || 1 + tamanhoTipo > dados.length) {
+      return null;
+    }
+    String tipo = new String(dados, 1, tamanhoTipo, StandardCharsets.UTF_8);
+    String corpo = new String(dados, 1 + tamanhoTipo, dados.length - 1 - tamanhoTipo, StandardCharsets.ISO_8859_1);
+    return new InMemoryMessage(corpo, null, offset, tipo);
+  }
+
+  private void recuperar(Collection<InMemoryMessage> pendentes) throws IOException {
+    long proximoPendente = offsetBuffer.getLong(0); // 0 = nada confirmado
+
+    List<Long> bases = new ArrayList<>();
+    try (Stream<Path> arquivos = Files.list(diretorio)) {
+      arquivos.map(p -> p.getFileName().toString())
+          .filter(nome -> nome.endsWith(EXTENSAO))
+          .map(nome -> Long.parseLong(nome.substring(0, nome.length() - EXTENSAO.length())))
+          .sorted()
+          .forEach(bases::add);
+    }
+
+    proximoOffset = bases.isEmpty() ? proximoPendente : bases.get(0);
+    for (long base : bases) {
+      Segmento segmento = novoSegmento(base);
+      long offset = base;
+      int posicao = 0;
+      MappedByteBuffer buffer = segmento.buffer;
+      while (posicao + CABECALHO <= segmentoBytes) {
+        int marcado = buffer.getInt(posicao);
+        int tamanho = marcado & ~BINARIO;
+        if (tamanho == 0 || posicao + CABECALHO + tamanho > segmentoBytes) {
+          break;
+        }
+        byte[] dados = new byte[tamanho];
+        buffer.get(posicao + CABECALHO, dados);
+        CRC32C crc = new CRC32C();
+        crc.update(dados);
+        InMemoryMessage message = ((int) crc.getValue() == buffer.getInt(posicao + 4))
+            ? mensagem(dados, (marcado & BINARIO) != 0, offset)
+            : null;
+        if (message == null) {
+          log.warn("⚠️ Registro corrompido no offset {} de {}; descartando o restante do segmento.", offset,
+              segmento.arquivo.getFileName());
+          break;
+        }
+        if (offset >= proximoPendente) {
+          pendentes.add(message);
+        }
+        posicao += CABECALHO + tamanho;
+        offset++;
+      }
+      segmento.posicao = posicao;
+      proximoOffset = offset;
+    }
+
+    if (segmentos.isEmpty()) {
+      ativo = novoSegmento(proximoOffset);
+    } else {
+      ativo = segmentos.lastEntry().getValue();
+      // Se o segmento terminou em um registro inválido, apaga o restante para
+      // que sobras da execução anterior não sejam lidas após os novos registros.
+      if (ativo.posicao + Integer.BYTES <= segmentoBytes && ativo.buffer.getInt(ativo.posicao) != 0) {
+        for (int i = ativo.posicao; i < segmentoBytes; i++) {
+          ativo.buffer.put(i, (byte) 0);
+        }
+        ativo.buffer.force();
+      }
+    }
+
+    confirmado = Math.min(proximoPendente, proximoOffset) - 1;
+    confirmadoGravado = confirmado;
+    compactar(confirmado);
+  }
+
+  /**
+   * Desfaz o mapeamento de um segmento que não será mais acessado. Sem o
+   * {@code invokeCleaner}, o mapeamento fica para o GC.
+   */
+  private static void liberar(MappedByteBuffer buffer) {
+    if (LIBERAR_MAPEAMENTO == null) {
+      return;
+    }
+    try {
+      LIBERAR_MAPEAMENTO.invokeExact((ByteBuffer) buffer);
+    } catch (Throwable e) {
+      log.debug("Mapeamento do segmento não liberado: {}", e.getMessage());
+    }
+  }
+
+  private static MethodHandle localizarLiberador() {
+    try {
+      Class<?> classeUnsafe = Class.forName("sun.misc.Unsafe");
+      Field campo = classeUnsafe.getDeclaredField("theUnsafe");
+      campo.setAccessible(true);
+      return MethodHandles.lookup()
+          .findVirtual(classeUnsafe, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+          .bindTo(campo.get(null));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      log.debug("Liberação imediata dos segmentos indisponível; fica a cargo do GC: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  /** Um arquivo de segmento mapeado em memória. */
+  private static final class Segmento {
+    private final Path arquivo;
+    private final FileChannel canal;
+    private final MappedByteBuffer buffer;
+    private int posicao;
+
+    private Segmento(Path arquivo, FileChannel canal, MappedByteBuffer buffer) {
+      this.arquivo = arquivo;
+      this.canal = canal;
+      this.buffer = buffer;
+    }
+  }
+}
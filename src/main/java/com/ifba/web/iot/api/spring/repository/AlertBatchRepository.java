@@ -0,0 +1,50 @@
+package com.ifba.web.iot.api.spring.repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ifba.web.iot.api.spring.model.Alert;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Inserções em lote na tabela de alertas ({@code alerts}).
+ * <p>
+ * A entidade {@link Alert} usa ID gerado por {@code IDENTITY}, o que impede o
+ * Hibernate de agrupar as inserções; aqui um lote inteiro segue em uma única
+ * ida ao banco via JDBC.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class AlertBatchRepository {
+
+  private static final String SQL_INSERIR = "INSERT INTO alerts"
+      + " (sensor, valor, unidade, alert_message, timestamp, usuario_id, regra_id, status, fechado_em)"
+      + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Grava os alertas em uma única instrução em lote.
+   *
+   * @param alertas Os alertas a gravar.
+   */
+  public void inserir(List<Alert> alertas) {
+    jdbcTemplate.batchUpdate(SQL_INSERIR, alertas, alertas.size(), (ps, a) -> {
+      ps.setString(1, a.getSensor());
+      ps.setDouble(2, a.getValor());
+      ps.setString(3, a.getUnidade());
+      ps.setString(4, a.getAlertMessage());
+      ps.setTimestamp(5, (a.getTimestamp() != null) ? Timestamp.valueOf(a.getTimestamp()) : null);
+      ps.setObject(6, a.getUsuarioId(), Types.BIGINT);
+      ps.setObject(7, a.getRegraId(), Types.BIGINT);
+      ps.setString(8, (a.getStatus() != null) ? a.getStatus().name() : null);
+      ps.setTimestamp(9, (a.getFechadoEm() != null) ? Timestamp.valueOf(a.getFechadoEm()) : null);
+    });
+  }
+}
@@ -1,9 +1,16 @@
 package com.ifba.web.iot.api.spring.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ifba.web.iot.api.spring.model.Alert;
+import com.ifba.web.iot.api.spring.model.StatusAlerta;
 
 /**
  * Interface de repositório para a entidade {@link Alert}.
@@ -13,4 +20,18 @@ import com.ifba.web.iot.api.spring.model.Alert;
  */
 @Repository
 public interface AlertRepository extends JpaRepository<Alert, Long> {
-}
\ No newline at end of file
+
+  List<Alert> findByStatus(StatusAlerta status);
+
+  /**
+   * Fecha um alerta aberto com uma única instrução UPDATE.
+   *
+   * @param id        O ID do alerta.
+   * @param fechadoEm O momento do fechamento.
+   * @return A quantidade de alertas alterados (0 ou 1).
+   */
+  @Modifying
+  @Query("UPDATE Alert a SET a.status = com.ifba.web.iot.api.spring.model.StatusAlerta.FECHADO, "
+      + "a.fechadoEm = :fechadoEm WHERE a.id = :id AND a.status = com.ifba.web.iot.api.spring.model.StatusAlerta.ABERTO")
+  int fechar(@Param("id") Long id, @Param("fechadoEm") LocalDateTime fechadoEm);
+}
@@ -0,0 +1,20 @@
+package com.ifba.web.iot.api.spring.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.ifba.web.iot.api.spring.model.AlertRule;
+
+/**
+ * Interface de repositório para a entidade {@link AlertRule}.
+ */
+@Repository
+public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
+
+  /**
+   * @return As regras ativas, na ordem em que devem ser avaliadas.
+   */
+  List<AlertRule> findByAtivaTrueOrderBySensorAscPrioridadeAscIdAsc();
+}
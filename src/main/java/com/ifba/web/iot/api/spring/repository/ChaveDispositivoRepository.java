@@ -0,0 +1,43 @@
+package com.ifba.web.iot.api.spring.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.ifba.web.iot.api.spring.model.ChaveDispositivo;
+import com.ifba.web.iot.api.spring.model.ChaveDispositivoAtiva;
+
+/**
+ * Repositório JPA das chaves de acesso de dispositivos
+ * ({@link ChaveDispositivo}).
+ */
+@Repository
+public interface ChaveDispositivoRepository extends JpaRepository<ChaveDispositivo, Long> {
+
+  /**
+   * @param usuarioId ID do usuário.
+   * @return As chaves do usuário, ativas ou não, das mais recentes às mais
+   *         antigas.
+   */
+  List<ChaveDispositivo> findByUsuarioIdOrderByCriadaEmDesc(Long usuarioId);
+
+  /**
+   * @param id        ID da chave.
+   * @param usuarioId ID do usuário dono da chave.
+   * @return A chave, se ela existir e for do usuário.
+   */
+  Optional<ChaveDispositivo> findByIdAndUsuarioId(Long id, Long usuarioId);
+
+  /**
+   * @return As chaves ativas, com o email do dono, para o índice em memória.
+   */
+  @Query("""
+      SELECT new com.ifba.web.iot.api.spring.model.ChaveDispositivoAtiva(c.prefixo, c.hash, u.email)
+      FROM ChaveDispositivo c JOIN Usuario u ON u.id = c.usuarioId
+      WHERE c.revogadaEm IS NULL
+      """)
+  List<ChaveDispositivoAtiva> findAtivas();
+}
@@ -1,11 +1,24 @@
 package com.ifba.web.iot.api.spring.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ifba.web.iot.api.spring.model.SensorData;
+import com.ifba.web.iot.api.spring.model.SensorReading;
+
+import jakarta.persistence.QueryHint;
 
 /**
  * Interface de repositório para a entidade {@link SensorData}.
@@ -24,4 +37,164 @@ public interface SensorDataRepository extends JpaRepository<SensorData, Long> {
    * @return Um Optional contendo o objeto SensorData mais recente.
    */
   Optional<SensorData> findFirstByOrderByTimestampDesc();
+
+  /**
+   * Verifica se uma leitura pertence a um usuário, pela chave primária e pela
+   * coluna {@code usuario_id}, sem carregar a leitura nem o usuário.
+   *
+   * @param id        ID da leitura.
+   * @param usuarioId ID do usuário.
+   * @return {@code true} se a leitura existir e for do usuário.
+   */
+  @Query("SELECT count(s) > 0 FROM SensorData s WHERE s.id = :id AND s.usuario.id = :usuarioId")
+  boolean existsByIdAndUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+  /**
+   * Retorna a leitura mais recente de cada tipo de sensor, de todos os
+   * usuários.
+   *
+   * @return As últimas leituras, uma por sensor (empates de timestamp podem
+   *         trazer mais de uma).
+   */
+  @Query("""
+      SELECT s FROM SensorData s
+      WHERE s.timestamp = (SELECT max(s2.timestamp) FROM SensorData s2 WHERE s2.sensor = s.sensor)
+      """)
+  List<SensorData> findUltimasPorSensor();
+
+  /**
+   * Retorna a leitura mais recente de cada tipo de sensor de um usuário,
+   * usando o índice {@code (usuario_id, sensor, timestamp)}.
+   *
+   * @param usuarioId ID do usuário dono das leituras.
+   * @return As últimas leituras, uma por sensor (empates de timestamp podem
+   *         trazer mais de uma).
+   */
+  @Query("""
+      SELECT s FROM SensorData s
+      WHERE s.usuario.id = :usuarioId
+        AND s.timestamp = (SELECT max(s2.timestamp) FROM SensorData s2
+                           WHERE s2.usuario.id = :usuarioId AND s2.sensor = s.sensor)
+      """)
+  List<SensorData> findUltimasPorSensorDoUsuario(@Param("usuarioId") Long usuarioId);
+
+  /**
+   * Página do histórico de um usuário para um tipo de sensor, na janela
+   * {@code [inicio, fim)}, paginada por cursor (keyset).
+   * <p>
+   * Retorna as leituras estritamente anteriores ao cursor
+   * {@code (cursorTimestamp, cursorId)}, da mais recente para a mais antiga.
+   * A consulta percorre o índice {@code (usuario_id, sensor, timestamp)} e não
+   * depende de OFFSET, então o custo de cada página não cresce com a tabela.
+   * Na primeira página, o cursor é {@code (fim, 0)}, o que delimita o fim
+   * exclusivo da janela.
+   * </p>
+   *
+   * @param usuarioId       ID do usuário dono das leituras.
+   * @param sensor          Tipo do sensor.
+   * @param inicio          Início da janela (inclusivo).
+   * @param cursorTimestamp Timestamp da última leitura da página anterior.
+   * @param cursorId        ID da última leitura da página anterior.
+   * @param limit           Tamanho máximo da página.
+   * @return As leituras da página.
+   */
+  @Query("""
+      SELECT s FROM SensorData s
+      WHERE s.usuario.id = :usuarioId AND s.sensor = :sensor AND s.timestamp >= :inicio
+        AND (s.timestamp < :cursorTimestamp OR (s.timestamp = :cursorTimestamp AND s.id < :cursorId))
+      ORDER BY s.timestamp DESC, s.id DESC
+      """)
+  List<SensorData> findPaginaPorSensor(@Param("usuarioId") Long usuarioId, @Param("sensor") String sensor,
+      @Param("inicio") LocalDateTime inicio, @Param("cursorTimestamp") LocalDateTime cursorTimestamp,
+      @Param("cursorId") Long cursorId, Limit limit);
+
+  /**
+   * Página do histórico de um usuário para todos os tipos de sensor, na janela
+   * {@code [inicio, fim)}, paginada por cursor (keyset).
+   *
+   * @param usuarioId       ID do usuário dono das leituras.
+   * @param inicio          Início da janela (inclusivo).
+   * @param cursorTimestamp Timestamp da última leitura da página anterior.
+   * @param cursorId        ID da última leitura da página anterior.
+   * @param limit           Tamanho máximo da página.
+   * @return As leituras da página.
+   * @see #findPaginaPorSensor
+   */
+  @Query("""
+      SELECT s FROM SensorData s
+      WHERE s.usuario.id = :usuarioId AND s.timestamp >= :inicio
+        AND (s.timestamp < :cursorTimestamp OR (s.timestamp = :cursorTimestamp AND s.id < :cursorId))
+      ORDER BY s.timestamp DESC, s.id DESC
+      """)
+  List<SensorData> findPagina(@Param("usuarioId") Long usuarioId, @Param("inicio") LocalDateTime inicio,
+      @Param("cursorTimestamp") LocalDateTime cursorTimestamp, @Param("cursorId") Long cursorId, Limit limit);
+
+  /**
+   * Percorre as leituras de um usuário na janela {@code [inicio, fim)} como um
+   * cursor somente-avanço, da mais antiga para a mais recente.
+   * <p>
+   * As linhas são projetadas diretamente em {@link SensorReading}, que não é
+   * uma entidade gerenciada: o contexto de persistência não cresce durante a
+   * leitura, e o driver busca as linhas em blocos do tamanho de
+   * {@code fetchSize}. O {@link Stream} deve ser consumido e fechado dentro de
+   * uma transação.
+   * </p>
+   *
+   * @param usuarioId ID do usuário dono das leituras.
+   * @param sensor    Tipo do sensor, ou {@code null} para todos.
+   * @param inicio    Início da janela (inclusivo).
+   * @param fim       Fim da janela (exclusivo).
+   * @return Um {@link Stream} das leituras.
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("""
+      SELECT new com.ifba.web.iot.api.spring.model.SensorReading(s.id, s.sensor, s.valor, s.unidade, s.timestamp)
+      FROM SensorData s
+      WHERE s.usuario.id = :usuarioId AND s.timestamp >= :inicio AND s.timestamp < :fim
+        AND (:sensor IS NULL OR s.sensor = :sensor)
+      ORDER BY s.timestamp, s.id
+      """)
+  Stream<SensorReading> streamLeituras(@Param("usuarioId") Long usuarioId, @Param("sensor") String sensor,
+      @Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
+
+  /**
+   * Retorna o timestamp da leitura mais antiga ainda armazenada.
+   *
+   * @return O menor timestamp, ou vazio se não houver leituras.
+   */
+  @Query("SELECT min(s.timestamp) FROM SensorData s")
+  Optional<LocalDateTime> findPrimeiroTimestamp();
+
+  /**
+   * Retorna o timestamp da leitura mais antiga ainda armazenada de um usuário.
+   *
+   * @param usuarioId ID do usuário.
+   * @return O menor timestamp, ou vazio se o usuário não tiver leituras.
+   */
+  @Query("SELECT min(s.timestamp) FROM SensorData s WHERE s.usuario.id = :usuarioId")
+  Optional<LocalDateTime> findPrimeiroTimestampDoUsuario(@Param("usuarioId") Long usuarioId);
+
+  /**
+   * Lista os usuários que possuem leituras na janela {@code [inicio, fim)}.
+   *
+   * @param inicio Início da janela (inclusivo).
+   * @param fim    Fim da janela (exclusivo).
+   * @return Os IDs dos usuários.
+   */
+  @Query("SELECT DISTINCT s.usuario.id FROM SensorData s WHERE s.timestamp >= :inicio AND s.timestamp < :fim")
+  List<Long> findUsuariosComLeituras(@Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
+
+  /**
+   * Remove em uma única instrução as leituras anteriores ao limite, sem
+   * carregá-las no contexto de persistência.
+   *
+   * @param limite Timestamp mínimo mantido.
+   * @return A quantidade de leituras removidas.
+   */
+  @Modifying
+  @Query("DELETE FROM SensorData s WHERE s.timestamp < :limite")
+  int deleteAnteriores(@Param("limite") LocalDateTime limite);
 }
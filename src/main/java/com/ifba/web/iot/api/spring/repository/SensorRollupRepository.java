@@ -0,0 +1,193 @@
+package com.ifba.web.iot.api.spring.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.ifba.web.iot.api.spring.controller.dto.view.AgregadoView;
+import com.ifba.web.iot.api.spring.model.IntervaloAgregacao;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Acesso às tabelas de agregados pré-calculados ({@code sensor_rollup_*}).
+ * <p>
+ * As tabelas são mapeadas pelas entidades
+ * {@link com.ifba.web.iot.api.spring.model.SensorRollupMinuto},
+ * {@link com.ifba.web.iot.api.spring.model.SensorRollupHora} e
+ * {@link com.ifba.web.iot.api.spring.model.SensorRollupDia}; as consultas usam
+ * JDBC direto porque a mesma operação vale para as três resoluções e as
+ * inserções são feitas em lote.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorRollupRepository {
+
+  /** Resoluções que possuem tabela de agregados, da mais fina para a mais grossa. */
+  public static final List<IntervaloAgregacao> RESOLUCOES = List.of(
+      IntervaloAgregacao.UM_MINUTO, IntervaloAgregacao.UMA_HORA, IntervaloAgregacao.UM_DIA);
+
+  private static final Map<IntervaloAgregacao, String> TABELAS = new EnumMap<>(Map.of(
+      IntervaloAgregacao.UM_MINUTO, "sensor_rollup_minuto",
+      IntervaloAgregacao.UMA_HORA, "sensor_rollup_hora",
+      IntervaloAgregacao.UM_DIA, "sensor_rollup_dia"));
+
+  private static final RowMapper<AgregadoView> MAPEADOR = (rs, i) -> new AgregadoView(
+      rs.getString("sensor"),
+      rs.getTimestamp("inicio").toLocalDateTime(),
+      rs.getLong("quantidade"),
+      rs.getDouble("minimo"),
+      rs.getDouble("maximo"),
+      rs.getDouble("media"),
+      rs.getDouble("p50"),
+      rs.getDouble("p95"));
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Retorna o início do último intervalo já agregado na resolução.
+   *
+   * @param resolucao A resolução consultada.
+   * @return O maior {@code inicio} gravado, ou vazio se a tabela estiver vazia.
+   */
+  public Optional<LocalDateTime> ultimoInicio(IntervaloAgregacao resolucao) {
+    Timestamp ultimo = jdbcTemplate.queryForObject(
+        "SELECT max(inicio) FROM " + tabela(resolucao), Timestamp.class);
+    return Optional.ofNullable(ultimo).map(Timestamp::toLocalDateTime);
+  }
+
+  /**
+   * Retorna o início do último intervalo já agregado para um usuário.
+   *
+   * @param resolucao A resolução consultada.
+   * @param usuarioId ID do usuário.
+   * @return O maior {@code inicio} gravado para o usuário, ou vazio.
+   */
+  public Optional<LocalDateTime> ultimoInicio(IntervaloAgregacao resolucao, Long usuarioId) {
+    Timestamp ultimo = jdbcTemplate.queryForObject(
+        "SELECT max(inicio) FROM " + tabela(resolucao) + " WHERE usuario_id = ?", Timestamp.class, usuarioId);
+    return Optional.ofNullable(ultimo).map(Timestamp::toLocalDateTime);
+  }
+
+  /**
+   * Retorna o início do primeiro intervalo ainda guardado para um usuário.
+   *
+   * @param resolucao A resolução consultada.
+   * @param usuarioId ID do usuário.
+   * @return O menor {@code inicio} gravado para o usuário, ou vazio.
+   */
+  public Optional<LocalDateTime> primeiroInicio(IntervaloAgregacao resolucao, Long usuarioId) {
+    Timestamp primeiro = jdbcTemplate.queryForObject(
+        "SELECT min(inicio) FROM " + tabela(resolucao) + " WHERE usuario_id = ?", Timestamp.class, usuarioId);
+    return Optional.ofNullable(primeiro).map(Timestamp::toLocalDateTime);
+  }
+
+  /**
+   * Grava em lote os agregados de um usuário.
+   *
+   * @param resolucao A resolução dos agregados.
+   * @param usuarioId ID do usuário dono das leituras.
+   * @param agregados Os agregados a gravar.
+   */
+  public void inserir(IntervaloAgregacao resolucao, Long usuarioId, List<AgregadoView> agregados) {
+    String sql = "INSERT INTO " + tabela(resolucao)
+        + " (usuario_id, sensor, inicio, quantidade, minimo, maximo, media, p50, p95)"
+        + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    jdbcTemplate.batchUpdate(sql, agregados, agregados.size(), (ps, a) -> {
+      ps.setLong(1, usuarioId);
+      ps.setString(2, a.getSensor());
+      ps.setTimestamp(3, Timestamp.valueOf(a.getInicio()));
+      ps.setLong(4, a.getQuantidade());
+      ps.setDouble(5, a.getMinimo());
+      ps.setDouble(6, a.getMaximo());
+      ps.setDouble(7, a.getMedia());
+      ps.setDouble(8, a.getP50());
+      ps.setDouble(9, a.getP95());
+    });
+  }
+
+  /**
+   * Busca os agregados de um usuário com início em {@code [de, ate)}.
+   *
+   * @param resolucao A resolução consultada.
+   * @param usuarioId ID do usuário.
+   * @param sensor    Tipo do sensor, ou {@code null} para todos.
+   * @param de        Início da janela (inclusivo).
+   * @param ate       Fim da janela (exclusivo).
+   * @return Os agregados ordenados por sensor e início.
+   */
+  public List<AgregadoView> buscar(IntervaloAgregacao resolucao, Long usuarioId, String sensor,
+      LocalDateTime de, LocalDateTime ate) {
+    String sql = "SELECT sensor, inicio, quantidade, minimo, maximo, media, p50, p95 FROM " + tabela(resolucao)
+        + " WHERE usuario_id = ? AND inicio >= ? AND inicio < ?"
+        + " AND (CAST(? AS VARCHAR) IS NULL OR sensor = ?)"
+        + " ORDER BY sensor, inicio";
+    return jdbcTemplate.query(sql, MAPEADOR, usuarioId, Timestamp.valueOf(de), Timestamp.valueOf(ate),
+        sensor, sensor);
+  }
+
+  /**
+   * Entrega, em ordem de início e sensor, os agregados de um usuário com
+   * início em {@code [de, ate)}, sem montar a lista inteira em memória.
+   *
+   * @param resolucao  A resolução consultada.
+   * @param usuarioId  ID do usuário.
+   * @param sensor     Tipo do sensor, ou {@code null} para todos.
+   * @param de         Início da janela (inclusivo).
+   * @param ate        Fim da janela (exclusivo).
+   * @param consumidor Destino de cada agregado.
+   */
+  public void percorrer(IntervaloAgregacao resolucao, Long usuarioId, String sensor, LocalDateTime de,
+      LocalDateTime ate, Consumer<AgregadoView> consumidor) {
+    String sql = "SELECT sensor, inicio, quantidade, minimo, maximo, media, p50, p95 FROM " + tabela(resolucao)
+        + " WHERE usuario_id = ? AND inicio >= ? AND inicio < ?"
+        + " AND (CAST(? AS VARCHAR) IS NULL OR sensor = ?)"
+        + " ORDER BY inicio, sensor";
+    jdbcTemplate.query(sql, (RowCallbackHandler) rs -> consumidor.accept(MAPEADOR.mapRow(rs, 0)),
+        usuarioId, Timestamp.valueOf(de), Timestamp.valueOf(ate), sensor, sensor);
+  }
+
+  /**
+   * Remove os agregados com início anterior ao limite.
+   *
+   * @param resolucao A resolução a limpar.
+   * @param limite    Início mínimo mantido.
+   * @return A quantidade de linhas removidas.
+   */
+  public int removerAnteriores(IntervaloAgregacao resolucao, LocalDateTime limite) {
+    return jdbcTemplate.update("DELETE FROM " + tabela(resolucao) + " WHERE inicio < ?",
+        Timestamp.valueOf(limite));
+  }
+
+  /**
+   * Remove os agregados de um usuário com início em {@code [de, ate)}.
+   *
+   * @param resolucao A resolução a limpar.
+   * @param usuarioId ID do usuário.
+   * @param de        Início da janela (inclusivo).
+   * @param ate       Fim da janela (exclusivo).
+   * @return A quantidade de linhas removidas.
+   */
+  public int remover(IntervaloAgregacao resolucao, Long usuarioId, LocalDateTime de, LocalDateTime ate) {
+    return jdbcTemplate.update(
+        "DELETE FROM " + tabela(resolucao) + " WHERE usuario_id = ? AND inicio >= ? AND inicio < ?", usuarioId, Timestamp.valueOf(de), Timestamp.valueOf(ate));
+  }
+
+  private static String tabela(IntervaloAgregacao resolucao) {
+    String tabela = TABELAS.get(resolucao);
+    if (tabela == null) {
+      throw new IllegalArgumentException("Resolução sem tabela de agregados: " + resolucao.getCodigo());
+    }
+    return tabela;
+  }
+}
@@ -3,6 +3,8 @@ package com.ifba.web.iot.api.spring.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.ifba.web.iot.api.spring.model.Usuario;
 
@@ -24,4 +26,14 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
    *         contrário.
    */
   Optional<Usuario> findByEmail(String email);
+
+  /**
+   * Busca apenas o ID de um cliente pelo seu email, sem carregar a entidade.
+   *
+   * @param email Email do cliente a ser pesquisado.
+   * @return {@link Optional} contendo o ID caso encontrado, ou vazio caso
+   *         contrário.
+   */
+  @Query("SELECT u.id FROM Usuario u WHERE u.email = :email")
+  Optional<Long> findIdByEmail(@Param("email") String email);
 }
@@ -0,0 +1,86 @@
+package com.ifba.web.iot.api.spring.security;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.ifba.web.iot.api.spring.service.ChaveDispositivoService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Filtro que autentica os dispositivos (gateways de sensores) pela chave
+ * enviada no cabeçalho {@value #CABECALHO}.
+ * <p>
+ * Só vale para os caminhos {@code POST} de ingestão
+ * ({@code dispositivo.chave.caminhos}): ali, uma chave válida autentica a
+ * requisição em nome do dono do dispositivo, com a autoridade
+ * {@code ROLE_DISPOSITIVO}, e uma chave inválida ou revogada é recusada com
+ * 401. Nos demais caminhos o cabeçalho é ignorado, de modo que a chave não
+ * dá acesso ao restante da API.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ChaveDispositivoFilter extends OncePerRequestFilter {
+
+  /** Cabeçalho com a chave do dispositivo. */
+  public static final String CABECALHO = "X-Device-Key";
+
+  private static final List<SimpleGrantedAuthority> AUTORIDADES = List.of(
+      new SimpleGrantedAuthority("ROLE_DISPOSITIVO"));
+
+  private final ChaveDispositivoService chaveService;
+  private final RequestMatcher caminhos;
+
+  /**
+   * @param chaveService Serviço que verifica as chaves.
+   * @param caminhos     Padrões de caminho ({@code POST}) aceitos com chave de
+   *                     dispositivo.
+   */
+  public ChaveDispositivoFilter(ChaveDispositivoService chaveService,
+      @Value("${dispositivo.chave.caminhos:/api/sensores,/api/sensores/enviar/**}") String[] caminhos) {
+    this.chaveService = chaveService;
+    PathPatternRequestMatcher.Builder builder = PathPatternRequestMatcher.withDefaults();
+    List<RequestMatcher> matchers = Arrays.stream(caminhos)
+        .map(String::trim)
+        .filter(caminho -> !caminho.isEmpty())
+        .map(caminho -> (RequestMatcher) builder.matcher(HttpMethod.POST, caminho))
+        .toList();
+    this.caminhos = matchers.isEmpty() ? request -> false : new OrRequestMatcher(matchers);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    String chave = request.getHeader(CABECALHO);
+
+    if (chave != null && caminhos.matches(request)) {
+      String email = chaveService.autenticar(chave);
+      if (email == null) {
+        log.debug("Chave de dispositivo inválida em {} {}", request.getMethod(), request.getRequestURI());
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        return;
+      }
+      SecurityContextHolder.getContext().setAuthentication(
+          new UsernamePasswordAuthenticationToken(email, null, AUTORIDADES));
+    }
+
+    filterChain.doFilter(request, response);
+  }
+}
@@ -1,5 +1,6 @@
 package com.ifba.web.iot.api.spring.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -12,12 +13,16 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 import com.ifba.web.iot.api.spring.jwt.JwtAuthenticationFilter;
 
+import jakarta.servlet.DispatcherType;
+
 /**
  * Configuração de segurança da aplicação utilizando Spring Security e JWT.
  * <p>
  * Esta classe define:
  * <ul>
  * <li>Filtro de autenticação JWT</li>
+ * <li>Filtro de autenticação dos dispositivos por chave
+ * ({@link ChaveDispositivoFilter})</li>
  * <li>Permissões públicas e privadas das rotas</li>
  * <li>Política de sessão stateless</li>
  * <li>Codificador de senha BCrypt</li>
@@ -29,9 +34,11 @@ import com.ifba.web.iot.api.spring.jwt.JwtAuthenticationFilter;
 public class SecurityConfig {
 
   private final JwtAuthenticationFilter jwtFilter;
+  private final ChaveDispositivoFilter chaveDispositivoFilter;
 
-  public SecurityConfig(JwtAuthenticationFilter jwtFilter) {
+  public SecurityConfig(JwtAuthenticationFilter jwtFilter, ChaveDispositivoFilter chaveDispositivoFilter) {
     this.jwtFilter = jwtFilter;
+    this.chaveDispositivoFilter = chaveDispositivoFilter;
   }
 
   /**
@@ -42,10 +49,12 @@ public class SecurityConfig {
    * <li>CSRF desativado</li>
    * <li>Permissão pública para rotas "/api/auth/**" e "/api/sensores**"</li>
    * <li>Autenticação obrigatória para "/api/rabbit/**" e demais rotas</li>
+   * <li>Redespachos assíncronos (SSE e respostas em fluxo) liberados, pois a
+   * requisição original já foi autorizada</li>
    * <li>Política de sessão stateless (sem armazenamento de sessão no
    * servidor)</li>
-   * <li>Adiciona o filtro JWT antes do filtro padrão de autenticação por
-   * username/senha</li>
+   * <li>Adiciona os filtros de chave de dispositivo e JWT antes do filtro
+   * padrão de autenticação por username/senha</li>
    * </ul>
    * </p>
    *
@@ -60,6 +69,9 @@ public class SecurityConfig {
         .cors(cors -> {
         })
         .authorizeHttpRequests(auth -> auth
+            // Redespacho assíncrono de uma requisição já autorizada (SSE, streams)
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+            .requestMatchers("/api/auth/tokens/**", "/api/auth/login/**").authenticated()
             .requestMatchers("/api/auth/**").permitAll()
             .requestMatchers("/h2-console/**").permitAll()
             .requestMatchers("/api/clima/**").authenticated()
@@ -70,6 +82,7 @@ public class SecurityConfig {
             .frameOptions(frame -> frame.sameOrigin()) // permite exibir em frames
         )
         .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .addFilterBefore(chaveDispositivoFilter, UsernamePasswordAuthenticationFilter.class)
         .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
     return http.build();
@@ -77,12 +90,17 @@ public class SecurityConfig {
 
   /**
    * Fornece o codificador de senha BCrypt utilizado para criptografia de senhas.
+   * <p>
+   * A força ({@code auth.bcrypt.forca}, 4 a 31) vale para as novas senhas; as
+   * já gravadas guardam a sua própria força e continuam válidas.
+   * </p>
    *
+   * @param forca custo logarítmico do BCrypt
    * @return instância de {@link BCryptPasswordEncoder}
    */
   @Bean
-  public BCryptPasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public BCryptPasswordEncoder passwordEncoder(@Value("${auth.bcrypt.forca:10}") int forca) {
+    return new BCryptPasswordEncoder(forca);
   }
 
   /**
@@ -0,0 +1,133 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.ifba.web.iot.api.spring.model.AlertRule;
+import com.ifba.web.iot.api.spring.model.OperadorAlerta;
+
+/**
+ * **Motor de Regras de Alerta**
+ *
+ * <p>
+ * Mantém as regras ativas compiladas por tipo de sensor em vetores primitivos.
+ * Avaliar uma leitura é uma busca no mapa pelo sensor seguida de um laço sobre
+ * as regras daquele sensor, sem alocação: o custo não cresce com o número de
+ * sensores cadastrados, apenas com o número de regras do próprio sensor.
+ * </p>
+ *
+ * <p>
+ * As regras compiladas são um instantâneo imutável, trocado atomicamente a
+ * cada recarga ({@link #compilar}); leituras em andamento continuam usando o
+ * instantâneo anterior. A avaliação com estado (tempo sustentado, média móvel
+ * e histerese) fica no {@link AlertStateService}.
+ * </p>
+ */
+@Component
+public class AlertRuleEngine {
+
+  private volatile Map<String, RegrasSensor> regras = Map.of();
+
+  /**
+   * Avalia as regras do sensor para um valor isolado, sem considerar o
+   * histórico do sensor.
+   *
+   * @param sensor Tipo do sensor.
+   * @param valor  Valor da leitura.
+   * @return A mensagem da primeira regra que disparar, ou {@code null}.
+   */
+  public String avaliar(String sensor, double valor) {
+    if (sensor == null) {
+      return null;
+    }
+    RegrasSensor doSensor = regras.get(sensor);
+    return (doSensor != null) ? doSensor.avaliar(valor) : null;
+  }
+
+  /**
+   * Substitui as regras em uso.
+   *
+   * @param ativas As regras ativas, já na ordem de avaliação de cada sensor.
+   */
+  public void compilar(List<AlertRule> ativas) {
+    Map<String, List<AlertRule>> porSensor = new LinkedHashMap<>();
+    for (AlertRule regra : ativas) {
+      porSensor.computeIfAbsent(regra.getSensor(), s -> new ArrayList<>()).add(regra);
+    }
+    Map<String, RegrasSensor> compiladas = new HashMap<>(porSensor.size() * 2);
+    porSensor.forEach((sensor, lista) -> compiladas.put(sensor, new RegrasSensor(lista)));
+    regras = Map.copyOf(compiladas);
+  }
+
+  /**
+   * @param sensor Tipo do sensor.
+   * @return As regras compiladas do sensor, ou {@code null} se não houver.
+   */
+  RegrasSensor regrasDe(String sensor) {
+    return (sensor != null) ? regras.get(sensor) : null;
+  }
+
+  /** @return A quantidade de tipos de sensor com regras ativas. */
+  public int getSensores() {
+    return regras.size();
+  }
+
+  /**
+   * Regras de um sensor em vetores paralelos, na ordem de avaliação.
+   */
+  static final class RegrasSensor {
+
+    final long[] ids;
+    final OperadorAlerta[] operadores;
+    final double[] limites;
+    final double[] limitesSuperiores;
+    final String[] mensagens;
+    final long[] sustentadoMs;
+    final long[] janelaMs;
+    final double[] histereses;
+
+    private RegrasSensor(List<AlertRule> lista) {
+      int n = lista.size();
+      ids = new long[n];
+      operadores = new OperadorAlerta[n];
+      limites = new double[n];
+      limitesSuperiores = new double[n];
+      mensagens = new String[n];
+      sustentadoMs = new long[n];
+      janelaMs = new long[n];
+      histereses = new double[n];
+      for (int i = 0; i < n; i++) {
+        AlertRule regra = lista.get(i);
+        ids[i] = (regra.getId() != null) ? regra.getId() : -1;
+        operadores[i] = regra.getOperador();
+        limites[i] = regra.getLimite();
+        limitesSuperiores[i] = (regra.getLimiteSuperior() != null) ? regra.getLimiteSuperior() : Double.NaN;
+        mensagens[i] = regra.getMensagem();
+        sustentadoMs[i] = regra.getSustentadoSegundos() * 1000L;
+        janelaMs[i] = regra.getJanelaSegundos() * 1000L;
+        histereses[i] = regra.getHisterese();
+      }
+    }
+
+    int tamanho() {
+      return ids.length;
+    }
+
+    /**
+     * Avaliação instantânea: ignora tempo sustentado, janela e histerese.
+     */
+    private String avaliar(double valor) {
+      for (int i = 0; i < operadores.length; i++) {
+        if (operadores[i].dispara(valor, limites[i], limitesSuperiores[i])) {
+          return mensagens[i];
+        }
+      }
+      return null;
+    }
+  }
+}
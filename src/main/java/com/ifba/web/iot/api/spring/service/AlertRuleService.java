@@ -0,0 +1,150 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+
+import com.ifba.web.iot.api.spring.controller.dto.form.AlertRuleForm;
+import com.ifba.web.iot.api.spring.model.AlertRule;
+import com.ifba.web.iot.api.spring.model.OperadorAlerta;
+import com.ifba.web.iot.api.spring.repository.AlertRuleRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * **Serviço de Gerenciamento das Regras de Alerta**
+ *
+ * <p>
+ * Persiste as regras e recompila o {@link AlertRuleEngine} a cada alteração,
+ * sem reiniciar a aplicação. Na primeira execução, cadastra as regras que
+ * antes ficavam fixas no código: temperatura acima de 30 °C, umidade fora de
+ * 20–80 % e luminosidade abaixo de 200 lux.
+ * </p>
+ *
+ * <p>
+ * Os métodos de alteração não são transacionais de propósito: cada gravação é
+ * confirmada antes da recarga, para que o motor nunca use uma regra que
+ * acabou desfeita.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlertRuleService {
+
+  private final AlertRuleRepository alertRuleRepository;
+  private final AlertRuleEngine alertRuleEngine;
+
+  /** Serializa as recargas: a última a ler o banco é a última a publicar. */
+  private final Object recarga = new Object();
+
+  /**
+   * Cadastra as regras padrão, se não houver nenhuma, e compila as regras.
+   */
+  @PostConstruct
+  public void inicializar() {
+    if (alertRuleRepository.count() == 0) {
+      alertRuleRepository.saveAll(List.of(
+          AlertRule.builder().sensor("temperatura").operador(OperadorAlerta.MAIOR_QUE).limite(30)
+              .mensagem("🌡️ Alerta! Temperatura elevada detectada.").build(),
+          AlertRule.builder().sensor("umidade").operador(OperadorAlerta.FORA_INTERVALO).limite(20)
+              .limiteSuperior(80.0).mensagem("💧 Alerta! Umidade baixa detectada.").build(),
+          AlertRule.builder().sensor("luminosidade").operador(OperadorAlerta.MENOR_QUE).limite(200)
+              .mensagem("💡 Alerta! Baixo nível de luminosidade detectado. Acione as luzes auxiliares.")
+              .build()));
+      log.info("📋 Regras de alerta padrão cadastradas.");
+    }
+    recarregar();
+  }
+
+  /**
+   * Recompila as regras ativas a partir do banco de dados. Recargas
+   * concorrentes (ex: duas alterações seguidas) são executadas uma de cada
+   * vez, para que um instantâneo mais antigo nunca substitua um mais novo.
+   *
+   * @return A quantidade de regras ativas carregadas.
+   */
+  public int recarregar() {
+    synchronized (recarga) {
+      List<AlertRule> ativas = alertRuleRepository.findByAtivaTrueOrderBySensorAscPrioridadeAscIdAsc();
+      alertRuleEngine.compilar(ativas);
+      log.info("🔄 {} regras de alerta ativas carregadas para {} sensores.", ativas.size(),
+          alertRuleEngine.getSensores());
+      return ativas.size();
+    }
+  }
+
+  public List<AlertRule> findAll() {
+    return alertRuleRepository.findAll();
+  }
+
+  /**
+   * Cadastra uma regra e a coloca em uso.
+   *
+   * @param form Os dados da regra.
+   * @return A regra gravada.
+   * @throws IllegalArgumentException se a regra for inconsistente.
+   */
+  public AlertRule criar(AlertRuleForm form) {
+    AlertRule regra = new AlertRule();
+    aplicar(form, regra);
+    AlertRule salva = alertRuleRepository.save(regra);
+    recarregar();
+    return salva;
+  }
+
+  /**
+   * Altera uma regra e a coloca em uso.
+   *
+   * @param id   O ID da regra.
+   * @param form Os novos dados da regra.
+   * @return A regra alterada, ou vazio se ela não existir.
+   * @throws IllegalArgumentException se a regra for inconsistente.
+   */
+  public Optional<AlertRule> atualizar(Long id, AlertRuleForm form) {
+    Optional<AlertRule> existente = alertRuleRepository.findById(id);
+    existente.ifPresent(regra -> {
+      aplicar(form, regra);
+      alertRuleRepository.save(regra);
+      recarregar();
+    });
+    return existente;
+  }
+
+  /**
+   * Remove uma regra.
+   *
+   * @param id O ID da regra.
+   * @return {@code true} se a regra existia.
+   */
+  public boolean remover(Long id) {
+    if (!alertRuleRepository.existsById(id)) {
+      return false;
+    }
+    alertRuleRepository.deleteById(id);
+    recarregar();
+    return true;
+  }
+
+  private static void aplicar(AlertRuleForm form, AlertRule regra) {
+    if (form.getOperador().isIntervalo()) {
+      if (form.getLimiteSuperior() == null || form.getLimiteSuperior() < form.getLimite()) {
+        throw new IllegalArgumentException(
+            "Operadores de intervalo exigem limiteSuperior maior ou igual ao limite.");
+      }
+    }
+    regra.setSensor(form.getSensor());
+    regra.setOperador(form.getOperador());
+    regra.setLimite(form.getLimite());
+    regra.setLimiteSuperior(form.getOperador().isIntervalo() ? form.getLimiteSuperior() : null);
+    regra.setMensagem(form.getMensagem());
+    regra.setPrioridade(form.getPrioridade());
+    regra.setSustentadoSegundos(form.getSustentadoSegundos());
+    regra.setJanelaSegundos(form.getJanelaSegundos());
+    regra.setHisterese(form.getHisterese());
+    regra.setAtiva(form.isAtiva());
+  }
+}
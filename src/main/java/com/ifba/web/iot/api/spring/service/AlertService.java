@@ -1,11 +1,15 @@
 package com.ifba.web.iot.api.spring.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.ifba.web.iot.api.spring.model.Alert;
+import com.ifba.web.iot.api.spring.model.StatusAlerta;
+import com.ifba.web.iot.api.spring.repository.AlertBatchRepository;
 import com.ifba.web.iot.api.spring.repository.AlertRepository;
 
 import lombok.Getter;
@@ -21,14 +25,39 @@ public class AlertService {
   @Autowired
   private AlertRepository alertRepository;
 
+  @Autowired
+  private AlertBatchRepository alertBatchRepository;
+
   public Alert saveAlert(Alert alert) {
     return alertRepository.save(alert);
   }
 
+  /**
+   * Grava vários alertas com uma única inserção em lote. Os IDs gerados não
+   * são preenchidos nos objetos.
+   *
+   * @param alerts Os alertas a gravar.
+   */
+  @Transactional
+  public void saveAll(List<Alert> alerts) {
+    if (!alerts.isEmpty()) {
+      alertBatchRepository.inserir(alerts);
+    }
+  }
+
   public List<Alert> findAll() {
     return alertRepository.findAll();
   }
 
+  public List<Alert> findByStatus(StatusAlerta status) {
+    return alertRepository.findByStatus(status);
+  }
+
+  @Transactional
+  public boolean fecharAlerta(Long id, LocalDateTime fechadoEm) {
+    return alertRepository.fechar(id, fechadoEm) > 0;
+  }
+
   public boolean isAlertActive(Long id) {
     return true;
   }
@@ -0,0 +1,402 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ifba.web.iot.api.spring.model.Alert;
+import com.ifba.web.iot.api.spring.model.SensorData;
+import com.ifba.web.iot.api.spring.model.StatusAlerta;
+import com.ifba.web.iot.api.spring.service.AlertRuleEngine.RegrasSensor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * **Avaliação de Alertas com Estado**
+ *
+ * <p>
+ * Mantém em memória, para cada sensor de cada usuário, o estado de cada regra
+ * de alerta: desde quando a condição vale, a média móvel das últimas leituras
+ * e se há um alerta aberto. Com isso uma regra pode exigir que a condição se
+ * sustente por um tempo, comparar a média de uma janela em vez de cada
+ * leitura e só fechar após recuar além de uma margem de histerese.
+ * </p>
+ *
+ * <p>
+ * Enquanto um alerta está aberto, novas leituras fora do limite não geram
+ * novos registros: apenas as transições são gravadas (uma inserção ao abrir e
+ * uma atualização ao fechar). O estado vive só em memória; após um reinício,
+ * os episódios recomeçam a partir das novas leituras.
+ * </p>
+ *
+ * <p>
+ * As transições são decididas sob a trava do sensor, mas gravadas fora dela:
+ * um banco lento não segura as demais leituras do sensor. Se a transação da
+ * leitura não for confirmada, as transições são desfeitas em memória.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlertStateService {
+
+  private static final long SEM_INICIO = Long.MIN_VALUE;
+
+  private final AlertRuleEngine alertRuleEngine;
+  private final AlertService alertService;
+
+  private final Map<Chave, EstadoSensor> estados = new ConcurrentHashMap<>();
+
+  /**
+   * Atualiza o estado do sensor com a leitura, sem tocar no banco. As
+   * transições (aberturas e fechamentos) ficam registradas na avaliação
+   * devolvida, para {@link #gravar} ou {@link #desfazer}; a leitura é gravada
+   * por quem chama, na mesma transação ou em lote.
+   *
+   * @param usuarioId ID do usuário dono da leitura.
+   * @param leitura   A leitura, já com timestamp e unidade definidos.
+   * @return A avaliação, com a mensagem do alerta aberto de maior prioridade.
+   */
+  public Avaliacao preparar(Long usuarioId, SensorData leitura) {
+    RegrasSensor regras = alertRuleEngine.regrasDe(leitura.getSensor());
+    Chave chave = new Chave(usuarioId, leitura.getSensor());
+    EstadoSensor estado = estados.get(chave);
+    if (estado == null) {
+      if (regras == null) {
+        return Avaliacao.VAZIA;
+      }
+      estado = estados.computeIfAbsent(chave, c -> new EstadoSensor());
+    }
+
+    long agora = leitura.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+    List<Transicao> transicoes = new ArrayList<>(0);
+    synchronized (estado) {
+      if (estado.regras != regras) {
+        realinhar(estado, regras, leitura.getTimestamp(), transicoes);
+      }
+      if (regras == null) {
+        return new Avaliacao(null, transicoes);
+      }
+
+      String mensagem = null;
+      for (int i = 0; i < regras.tamanho(); i++) {
+        EstadoRegra regra = estado.porRegra[i];
+        double valor = (regras.janelaMs[i] > 0)
+            ? regra.janela().adicionar(agora, leitura.getValor(), regras.janelaMs[i])
+            : leitura.getValor();
+
+        if (regra.episodio == null) {
+          if (regras.operadores[i].dispara(valor, regras.limites[i], regras.limitesSuperiores[i])) {
+            if (regra.desde == SEM_INICIO) {
+              regra.desde = agora;
+            }
+            if (agora - regra.desde >= regras.sustentadoMs[i]) {
+              abrir(estado, regra, regras, i, usuarioId, leitura, transicoes);
+            }
+          } else {
+            regra.desde = SEM_INICIO;
+          }
+        } else if (!regras.operadores[i].mantem(valor, regras.limites[i], regras.limitesSuperiores[i],
+            regras.histereses[i])) {
+          fechar(estado, regra, leitura.getTimestamp(), transicoes);
+        }
+
+        if (regra.episodio != null && mensagem == null) {
+          mensagem = regras.mensagens[i];
+        }
+      }
+      return new Avaliacao(mensagem, transicoes);
+    }
+  }
+
+  /**
+   * Grava as transições de uma avaliação, fora da trava do sensor. Dentro de
+   * uma transação, o estado em memória é desfeito se ela não for confirmada;
+   * fora dela, se a gravação falhar.
+   *
+   * @param avaliacao A avaliação devolvida por {@link #preparar}.
+   */
+  public void gravar(Avaliacao avaliacao) {
+    if (avaliacao.transicoes().isEmpty()) {
+      return;
+    }
+    boolean emTransacao = TransactionSynchronizationManager.isSynchronizationActive();
+    if (emTransacao) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status != STATUS_COMMITTED) {
+            desfazer(avaliacao);
+          }
+        }
+      });
+    }
+    try {
+      for (Transicao transicao : avaliacao.transicoes()) {
+        transicao.gravar(alertService);
+      }
+    } catch (RuntimeException e) {
+      if (!emTransacao) {
+        desfazer(avaliacao);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Reverte no estado em memória as transições de uma avaliação cuja gravação
+   * não se confirmou, desde que nenhuma leitura posterior já as tenha
+   * superado.
+   *
+   * @param avaliacao A avaliação devolvida por {@link #preparar}.
+   */
+  public void desfazer(Avaliacao avaliacao) {
+    List<Transicao> transicoes = avaliacao.transicoes();
+    for (int i = transicoes.size() - 1; i >= 0; i--) {
+      transicoes.get(i).desfazer();
+    }
+  }
+
+  /** @return A quantidade de sensores com estado em memória. */
+  public int getSensoresMonitorados() {
+    return estados.size();
+  }
+
+  private void abrir(EstadoSensor estado, EstadoRegra regra, RegrasSensor regras, int i, Long usuarioId,
+      SensorData leitura, List<Transicao> transicoes) {
+    regra.episodio = new Episodio();
+    log.warn("⚠️ Alerta aberto: {}", regras.mensagens[i]);
+    if (alertService.isAlertSavingEnabled()) {
+      Alert alert = new Alert(leitura.getSensor(), leitura.getValor(), leitura.getUnidade(), regras.mensagens[i]);
+      alert.setTimestamp(leitura.getTimestamp());
+      alert.setUsuarioId(usuarioId);
+      alert.setRegraId(regras.ids[i] >= 0 ? regras.ids[i] : null);
+      alert.setStatus(StatusAlerta.ABERTO);
+      transicoes.add(new Abertura(estado, regra, regra.episodio, alert));
+    } else {
+      log.info("🛑 Salvamento de alertas desativado. Alerta não persistido.");
+    }
+  }
+
+  private void fechar(EstadoSensor estado, EstadoRegra regra, LocalDateTime quando, List<Transicao> transicoes) {
+    transicoes.add(new Fechamento(estado, regra, regra.episodio, quando));
+    regra.episodio = null;
+    regra.desde = SEM_INICIO;
+  }
+
+  /**
+   * Ajusta o estado do sensor após uma recarga das regras. Regras mantidas
+   * (mesmo ID) conservam o estado; alertas abertos de regras removidas ou
+   * desativadas são fechados.
+   */
+  private void realinhar(EstadoSensor estado, RegrasSensor novas, LocalDateTime agora, List<Transicao> transicoes) {
+    EstadoRegra[] anteriores = estado.porRegra;
+    long[] idsAnteriores = (estado.regras != null) ? estado.regras.ids : new long[0];
+    EstadoRegra[] porRegra = new EstadoRegra[(novas != null) ? novas.tamanho() : 0];
+
+    for (int i = 0; i < porRegra.length; i++) {
+      for (int j = 0; j < idsAnteriores.length; j++) {
+        if (anteriores[j] != null && idsAnteriores[j] == novas.ids[i]) {
+          porRegra[i] = anteriores[j];
+          anteriores[j] = null;
+          break;
+        }
+      }
+      if (porRegra[i] == null) {
+        porRegra[i] = new EstadoRegra();
+      }
+    }
+    for (EstadoRegra removida : anteriores) {
+      if (removida != null && removida.episodio != null) {
+        fechar(estado, removida, agora, transicoes);
+      }
+    }
+    estado.regras = novas;
+    estado.porRegra = porRegra;
+  }
+
+  /**
+   * Resultado da avaliação de uma leitura: a mensagem do alerta aberto e as
+   * transições ainda não gravadas.
+   */
+  public static final class Avaliacao {
+    private static final Avaliacao VAZIA = new Avaliacao(null, List.of());
+
+    private final String mensagem;
+    private final List<Transicao> transicoes;
+
+    private Avaliacao(String mensagem, List<Transicao> transicoes) {
+      this.mensagem = mensagem;
+      this.transicoes = transicoes;
+    }
+
+    /** @return A mensagem do alerta aberto, ou {@code null}. */
+    public String mensagem() {
+      return mensagem;
+    }
+
+    private List<Transicao> transicoes() {
+      return transicoes;
+    }
+  }
+
+  /** Abertura ou fechamento de um alerta, já aplicado ao estado em memória. */
+  private interface Transicao {
+    void gravar(AlertService alertService);
+
+    void desfazer();
+  }
+
+  private record Abertura(EstadoSensor estado, EstadoRegra regra, Episodio episodio, Alert alert)
+      implements Transicao {
+
+    @Override
+    public void gravar(AlertService alertService) {
+      synchronized (episodio) {
+        episodio.alertaId = alertService.saveAlert(alert).getId();
+        log.info("💾 Alerta salvo no banco de dados.");
+        // Uma leitura posterior pode ter fechado o episódio antes de o ID existir.
+        if (episodio.fechadoEm != null) {
+          alertService.fecharAlerta(episodio.alertaId, episodio.fechadoEm);
+        }
+      }
+    }
+
+    @Override
+    public void desfazer() {
+      synchronized (episodio) {
+        episodio.alertaId = null;
+      }
+      synchronized (estado) {
+        if (regra.episodio == episodio) {
+          regra.episodio = null;
+        }
+      }
+    }
+  }
+
+  private record Fechamento(EstadoSensor estado, EstadoRegra regra, Episodio episodio, LocalDateTime quando)
+      implements Transicao {
+
+    @Override
+    public void gravar(AlertService alertService) {
+      synchronized (episodio) {
+        episodio.fechadoEm = quando;
+        if (episodio.alertaId != null) {
+          alertService.fecharAlerta(episodio.alertaId, quando);
+          log.info("✅ Alerta {} fechado.", episodio.alertaId);
+        }
+      }
+    }
+
+    @Override
+    public void desfazer() {
+      synchronized (episodio) {
+        episodio.fechadoEm = null;
+      }
+      synchronized (estado) {
+        // Só reabre se a regra segue ativa e nenhuma leitura abriu outro episódio.
+        if (regra.episodio == null && Arrays.asList(estado.porRegra).contains(regra)) {
+          regra.episodio = episodio;
+        }
+      }
+    }
+  }
+
+  private record Chave(Long usuarioId, String sensor) {
+  }
+
+  /** Estado de todas as regras de um sensor de um usuário. */
+  private static final class EstadoSensor {
+    private RegrasSensor regras;
+    private EstadoRegra[] porRegra = new EstadoRegra[0];
+  }
+
+  /** Estado de uma regra para um sensor de um usuário. */
+  private static final class EstadoRegra {
+    private long desde = SEM_INICIO;
+    private Episodio episodio;
+    private JanelaMovel janela;
+
+    private JanelaMovel janela() {
+      if (janela == null) {
+        janela = new JanelaMovel();
+      }
+      return janela;
+    }
+  }
+
+  /**
+   * Um alerta aberto por uma regra. O ID só existe após a gravação, que
+   * acontece fora da trava do sensor; {@code fechadoEm} registra um fechamento
+   * que chegou antes dele.
+   */
+  private static final class Episodio {
+    private Long alertaId;
+    private LocalDateTime fechadoEm;
+  }
+
+  /**
+   * Média móvel por tempo sobre um buffer circular de tamanho potência de dois,
+   * que só cresce quando a janela guarda mais leituras do que cabem nele.
+   */
+  static final class JanelaMovel {
+    private long[] instantes = new long[16];
+    private double[] valores = new double[16];
+    private int inicio;
+    private int tamanho;
+    private double soma;
+
+    /**
+     * Adiciona um valor e descarta os que saíram da janela.
+     *
+     * @param instante Instante do valor, em milissegundos.
+     * @param valor    O valor.
+     * @param largura  Largura da janela, em milissegundos.
+     * @return A média dos valores dentro da janela.
+     */
+    double adicionar(long instante, double valor, long largura) {
+      int mascara = instantes.length - 1;
+      while (tamanho > 0 && instantes[inicio] <= instante - largura) {
+        soma -= valores[inicio];
+        inicio = (inicio + 1) & mascara;
+        tamanho--;
+      }
+      if (tamanho == 0) {
+        soma = 0; // evita acumular erro de arredondamento
+      }
+      if (tamanho == instantes.length) {
+        crescer();
+        mascara = instantes.length - 1;
+      }
+      int posicao = (inicio + tamanho) & mascara;
+      instantes[posicao] = instante;
+      valores[posicao] = valor;
+      tamanho++;
+      soma += valor;
+      return soma / tamanho;
+    }
+
+    private void crescer() {
+      long[] novosInstantes = new long[instantes.length * 2];
+      double[] novosValores = new double[valores.length * 2];
+      for (int i = 0; i < tamanho; i++) {
+        int origem = (inicio + i) & (instantes.length - 1);
+        novosInstantes[i] = instantes[origem];
+        novosValores[i] = valores[origem];
+      }
+      instantes = novosInstantes;
+      valores = novosValores;
+      inicio = 0;
+    }
+  }
+}
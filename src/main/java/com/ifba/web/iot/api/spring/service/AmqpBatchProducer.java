@@ -0,0 +1,246 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ifba.web.iot.api.spring.controller.dto.view.ProdutorAmqpView;
+import com.ifba.web.iot.api.spring.protocolos.amqp.ConfirmingSender;
+import com.ifba.web.iot.api.spring.protocolos.amqp.PublicacaoPendente;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * **Produtor AMQP em Lote com Confirmação**
+ *
+ * <p>
+ * Os produtores entregam as mensagens a uma fila limitada e seguem adiante; uma
+ * thread despachante forma lotes de até {@code amqp.producer.lote} mensagens,
+ * esperando no máximo {@code amqp.producer.linger-ms} após a primeira, e os
+ * publica pelo {@link ConfirmingSender}. Cada {@link #publicar} retorna um
+ * futuro completado quando o broker confirma a mensagem.
+ * </p>
+ *
+ * <p>
+ * O controle de fluxo é feito em dois pontos: no máximo
+ * {@code amqp.producer.max-em-voo} mensagens podem aguardar confirmação (o
+ * despachante espera confirmações antes de publicar mais), e, com a fila de
+ * espera cheia, {@link #publicar} bloqueia quem publica. Confirmações que não
+ * chegam em {@code amqp.producer.confirm-timeout-ms} contam como falha.
+ * </p>
+ *
+ * <p>
+ * No encerramento, o esvaziamento da fila e a espera pelas confirmações
+ * dividem um único prazo, {@code amqp.producer.encerramento-timeout-ms}.
+ * </p>
+ */
+@Slf4j
+@Service
+public class AmqpBatchProducer {
+
+  /** Quantidade de latências recentes mantidas para as métricas. */
+  private static final int AMOSTRAS = 1024;
+
+  private final ConfirmingSender sender;
+  private final BlockingQueue<PublicacaoPendente> fila;
+  private final Semaphore emVoo;
+  private final int maxEmVoo;
+  private final int tamanhoLote;
+  private final long lingerNanos;
+  private final long confirmTimeoutMs;
+  private final long encerramentoTimeoutMs;
+  private final Thread despachante;
+  private volatile boolean ativo = true;
+
+  private final LongAdder enviadas = new LongAdder();
+  private final LongAdder confirmadas = new LongAdder();
+  private final LongAdder rejeitadas = new LongAdder();
+  private final LongAdder falhas = new LongAdder();
+  private final AtomicLongArray latencias = new AtomicLongArray(AMOSTRAS);
+  private final AtomicLong proximaAmostra = new AtomicLong();
+
+  public AmqpBatchProducer(ConfirmingSender sender,
+      @Value("${amqp.producer.lote:64}") int tamanhoLote,
+      @Value("${amqp.producer.linger-ms:5}") long lingerMs,
+      @Value("${amqp.producer.max-em-voo:1024}") int maxEmVoo,
+      @Value("${amqp.producer.fila.capacidade:10000}") int capacidadeFila,
+      @Value("${amqp.producer.confirm-timeout-ms:10000}") long confirmTimeoutMs,
+      @Value("${amqp.producer.encerramento-timeout-ms:5000}") long encerramentoTimeoutMs) {
+    this.sender = sender;
+    this.maxEmVoo = maxEmVoo;
+    // Um lote nunca pode exigir mais permissões do que a janela tem.
+    this.tamanhoLote = Math.max(1, Math.min(tamanhoLote, maxEmVoo));
+    this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+    this.confirmTimeoutMs = confirmTimeoutMs;
+    this.encerramentoTimeoutMs = encerramentoTimeoutMs;
+    this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+    this.emVoo = new Semaphore(maxEmVoo);
+    this.despachante = new Thread(this::despachar, "amqp-producer");
+    this.despachante.setDaemon(true);
+    this.despachante.start();
+  }
+
+  /**
+   * Enfileira uma mensagem para publicação. Bloqueia se a fila de espera
+   * estiver cheia.
+   *
+   * @param exchange   Exchange de destino ({@code ""} para o exchange padrão).
+   * @param routingKey Chave de roteamento.
+   * @param payload    Conteúdo da mensagem.
+   * @return Futuro completado com {@code true} na confirmação do broker,
+   *         {@code false} se o broker recusar a mensagem, ou com a exceção da
+   *         falha.
+   */
+  public CompletableFuture<Boolean> publicar(String exchange, String routingKey, String payload) {
+    return publicar(exchange, routingKey, payload.getBytes(StandardCharsets.UTF_8), PublicacaoPendente.TEXTO);
+  }
+
+  /**
+   * Enfileira uma mensagem binária para publicação. Bloqueia se a fila de
+   * espera estiver cheia.
+   *
+   * @param exchange    Exchange de destino ({@code ""} para o exchange padrão).
+   * @param routingKey  Chave de roteamento.
+   * @param corpo       Conteúdo da mensagem.
+   * @param contentType Formato do conteúdo.
+   * @return Futuro completado como em {@link #publicar(String, String, String)}.
+   */
+  public CompletableFuture<Boolean> publicar(String exchange, String routingKey, byte[] corpo,
+      String contentType) {
+    PublicacaoPendente publicacao = new PublicacaoPendente(exchange, routingKey, corpo, contentType,
+        new CompletableFuture<>());
+    if (!ativo) {
+      publicacao.confirmacao().completeExceptionally(new IllegalStateException("Produtor AMQP encerrado"));
+      return publicacao.confirmacao();
+    }
+    try {
+      fila.put(publicacao);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      publicacao.confirmacao().completeExceptionally(e);
+    }
+    return publicacao.confirmacao();
+  }
+
+  /**
+   * @return Contadores e latências de confirmação do produtor.
+   */
+  public ProdutorAmqpView getMetricas() {
+    long total = Math.min(proximaAmostra.get(), AMOSTRAS);
+    long[] amostras = new long[(int) total];
+    for (int i = 0; i < amostras.length; i++) {
+      amostras[i] = latencias.get(i);
+    }
+    Arrays.sort(amostras);
+    return new ProdutorAmqpView(enviadas.sum(), confirmadas.sum(), rejeitadas.sum(), falhas.sum(),
+        maxEmVoo - emVoo.availablePermits(), fila.size(),
+        percentil(amostras, 0.50), percentil(amostras, 0.99),
+        (amostras.length > 0) ? amostras[amostras.length - 1] : 0);
+  }
+
+  /**
+   * Publica o que ainda estiver na fila e aguarda as confirmações pendentes,
+   * por no máximo {@code amqp.producer.encerramento-timeout-ms} no total.
+   *
+   * @throws InterruptedException se a espera for interrompida.
+   */
+  @PreDestroy
+  public void encerrar() throws InterruptedException {
+    ativo = false;
+    long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(encerramentoTimeoutMs);
+    TimeUnit.NANOSECONDS.timedJoin(despachante, Math.max(1, prazo - System.nanoTime()));
+    if (despachante.isAlive()) {
+      log.warn("⚠️ Produtor AMQP encerrado com {} mensagens ainda na fila.", fila.size());
+    }
+    if (emVoo.tryAcquire(maxEmVoo, Math.max(0, prazo - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+      emVoo.release(maxEmVoo);
+    } else {
+      log.warn("⚠️ Produtor AMQP encerrado com {} mensagens sem confirmação.",
+          maxEmVoo - emVoo.availablePermits());
+    }
+  }
+
+  private void despachar() {
+    List<PublicacaoPendente> lote = new ArrayList<>(tamanhoLote);
+    while (ativo || !fila.isEmpty()) {
+      try {
+        PublicacaoPendente primeira = fila.poll(200, TimeUnit.MILLISECONDS);
+        if (primeira == null) {
+          continue;
+        }
+        lote.add(primeira);
+        completarLote(lote);
+
+        emVoo.acquire(lote.size());
+        long inicio = System.nanoTime();
+        for (PublicacaoPendente publicacao : lote) {
+          publicacao.confirmacao()
+              .orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS)
+              .whenComplete((ack, erro) -> confirmar(inicio, ack, erro));
+        }
+        // O sender completa com erro apenas as mensagens que não entregou.
+        enviadas.add(sender.send(lote));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        lote.forEach(p -> p.confirmacao().completeExceptionally(e));
+        return;
+      } finally {
+        lote.clear();
+      }
+    }
+  }
+
+  /** Acrescenta mensagens ao lote até enchê-lo ou esgotar o linger. */
+  private void completarLote(List<PublicacaoPendente> lote) throws InterruptedException {
+    long prazo = System.nanoTime() + lingerNanos;
+    while (lote.size() < tamanhoLote) {
+      fila.drainTo(lote, tamanhoLote - lote.size());
+      long restante = prazo - System.nanoTime();
+      if (lote.size() >= tamanhoLote || restante <= 0) {
+        return;
+      }
+      PublicacaoPendente proxima = fila.poll(restante, TimeUnit.NANOSECONDS);
+      if (proxima == null) {
+        return;
+      }
+      lote.add(proxima);
+    }
+  }
+
+  private void confirmar(long inicio, Boolean ack, Throwable erro) {
+    emVoo.release();
+    if (erro != null) {
+      falhas.increment();
+      log.warn("⚠️ Mensagem AMQP sem confirmação: {}", erro.toString());
+      return;
+    }
+    if (Boolean.TRUE.equals(ack)) {
+      confirmadas.increment();
+    } else {
+      rejeitadas.increment();
+      log.warn("⚠️ Mensagem AMQP recusada pelo broker (nack).");
+    }
+    long latenciaUs = (System.nanoTime() - inicio) / 1_000;
+    latencias.set((int) (proximaAmostra.getAndIncrement() % AMOSTRAS), latenciaUs);
+  }
+
+  private static long percentil(long[] ordenadas, double p) {
+    if (ordenadas.length == 0) {
+      return 0;
+    }
+    return ordenadas[(int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1)];
+  }
+}
@@ -1,65 +1,143 @@
 package com.ifba.web.iot.api.spring.service;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.ifba.web.iot.api.spring.model.Alert;
+import com.ifba.web.iot.api.spring.protocolos.codec.SensorCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
 
 /**
  * Serviço responsável por consumir mensagens da fila do RabbitMQ.
  * <p>
- * Este serviço ouve por mensagens em uma fila, converte o payload JSON em uma
+ * Este serviço ouve por mensagens em uma fila, converte o payload em uma
  * entidade {@link Alert} e delega a lógica de persistência para um serviço de
- * dados.
+ * dados. Mensagens com content-type {@value SensorCodec#CONTENT_TYPE} são
+ * decodificadas pelo {@link SensorCodec}; as demais são lidas como JSON.
+ * </p>
+ * <p>
+ * As mensagens chegam em lotes (ver
+ * {@code RabbitMqConfig#batchListenerContainerFactory}): todos os alertas
+ * válidos de um lote são gravados com uma única inserção em lote. Uma falha
+ * afeta apenas a sua mensagem, que é republicada na fila de mensagens mortas
+ * ({@code amqp.dlq}) com o motivo no cabeçalho {@value #CABECALHO_ERRO}.
+ * Falhas de transação (ex.: sem conexão disponível) são tratadas como as de
+ * acesso a dados, para que o lote não volte à fila indefinidamente.
  * </p>
  */
 @Service
 public class AmqpConsumerService {
 
+  /** Cabeçalho com o motivo da falha nas mensagens enviadas à DLQ. */
+  static final String CABECALHO_ERRO = "x-erro";
+
   private static final Logger logger = LoggerFactory.getLogger(AmqpConsumerService.class);
-  private final ObjectMapper objectMapper;
+  private final ObjectReader alertReader;
   private final AlertService alertService;
+  private final RabbitTemplate rabbitTemplate;
+  private final String deadLetterQueue;
 
   /**
    * Construtor da classe, injetando as dependências necessárias.
    *
-   * @param objectMapper O utilitário do Jackson para conversão de JSON para
-   *                     objeto.
-   * @param alertService O serviço responsável por salvar os alertas no banco de
-   *                     dados.
+   * @param objectMapper    O utilitário do Jackson para conversão de JSON para
+   *                        objeto.
+   * @param alertService    O serviço responsável por salvar os alertas no banco
+   *                        de dados.
+   * @param rabbitTemplate  Usado para republicar mensagens na DLQ.
+   * @param deadLetterQueue Nome da fila de mensagens mortas.
    */
-  public AmqpConsumerService(ObjectMapper objectMapper, AlertService alertService) {
-    this.objectMapper = objectMapper;
+  public AmqpConsumerService(ObjectMapper objectMapper, AlertService alertService, RabbitTemplate rabbitTemplate,
+      @Value("${amqp.dlq:${amqp.queue}.dlq}") String deadLetterQueue) {
+    this.alertReader = objectMapper.readerFor(Alert.class);
     this.alertService = alertService;
+    this.rabbitTemplate = rabbitTemplate;
+    this.deadLetterQueue = deadLetterQueue;
   }
 
   /**
-   * Recebe e processa as mensagens da fila do RabbitMQ.
+   * Recebe e processa um lote de mensagens da fila do RabbitMQ.
    * <p>
-   * O método é ativado pelo Spring quando uma nova mensagem é recebida. Ele tenta
-   * converter a string de payload em um objeto {@link Alert} e, se for
-   * bem-sucedido,
-   * chama o {@link AlertService} para salvar o alerta.
+   * Cada payload é convertido direto dos bytes da mensagem; os que falham vão
+   * para a DLQ. Os alertas convertidos são gravados juntos e, se a inserção em
+   * lote falhar, são gravados um a um para isolar os inválidos.
    * </p>
-   * 
-   * @param payload O conteúdo da mensagem recebida em formato JSON como uma
-   *                String.
+   *
+   * @param messages As mensagens do lote.
    */
-  @RabbitListener(queues = "${amqp.queue}")
-  public void receiveMessage(String payload) {
-    logger.info(">>>📥 MENSAGEM RECEBIDA DO RABBITMQ! Payload: " + payload);
+  @RabbitListener(queues = "${amqp.queue}", containerFactory = "batchListenerContainerFactory")
+  public void receiveMessages(List<Message> messages) {
+    logger.debug(">>>📥 Lote de {} mensagens recebido do RabbitMQ.", messages.size());
 
-    try {
-      // Converte a string JSON recebida para um objeto Alert.
-      Alert newAlert = objectMapper.readValue(payload, Alert.class);
+    List<Alert> alerts = new ArrayList<>(messages.size());
+    List<Message> origens = new ArrayList<>(messages.size());
+    int mortas = 0;
+    for (Message message : messages) {
+      try {
+        alerts.add(converter(message));
+        origens.add(message);
+      } catch (Exception e) {
+        enviarParaDlq(message, "Payload inválido: " + e.getMessage());
+        mortas++;
+      }
+    }
 
-      // Delega a lógica de salvamento para o AlertService.
-      alertService.saveAlert(newAlert);
-      logger.info("✅ Alerta salvo com sucesso no banco de dados.");
-    } catch (Exception e) {
-      logger.error("❌ Erro ao converter JSON ou salvar o alerta: {}", e.getMessage());
+    if (!alerts.isEmpty()) {
+      try {
+        alertService.saveAll(alerts);
+      } catch (DataAccessException | TransactionException e) {
+        logger.warn("⚠️ Falha ao gravar o lote de {} alertas; gravando um a um: {}", alerts.size(), e.getMessage());
+        mortas += salvarIndividualmente(alerts, origens);
+      }
+    }
+    logger.info("✅ Lote processado: {} alertas salvos, {} mensagens enviadas para a DLQ.",
+        messages.size() - mortas, mortas);
+  }
+
+  private Alert converter(Message message) throws IOException {
+    if (SensorCodec.CONTENT_TYPE.equals(message.getMessageProperties().getContentType())) {
+      return SensorCodec.decodeAlert(ByteBuffer.wrap(message.getBody()));
+    }
+    // Converte o JSON recebido para um objeto Alert.
+    return alertReader.readValue(message.getBody());
+  }
+
+  private int salvarIndividualmente(List<Alert> alerts, List<Message> origens) {
+    int mortas = 0;
+    for (int i = 0; i < alerts.size(); i++) {
+      try {
+        alertService.saveAll(List.of(alerts.get(i)));
+      } catch (DataAccessException | TransactionException e) {
+        enviarParaDlq(origens.get(i), "Falha ao gravar: " + e.getMostSpecificCause().getMessage());
+        mortas++;
+      }
+    }
+    return mortas;
+  }
+
+  private void enviarParaDlq(Message message, String motivo) {
+    logger.error("❌ Mensagem enviada para a DLQ '{}': {}", deadLetterQueue, motivo);
+    message.getMessageProperties().setHeader(CABECALHO_ERRO, motivo);
+    // A DLQ é o último registro da mensagem: não pode se perder num reinício do broker.
+    message.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+    try {
+      rabbitTemplate.send("", deadLetterQueue, message);
+    } catch (AmqpException e) {
+      logger.error("❌ Falha ao publicar na DLQ; mensagem descartada: {}", e.getMessage());
     }
   }
 }
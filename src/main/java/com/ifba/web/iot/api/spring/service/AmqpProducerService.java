@@ -3,56 +3,85 @@ package com.ifba.web.iot.api.spring.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ifba.web.iot.api.spring.model.Alert;
+import com.ifba.web.iot.api.spring.protocolos.codec.SensorCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 /**
  * Serviço responsável por enviar mensagens para a fila do RabbitMQ.
+ * <p>
+ * O envio é feito pelo {@link AmqpBatchProducer}: a chamada não espera o
+ * broker, e o resultado é registrado quando a confirmação chega.
+ * </p>
+ * <p>
+ * Com {@code amqp.formato=binario}, os alertas seguem no formato compacto do
+ * {@link SensorCodec} em vez de JSON; o consumidor reconhece os dois pelo
+ * content-type da mensagem.
+ * </p>
  */
 @Component
 public class AmqpProducerService {
 
   private static final Logger logger = LoggerFactory.getLogger(AmqpProducerService.class);
 
-  private final RabbitTemplate rabbitTemplate;
+  private final AmqpBatchProducer producer;
   private final ObjectMapper objectMapper;
 
   // A chave de roteamento (routing key) deve ser a mesma da fila do consumidor.
   private final String queueName;
+  private final boolean binario;
 
   /**
    * Construtor da classe, injetando as dependências e a configuração da fila.
    *
-   * @param rabbitTemplate O utilitário do Spring para enviar mensagens ao
-   *                       RabbitMQ.
+   * @param producer       O produtor AMQP em lote com confirmação.
    * @param objectMapper   O utilitário do Jackson para converter objetos em JSON.
    * @param queueName      O nome da fila para a qual a mensagem será enviada,
    *                       lido do arquivo de propriedades.
+   * @param formato        Formato das mensagens: {@code json} ou
+   *                       {@code binario}.
    */
-  public AmqpProducerService(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper,
-      @org.springframework.beans.factory.annotation.Value("${amqp.queue}") String queueName) {
-    this.rabbitTemplate = rabbitTemplate;
+  public AmqpProducerService(AmqpBatchProducer producer, ObjectMapper objectMapper,
+      @org.springframework.beans.factory.annotation.Value("${amqp.queue}") String queueName,
+      @org.springframework.beans.factory.annotation.Value("${amqp.formato:json}") String formato) {
+    this.producer = producer;
     this.objectMapper = objectMapper;
     this.queueName = queueName;
+    this.binario = "binario".equalsIgnoreCase(formato);
   }
 
   /**
-   * Converte um objeto de alerta em JSON e o envia para a fila do RabbitMQ.
+   * Converte um objeto de alerta em JSON (ou no formato binário) e o envia
+   * para a fila do RabbitMQ.
    *
    * @param alert O objeto de alerta a ser enviado.
    */
   public void sendAlertMessage(Alert alert) {
+    if (binario) {
+      producer.publicar("", queueName, SensorCodec.toBytes(alert), SensorCodec.CONTENT_TYPE)
+          .whenComplete((ack, erro) -> {
+            if (Boolean.TRUE.equals(ack)) {
+              logger.info("📦 MENSAGEM BINÁRIA ENVIADA PARA O RABBITMQ! Alerta: " + alert.getAlertMessage());
+            } else {
+              logger.error("❌ Alerta não confirmado pelo RabbitMQ: {}", (erro != null) ? erro.getMessage() : "nack");
+            }
+          });
+      return;
+    }
     try {
       // Converte o objeto Alert para uma string JSON.
       String jsonPayload = objectMapper.writeValueAsString(alert);
 
-      // Envia a string JSON para a fila especificada.
-      rabbitTemplate.convertAndSend(queueName, jsonPayload);
-
-      logger.info("📦 MENSAGEM ENVIADA PARA O RABBITMQ! Payload: " + jsonPayload);
+      // Envia a string JSON para a fila especificada (exchange padrão).
+      producer.publicar("", queueName, jsonPayload).whenComplete((ack, erro) -> {
+        if (Boolean.TRUE.equals(ack)) {
+          logger.info("📦 MENSAGEM ENVIADA PARA O RABBITMQ! Payload: " + jsonPayload);
+        } else {
+          logger.error("❌ Alerta não confirmado pelo RabbitMQ: {}", (erro != null) ? erro.getMessage() : "nack");
+        }
+      });
     } catch (JsonProcessingException e) {
       logger.error("❌ Erro ao serializar o objeto Alert para JSON: {}", e.getMessage());
     }
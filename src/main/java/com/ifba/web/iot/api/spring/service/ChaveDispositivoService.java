@@ -0,0 +1,274 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ifba.web.iot.api.spring.controller.dto.view.ChaveDispositivoView;
+import com.ifba.web.iot.api.spring.model.ChaveDispositivo;
+import com.ifba.web.iot.api.spring.model.ChaveDispositivoAtiva;
+import com.ifba.web.iot.api.spring.repository.ChaveDispositivoRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gerencia as chaves de acesso dos dispositivos (gateways de sensores) e as
+ * verifica na ingestão.
+ * <p>
+ * Uma chave tem o formato {@code iotk_<prefixo>_<segredo>}. O prefixo é
+ * público e identifica a chave; do segredo só é gravado o HMAC-SHA256
+ * calculado com um pepper do servidor ({@code dispositivo.chave.pepper}), que
+ * não fica no banco. A verificação consulta um índice em memória das chaves
+ * ativas pelo prefixo e compara o HMAC em tempo constante: custa alguns
+ * microssegundos, contra o BCrypt do login e a renovação horária do token
+ * JWT.
+ * </p>
+ * <p>
+ * As chaves criadas e revogadas nesta instância entram no índice após o
+ * commit; as alterações feitas por outras instâncias são vistas na próxima
+ * recarga ({@code dispositivo.chave.recarga-ms}). Uma alteração local que
+ * chegue enquanto a recarga lê o banco é registrada e reaplicada sobre o novo
+ * índice, para que a recarga não traga de volta uma chave recém-revogada nem
+ * descarte uma recém-criada.
+ * </p>
+ */
+@Slf4j
+@Service
+public class ChaveDispositivoService {
+
+  private static final String PREFIXO_CHAVE = "iotk_";
+  private static final int TAMANHO_PREFIXO = 16;
+  private static final HexFormat HEX = HexFormat.of();
+  private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+  private final ChaveDispositivoRepository chaveRepository;
+  private final UsuarioIdCache usuarioIdCache;
+  private final SecretKeySpec pepper;
+  private final ThreadLocal<Mac> hmac;
+  private final SecureRandom random = new SecureRandom();
+
+  private volatile Map<String, Entrada> ativas = new ConcurrentHashMap<>();
+
+  /** Protege a troca do índice e o registro de alterações locais. */
+  private final Object trava = new Object();
+  /** Serializa as recargas. */
+  private final Object recarga = new Object();
+  /** Alterações locais feitas durante a recarga em andamento, ou {@code null}. */
+  private List<Consumer<Map<String, Entrada>>> alteracoesDuranteRecarga;
+
+  /**
+   * @param chaveRepository Repositório das chaves.
+   * @param usuarioIdCache  Cache dos IDs de usuários.
+   * @param pepper          Segredo do servidor usado no HMAC; deve ser o mesmo
+   *                        em todas as instâncias e entre reinícios.
+   * @throws IllegalStateException se o pepper não estiver configurado.
+   */
+  public ChaveDispositivoService(ChaveDispositivoRepository chaveRepository, UsuarioIdCache usuarioIdCache,
+      @Value("${dispositivo.chave.pepper:}") String pepper) {
+    if (pepper == null || pepper.isBlank()) {
+      throw new IllegalStateException("dispositivo.chave.pepper não configurado: sem ele, as chaves de "
+          + "dispositivo não valeriam após reiniciar nem entre instâncias.");
+    }
+    this.chaveRepository = chaveRepository;
+    this.usuarioIdCache = usuarioIdCache;
+    this.pepper = new SecretKeySpec(pepper.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    this.hmac = ThreadLocal.withInitial(this::novoMac);
+  }
+
+  /**
+   * Carrega o índice das chaves ativas.
+   */
+  @PostConstruct
+  public void inicializar() {
+    recarregar();
+  }
+
+  /**
+   * Reconstrói o índice a partir do banco, incorporando as alterações feitas
+   * por outras instâncias.
+   *
+   * @return A quantidade de chaves ativas.
+   */
+  @Scheduled(initialDelayString = "${dispositivo.chave.recarga-ms:60000}",
+      fixedDelayString = "${dispositivo.chave.recarga-ms:60000}")
+  public int recarregar() {
+    synchronized (recarga) {
+      synchronized (trava) {
+        alteracoesDuranteRecarga = new ArrayList<>();
+      }
+      Map<String, Entrada> indice;
+      try {
+        List<ChaveDispositivoAtiva> chaves = chaveRepository.findAtivas();
+        indice = new ConcurrentHashMap<>(chaves.size() * 2);
+        for (ChaveDispositivoAtiva chave : chaves) {
+          indice.put(chave.prefixo(), new Entrada(HEX.parseHex(chave.hash()), chave.email()));
+        }
+      } catch (RuntimeException e) {
+        synchronized (trava) {
+          alteracoesDuranteRecarga = null;
+        }
+        throw e;
+      }
+      synchronized (trava) {
+        // A leitura pode ter acontecido antes do commit destas alterações.
+        alteracoesDuranteRecarga.forEach(alteracao -> alteracao.accept(indice));
+        alteracoesDuranteRecarga = null;
+        ativas = indice;
+      }
+      log.debug("🔑 {} chaves de dispositivo ativas carregadas.", indice.size());
+      return indice.size();
+    }
+  }
+
+  /**
+   * Verifica uma chave de dispositivo.
+   *
+   * @param chave A chave enviada pelo dispositivo.
+   * @return O email do dono do dispositivo, ou {@code null} se a chave for
+   *         inválida ou estiver revogada.
+   */
+  public String autenticar(String chave) {
+    int fimPrefixo = PREFIXO_CHAVE.length() + TAMANHO_PREFIXO;
+    if (chave == null || chave.length() <= fimPrefixo + 1 || !chave.startsWith(PREFIXO_CHAVE)
+        || chave.charAt(fimPrefixo) != '_') {
+      return null;
+    }
+    String prefixo = chave.substring(PREFIXO_CHAVE.length(), fimPrefixo);
+    Entrada entrada = ativas.get(prefixo);
+    if (entrada == null) {
+      return null;
+    }
+    byte[] calculado = calcularHmac(prefixo, chave.substring(fimPrefixo + 1));
+    return MessageDigest.isEqual(calculado, entrada.hash()) ? entrada.email() : null;
+  }
+
+  /**
+   * Cria uma chave para um dispositivo do usuário.
+   *
+   * @param email Email do usuário autenticado.
+   * @param nome  Nome do dispositivo.
+   * @return A chave criada, com o valor completo (exibido só desta vez).
+   */
+  @Transactional
+  public ChaveDispositivoView criar(String email, String nome) {
+    Long usuarioId = usuarioIdCache.buscarIdObrigatorio(email);
+    byte[] bytesPrefixo = new byte[TAMANHO_PREFIXO / 2];
+    byte[] bytesSegredo = new byte[32];
+    random.nextBytes(bytesPrefixo);
+    random.nextBytes(bytesSegredo);
+    String prefixo = HEX.formatHex(bytesPrefixo);
+    String segredo = BASE64.encodeToString(bytesSegredo);
+    byte[] hash = calcularHmac(prefixo, segredo);
+
+    ChaveDispositivo chave = chaveRepository.save(ChaveDispositivo.builder()
+        .usuarioId(usuarioId)
+        .nome(nome)
+        .prefixo(prefixo)
+        .hash(HEX.formatHex(hash))
+        .criadaEm(LocalDateTime.now())
+        .build());
+    Entrada entrada = new Entrada(hash, email);
+    aposCommit(() -> alterarIndice(indice -> indice.put(prefixo, entrada)));
+    log.info("🔑 Chave de dispositivo {} criada para '{}'.", prefixo, nome);
+    return toView(chave, PREFIXO_CHAVE + prefixo + "_" + segredo);
+  }
+
+  /**
+   * @param email Email do usuário autenticado.
+   * @return As chaves do usuário, sem os segredos.
+   */
+  @Transactional(readOnly = true)
+  public List<ChaveDispositivoView> listar(String email) {
+    return chaveRepository.findByUsuarioIdOrderByCriadaEmDesc(usuarioIdCache.buscarIdObrigatorio(email)).stream()
+        .map(chave -> toView(chave, null))
+        .toList();
+  }
+
+  /**
+   * Revoga uma chave do usuário; a partir do commit ela deixa de ser aceita.
+   *
+   * @param email Email do usuário autenticado.
+   * @param id    ID da chave.
+   * @return {@code true} se a chave existia e era do usuário.
+   */
+  @Transactional
+  public boolean revogar(String email, Long id) {
+    return chaveRepository.findByIdAndUsuarioId(id, usuarioIdCache.buscarIdObrigatorio(email))
+        .map(chave -> {
+          if (chave.getRevogadaEm() == null) {
+            chave.setRevogadaEm(LocalDateTime.now());
+            String prefixo = chave.getPrefixo();
+            aposCommit(() -> alterarIndice(indice -> indice.remove(prefixo)));
+            log.info("🔒 Chave de dispositivo {} revogada.", chave.getPrefixo());
+          }
+          return true;
+        })
+        .orElse(false);
+  }
+
+  /** Aplica uma alteração local ao índice e a registra se houver recarga em andamento. */
+  private void alterarIndice(Consumer<Map<String, Entrada>> alteracao) {
+    synchronized (trava) {
+      alteracao.accept(ativas);
+      if (alteracoesDuranteRecarga != null) {
+        alteracoesDuranteRecarga.add(alteracao);
+      }
+    }
+  }
+
+  private byte[] calcularHmac(String prefixo, String segredo) {
+    return hmac.get().doFinal((prefixo + ":" + segredo).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Mac novoMac() {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(pepper);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HmacSHA256 indisponível", e);
+    }
+  }
+
+  private static void aposCommit(Runnable acao) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          acao.run();
+        }
+      });
+    } else {
+      acao.run();
+    }
+  }
+
+  private static ChaveDispositivoView toView(ChaveDispositivo chave, String valor) {
+    return new ChaveDispositivoView(chave.getId(), chave.getNome(), chave.getPrefixo(), chave.getCriadaEm(),
+        chave.getRevogadaEm(), valor);
+  }
+
+  /** Chave ativa no índice: o HMAC esperado e o email do dono. */
+  private record Entrada(byte[] hash, String email) {
+  }
+}
@@ -0,0 +1,148 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Service;
+
+import com.ifba.web.iot.api.spring.jwt.JwtUtil;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executa os logins (verificação BCrypt e emissão do token JWT) em um pool
+ * de threads próprio e limitado.
+ * <p>
+ * A verificação BCrypt é propositalmente cara; feita nas threads do Tomcat,
+ * uma rajada de logins ocupa todos os núcleos e atrasa a ingestão de leituras
+ * que usa o mesmo pool. Aqui os logins disputam apenas
+ * {@code auth.login.threads} threads, com até {@code auth.login.fila}
+ * esperando; com a fila cheia o login é recusado na hora
+ * ({@link RejectedExecutionException}), e o controlador responde 429.
+ * </p>
+ */
+@Slf4j
+@Service
+public class LoginService {
+
+  private final AuthenticationManager authenticationManager;
+  private final JwtUtil jwtUtil;
+  private final ThreadPoolExecutor executor;
+  private final int capacidadeFila;
+
+  private final AtomicInteger maiorFila = new AtomicInteger();
+  private final LongAdder concluidos = new LongAdder();
+  private final LongAdder recusados = new LongAdder();
+  private final LongAdder esperaTotalNanos = new LongAdder();
+  private final LongAdder latenciaTotalNanos = new LongAdder();
+  private final AtomicLong maiorLatenciaNanos = new AtomicLong();
+
+  /**
+   * @param authenticationManager Valida as credenciais.
+   * @param jwtUtil               Emite o token.
+   * @param threads               Threads do pool (0 usa metade dos núcleos).
+   * @param capacidadeFila        Logins que podem aguardar por uma thread.
+   */
+  public LoginService(AuthenticationManager authenticationManager, JwtUtil jwtUtil,
+      @Value("${auth.login.threads:0}") int threads,
+      @Value("${auth.login.fila:64}") int capacidadeFila) {
+    this.authenticationManager = authenticationManager;
+    this.jwtUtil = jwtUtil;
+    this.capacidadeFila = Math.max(1, capacidadeFila);
+    int tamanho = (threads > 0) ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    AtomicInteger contador = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(tamanho, tamanho, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(this.capacidadeFila), r -> {
+          Thread t = new Thread(r, "login-" + contador.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * Agenda a verificação das credenciais e a emissão do token.
+   *
+   * @param email Email informado.
+   * @param senha Senha informada.
+   * @return O token JWT; completa com
+   *         {@link org.springframework.security.core.AuthenticationException}
+   *         se as credenciais forem inválidas.
+   * @throws RejectedExecutionException se a fila de logins estiver cheia.
+   */
+  public CompletableFuture<String> autenticar(String email, String senha) {
+    long enfileiradoEm = System.nanoTime();
+    CompletableFuture<String> resultado = new CompletableFuture<>();
+    try {
+      executor.execute(new TarefaLogin(resultado, () -> {
+        long inicio = System.nanoTime();
+        esperaTotalNanos.add(inicio - enfileiradoEm);
+        String token = null;
+        RuntimeException erro = null;
+        try {
+          authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, senha));
+          token = jwtUtil.generateToken(email);
+        } catch (RuntimeException e) {
+          erro = e;
+        }
+        // As métricas são registradas antes de liberar quem espera o resultado.
+        long latencia = System.nanoTime() - enfileiradoEm;
+        latenciaTotalNanos.add(latencia);
+        maiorLatenciaNanos.accumulateAndGet(latencia, Math::max);
+        concluidos.increment();
+        if (erro == null) {
+          resultado.complete(token);
+        } else {
+          resultado.completeExceptionally(erro);
+        }
+      }));
+    } catch (RejectedExecutionException e) {
+      recusados.increment();
+      throw new RejectedExecutionException("Fila de logins cheia.", e);
+    }
+    maiorFila.accumulateAndGet(executor.getQueue().size(), Math::max);
+    return resultado;
+  }
+
+  /**
+   * @return Profundidade da fila, recusas e latência dos logins.
+   */
+  public LoginStats stats() {
+    long total = concluidos.sum();
+    double esperaMedia = (total > 0) ? esperaTotalNanos.sum() / 1e6 / total : 0;
+    double latenciaMedia = (total > 0) ? latenciaTotalNanos.sum() / 1e6 / total : 0;
+    return new LoginStats(executor.getMaximumPoolSize(), capacidadeFila, executor.getQueue().size(),
+        maiorFila.get(), total, recusados.sum(), esperaMedia, latenciaMedia, maiorLatenciaNanos.get() / 1e6);
+  }
+
+  /**
+   * Encerra o pool. Os logins ainda na fila não são executados: seus futuros
+   * completam com {@link RejectedExecutionException}, para que nenhuma
+   * requisição fique esperando uma resposta que não virá.
+   */
+  @PreDestroy
+  public void encerrar() {
+    for (Runnable pendente : executor.shutdownNow()) {
+      if (pendente instanceof TarefaLogin tarefa) {
+        tarefa.resultado().completeExceptionally(new RejectedExecutionException("Serviço de login encerrado."));
+      }
+    }
+  }
+
+  /** Um login agendado, com o futuro de quem aguarda o token. */
+  private record TarefaLogin(CompletableFuture<String> resultado, Runnable corpo) implements Runnable {
+    @Override
+    public void run() {
+      corpo.run();
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.ifba.web.iot.api.spring.service;
+
+/**
+ * Estado do executor de logins do {@link LoginService}.
+ *
+ * @param threads            Threads dedicadas à verificação de senhas.
+ * @param queueCapacity      Capacidade da fila de logins.
+ * @param queueDepth         Logins aguardando na fila agora.
+ * @param maxQueueDepth      Maior profundidade da fila observada.
+ * @param completed          Logins concluídos (aceitos ou não).
+ * @param rejected           Logins recusados com a fila cheia.
+ * @param averageWaitMs      Tempo médio de espera na fila.
+ * @param averageLatencyMs   Tempo médio do login, da fila ao resultado.
+ * @param maxLatencyMs       Maior tempo de login observado.
+ */
+public record LoginStats(int threads, int queueCapacity, int queueDepth, int maxQueueDepth, long completed,
+    long rejected, double averageWaitMs, double averageLatencyMs, double maxLatencyMs) {
+}
@@ -2,8 +2,6 @@ package com.ifba.web.iot.api.spring.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.core.AmqpTemplate;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.mqtt.support.MqttHeaders;
@@ -16,7 +14,7 @@ import org.springframework.stereotype.Service;
  * <p>
  * Este serviço escuta as mensagens que chegam em um tópico MQTT, as processa e
  * as encaminha para um exchange do RabbitMQ usando uma chave de roteamento
- * específica.
+ * específica, pelo {@link AmqpBatchProducer} (em lote e com confirmação).
  * A anotação
  * {@link org.springframework.integration.annotation.ServiceActivator}
  * vincula este serviço a um canal de entrada do Spring Integration.
@@ -27,7 +25,7 @@ public class MqttAmqpBridgeService {
 
   private static final Logger logger = LoggerFactory.getLogger(MqttAmqpBridgeService.class);
 
-  private final RabbitTemplate rabbitTemplate;
+  private final AmqpBatchProducer producer;
 
   /**
    * Nome do exchange do RabbitMQ para onde a mensagem será enviada.
@@ -44,17 +42,12 @@ public class MqttAmqpBridgeService {
   private String amqpRoutingKey;
 
   /**
-   * Construtor da classe, injetando o {@link AmqpTemplate}.
-   * <p>
-   * O {@link AmqpTemplate} é uma interface do Spring que facilita as operações
-   * com RabbitMQ, como o envio de mensagens.
-   * </p>
+   * Construtor da classe, injetando o {@link AmqpBatchProducer}.
    *
-   * @param amqpTemplate A instância de {@link AmqpTemplate} fornecida pelo
-   *                     Spring.
+   * @param producer O produtor AMQP em lote com confirmação.
    */
-  public MqttAmqpBridgeService(RabbitTemplate rabbitTemplate) {
-    this.rabbitTemplate = rabbitTemplate;
+  public MqttAmqpBridgeService(AmqpBatchProducer producer) {
+    this.producer = producer;
   }
 
   /**
@@ -76,10 +69,15 @@ public class MqttAmqpBridgeService {
       logger.info("⚡ MENSAGEM MQTT RECEBIDA do tópico '{}'. Redirecionando para o RabbitMQ...", topic);
 
       // Envia o payload da mensagem MQTT para o RabbitMQ usando o exchange e a
-      // routing key.
-      rabbitTemplate.convertAndSend(amqpExchange, amqpRoutingKey, payload.toString());
-
-      logger.info("✅ MENSAGEM REDIRECIONADA com sucesso para o RabbitMQ. Payload: {}", payload);
+      // routing key; o resultado é registrado quando o broker confirmar.
+      producer.publicar(amqpExchange, amqpRoutingKey, payload.toString()).whenComplete((ack, erro) -> {
+        if (Boolean.TRUE.equals(ack)) {
+          logger.debug("✅ MENSAGEM REDIRECIONADA com sucesso para o RabbitMQ. Payload: {}", payload);
+        } else {
+          logger.error("❌ Mensagem MQTT não confirmada pelo RabbitMQ: {}",
+              (erro != null) ? erro.getMessage() : "nack");
+        }
+      });
     } catch (Exception e) {
       logger.error("❌ Erro ao processar mensagem MQTT e enviar para o RabbitMQ: {}", e.getMessage());
     }
@@ -0,0 +1,412 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ifba.web.iot.api.spring.controller.dto.view.AgregadoView;
+import com.ifba.web.iot.api.spring.model.IntervaloAgregacao;
+import com.ifba.web.iot.api.spring.model.SensorReading;
+import com.ifba.web.iot.api.spring.repository.SensorDataRepository;
+import com.ifba.web.iot.api.spring.repository.SensorRollupRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * **Serviço de Agregação de Leituras de Sensores**
+ *
+ * <p>
+ * Calcula, por sensor e por intervalo de tempo, a quantidade de leituras, o
+ * mínimo, o máximo, a média e os percentis 50 e 95. No PostgreSQL o cálculo é
+ * feito no próprio banco com {@code GROUP BY} e {@code percentile_cont}; nos
+ * demais bancos (como o H2 usado em testes) as leituras são percorridas em
+ * fluxo e agregadas em Java, mantendo em memória apenas o intervalo corrente
+ * de cada sensor.
+ * </p>
+ *
+ * <p>
+ * Quando os agregados pré-calculados estão habilitados
+ * ({@code sensor.rollup.habilitado}), os intervalos já fechados são lidos da
+ * tabela de maior resolução que divide o intervalo pedido (dia, hora ou
+ * minuto, mantidas pelo {@link SensorRollupService}); apenas as bordas da
+ * janela ainda não agregadas são calculadas a partir das leituras brutas.
+ * Ao combinar vários agregados finos em um intervalo maior, quantidade,
+ * mínimo, máximo e média são exatos, mas os percentis passam a ser uma
+ * aproximação (média dos percentis ponderada pela quantidade de leituras),
+ * sinalizada em {@link AgregadoView#isPercentisAproximados()}.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SensorAggregationService {
+
+  private static final LocalDateTime INICIO_PADRAO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+  private static final String SQL_POSTGRES = """
+      SELECT s.sensor AS sensor,
+             TIMESTAMP '1970-01-01 00:00:00'
+               + floor(extract(epoch FROM s.timestamp) / ?) * ? * INTERVAL '1 second' AS inicio,
+             count(*) AS quantidade,
+             min(s.valor) AS minimo,
+             max(s.valor) AS maximo,
+             avg(s.valor) AS media,
+             percentile_cont(0.5) WITHIN GROUP (ORDER BY s.valor) AS p50,
+             percentile_cont(0.95) WITHIN GROUP (ORDER BY s.valor) AS p95
+      FROM sensor_data s
+      WHERE s.usuario_id = ? AND s.timestamp >= ? AND s.timestamp < ?
+        AND (CAST(? AS VARCHAR) IS NULL OR s.sensor = ?)
+      GROUP BY 1, 2
+      ORDER BY 1, 2
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final SensorDataRepository sensorDataRepository;
+  private final UsuarioIdCache usuarioIdCache;
+  private final SensorRollupRepository rollupRepository;
+
+  @Value("${sensor.rollup.habilitado:true}")
+  private boolean usarRollups;
+
+  private boolean postgres;
+
+  /**
+   * Identifica o banco em uso para escolher a estratégia de agregação.
+   */
+  @PostConstruct
+  public void detectarBanco() {
+    String produto = jdbcTemplate.execute(
+        (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+    postgres = produto != null && produto.toLowerCase().contains("postgres");
+    log.info("⚙️ Agregações de leituras calculadas {} (banco: {}).",
+        postgres ? "no banco de dados" : "em Java", produto);
+  }
+
+  /**
+   * Agrega as leituras do usuário por sensor e intervalo de tempo.
+   *
+   * @param email     Email do usuário autenticado.
+   * @param sensor    Tipo do sensor, ou {@code null} para todos.
+   * @param intervalo Tamanho de cada intervalo.
+   * @param inicio    Início da janela (inclusivo), ou {@code null} para sem
+   *                  limite inferior.
+   * @param fim       Fim da janela (exclusivo), ou {@code null} para agora.
+   * @return As estatísticas ordenadas por sensor e início do intervalo.
+   */
+  @Transactional(readOnly = true)
+  public List<AgregadoView> agregar(String email, String sensor, IntervaloAgregacao intervalo,
+      LocalDateTime inicio, LocalDateTime fim) {
+    Long usuarioId = usuarioIdCache.buscarIdObrigatorio(email);
+
+    LocalDateTime de = (inicio != null) ? inicio : INICIO_PADRAO;
+    LocalDateTime ate = (fim != null) ? fim : LocalDateTime.now();
+    if (!de.isBefore(ate)) {
+      throw new IllegalArgumentException("O início da janela deve ser anterior ao fim.");
+    }
+    String filtro = (sensor == null || sensor.isBlank()) ? null : sensor;
+
+    return usarRollups
+        ? agregarComRollups(usuarioId, filtro, intervalo, de, ate)
+        : agregarBruto(usuarioId, filtro, intervalo, de, ate);
+  }
+
+  /**
+   * Agrega diretamente as leituras brutas de um usuário, sem consultar os
+   * agregados pré-calculados.
+   *
+   * @param usuarioId ID do usuário dono das leituras.
+   * @param sensor    Tipo do sensor, ou {@code null} para todos.
+   * @param intervalo Tamanho de cada intervalo.
+   * @param de        Início da janela (inclusivo).
+   * @param ate       Fim da janela (exclusivo).
+   * @return As estatísticas ordenadas por sensor e início do intervalo.
+   */
+  @Transactional(readOnly = true)
+  public List<AgregadoView> agregarBruto(Long usuarioId, String sensor, IntervaloAgregacao intervalo,
+      LocalDateTime de, LocalDateTime ate) {
+    if (!de.isBefore(ate)) {
+      return List.of();
+    }
+    return postgres
+        ? agregarNoBanco(usuarioId, sensor, intervalo, de, ate)
+        : agregarEmJava(usuarioId, sensor, intervalo, de, ate);
+  }
+
+  /**
+   * Entrega os agregados pré-calculados de um usuário na janela
+   * {@code [de, ate)}, do mais antigo ao mais recente, na resolução mais fina
+   * ainda guardada a partir de {@code resolucaoMinima}.
+   * <p>
+   * A retenção remove antes as resoluções finas, então o trecho mais antigo
+   * da janela vem da resolução mais grossa que ainda o tem; cada resolução
+   * mais fina assume a partir do primeiro limite da mais grossa em que ela tem
+   * dados, sem lacunas nem sobreposição.
+   * </p>
+   *
+   * @param usuarioId       ID do usuário dono das leituras.
+   * @param sensor          Tipo do sensor, ou {@code null} para todos.
+   * @param resolucaoMinima Resolução mais fina aceita.
+   * @param de              Início da janela (inclusivo).
+   * @param ate             Fim da janela (exclusivo).
+   * @param consumidor      Destino de cada agregado.
+   */
+  public void percorrerRollups(Long usuarioId, String sensor, IntervaloAgregacao resolucaoMinima,
+      LocalDateTime de, LocalDateTime ate, Consumer<AgregadoView> consumidor) {
+    List<IntervaloAgregacao> resolucoes = SensorRollupRepository.RESOLUCOES.stream()
+        .filter(r -> r.getSegundos() >= resolucaoMinima.getSegundos())
+        .toList();
+    List<LocalDateTime> primeiros = new ArrayList<>();
+    for (IntervaloAgregacao resolucao : resolucoes) {
+      primeiros.add(rollupRepository.primeiroInicio(resolucao, usuarioId).orElse(null));
+    }
+
+    // Da mais fina para a mais grossa; percorridos na ordem inversa.
+    Deque<Trecho> trechos = new ArrayDeque<>();
+    LocalDateTime fim = ate;
+    for (int i = 0; i < resolucoes.size() && de.isBefore(fim); i++) {
+      LocalDateTime inicio = primeiros.get(i);
+      if (inicio == null) {
+        continue;
+      }
+      for (int j = i + 1; j < resolucoes.size(); j++) {
+        LocalDateTime primeiroGrosso = primeiros.get(j);
+        if (primeiroGrosso != null && !primeiroGrosso.isAfter(inicio)) {
+          inicio = proximoLimite(inicio, resolucoes.get(j));
+          break;
+        }
+      }
+      if (inicio.isBefore(de)) {
+        inicio = de;
+      }
+      if (inicio.isBefore(fim)) {
+        trechos.push(new Trecho(resolucoes.get(i), inicio, fim));
+        fim = inicio;
+      }
+    }
+    trechos.forEach(t -> rollupRepository.percorrer(t.resolucao(), usuarioId, sensor, t.de(), t.ate(), consumidor));
+  }
+
+  /**
+   * Escolhe a resolução pré-calculada mais fina em que a janela tem no máximo
+   * {@code maxIntervalos} intervalos por sensor; a diária, se nenhuma couber.
+   *
+   * @param de            Início da janela.
+   * @param ate           Fim da janela.
+   * @param maxIntervalos Quantidade máxima de intervalos por sensor.
+   * @return A resolução escolhida.
+   */
+  public static IntervaloAgregacao resolucaoParaJanela(LocalDateTime de, LocalDateTime ate, int maxIntervalos) {
+    long segundos = Duration.between(de, ate).getSeconds();
+    for (IntervaloAgregacao resolucao : SensorRollupRepository.RESOLUCOES) {
+      if (segundos / resolucao.getSegundos() <= maxIntervalos) {
+        return resolucao;
+      }
+    }
+    return SensorRollupRepository.RESOLUCOES.get(SensorRollupRepository.RESOLUCOES.size() - 1);
+  }
+
+  private static LocalDateTime proximoLimite(LocalDateTime instante, IntervaloAgregacao resolucao) {
+    LocalDateTime inicio = resolucao.inicioDe(instante);
+    return inicio.equals(instante) ? inicio : inicio.plusSeconds(resolucao.getSegundos());
+  }
+
+  /**
+   * Divide a janela em três partes: a borda inicial incompleta e o trecho
+   * ainda não agregado no fim vêm das leituras brutas; os intervalos inteiros
+   * já cobertos vêm da tabela de agregados. Cada intervalo do resultado vem
+   * inteiramente de uma única fonte.
+   */
+  private List<AgregadoView> agregarComRollups(Long usuarioId, String sensor, IntervaloAgregacao intervalo,
+      LocalDateTime de, LocalDateTime ate) {
+    IntervaloAgregacao resolucao = resolucaoPara(intervalo);
+    Optional<LocalDateTime> ultimo = (resolucao != null)
+        ? rollupRepository.ultimoInicio(resolucao, usuarioId)
+        : Optional.empty();
+    if (ultimo.isEmpty()) {
+      return agregarBruto(usuarioId, sensor, intervalo, de, ate);
+    }
+
+    LocalDateTime agregadoAte = ultimo.get().plusSeconds(resolucao.getSegundos());
+    LocalDateTime inicioRollup = intervalo.inicioDe(de);
+    if (inicioRollup.isBefore(de)) {
+      inicioRollup = inicioRollup.plusSeconds(intervalo.getSegundos());
+    }
+    LocalDateTime fimRollup = intervalo.inicioDe(agregadoAte.isBefore(ate) ? agregadoAte : ate);
+    if (!inicioRollup.isBefore(fimRollup)) {
+      return agregarBruto(usuarioId, sensor, intervalo, de, ate);
+    }
+
+    List<AgregadoView> resultado = new ArrayList<>(agregarBruto(usuarioId, sensor, intervalo, de, inicioRollup));
+    resultado.addAll(combinar(rollupRepository.buscar(resolucao, usuarioId, sensor, inicioRollup, fimRollup),
+        intervalo));
+    resultado.addAll(agregarBruto(usuarioId, sensor, intervalo, fimRollup, ate));
+    resultado.sort(Comparator.comparing(AgregadoView::getSensor).thenComparing(AgregadoView::getInicio));
+    return resultado;
+  }
+
+  /**
+   * Escolhe a maior resolução pré-calculada que divide exatamente o intervalo.
+   */
+  private static IntervaloAgregacao resolucaoPara(IntervaloAgregacao intervalo) {
+    IntervaloAgregacao escolhida = null;
+    for (IntervaloAgregacao resolucao : SensorRollupRepository.RESOLUCOES) {
+      if (intervalo.getSegundos() % resolucao.getSegundos() == 0) {
+        escolhida = resolucao;
+      }
+    }
+    return escolhida;
+  }
+
+  /**
+   * Junta agregados finos, ordenados por sensor e início, em intervalos do
+   * tamanho pedido. Intervalos formados por mais de um agregado fino saem com
+   * os percentis marcados como aproximados.
+   */
+  static List<AgregadoView> combinar(List<AgregadoView> finos, IntervaloAgregacao intervalo) {
+    List<AgregadoView> resultado = new ArrayList<>();
+    AgregadoView atual = null;
+    for (AgregadoView fino : finos) {
+      LocalDateTime balde = intervalo.inicioDe(fino.getInicio());
+      if (atual != null && atual.getSensor().equals(fino.getSensor()) && atual.getInicio().equals(balde)) {
+        long quantidade = atual.getQuantidade() + fino.getQuantidade();
+        atual = new AgregadoView(atual.getSensor(), balde, quantidade,
+            Math.min(atual.getMinimo(), fino.getMinimo()),
+            Math.max(atual.getMaximo(), fino.getMaximo()),
+            ponderada(atual.getMedia(), atual.getQuantidade(), fino.getMedia(), fino.getQuantidade()),
+            ponderada(atual.getP50(), atual.getQuantidade(), fino.getP50(), fino.getQuantidade()),
+            ponderada(atual.getP95(), atual.getQuantidade(), fino.getP95(), fino.getQuantidade()),
+            true);
+      } else {
+        if (atual != null) {
+          resultado.add(atual);
+        }
+        atual = new AgregadoView(fino.getSensor(), balde, fino.getQuantidade(), fino.getMinimo(),
+            fino.getMaximo(), fino.getMedia(), fino.getP50(), fino.getP95(), fino.isPercentisAproximados());
+      }
+    }
+    if (atual != null) {
+      resultado.add(atual);
+    }
+    return resultado;
+  }
+
+  private static double ponderada(double a, long pesoA, double b, long pesoB) {
+    return (a * pesoA + b * pesoB) / (pesoA + pesoB);
+  }
+
+  private List<AgregadoView> agregarNoBanco(Long usuarioId, String sensor, IntervaloAgregacao intervalo,
+      LocalDateTime de, LocalDateTime ate) {
+    long segundos = intervalo.getSegundos();
+    return jdbcTemplate.query(SQL_POSTGRES, (rs, i) -> new AgregadoView(
+        rs.getString("sensor"),
+        rs.getTimestamp("inicio").toLocalDateTime(),
+        rs.getLong("quantidade"),
+        rs.getDouble("minimo"),
+        rs.getDouble("maximo"),
+        rs.getDouble("media"),
+        rs.getDouble("p50"),
+        rs.getDouble("p95")),
+        segundos, segundos, usuarioId, Timestamp.valueOf(de), Timestamp.valueOf(ate), sensor, sensor);
+  }
+
+  private List<AgregadoView> agregarEmJava(Long usuarioId, String sensor, IntervaloAgregacao intervalo,
+      LocalDateTime de, LocalDateTime ate) {
+    List<AgregadoView> resultado = new ArrayList<>();
+    Map<String, Acumulador> abertos = new HashMap<>();
+
+    // As leituras chegam em ordem de timestamp, então cada sensor só avança de
+    // intervalo: ao mudar, o intervalo anterior está completo.
+    try (Stream<SensorReading> leituras = sensorDataRepository.streamLeituras(usuarioId, sensor, de, ate)) {
+      for (SensorReading leitura : (Iterable<SensorReading>) leituras::iterator) {
+        LocalDateTime balde = intervalo.inicioDe(leitura.timestamp());
+        Acumulador acumulador = abertos.get(leitura.sensor());
+        if (acumulador == null || !acumulador.inicio.equals(balde)) {
+          if (acumulador != null) {
+            resultado.add(acumulador.fechar());
+          }
+          acumulador = new Acumulador(leitura.sensor(), balde);
+          abertos.put(leitura.sensor(), acumulador);
+        }
+        acumulador.adicionar(leitura.valor());
+      }
+    }
+    abertos.values().forEach(a -> resultado.add(a.fechar()));
+
+    resultado.sort(Comparator.comparing(AgregadoView::getSensor).thenComparing(AgregadoView::getInicio));
+    return resultado;
+  }
+
+  /**
+   * Calcula o percentil com interpolação linear entre os vizinhos mais
+   * próximos, equivalente ao {@code percentile_cont} do PostgreSQL.
+   *
+   * @param ordenados  Valores em ordem crescente.
+   * @param quantidade Quantidade de posições válidas em {@code ordenados}.
+   * @param fracao     Percentil desejado, entre 0 e 1.
+   * @return O valor do percentil.
+   */
+  static double percentil(double[] ordenados, int quantidade, double fracao) {
+    double posicao = fracao * (quantidade - 1);
+    int abaixo = (int) Math.floor(posicao);
+    int acima = Math.min(abaixo + 1, quantidade - 1);
+    return ordenados[abaixo] + (ordenados[acima] - ordenados[abaixo]) * (posicao - abaixo);
+  }
+
+  /** Parte da janela servida por uma resolução. */
+  private record Trecho(IntervaloAgregacao resolucao, LocalDateTime de, LocalDateTime ate) {
+  }
+
+  /**
+   * Estatísticas em construção de um sensor em um intervalo.
+   */
+  private static final class Acumulador {
+
+    private final String sensor;
+    private final LocalDateTime inicio;
+    private double[] valores = new double[64];
+    private int quantidade;
+    private double soma;
+    private double minimo = Double.POSITIVE_INFINITY;
+    private double maximo = Double.NEGATIVE_INFINITY;
+
+    private Acumulador(String sensor, LocalDateTime inicio) {
+      this.sensor = sensor;
+      this.inicio = inicio;
+    }
+
+    private void adicionar(double valor) {
+      if (quantidade == valores.length) {
+        valores = Arrays.copyOf(valores, quantidade * 2);
+      }
+      valores[quantidade++] = valor;
+      soma += valor;
+      minimo = Math.min(minimo, valor);
+      maximo = Math.max(maximo, valor);
+    }
+
+    private AgregadoView fechar() {
+      Arrays.sort(valores, 0, quantidade);
+      return new AgregadoView(sensor, inicio, quantidade, minimo, maximo, soma / quantidade,
+          percentil(valores, quantidade, 0.5), percentil(valores, quantidade, 0.95));
+    }
+  }
+}
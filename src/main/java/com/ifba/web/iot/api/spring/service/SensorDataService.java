@@ -1,28 +1,42 @@
 package com.ifba.web.iot.api.spring.service;
 
 import org.apache.commons.lang3.tuple.Triple;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import com.ifba.web.iot.api.spring.protocolos.amqp.AmqpPublisher;
 import com.ifba.web.iot.api.spring.controller.dto.update.SensorUpdateDTO;
+import com.ifba.web.iot.api.spring.controller.dto.view.AgregadoView;
+import com.ifba.web.iot.api.spring.controller.dto.view.HistoricoView;
 import com.ifba.web.iot.api.spring.controller.dto.view.SensorView;
-import com.ifba.web.iot.api.spring.model.Alert;
+import com.ifba.web.iot.api.spring.model.IntervaloAgregacao;
 import com.ifba.web.iot.api.spring.model.SensorData;
+import com.ifba.web.iot.api.spring.model.SensorReading;
+import com.ifba.web.iot.api.spring.model.UltimaLeitura;
 import com.ifba.web.iot.api.spring.model.Usuario;
 import com.ifba.web.iot.api.spring.protocolos.mqtt.MqttPublisher;
 import com.ifba.web.iot.api.spring.protocolos.mqtt.MqttToAmqpBridge;
 import com.ifba.web.iot.api.spring.repository.SensorDataRepository;
-import com.ifba.web.iot.api.spring.repository.UsuarioRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * **Serviço de Gerenciamento de Dados de Sensores**
@@ -45,12 +59,23 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class SensorDataService {
 
+    /** Início padrão da janela de histórico quando o cliente não informa. */
+    private static final LocalDateTime HISTORICO_INICIO_PADRAO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /** Tamanho máximo de uma página de histórico. */
+    public static final int HISTORICO_LIMITE_MAXIMO = 500;
+
     private final SensorDataRepository sensorDataRepository;
-    private final UsuarioRepository usuarioRepository;
-    private final AlertService alertService;
+    private final UsuarioIdCache usuarioIdCache;
     private final MqttPublisher mqttPublisher;
     private final AmqpPublisher amqpPublisher;
     private final MqttToAmqpBridge mqttToAmqpBridge;
+    private final UltimaLeituraCache ultimaLeituraCache;
+    private final SensorStreamService streamService;
+    private final AlertRuleEngine alertRuleEngine;
+    private final AlertStateService alertStateService;
+    private final SensorAggregationService aggregationService;
+    private final SensorRollupService rollupService;
 
     /**
      * **Busca Todos os Registros de Sensores**
@@ -71,6 +96,190 @@ public class SensorDataService {
         return sensorDataRepository.findAll();
     }
 
+    /**
+     * **Busca uma Página do Histórico de Leituras do Usuário**
+     *
+     * <p>
+     * Filtra as leituras do usuário pela janela {@code [inicio, fim)} e,
+     * opcionalmente, pelo tipo de sensor. A paginação é feita por cursor
+     * (keyset) sobre {@code (timestamp, id)}: cada página é uma leitura de
+     * índice limitada ao tamanho pedido, independente do volume da tabela.
+     * </p>
+     *
+     * <p>
+     * Leituras brutas removidas pela retenção continuam nos agregados
+     * pré-calculados: a última página traz também, em {@code agregados}, os
+     * intervalos da janela anteriores à leitura bruta mais antiga do usuário,
+     * na resolução mais fina com até {@value #HISTORICO_LIMITE_MAXIMO}
+     * intervalos por sensor (ver
+     * {@link SensorAggregationService#percorrerRollups}).
+     * </p>
+     *
+     * @param email  Email do usuário autenticado.
+     * @param sensor Tipo do sensor, ou {@code null} para todos.
+     * @param inicio Início da janela (inclusivo), ou {@code null} para sem
+     *               limite inferior.
+     * @param fim    Fim da janela (exclusivo), ou {@code null} para agora.
+     * @param cursor Cursor devolvido pela página anterior, ou {@code null} na
+     *               primeira página.
+     * @param limite Tamanho da página (limitado a
+     *               {@value #HISTORICO_LIMITE_MAXIMO}).
+     * @return A página de leituras e o cursor da próxima página.
+     * @throws IllegalArgumentException se a janela ou o cursor forem inválidos.
+     */
+    @Transactional(readOnly = true)
+    public HistoricoView buscarHistorico(String email, String sensor, LocalDateTime inicio, LocalDateTime fim,
+            String cursor, int limite) {
+        Long usuarioId = usuarioIdCache.buscarIdObrigatorio(email);
+
+        LocalDateTime de = (inicio != null) ? inicio : HISTORICO_INICIO_PADRAO;
+        LocalDateTime ate = (fim != null) ? fim : LocalDateTime.now();
+        if (!de.isBefore(ate)) {
+            throw new IllegalArgumentException("O início da janela deve ser anterior ao fim.");
+        }
+        int tamanho = Math.max(1, Math.min(limite, HISTORICO_LIMITE_MAXIMO));
+
+        // Cursor inicial (fim, 0): como os IDs são positivos, exclui o próprio fim.
+        LocalDateTime cursorTimestamp = ate;
+        long cursorId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = decodificarCursor(cursor);
+            cursorTimestamp = LocalDateTime.parse(partes[0]);
+            cursorId = Long.parseLong(partes[1]);
+            if (cursorTimestamp.isAfter(ate)) {
+                cursorTimestamp = ate;
+                cursorId = 0L;
+            }
+        }
+
+        // Busca um item a mais apenas para saber se existe próxima página.
+        Limit limit = Limit.of(tamanho + 1);
+        List<SensorData> leituras = (sensor == null || sensor.isBlank())
+                ? sensorDataRepository.findPagina(usuarioId, de, cursorTimestamp, cursorId, limit)
+                : sensorDataRepository.findPaginaPorSensor(usuarioId, sensor, de, cursorTimestamp, cursorId,
+                        limit);
+
+        String proximoCursor = null;
+        if (leituras.size() > tamanho) {
+            leituras = leituras.subList(0, tamanho);
+            SensorData ultima = leituras.get(tamanho - 1);
+            proximoCursor = codificarCursor(ultima.getTimestamp(), ultima.getId());
+            return new HistoricoView(leituras, proximoCursor);
+        }
+
+        String filtro = (sensor == null || sensor.isBlank()) ? null : sensor;
+        LocalDateTime fimAgregados = fimDosAgregados(usuarioId, ate);
+        List<AgregadoView> agregados = new ArrayList<>();
+        if (de.isBefore(fimAgregados)) {
+            IntervaloAgregacao resolucao = SensorAggregationService.resolucaoParaJanela(de, fimAgregados,
+                    HISTORICO_LIMITE_MAXIMO);
+            aggregationService.percorrerRollups(usuarioId, filtro, resolucao, de, fimAgregados, agregados::add);
+            // Como as leituras: do mais recente para o mais antigo.
+            Collections.reverse(agregados);
+        }
+        return new HistoricoView(leituras, null, agregados);
+    }
+
+    /**
+     * **Exporta o Histórico de Leituras do Usuário em Fluxo**
+     *
+     * <p>
+     * Entrega cada leitura da janela {@code [inicio, fim)} ao consumidor assim
+     * que ela é lida do banco, sem montar listas intermediárias. O uso de
+     * memória é constante, independente da quantidade de linhas exportadas.
+     * </p>
+     *
+     * <p>
+     * O trecho da janela anterior à leitura bruta mais antiga do usuário
+     * (removido pela retenção) vem antes, dos agregados pré-calculados na
+     * resolução mais fina disponível: uma linha por sensor e intervalo, sem ID,
+     * com a média do intervalo como valor e o início do intervalo como
+     * instante.
+     * </p>
+     *
+     * @param email      Email do usuário autenticado.
+     * @param sensor     Tipo do sensor, ou {@code null} para todos.
+     * @param inicio     Início da janela (inclusivo), ou {@code null} para sem
+     *                   limite inferior.
+     * @param fim        Fim da janela (exclusivo), ou {@code null} para agora.
+     * @param consumidor Destino de cada leitura (ex.: o escritor da resposta).
+     * @return A quantidade de leituras exportadas.
+     */
+    @Transactional(readOnly = true)
+    public long exportar(String email, String sensor, LocalDateTime inicio, LocalDateTime fim,
+            Consumer<SensorReading> consumidor) {
+        Long usuarioId = usuarioIdCache.buscarIdObrigatorio(email);
+
+        LocalDateTime de = (inicio != null) ? inicio : HISTORICO_INICIO_PADRAO;
+        LocalDateTime ate = (fim != null) ? fim : LocalDateTime.now();
+        String filtro = (sensor == null || sensor.isBlank()) ? null : sensor;
+
+        long[] agregados = { 0 };
+        LocalDateTime fimAgregados = fimDosAgregados(usuarioId, ate);
+        if (de.isBefore(fimAgregados)) {
+            aggregationService.percorrerRollups(usuarioId, filtro, IntervaloAgregacao.UM_MINUTO, de, fimAgregados,
+                    a -> {
+                        consumidor.accept(new SensorReading(null, a.getSensor(), a.getMedia(),
+                                unidadeDe(a.getSensor()), a.getInicio()));
+                        agregados[0]++;
+                    });
+        }
+
+        long total = agregados[0];
+        try (Stream<SensorReading> leituras = sensorDataRepository.streamLeituras(usuarioId, filtro, de, ate)) {
+            for (SensorReading leitura : (Iterable<SensorReading>) leituras::iterator) {
+                consumidor.accept(leitura);
+                total++;
+            }
+        }
+        log.info("📤 Exportação concluída: {} leituras ({} de agregados).", total, agregados[0]);
+        return total;
+    }
+
+    /**
+     * @param sensor Tipo do sensor.
+     * @return A unidade de medida do sensor, ou {@code null} se desconhecido.
+     */
+    static String unidadeDe(String sensor) {
+        return switch (sensor) {
+            case "temperatura" -> "°C";
+            case "umidade" -> "%";
+            case "luminosidade" -> "lux";
+            default -> null;
+        };
+    }
+
+    /**
+     * Fim do trecho servido pelos agregados: o início do minuto da leitura bruta
+     * mais antiga do usuário, ou o fim da janela se não houver leituras brutas.
+     */
+    private LocalDateTime fimDosAgregados(Long usuarioId, LocalDateTime ate) {
+        LocalDateTime fim = sensorDataRepository.findPrimeiroTimestampDoUsuario(usuarioId)
+                .map(IntervaloAgregacao.UM_MINUTO::inicioDe)
+                .orElse(ate);
+        return fim.isBefore(ate) ? fim : ate;
+    }
+
+    private static String codificarCursor(LocalDateTime timestamp, Long id) {
+        String bruto = timestamp + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bruto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodificarCursor(String cursor) {
+        try {
+            String bruto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = bruto.split("_", 2);
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido.");
+            }
+            LocalDateTime.parse(partes[0]);
+            Long.parseLong(partes[1]);
+            return partes;
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido.", e);
+        }
+    }
+
     /**
      * **SOBRECARGA 1: Salva e processa dados a partir de uma requisição de API.**
      * <p>
@@ -92,8 +301,8 @@ public class SensorDataService {
             throw new AccessDeniedException("Usuário não autenticado. Acesso negado.");
         }
 
-        Usuario usuario = usuarioRepository.findByEmail(principal.getName())
-                .orElseThrow(() -> new AccessDeniedException("Usuário não encontrado. Acesso negado."));
+        // Referência pelo ID em cache: associar a leitura não exige carregar o usuário.
+        Usuario usuario = usuarioIdCache.referencia(principal.getName());
 
         return processAndSave(sensorData, usuario);
     }
@@ -134,62 +343,143 @@ public class SensorDataService {
     private Triple<String, SensorData, String> processAndSave(SensorData sensorData, Usuario usuario) {
         log.info("📥 Iniciando o salvamento e processamento dos dados do sensor...");
 
+        AlertStateService.Avaliacao avaliacao = prepararLeitura(sensorData, usuario);
+
+        SensorData saved = sensorDataRepository.save(sensorData);
+        log.info("💾 Dados do sensor salvos com sucesso. ID: {}", saved.getId());
+        // Leitura e alertas na mesma transação; se ela for desfeita, o estado dos alertas também é.
+        alertStateService.gravar(avaliacao);
+        String alertMessage = avaliacao.mensagem();
+        registrarUltimaLeitura(saved, alertMessage);
+
+        String protocoloMsg = publicar(saved);
+
+        log.info("✅ Finalizado o processo de salvamento e publicação dos dados do sensor.");
+        return Triple.of(alertMessage, saved, protocoloMsg);
+    }
+
+    /**
+     * **Prepara uma Leitura para Gravação a partir de uma Requisição de API.**
+     * <p>
+     * Resolve o usuário autenticado e aplica a mesma normalização e verificação
+     * de alertas do fluxo síncrono, sem gravar a leitura nem os alertas. Usado
+     * pelo modo de ingestão em lote ({@link SensorIngestionService}).
+     * </p>
+     *
+     * @param sensorData O objeto de dados do sensor.
+     * @param principal  O objeto de segurança do usuário autenticado.
+     * @return A avaliação de alertas, a gravar com
+     *         {@link AlertStateService#gravar} depois da leitura.
+     */
+    @Transactional
+    public AlertStateService.Avaliacao prepararLeitura(SensorData sensorData, Principal principal) {
+        if (principal == null) {
+            log.error("❌ Erro: Tentativa de criar sensor sem usuário autenticado.");
+            throw new AccessDeniedException("Usuário não autenticado. Acesso negado.");
+        }
+
+        // Referência pelo ID em cache: associar a leitura não exige carregar o usuário.
+        Usuario usuario = usuarioIdCache.referencia(principal.getName());
+
+        return prepararLeitura(sensorData, usuario);
+    }
+
+    /**
+     * **Normaliza a Leitura e Avalia os Alertas.**
+     * <p>
+     * Associa a leitura ao usuário, define o timestamp e a unidade de medida
+     * conforme o tipo do sensor e avalia as regras de alerta
+     * ({@link AlertStateService}). Nem a leitura nem as aberturas e
+     * fechamentos de alerta são gravados aqui: quem grava a leitura grava
+     * também a avaliação, ou a desfaz se a leitura não for gravada.
+     * </p>
+     *
+     * @param sensorData O objeto de dados do sensor.
+     * @param usuario    O objeto do usuário a ser associado.
+     * @return A avaliação de alertas da leitura.
+     */
+    @Transactional
+    public AlertStateService.Avaliacao prepararLeitura(SensorData sensorData, Usuario usuario) {
+        if (usuario == null) {
+            log.error("❌ Erro: Tentativa de processar dados com usuário nulo.");
+            throw new IllegalArgumentException("O usuário não pode ser nulo para esta operação.");
+        }
+
         sensorData.setUsuario(usuario);
-        log.info("👤 Associando a leitura ao usuário: {}", usuario.getNome());
+        log.info("👤 Associando a leitura ao usuário: {}", usuario.getId());
 
         String sensor = Objects.requireNonNull(sensorData.getSensor(), "O tipo do sensor não pode ser nulo.");
-        double valor = sensorData.getValor();
         sensorData.setTimestamp(LocalDateTime.now());
 
         // Define unidade de medida conforme tipo de sensor
-        switch (sensor) {
-            case "temperatura":
-                sensorData.setUnidade("°C");
-                break;
-            case "umidade":
-                sensorData.setUnidade("%");
-                break;
-            case "luminosidade":
-                sensorData.setUnidade("lux");
-                break;
-            default:
-                log.warn("⚠️ Tipo de sensor desconhecido: {}", sensor);
+        String unidade = unidadeDe(sensor);
+        if (unidade != null) {
+            sensorData.setUnidade(unidade);
+        } else {
+            log.warn("⚠️ Tipo de sensor desconhecido: {}", sensor);
         }
 
         log.debug("📊 Dados recebidos: {}", sensorData);
 
-        String alertMessage = verificarAlerta(sensorData);
-
-        // Salvar alerta no banco de dados, se houver
-        if (alertMessage != null) {
-            log.warn("⚠️ Alerta gerado: {}", alertMessage);
-            if (alertService.isAlertSavingEnabled()) {
-                Alert alert = new Alert(sensor, valor, sensorData.getUnidade(), alertMessage);
-                alertService.saveAlert(alert);
-                log.info("💾 Alerta salvo no banco de dados.");
-            } else {
-                log.info("🛑 Salvamento de alertas desativado. Alerta não persistido.");
-            }
-        } else {
+        // Abre ou fecha alertas conforme o estado do sensor; só as transições serão gravadas
+        AlertStateService.Avaliacao avaliacao = alertStateService.preparar(usuario.getId(), sensorData);
+        if (avaliacao.mensagem() == null) {
             log.info("✅ Nenhum alerta necessário. Dados dentro dos parâmetros normais.");
         }
+        return avaliacao;
+    }
 
-        SensorData saved = sensorDataRepository.save(sensorData);
-        log.info("💾 Dados do sensor salvos com sucesso. ID: {}", saved.getId());
-
-        // Publicação dos dados conforme tipo do sensor
-        String protocoloMsg = null;
-        if ("temperatura".equals(sensor)) {
-            protocoloMsg = mqttPublisher.publish(saved);
-            log.info("📡 Dados de temperatura publicados via MQTT:\n{}", saved);
-            mqttToAmqpBridge.forwardToQueue(saved);
+    /**
+     * **Atualiza o Cache da Última Leitura e Notifica os Painéis.**
+     * <p>
+     * Dentro de uma transação, o cache e o stream de leituras
+     * ({@link SensorStreamService}) só são atualizados após o commit, para que
+     * o painel nunca exiba uma leitura que acabou desfeita.
+     * </p>
+     *
+     * @param saved        A leitura já persistida.
+     * @param alertMessage A mensagem de alerta calculada para ela.
+     */
+    public void registrarUltimaLeitura(SensorData saved, String alertMessage) {
+        UltimaLeitura ultima = UltimaLeitura.of(saved, alertMessage);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ultimaLeituraCache.registrar(ultima);
+                    streamService.publicar(ultima);
+                }
+            });
         } else {
-            protocoloMsg = amqpPublisher.publish(saved);
-            log.info("📡 Dados publicados via AMQP:\n{}", saved);
+            ultimaLeituraCache.registrar(ultima);
+            streamService.publicar(ultima);
         }
+    }
 
-        log.info("✅ Finalizado o processo de salvamento e publicação dos dados do sensor.");
-        return Triple.of(alertMessage, saved, protocoloMsg);
+    /**
+     * **Publica uma Leitura já Gravada.**
+     * <p>
+     * Leituras de temperatura seguem via MQTT (e são encaminhadas à fila
+     * simulada); os demais tipos seguem via AMQP. Os publicadores recebem uma
+     * cópia imutável ({@link SensorReading}), de modo que a publicação nunca
+     * gera escritas adicionais na entidade recém-gravada.
+     * </p>
+     *
+     * @param saved A leitura já persistida.
+     * @return A mensagem do protocolo utilizado.
+     */
+    public String publicar(SensorData saved) {
+        SensorReading leitura = SensorReading.of(saved);
+        String protocoloMsg;
+        if ("temperatura".equals(leitura.sensor())) {
+            protocoloMsg = mqttPublisher.publish(leitura);
+            log.info("📡 Dados de temperatura publicados via MQTT:\n{}", leitura);
+            mqttToAmqpBridge.forwardToQueue(leitura);
+        } else {
+            protocoloMsg = amqpPublisher.publish(leitura);
+            log.info("📡 Dados publicados via AMQP:\n{}", leitura);
+        }
+        return protocoloMsg;
     }
 
     /**
@@ -216,6 +506,7 @@ public class SensorDataService {
      * <p>
      * Este é o mecanismo de defesa contra o IDOR. Ele consulta o repositório para
      * verificar se o sensor com o ID fornecido pertence ao usuário especificado.
+     * O ID do usuário vem do {@link UsuarioIdCache}.
      * </p>
      *
      * @param username O nome de usuário do proprietário em potencial.
@@ -225,20 +516,10 @@ public class SensorDataService {
      */
     @Transactional(readOnly = true)
     public boolean isUserSensorOwner(String username, Long sensorId) {
-        // Encontra o sensor pelo ID.
-        Optional<SensorData> sensorOptional = sensorDataRepository.findById(sensorId);
-
-        // Se o sensor existir, verifica se o nome de usuário do proprietário
-        // (acessado através da entidade 'Usuario') corresponde ao nome de usuário
-        // fornecido.
-        if (sensorOptional.isPresent()) {
-            SensorData sensor = sensorOptional.get();
-            // Acessa o objeto 'Usuario' e obtém o nome de usuário para a comparação.
-            return sensor.getUsuario().getEmail().equals(username);
-        }
-
-        // Se o sensor não for encontrado, ele não pertence ao usuário.
-        return false;
+        // Uma única consulta pela chave primária e pelo dono, sem carregar a
+        // leitura nem o usuário; usuários inexistentes não são donos de nada.
+        Long usuarioId = usuarioIdCache.buscarId(username);
+        return usuarioId != null && sensorDataRepository.existsByIdAndUsuarioId(sensorId, usuarioId);
     }
 
     /**
@@ -275,6 +556,21 @@ public class SensorDataService {
             existingData.setSensor(updatedDTO.getSensor());
             existingData.setValor(updatedDTO.getValor());
             SensorData savedData = sensorDataRepository.save(existingData);
+            Long usuarioId = usuarioIdCache.buscarIdObrigatorio(currentUsername);
+            LocalDateTime instante = savedData.getTimestamp();
+            // A leitura alterada pode ser a última exibida de um ou dois sensores,
+            // e pode já ter sido incluída nos agregados pré-calculados.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ultimaLeituraCache.invalidar();
+                    try {
+                        rollupService.reagregar(usuarioId, instante);
+                    } catch (RuntimeException e) {
+                        log.error("❌ Falha ao recalcular os agregados da leitura {}: {}", id, e.getMessage(), e);
+                    }
+                }
+            });
             return new SensorView("Dados atualizados com sucesso", savedData, "HTTP");
         }
         return null;
@@ -295,29 +591,94 @@ public class SensorDataService {
         return sensorDataRepository.findFirstByOrderByTimestampDesc().orElse(null);
     }
 
+    /**
+     * **Busca a Leitura Mais Recente a partir do Cache**
+     *
+     * <p>
+     * Servida pelo {@link UltimaLeituraCache}, com o valor já formatado e a
+     * mensagem de alerta calculada na gravação. O banco só é consultado na
+     * primeira chamada, para preencher o cache.
+     * </p>
+     *
+     * <p>
+     * Não é transacional: com o cache aquecido nenhuma conexão é retirada do
+     * pool, e na falta a consulta do repositório abre a sua própria transação.
+     * </p>
+     *
+     * @return A leitura mais recente de todos os sensores, ou {@code null} se
+     *         não houver registros.
+     */
+    public UltimaLeitura buscarUltimaLeitura() {
+        aquecerCache();
+        return ultimaLeituraCache.maisRecente();
+    }
+
+    /**
+     * **Busca a Leitura Mais Recente de Cada Sensor a partir do Cache**
+     *
+     * <p>
+     * Como {@link #buscarUltimaLeitura()}, só consulta o banco na falta do
+     * cache, sem uma transação envolvendo a chamada inteira.
+     * </p>
+     *
+     * @param email Email do usuário para restringir às suas leituras, ou
+     *              {@code null} para as leituras de todos os usuários.
+     * @return A última leitura de cada sensor, ordenadas pelo tipo do sensor.
+     */
+    public List<UltimaLeitura> buscarUltimasLeituras(String email) {
+        Collection<UltimaLeitura> ultimas;
+        if (email == null) {
+            aquecerCache();
+            ultimas = ultimaLeituraCache.porSensor();
+        } else {
+            Long usuarioId = usuarioIdCache.buscarIdObrigatorio(email);
+            ultimas = ultimaLeituraCache.doUsuario(usuarioId);
+            if (ultimas == null) {
+                ultimaLeituraCache.carregarUsuario(usuarioId,
+                        paraUltimasLeituras(sensorDataRepository.findUltimasPorSensorDoUsuario(usuarioId)));
+                ultimas = ultimaLeituraCache.doUsuario(usuarioId);
+            }
+        }
+        return ultimas.stream().sorted(Comparator.comparing(UltimaLeitura::sensor)).toList();
+    }
+
+    /**
+     * **Busca o ID de um Usuário pelo Email**
+     *
+     * @param email Email do usuário.
+     * @return O ID do usuário, servido pelo {@link UsuarioIdCache}.
+     * @throws AccessDeniedException se o usuário não existir.
+     */
+    public Long buscarUsuarioId(String email) {
+        return usuarioIdCache.buscarIdObrigatorio(email);
+    }
+
+    private void aquecerCache() {
+        if (!ultimaLeituraCache.isAquecido()) {
+            ultimaLeituraCache.carregar(paraUltimasLeituras(sensorDataRepository.findUltimasPorSensor()));
+        }
+    }
+
+    private List<UltimaLeitura> paraUltimasLeituras(List<SensorData> leituras) {
+        return leituras.stream().map(l -> UltimaLeitura.of(l, verificarAlerta(l))).toList();
+    }
+
     /**
      * **Verifica a Ocorrência de Alertas**
      *
      * <p>
-     * Este método utilitário checa se os dados de um sensor excedem limites
-     * pré-definidos. Ele é chamado por outros métodos de serviço para
-     * determinar a necessidade de gerar uma mensagem de alerta.
+     * Avalia as regras de alerta cadastradas para o tipo do sensor (ver
+     * {@link AlertRuleEngine}) considerando apenas o valor desta leitura, sem
+     * tempo sustentado, média móvel ou histerese. Usado para exibir leituras
+     * já gravadas; a ingestão usa o {@link AlertStateService}.
      * </p>
      *
      * @param data O objeto {@link SensorData} contendo os dados a serem
      *             verificados.
-     * @return Uma `String` com a mensagem de alerta se os limites forem excedidos,
+     * @return Uma `String` com a mensagem de alerta se alguma regra disparar,
      *         ou `null` caso os dados estejam dentro do normal.
      */
     public String verificarAlerta(SensorData data) {
-        String alertMessage = null;
-        if ("temperatura".equals(data.getSensor()) && data.getValor() > 30) {
-            alertMessage = "🌡️ Alerta! Temperatura elevada detectada.";
-        } else if ("umidade".equals(data.getSensor()) && (data.getValor() < 20 || data.getValor() > 80)) {
-            alertMessage = "💧 Alerta! Umidade baixa detectada.";
-        } else if ("luminosidade".equals(data.getSensor()) && data.getValor() < 200) {
-            alertMessage = "💡 Alerta! Baixo nível de luminosidade detectado. Acione as luzes auxiliares.";
-        }
-        return alertMessage;
+        return alertRuleEngine.avaliar(data.getSensor(), data.getValor());
     }
 }
@@ -0,0 +1,203 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.security.Principal;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.tuple.Triple;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ifba.web.iot.api.spring.model.SensorData;
+import com.ifba.web.iot.api.spring.model.Usuario;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * **Ponto de Entrada da Ingestão de Leituras**
+ *
+ * <p>
+ * Decide, conforme a propriedade {@code sensor.ingestao.modo}, se uma leitura
+ * é gravada de forma síncrona ({@link SensorDataService#saveAndProcess}) ou
+ * enfileirada no {@link SensorWriteBehindBuffer} para gravação em lote.
+ * </p>
+ *
+ * <p>
+ * No modo {@link ModoIngestao#BUFFER}, a durabilidade define quando a chamada
+ * retorna: {@link Durabilidade#ENFILEIRADO} responde assim que a leitura é
+ * aceita pela fila; {@link Durabilidade#PERSISTIDO} aguarda a gravação do lote.
+ * Esta classe não é transacional de propósito: a espera pela gravação não deve
+ * reter uma conexão do pool, que o próprio gravador precisa usar.
+ * </p>
+ *
+ * <p>
+ * Os alertas de uma leitura em lote só são gravados depois do lote que a
+ * contém; se o lote falhar, a avaliação é desfeita em memória e nenhum alerta
+ * fica sem leitura. A gravação dos alertas, a publicação, o cache da última
+ * leitura e o envio aos painéis rodam em um pool próprio
+ * ({@code sensor.ingestao.publicacao.threads}), fora da thread do gravador,
+ * que só grava lotes. Com a fila desse pool cheia, a tarefa roda na thread do
+ * gravador, o que desacelera a ingestão em vez de descartar publicações.
+ * </p>
+ */
+@Slf4j
+@Service
+public class SensorIngestionService {
+
+  /** Modos de ingestão suportados. */
+  public enum ModoIngestao {
+    SINCRONO, BUFFER
+  }
+
+  /** Momento em que a leitura é confirmada ao cliente no modo em lote. */
+  public enum Durabilidade {
+    ENFILEIRADO, PERSISTIDO
+  }
+
+  private final SensorDataService sensorService;
+  private final AlertStateService alertStateService;
+  private final SensorWriteBehindBuffer buffer;
+  private final ModoIngestao modo;
+  private final Durabilidade durabilidade;
+  private final long timeoutConfirmacaoMs;
+  private final ThreadPoolExecutor publicacao;
+
+  public SensorIngestionService(SensorDataService sensorService, AlertStateService alertStateService,
+      SensorWriteBehindBuffer buffer,
+      @Value("${sensor.ingestao.modo:SINCRONO}") ModoIngestao modo,
+      @Value("${sensor.ingestao.durabilidade:PERSISTIDO}") Durabilidade durabilidade,
+      @Value("${sensor.ingestao.confirmacao.timeout-ms:2000}") long timeoutConfirmacaoMs,
+      @Value("${sensor.ingestao.publicacao.threads:1}") int threadsPublicacao,
+      @Value("${sensor.ingestao.publicacao.fila:10000}") int filaPublicacao) {
+    this.sensorService = sensorService;
+    this.alertStateService = alertStateService;
+    this.buffer = buffer;
+    this.modo = modo;
+    this.durabilidade = durabilidade;
+    this.timeoutConfirmacaoMs = timeoutConfirmacaoMs;
+    int threads = Math.max(1, threadsPublicacao);
+    AtomicInteger contador = new AtomicInteger();
+    // Fila cheia ou pool encerrado: a tarefa roda em quem concluiu o lote, sem ser descartada.
+    this.publicacao = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(1, filaPublicacao)), r -> {
+          Thread t = new Thread(r, "sensor-publicacao-" + contador.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        }, (tarefa, executor) -> tarefa.run());
+    log.info("⚙️ Modo de ingestão de leituras: {} (durabilidade: {})", modo, durabilidade);
+  }
+
+  /**
+   * Ingere uma leitura recebida pela API.
+   *
+   * @param sensorData O objeto de dados do sensor.
+   * @param principal  O objeto de segurança do usuário autenticado.
+   * @return Um {@link Triple} com a mensagem de alerta, os dados da leitura e a
+   *         mensagem do protocolo.
+   * @throws java.util.concurrent.RejectedExecutionException se o buffer estiver
+   *                                                         cheio.
+   */
+  public Triple<String, SensorData, String> ingerir(SensorData sensorData, Principal principal) {
+    if (modo == ModoIngestao.SINCRONO) {
+      return sensorService.saveAndProcess(sensorData, principal);
+    }
+    AlertStateService.Avaliacao avaliacao = sensorService.prepararLeitura(sensorData, principal);
+    return enfileirar(avaliacao, sensorData);
+  }
+
+  /**
+   * Ingere uma leitura gerada internamente (ex.: {@link SensorScheduler}).
+   *
+   * @param sensorData O objeto de dados do sensor.
+   * @param usuario    O usuário a ser associado à leitura.
+   * @return Um {@link Triple} com a mensagem de alerta, os dados da leitura e a
+   *         mensagem do protocolo.
+   * @throws java.util.concurrent.RejectedExecutionException se o buffer estiver
+   *                                                         cheio.
+   */
+  public Triple<String, SensorData, String> ingerir(SensorData sensorData, Usuario usuario) {
+    if (modo == ModoIngestao.SINCRONO) {
+      return sensorService.saveAndProcess(sensorData, usuario);
+    }
+    AlertStateService.Avaliacao avaliacao = sensorService.prepararLeitura(sensorData, usuario);
+    return enfileirar(avaliacao, sensorData);
+  }
+
+  private Triple<String, SensorData, String> enfileirar(AlertStateService.Avaliacao avaliacao,
+      SensorData sensorData) {
+    String alertMessage = avaliacao.mensagem();
+    CompletableFuture<SensorData> persistida;
+    try {
+      persistida = buffer.enfileirar(sensorData);
+    } catch (RejectedExecutionException e) {
+      alertStateService.desfazer(avaliacao);
+      throw e;
+    }
+
+    // Alertas e publicação acontecem depois da gravação, quando a leitura já tem ID.
+    CompletableFuture<String> publicada = persistida
+        .whenComplete((saved, erro) -> {
+          if (erro != null) {
+            alertStateService.desfazer(avaliacao);
+          }
+        })
+        .thenApplyAsync(saved -> {
+          gravarAlertas(avaliacao);
+          sensorService.registrarUltimaLeitura(saved, alertMessage);
+          return sensorService.publicar(saved);
+        }, publicacao);
+
+    if (durabilidade == Durabilidade.ENFILEIRADO) {
+      publicada.exceptionally(e -> {
+        log.error("❌ Leitura enfileirada não pôde ser gravada: {}", e.getMessage());
+        return null;
+      });
+      return Triple.of(alertMessage, sensorData, "⏳ Leitura enfileirada para gravação em lote.");
+    }
+
+    try {
+      String protocoloMsg = publicada.get(timeoutConfirmacaoMs, TimeUnit.MILLISECONDS);
+      return Triple.of(alertMessage, sensorData, protocoloMsg);
+    } catch (TimeoutException e) {
+      log.warn("⏳ Gravação da leitura não confirmada em {} ms; ela segue na fila.", timeoutConfirmacaoMs);
+      return Triple.of(alertMessage, sensorData, "⏳ Leitura aceita; gravação ainda em andamento.");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Espera pela gravação interrompida.", e);
+    } catch (ExecutionException e) {
+      throw (e.getCause() instanceof RuntimeException re) ? re : new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Grava os alertas de uma leitura já persistida. Uma falha aqui não desfaz
+   * a leitura: o estado dos alertas é revertido e a publicação segue.
+   */
+  private void gravarAlertas(AlertStateService.Avaliacao avaliacao) {
+    try {
+      alertStateService.gravar(avaliacao);
+    } catch (RuntimeException e) {
+      log.error("❌ Falha ao gravar os alertas de uma leitura do lote: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Conclui as publicações pendentes antes de encerrar.
+   *
+   * @throws InterruptedException se a espera pelo término for interrompida.
+   */
+  @PreDestroy
+  public void encerrar() throws InterruptedException {
+    publicacao.shutdown();
+    if (!publicacao.awaitTermination(10, TimeUnit.SECONDS)) {
+      log.warn("⏳ Publicações de leituras ainda pendentes no encerramento: {}", publicacao.getQueue().size());
+    }
+  }
+}
@@ -0,0 +1,225 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ifba.web.iot.api.spring.controller.dto.view.AgregadoView;
+import com.ifba.web.iot.api.spring.model.IntervaloAgregacao;
+import com.ifba.web.iot.api.spring.repository.SensorDataRepository;
+import com.ifba.web.iot.api.spring.repository.SensorRollupRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * **Serviço de Agregados Pré-calculados e Retenção**
+ *
+ * <p>
+ * Periodicamente calcula, a partir das leituras brutas, os agregados por
+ * minuto, hora e dia de cada sensor e os grava nas tabelas
+ * {@code sensor_rollup_*}. Só intervalos já fechados são agregados, com uma
+ * folga ({@code sensor.rollup.atraso-ms}) para leituras ainda no buffer de
+ * gravação; cada resolução guarda até onde já foi calculada, então cada
+ * execução processa apenas o trecho novo. Leituras alteradas depois de
+ * agregadas têm seus intervalos recalculados ({@link #reagregar}).
+ * </p>
+ *
+ * <p>
+ * Em seguida aplica a retenção: leituras brutas e agregados mais antigos que o
+ * prazo configurado são removidos; um prazo de 0 dias (o padrão para as
+ * leituras brutas) mantém tudo. Leituras brutas nunca são removidas antes de
+ * terem sido agregadas em todas as resoluções.
+ * </p>
+ */
+@Slf4j
+@Service
+public class SensorRollupService {
+
+  private final SensorAggregationService aggregationService;
+  private final SensorRollupRepository rollupRepository;
+  private final SensorDataRepository sensorDataRepository;
+  private final TransactionTemplate transactionTemplate;
+
+  private final boolean habilitado;
+  private final long atrasoMs;
+  private final int intervalosPorLote;
+  private final int lotesPorExecucao;
+  private final int retencaoBrutoDias;
+  private final Map<IntervaloAgregacao, Integer> retencaoDias = new EnumMap<>(IntervaloAgregacao.class);
+
+  /** Fim exclusivo do trecho já agregado, por resolução. */
+  private final Map<IntervaloAgregacao, LocalDateTime> agregadoAte = new EnumMap<>(IntervaloAgregacao.class);
+
+  public SensorRollupService(SensorAggregationService aggregationService,
+      SensorRollupRepository rollupRepository, SensorDataRepository sensorDataRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${sensor.rollup.habilitado:true}") boolean habilitado,
+      @Value("${sensor.rollup.atraso-ms:5000}") long atrasoMs,
+      @Value("${sensor.rollup.intervalos-por-lote:1440}") int intervalosPorLote,
+      @Value("${sensor.rollup.lotes-por-execucao:10}") int lotesPorExecucao,
+      @Value("${sensor.retencao.bruto-dias:0}") int retencaoBrutoDias,
+      @Value("${sensor.retencao.minuto-dias:30}") int retencaoMinutoDias,
+      @Value("${sensor.retencao.hora-dias:365}") int retencaoHoraDias,
+      @Value("${sensor.retencao.dia-dias:0}") int retencaoDiaDias) {
+    this.aggregationService = aggregationService;
+    this.rollupRepository = rollupRepository;
+    this.sensorDataRepository = sensorDataRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.habilitado = habilitado;
+    this.atrasoMs = atrasoMs;
+    this.intervalosPorLote = intervalosPorLote;
+    this.lotesPorExecucao = lotesPorExecucao;
+    this.retencaoBrutoDias = retencaoBrutoDias;
+    retencaoDias.put(IntervaloAgregacao.UM_MINUTO, retencaoMinutoDias);
+    retencaoDias.put(IntervaloAgregacao.UMA_HORA, retencaoHoraDias);
+    retencaoDias.put(IntervaloAgregacao.UM_DIA, retencaoDiaDias);
+  }
+
+  /**
+   * Atualiza os agregados de todas as resoluções e aplica a retenção.
+   */
+  @Scheduled(initialDelayString = "${sensor.rollup.periodo-ms:60000}",
+      fixedDelayString = "${sensor.rollup.periodo-ms:60000}")
+  public void executar() {
+    if (!habilitado) {
+      return;
+    }
+    try {
+      LocalDateTime agora = LocalDateTime.now();
+      for (IntervaloAgregacao resolucao : SensorRollupRepository.RESOLUCOES) {
+        atualizar(resolucao, agora);
+      }
+      aplicarRetencao(agora);
+    } catch (RuntimeException e) {
+      log.error("❌ Falha ao atualizar os agregados de leituras: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Agrega os intervalos fechados de uma resolução que ainda não foram
+   * calculados.
+   *
+   * @param resolucao A resolução a atualizar.
+   * @param agora     O instante de referência.
+   * @return A quantidade de agregados gravados.
+   */
+  public synchronized int atualizar(IntervaloAgregacao resolucao, LocalDateTime agora) {
+    LocalDateTime limite = resolucao.inicioDe(agora.minusNanos(atrasoMs * 1_000_000));
+    LocalDateTime marca = agregadoAte.computeIfAbsent(resolucao, this::marcaInicial);
+    if (marca == null) {
+      return 0;
+    }
+
+    int gravados = 0;
+    for (int lote = 0; lote < lotesPorExecucao && marca.isBefore(limite); lote++) {
+      LocalDateTime de = marca;
+      LocalDateTime fimLote = de.plusSeconds(resolucao.getSegundos() * intervalosPorLote);
+      LocalDateTime ate = fimLote.isBefore(limite) ? fimLote : limite;
+
+      // Todos os usuários do trecho são gravados juntos: a marca só avança se o
+      // lote inteiro for confirmado.
+      Integer doLote = transactionTemplate.execute(status -> {
+        int total = 0;
+        for (Long usuarioId : sensorDataRepository.findUsuariosComLeituras(de, ate)) {
+          List<AgregadoView> agregados = aggregationService.agregarBruto(usuarioId, null, resolucao, de, ate);
+          rollupRepository.inserir(resolucao, usuarioId, agregados);
+          total += agregados.size();
+        }
+        return total;
+      });
+      gravados += (doLote != null) ? doLote : 0;
+      marca = ate;
+      agregadoAte.put(resolucao, marca);
+    }
+
+    if (gravados > 0) {
+      log.info("📊 {} agregados de {} gravados (até {}).", gravados, resolucao.getCodigo(), marca);
+    }
+    return gravados;
+  }
+
+  /**
+   * Recalcula, em todas as resoluções, os intervalos já agregados que contêm o
+   * instante de uma leitura alterada. Intervalos ainda não agregados ficam
+   * para a próxima execução; intervalos cujas leituras brutas já foram
+   * removidas pela retenção mantêm os agregados gravados.
+   *
+   * @param usuarioId ID do dono da leitura.
+   * @param instante  Timestamp da leitura alterada.
+   */
+  public synchronized void reagregar(Long usuarioId, LocalDateTime instante) {
+    if (!habilitado) {
+      return;
+    }
+    LocalDateTime primeiraBruta = sensorDataRepository.findPrimeiroTimestamp().orElse(null);
+    for (IntervaloAgregacao resolucao : SensorRollupRepository.RESOLUCOES) {
+      LocalDateTime de = resolucao.inicioDe(instante);
+      LocalDateTime ate = de.plusSeconds(resolucao.getSegundos());
+      LocalDateTime marca = agregadoAte.computeIfAbsent(resolucao, this::marcaInicial);
+      if (marca == null || ate.isAfter(marca) || primeiraBruta == null || de.isBefore(primeiraBruta)) {
+        continue;
+      }
+      // O intervalo é recalculado por inteiro: a alteração pode ter trocado o
+      // sensor da leitura, afetando dois agregados.
+      transactionTemplate.executeWithoutResult(status -> {
+        rollupRepository.remover(resolucao, usuarioId, de, ate);
+        rollupRepository.inserir(resolucao, usuarioId,
+            aggregationService.agregarBruto(usuarioId, null, resolucao, de, ate));
+      });
+      log.debug("📊 Agregado de {} em {} recalculado para o usuário {}.", resolucao.getCodigo(), de, usuarioId);
+    }
+  }
+
+  /**
+   * Remove leituras brutas e agregados que ultrapassaram o prazo de retenção.
+   *
+   * @param agora O instante de referência.
+   */
+  public synchronized void aplicarRetencao(LocalDateTime agora) {
+    LocalDateTime limiteBruto = (retencaoBrutoDias > 0) ? agora.minusDays(retencaoBrutoDias) : null;
+    for (IntervaloAgregacao resolucao : SensorRollupRepository.RESOLUCOES) {
+      if (limiteBruto == null) {
+        break;
+      }
+      // Sem marca, nada foi agregado nesta resolução: as leituras brutas ficam.
+      LocalDateTime marca = agregadoAte.get(resolucao);
+      if (marca == null || marca.isBefore(limiteBruto)) {
+        limiteBruto = marca;
+      }
+    }
+    if (limiteBruto != null) {
+      LocalDateTime limite = limiteBruto;
+      Integer removidas = transactionTemplate.execute(status -> sensorDataRepository.deleteAnteriores(limite));
+      if (removidas != null && removidas > 0) {
+        log.info("🧹 {} leituras brutas anteriores a {} removidas.", removidas, limite);
+      }
+    }
+
+    retencaoDias.forEach((resolucao, dias) -> {
+      if (dias > 0) {
+        int removidos = rollupRepository.removerAnteriores(resolucao, agora.minusDays(dias));
+        if (removidos > 0) {
+          log.info("🧹 {} agregados de {} removidos pela retenção.", removidos, resolucao.getCodigo());
+        }
+      }
+    });
+  }
+
+  /**
+   * Retoma a partir do último intervalo gravado ou, se a tabela estiver vazia,
+   * a partir da leitura mais antiga.
+   */
+  private LocalDateTime marcaInicial(IntervaloAgregacao resolucao) {
+    return rollupRepository.ultimoInicio(resolucao)
+        .map(ultimo -> ultimo.plusSeconds(resolucao.getSegundos()))
+        .or(() -> sensorDataRepository.findPrimeiroTimestamp().map(resolucao::inicioDe))
+        .orElse(null);
+  }
+}
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -35,7 +36,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Component
 public class SensorScheduler {
 
-  private final SensorDataService sensorService;
+  private final SensorIngestionService ingestionService;
   private final UsuarioRepository usuarioRepository;
   private final Random random = new Random();
 
@@ -57,18 +58,18 @@ public class SensorScheduler {
    *
    * <p>
    * Construtor que utiliza a injeção de dependências do Spring para
-   * receber instâncias de `SensorDataService` e `UsuarioRepository`.
+   * receber instâncias de `SensorIngestionService` e `UsuarioRepository`.
    * Isso desacopla a classe de suas dependências, facilitando testes
    * unitários e a manutenção do código.
    * </p>
    *
-   * @param sensorService     O serviço responsável pela lógica de negócio de
-   *                          dados de sensores.
+   * @param ingestionService  O serviço de entrada das leituras de sensores
+   *                          (síncrono ou em lote).
    * @param usuarioRepository O repositório para acesso à entidade `Usuario`.
    */
   @Autowired
-  public SensorScheduler(SensorDataService sensorService, UsuarioRepository usuarioRepository) {
-    this.sensorService = sensorService;
+  public SensorScheduler(SensorIngestionService ingestionService, UsuarioRepository usuarioRepository) {
+    this.ingestionService = ingestionService;
     this.usuarioRepository = usuarioRepository;
   }
 
@@ -118,8 +119,8 @@ public class SensorScheduler {
    * <li>**Associa o `mockUser` à nova leitura
    * (`newSensorData.setUsuario(mockUser)`).** Esta é a etapa crucial que resolve
    * o erro de violação de integridade.</li>
-   * <li>Chama o `SensorDataService` para persistir a nova leitura no banco de
-   * dados.</li>
+   * <li>Chama o `SensorIngestionService` para persistir a nova leitura no banco
+   * de dados.</li>
    * </ul>
    */
   @Scheduled(fixedRate = 10000)
@@ -159,6 +160,11 @@ public class SensorScheduler {
     // A linha abaixo é a solução para o problema de persistência.
     newSensorData.setUsuario(mockUser);
 
-    sensorService.saveAndProcess(newSensorData, mockUser);
+    try {
+      ingestionService.ingerir(newSensorData, mockUser);
+    } catch (RejectedExecutionException e) {
+      // Buffer de ingestão cheio: descarta esta leitura simulada.
+      System.err.println("Leitura simulada descartada: " + e.getMessage());
+    }
   }
 }
@@ -0,0 +1,197 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.ifba.web.iot.api.spring.controller.dto.view.UltimaLeituraView;
+import com.ifba.web.iot.api.spring.model.UltimaLeitura;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * **Canal de Server-Sent Events das Leituras**
+ *
+ * <p>
+ * Envia aos painéis conectados cada leitura gravada, logo após o commit (ou a
+ * gravação do lote, no modo write-behind). Cada assinante tem uma fila
+ * limitada, esvaziada por um pool de threads de envio: a ingestão apenas
+ * enfileira e nunca espera pela rede. Um cliente lento demais, cuja fila
+ * enche, é desconectado e pode se reconectar em seguida.
+ * </p>
+ *
+ * <p>
+ * Um comentário de heartbeat é enviado periodicamente para manter a conexão
+ * aberta através de proxies e detectar clientes que já foram embora.
+ * </p>
+ */
+@Slf4j
+@Service
+public class SensorStreamService {
+
+  /** Marcador de heartbeat na fila de um assinante. */
+  private static final Object HEARTBEAT = new Object();
+
+  private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+  private final ExecutorService envio;
+  private final int capacidadeFila;
+  private final int maxAssinantes;
+
+  public SensorStreamService(
+      @Value("${sensor.stream.threads-envio:2}") int threadsEnvio,
+      @Value("${sensor.stream.fila.capacidade:256}") int capacidadeFila,
+      @Value("${sensor.stream.max-assinantes:1000}") int maxAssinantes) {
+    AtomicInteger contador = new AtomicInteger();
+    this.envio = Executors.newFixedThreadPool(threadsEnvio, r -> {
+      Thread t = new Thread(r, "sensor-stream-" + contador.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    this.capacidadeFila = capacidadeFila;
+    this.maxAssinantes = maxAssinantes;
+  }
+
+  /**
+   * Registra um novo assinante.
+   *
+   * @param usuarioId ID do usuário cujas leituras serão enviadas, ou
+   *                  {@code null} para as leituras de todos os usuários.
+   * @param iniciais  Leituras enviadas logo após a conexão (estado atual).
+   * @return O {@link SseEmitter} a ser devolvido pelo controlador.
+   * @throws RejectedExecutionException se o limite de assinantes foi atingido.
+   */
+  public SseEmitter assinar(Long usuarioId, List<UltimaLeitura> iniciais) {
+    if (assinantes.size() >= maxAssinantes) {
+      throw new RejectedExecutionException("Limite de conexões de stream atingido.");
+    }
+    // Sem timeout: a conexão só termina quando o cliente sai ou fica lento.
+    SseEmitter emitter = new SseEmitter(0L);
+    Assinante assinante = new Assinante(emitter, usuarioId, new ArrayBlockingQueue<>(capacidadeFila));
+    emitter.onCompletion(() -> assinantes.remove(assinante));
+    emitter.onTimeout(() -> assinantes.remove(assinante));
+    emitter.onError(e -> assinantes.remove(assinante));
+    assinantes.add(assinante);
+    log.info("🔌 Novo assinante do stream de leituras ({} conectados).", assinantes.size());
+
+    iniciais.forEach(leitura -> entregar(assinante, leitura));
+    return emitter;
+  }
+
+  /**
+   * Envia uma leitura gravada aos assinantes interessados. Não bloqueia.
+   *
+   * @param leitura A leitura gravada.
+   */
+  public void publicar(UltimaLeitura leitura) {
+    for (Assinante assinante : assinantes) {
+      if (assinante.usuarioId == null || assinante.usuarioId.equals(leitura.usuarioId())) {
+        entregar(assinante, leitura);
+      }
+    }
+  }
+
+  /**
+   * Envia o heartbeat a todos os assinantes.
+   */
+  @Scheduled(fixedRateString = "${sensor.stream.heartbeat-ms:15000}")
+  public void heartbeat() {
+    assinantes.forEach(assinante -> entregar(assinante, HEARTBEAT));
+  }
+
+  /** @return A quantidade de assinantes conectados. */
+  public int getAssinantes() {
+    return assinantes.size();
+  }
+
+  @PreDestroy
+  public void encerrar() {
+    assinantes.forEach(assinante -> assinante.emitter.complete());
+    assinantes.clear();
+    envio.shutdownNow();
+  }
+
+  private void entregar(Assinante assinante, Object item) {
+    if (!assinante.fila.offer(item)) {
+      log.warn("🐢 Assinante do stream lento demais; desconectando.");
+      desconectar(assinante);
+      return;
+    }
+    if (assinante.agendado.compareAndSet(false, true)) {
+      try {
+        envio.execute(() -> esvaziar(assinante));
+      } catch (RejectedExecutionException e) {
+        desconectar(assinante);
+      }
+    }
+  }
+
+  /**
+   * Envia tudo o que estiver na fila do assinante. Apenas uma thread esvazia a
+   * fila de cada assinante por vez, preservando a ordem das leituras.
+   */
+  private void esvaziar(Assinante assinante) {
+    try {
+      Object item;
+      while ((item = assinante.fila.poll()) != null) {
+        if (item == HEARTBEAT) {
+          assinante.emitter.send(SseEmitter.event().comment("heartbeat"));
+        } else {
+          UltimaLeitura leitura = (UltimaLeitura) item;
+          assinante.emitter.send(SseEmitter.event()
+              .id(String.valueOf(leitura.id()))
+              .name("leitura")
+              .data(UltimaLeituraView.of(leitura)));
+        }
+      }
+    } catch (IOException | IllegalStateException e) {
+      log.debug("Assinante do stream desconectado: {}", e.getMessage());
+      desconectar(assinante);
+      return;
+    } finally {
+      assinante.agendado.set(false);
+    }
+    // Um item pode ter chegado entre o último poll e a liberação da flag.
+    if (!assinante.fila.isEmpty() && assinante.agendado.compareAndSet(false, true)) {
+      try {
+        envio.execute(() -> esvaziar(assinante));
+      } catch (RejectedExecutionException e) {
+        desconectar(assinante);
+      }
+    }
+  }
+
+  private void desconectar(Assinante assinante) {
+    if (assinantes.remove(assinante)) {
+      assinante.fila.clear();
+      assinante.emitter.complete();
+    }
+  }
+
+  private static final class Assinante {
+
+    private final SseEmitter emitter;
+    private final Long usuarioId;
+    private final BlockingQueue<Object> fila;
+    private final AtomicBoolean agendado = new AtomicBoolean();
+
+    private Assinante(SseEmitter emitter, Long usuarioId, BlockingQueue<Object> fila) {
+      this.emitter = emitter;
+      this.usuarioId = usuarioId;
+      this.fila = fila;
+    }
+  }
+}
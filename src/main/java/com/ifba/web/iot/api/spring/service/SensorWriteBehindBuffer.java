@@ -0,0 +1,206 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.ifba.web.iot.api.spring.model.SensorData;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * **Buffer de Escrita Assíncrona (write-behind) para Leituras de Sensores**
+ *
+ * <p>
+ * Mantém as leituras aceitas em uma fila limitada em memória e as grava no
+ * banco por uma thread dedicada, usando inserções em lote via JDBC. Um lote é
+ * gravado quando atinge o tamanho configurado ou quando a leitura mais antiga
+ * do lote atinge a idade máxima, o que vier primeiro.
+ * </p>
+ *
+ * <p>
+ * Quando a fila está cheia, o produtor aguarda até o tempo limite configurado
+ * (backpressure) e, se ainda não houver espaço, a leitura é rejeitada com uma
+ * {@link RejectedExecutionException}.
+ * </p>
+ */
+@Slf4j
+@Component
+public class SensorWriteBehindBuffer {
+
+  private static final String INSERT_SQL = "INSERT INTO sensor_data (sensor, valor, unidade, timestamp, usuario_id) "
+      + "VALUES (?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final BlockingQueue<Pendente> fila;
+  private final int tamanhoLote;
+  private final long idadeMaximaMs;
+  private final long timeoutEnfileiramentoMs;
+
+  private volatile boolean ativo = true;
+  private Thread flusher;
+
+  /**
+   * Entrada da fila: a leitura e o futuro concluído após a gravação do lote.
+   */
+  private record Pendente(SensorData leitura, CompletableFuture<SensorData> persistida, long enfileiradaEm) {
+  }
+
+  public SensorWriteBehindBuffer(JdbcTemplate jdbcTemplate,
+      @Value("${sensor.ingestao.buffer.capacidade:10000}") int capacidade,
+      @Value("${sensor.ingestao.lote.tamanho:500}") int tamanhoLote,
+      @Value("${sensor.ingestao.lote.idade-maxima-ms:200}") long idadeMaximaMs,
+      @Value("${sensor.ingestao.buffer.timeout-ms:50}") long timeoutEnfileiramentoMs) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.fila = new ArrayBlockingQueue<>(capacidade);
+    this.tamanhoLote = tamanhoLote;
+    this.idadeMaximaMs = idadeMaximaMs;
+    this.timeoutEnfileiramentoMs = timeoutEnfileiramentoMs;
+  }
+
+  /**
+   * Inicia a thread responsável por esvaziar a fila em lotes.
+   */
+  @PostConstruct
+  public void iniciar() {
+    flusher = new Thread(this::executar, "sensor-write-behind");
+    flusher.setDaemon(true);
+    flusher.start();
+    log.info("🗃️ Buffer write-behind iniciado. Lote: {} leituras | Idade máxima: {} ms", tamanhoLote, idadeMaximaMs);
+  }
+
+  /**
+   * Enfileira uma leitura para gravação em lote.
+   *
+   * @param leitura A leitura já normalizada e associada ao usuário.
+   * @return Um futuro concluído com a própria leitura (com ID) após a gravação.
+   * @throws RejectedExecutionException se a fila continuar cheia após o tempo
+   *                                    limite de enfileiramento.
+   */
+  public CompletableFuture<SensorData> enfileirar(SensorData leitura) {
+    if (!ativo) {
+      throw new RejectedExecutionException("Buffer write-behind encerrado.");
+    }
+    CompletableFuture<SensorData> persistida = new CompletableFuture<>();
+    try {
+      boolean aceita = fila.offer(new Pendente(leitura, persistida, System.nanoTime()),
+          timeoutEnfileiramentoMs, TimeUnit.MILLISECONDS);
+      if (!aceita) {
+        throw new RejectedExecutionException("Buffer de ingestão cheio. Tente novamente em instantes.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RejectedExecutionException("Enfileiramento interrompido.", e);
+    }
+    return persistida;
+  }
+
+  /**
+   * Quantidade de leituras aguardando gravação.
+   *
+   * @return O número de leituras na fila.
+   */
+  public int getPendentes() {
+    return fila.size();
+  }
+
+  private void executar() {
+    List<Pendente> lote = new ArrayList<>(tamanhoLote);
+    while (ativo || !fila.isEmpty()) {
+      try {
+        Pendente primeira = fila.poll(idadeMaximaMs, TimeUnit.MILLISECONDS);
+        if (primeira == null) {
+          continue;
+        }
+        lote.add(primeira);
+        long prazo = primeira.enfileiradaEm() + TimeUnit.MILLISECONDS.toNanos(idadeMaximaMs);
+        while (lote.size() < tamanhoLote) {
+          if (fila.drainTo(lote, tamanhoLote - lote.size()) > 0) {
+            continue;
+          }
+          long restante = prazo - System.nanoTime();
+          if (restante <= 0 || !ativo) {
+            break;
+          }
+          Pendente proxima = fila.poll(restante, TimeUnit.NANOSECONDS);
+          if (proxima == null) {
+            break;
+          }
+          lote.add(proxima);
+        }
+        gravar(lote);
+      } catch (InterruptedException e) {
+        // O encerramento é sinalizado por 'ativo'; o lote parcial e a fila
+        // restante ainda são gravados.
+        ativo = false;
+        gravar(lote);
+      } finally {
+        lote.clear();
+      }
+    }
+  }
+
+  /**
+   * Grava um lote com uma única ida ao banco e conclui os futuros das leituras.
+   */
+  private void gravar(List<Pendente> lote) {
+    if (lote.isEmpty()) {
+      return;
+    }
+    try {
+      jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+        try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, new String[] { "id" })) {
+          for (Pendente p : lote) {
+            SensorData s = p.leitura();
+            ps.setString(1, s.getSensor());
+            ps.setDouble(2, s.getValor());
+            ps.setString(3, s.getUnidade());
+            ps.setTimestamp(4, Timestamp.valueOf(s.getTimestamp()));
+            ps.setLong(5, s.getUsuario().getId());
+            ps.addBatch();
+          }
+          ps.executeBatch();
+          try (ResultSet chaves = ps.getGeneratedKeys()) {
+            for (int i = 0; i < lote.size() && chaves.next(); i++) {
+              lote.get(i).leitura().setId(chaves.getLong(1));
+            }
+          }
+        }
+        return null;
+      });
+      log.debug("💾 Lote de {} leituras gravado.", lote.size());
+      lote.forEach(p -> p.persistida().complete(p.leitura()));
+    } catch (RuntimeException e) {
+      log.error("❌ Falha ao gravar lote de {} leituras: {}", lote.size(), e.getMessage());
+      lote.forEach(p -> p.persistida().completeExceptionally(e));
+    }
+  }
+
+  /**
+   * Encerra a aceitação de novas leituras e grava o que restar na fila.
+   *
+   * @throws InterruptedException se a espera pelo término for interrompida.
+   */
+  @PreDestroy
+  public void encerrar() throws InterruptedException {
+    ativo = false;
+    if (flusher != null) {
+      flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+    log.info("🛑 Buffer write-behind encerrado. Leituras não gravadas: {}", fila.size());
+  }
+}
@@ -0,0 +1,110 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.stereotype.Component;
+
+import com.ifba.web.iot.api.spring.model.UltimaLeitura;
+
+/**
+ * Cache em memória da última leitura de cada sensor, geral e por usuário.
+ * <p>
+ * É atualizado a cada gravação, de modo que o painel consulta o valor mais
+ * recente sem acessar o banco de dados. Atualizações concorrentes são
+ * resolvidas pela leitura mais recente ({@link UltimaLeitura#maisRecenteQue}),
+ * então a ordem de chegada das gravações não importa. O preenchimento inicial
+ * a partir do banco é feito sob demanda pelo {@link SensorDataService}.
+ * </p>
+ */
+@Component
+public class UltimaLeituraCache {
+
+  private final Map<String, UltimaLeitura> porSensor = new ConcurrentHashMap<>();
+  private final Map<Long, Map<String, UltimaLeitura>> porUsuario = new ConcurrentHashMap<>();
+  private final AtomicReference<UltimaLeitura> maisRecente = new AtomicReference<>();
+  private volatile boolean aquecido;
+
+  /**
+   * Registra uma leitura, substituindo as entradas mais antigas do mesmo
+   * sensor.
+   *
+   * @param leitura A leitura gravada.
+   */
+  public void registrar(UltimaLeitura leitura) {
+    porSensor.merge(leitura.sensor(), leitura, UltimaLeituraCache::maisNova);
+    if (leitura.usuarioId() != null) {
+      Map<String, UltimaLeitura> doUsuario = porUsuario.get(leitura.usuarioId());
+      // Usuários ainda não carregados são preenchidos do banco na primeira consulta.
+      if (doUsuario != null) {
+        doUsuario.merge(leitura.sensor(), leitura, UltimaLeituraCache::maisNova);
+      }
+    }
+    maisRecente.accumulateAndGet(leitura, UltimaLeituraCache::maisNova);
+  }
+
+  /** @return A leitura mais recente de todos os sensores, ou {@code null}. */
+  public UltimaLeitura maisRecente() {
+    return maisRecente.get();
+  }
+
+  /** @return A última leitura de cada sensor, de todos os usuários. */
+  public Collection<UltimaLeitura> porSensor() {
+    return porSensor.values();
+  }
+
+  /**
+   * @param usuarioId ID do usuário.
+   * @return A última leitura de cada sensor do usuário, ou {@code null} se o
+   *         usuário ainda não foi carregado.
+   */
+  public Collection<UltimaLeitura> doUsuario(Long usuarioId) {
+    Map<String, UltimaLeitura> doUsuario = porUsuario.get(usuarioId);
+    return (doUsuario != null) ? doUsuario.values() : null;
+  }
+
+  /**
+   * Carrega as últimas leituras de um usuário vindas do banco.
+   *
+   * @param usuarioId ID do usuário.
+   * @param leituras  As últimas leituras de cada sensor do usuário.
+   */
+  public void carregarUsuario(Long usuarioId, Collection<UltimaLeitura> leituras) {
+    Map<String, UltimaLeitura> doUsuario = porUsuario.computeIfAbsent(usuarioId, id -> new ConcurrentHashMap<>());
+    leituras.forEach(l -> doUsuario.merge(l.sensor(), l, UltimaLeituraCache::maisNova));
+  }
+
+  /**
+   * Carrega as últimas leituras gerais vindas do banco.
+   *
+   * @param leituras As últimas leituras de cada sensor.
+   */
+  public void carregar(Collection<UltimaLeitura> leituras) {
+    leituras.forEach(l -> {
+      porSensor.merge(l.sensor(), l, UltimaLeituraCache::maisNova);
+      maisRecente.accumulateAndGet(l, UltimaLeituraCache::maisNova);
+    });
+    aquecido = true;
+  }
+
+  /** @return {@code true} se as leituras gerais já foram carregadas. */
+  public boolean isAquecido() {
+    return aquecido;
+  }
+
+  /**
+   * Descarta todo o conteúdo; ele é recarregado do banco na próxima consulta.
+   */
+  public void invalidar() {
+    aquecido = false;
+    porSensor.clear();
+    porUsuario.clear();
+    maisRecente.set(null);
+  }
+
+  private static UltimaLeitura maisNova(UltimaLeitura atual, UltimaLeitura nova) {
+    return nova.maisRecenteQue(atual) ? nova : atual;
+  }
+}
@@ -0,0 +1,100 @@
+package com.ifba.web.iot.api.spring.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import com.ifba.web.iot.api.spring.model.Usuario;
+import com.ifba.web.iot.api.spring.repository.UsuarioRepository;
+
+/**
+ * Cache em memória do ID de cada usuário, indexado pelo email.
+ * <p>
+ * As requisições autenticadas só trazem o email do usuário (o subject do
+ * token); com o ID em cache, a ingestão e as consultas não precisam de um
+ * SELECT na tabela de usuários a cada chamada. Para associar uma leitura ao
+ * usuário basta uma referência ({@link #referencia}), que não toca o banco.
+ * Emails não encontrados não são guardados, e as alterações de usuários
+ * passam por {@link #invalidar}.
+ * </p>
+ */
+@Component
+public class UsuarioIdCache {
+
+  private final UsuarioRepository usuarioRepository;
+  private final int capacidade;
+  private final Map<String, Long> ids = new ConcurrentHashMap<>();
+
+  /**
+   * @param usuarioRepository Repositório consultado nas faltas.
+   * @param capacidade        Quantidade máxima de emails em cache (0
+   *                          desativa).
+   */
+  public UsuarioIdCache(UsuarioRepository usuarioRepository,
+      @Value("${usuario.cache.capacidade:10000}") int capacidade) {
+    this.usuarioRepository = usuarioRepository;
+    this.capacidade = capacidade;
+  }
+
+  /**
+   * @param email Email do usuário.
+   * @return O ID do usuário, ou {@code null} se ele não existir.
+   */
+  public Long buscarId(String email) {
+    Long id = ids.get(email);
+    if (id != null) {
+      return id;
+    }
+    id = usuarioRepository.findIdByEmail(email).orElse(null);
+    if (id != null && capacidade > 0) {
+      if (ids.size() >= capacidade) {
+        Iterator<String> emails = ids.keySet().iterator();
+        if (emails.hasNext()) {
+          emails.next();
+          emails.remove();
+        }
+      }
+      ids.put(email, id);
+    }
+    return id;
+  }
+
+  /**
+   * @param email Email do usuário autenticado.
+   * @return O ID do usuário.
+   * @throws AccessDeniedException se o usuário não existir.
+   */
+  public Long buscarIdObrigatorio(String email) {
+    Long id = buscarId(email);
+    if (id == null) {
+      throw new AccessDeniedException("Usuário não encontrado. Acesso negado.");
+    }
+    return id;
+  }
+
+  /**
+   * Referência ao usuário para associá-lo a outras entidades (ex: uma
+   * leitura). Só o ID pode ser lido sem carregar o usuário; deve ser usada
+   * dentro de uma transação.
+   *
+   * @param email Email do usuário autenticado.
+   * @return Referência não carregada ao usuário.
+   * @throws AccessDeniedException se o usuário não existir.
+   */
+  public Usuario referencia(String email) {
+    return usuarioRepository.getReferenceById(buscarIdObrigatorio(email));
+  }
+
+  /**
+   * Descarta o ID em cache de um email (ex: usuário alterado ou removido).
+   *
+   * @param email Email do usuário.
+   */
+  public void invalidar(String email) {
+    ids.remove(email);
+  }
+}
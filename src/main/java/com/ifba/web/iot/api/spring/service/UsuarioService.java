@@ -36,6 +36,7 @@ public class UsuarioService implements UserDetailsService {
 
   private final UsuarioRepository clienteRepository;
   private final BCryptPasswordEncoder passwordEncoder;
+  private final UsuarioIdCache usuarioIdCache;
 
   /**
    * Carrega um cliente pelo email para fins de autenticação Spring Security.
@@ -75,6 +76,8 @@ public class UsuarioService implements UserDetailsService {
     cliente.setSenha(passwordEncoder.encode(registerForm.getSenha()));
 
     Usuario savedCliente = clienteRepository.save(cliente);
+    // O email pode ter pertencido a um usuário removido, ainda em cache.
+    usuarioIdCache.invalidar(savedCliente.getEmail());
 
     return new UsuarioView(
         maskName(savedCliente.getNome()),
@@ -0,0 +1,87 @@
+-- Atualização do esquema de produção (PostgreSQL).
+--
+-- O perfil prod usa spring.jpa.hibernate.ddl-auto=none: tabelas, colunas e
+-- índices declarados nas entidades não são criados automaticamente. Este
+-- script os aplica em um banco existente e pode ser executado mais de uma vez:
+--
+--   psql "$DATABASE_URL" -f src/main/resources/db/esquema-prod.sql
+
+-- Histórico paginado por usuário, tipo de sensor e janela de tempo.
+CREATE INDEX IF NOT EXISTS idx_sensor_data_usuario_sensor_ts ON sensor_data (usuario_id, sensor, timestamp);
+CREATE INDEX IF NOT EXISTS idx_sensor_data_usuario_ts ON sensor_data (usuario_id, timestamp);
+
+-- Agregados pré-calculados por minuto, hora e dia (SensorRollupService).
+CREATE TABLE IF NOT EXISTS sensor_rollup_minuto (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  usuario_id BIGINT NOT NULL,
+  sensor VARCHAR(255) NOT NULL,
+  inicio TIMESTAMP(6) NOT NULL,
+  quantidade BIGINT NOT NULL,
+  minimo DOUBLE PRECISION NOT NULL,
+  maximo DOUBLE PRECISION NOT NULL,
+  media DOUBLE PRECISION NOT NULL,
+  p50 DOUBLE PRECISION NOT NULL,
+  p95 DOUBLE PRECISION NOT NULL,
+  CONSTRAINT uk_sensor_rollup_minuto UNIQUE (usuario_id, sensor, inicio)
+);
+
+CREATE TABLE IF NOT EXISTS sensor_rollup_hora (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  usuario_id BIGINT NOT NULL,
+  sensor VARCHAR(255) NOT NULL,
+  inicio TIMESTAMP(6) NOT NULL,
+  quantidade BIGINT NOT NULL,
+  minimo DOUBLE PRECISION NOT NULL,
+  maximo DOUBLE PRECISION NOT NULL,
+  media DOUBLE PRECISION NOT NULL,
+  p50 DOUBLE PRECISION NOT NULL,
+  p95 DOUBLE PRECISION NOT NULL,
+  CONSTRAINT uk_sensor_rollup_hora UNIQUE (usuario_id, sensor, inicio)
+);
+
+CREATE TABLE IF NOT EXISTS sensor_rollup_dia (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  usuario_id BIGINT NOT NULL,
+  sensor VARCHAR(255) NOT NULL,
+  inicio TIMESTAMP(6) NOT NULL,
+  quantidade BIGINT NOT NULL,
+  minimo DOUBLE PRECISION NOT NULL,
+  maximo DOUBLE PRECISION NOT NULL,
+  media DOUBLE PRECISION NOT NULL,
+  p50 DOUBLE PRECISION NOT NULL,
+  p95 DOUBLE PRECISION NOT NULL,
+  CONSTRAINT uk_sensor_rollup_dia UNIQUE (usuario_id, sensor, inicio)
+);
+
+-- Regras de alerta configuráveis (AlertRuleEngine).
+CREATE TABLE IF NOT EXISTS alert_rules (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  sensor VARCHAR(255) NOT NULL,
+  operador VARCHAR(255) NOT NULL,
+  limite DOUBLE PRECISION NOT NULL,
+  limite_superior DOUBLE PRECISION,
+  mensagem VARCHAR(255) NOT NULL,
+  prioridade INTEGER NOT NULL,
+  sustentado_segundos INTEGER NOT NULL,
+  janela_segundos INTEGER NOT NULL,
+  histerese DOUBLE PRECISION NOT NULL,
+  ativa BOOLEAN NOT NULL
+);
+
+-- Episódios de alerta: dono, regra, situação e fechamento (AlertStateService).
+ALTER TABLE alerts ADD COLUMN IF NOT EXISTS usuario_id BIGINT;
+ALTER TABLE alerts ADD COLUMN IF NOT EXISTS regra_id BIGINT;
+ALTER TABLE alerts ADD COLUMN IF NOT EXISTS status VARCHAR(255);
+ALTER TABLE alerts ADD COLUMN IF NOT EXISTS fechado_em TIMESTAMP(6);
+
+-- Chaves de acesso dos dispositivos (ChaveDispositivoService).
+CREATE TABLE IF NOT EXISTS chave_dispositivo (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  usuario_id BIGINT NOT NULL,
+  nome VARCHAR(255) NOT NULL,
+  prefixo VARCHAR(32) NOT NULL UNIQUE,
+  hash VARCHAR(64) NOT NULL,
+  criada_em TIMESTAMP(6) NOT NULL,
+  revogada_em TIMESTAMP(6)
+);
+CREATE INDEX IF NOT EXISTS idx_chave_dispositivo_usuario ON chave_dispositivo (usuario_id);
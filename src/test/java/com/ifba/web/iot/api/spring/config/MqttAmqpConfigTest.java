@@ -0,0 +1,38 @@
+package com.ifba.web.iot.api.spring.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * Testa a extração da chave de partição das mensagens MQTT de entrada.
+ */
+class MqttAmqpConfigTest {
+
+  private static final String TOPICO = "dados/sensores";
+
+  @Test
+  void chavePorSensorUsaOCampoSensorDoPayload() {
+    assertThat(MqttAmqpConfig.chaveDaMensagem(mensagem("{\"sensor\": \"umidade\", \"valor\": 10}"), true))
+        .isEqualTo("umidade");
+    assertThat(MqttAmqpConfig.chaveDaMensagem(
+        mensagem("{\"valor\":10,\"sensor\":\"temperatura\"}".getBytes(StandardCharsets.UTF_8)), true))
+        .isEqualTo("temperatura");
+  }
+
+  @Test
+  void semCampoSensorOuSemParticaoPorSensorUsaOTopico() {
+    assertThat(MqttAmqpConfig.chaveDaMensagem(mensagem("{\"valor\":10}"), true)).isEqualTo(TOPICO);
+    assertThat(MqttAmqpConfig.chaveDaMensagem(mensagem("{\"sensor\":"), true)).isEqualTo(TOPICO);
+    assertThat(MqttAmqpConfig.chaveDaMensagem(mensagem("{\"sensor\":\"umidade\"}"), false)).isEqualTo(TOPICO);
+  }
+
+  private static Message<?> mensagem(Object payload) {
+    return MessageBuilder.withPayload(payload).setHeader(MqttHeaders.RECEIVED_TOPIC, TOPICO).build();
+  }
+}
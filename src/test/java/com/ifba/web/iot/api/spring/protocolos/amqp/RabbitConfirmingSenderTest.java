@@ -0,0 +1,73 @@
+package com.ifba.web.iot.api.spring.protocolos.amqp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+/**
+ * Testa que uma falha no meio do lote só atinge as mensagens não publicadas.
+ */
+class RabbitConfirmingSenderTest {
+
+  private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+  private final RabbitOperations operacoes = mock(RabbitOperations.class);
+  private final List<CorrelationData> correlacoes = new ArrayList<>();
+
+  @Test
+  void falhaNoMeioDoLoteSoFalhaAsMensagensNaoPublicadas() {
+    when(rabbitTemplate.invoke(any())).thenAnswer(invocacao -> {
+      RabbitOperations.OperationsCallback<?> acao = invocacao.getArgument(0);
+      return acao.doInRabbit(operacoes);
+    });
+    doAnswer(invocacao -> correlacoes.add(invocacao.getArgument(3)))
+        .when(operacoes).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    AmqpException erro = new AmqpException("canal fechado");
+    doThrow(erro).when(operacoes).send(anyString(), eq("c"), any(Message.class), any(CorrelationData.class));
+    List<PublicacaoPendente> lote = List.of(publicacao("a"), publicacao("b"), publicacao("c"), publicacao("d"));
+
+    int entregues = new RabbitConfirmingSender(rabbitTemplate).send(lote);
+
+    assertThat(entregues).isEqualTo(2);
+    // As publicadas seguem aguardando o confirm do broker.
+    assertThat(lote.get(0).confirmacao()).isNotDone();
+    assertThat(lote.get(1).confirmacao()).isNotDone();
+    assertThat(lote.get(2).confirmacao()).isCompletedExceptionally();
+    assertThat(lote.get(3).confirmacao()).isCompletedExceptionally();
+
+    correlacoes.get(0).getFuture().complete(new CorrelationData.Confirm(true, null));
+    correlacoes.get(1).getFuture().complete(new CorrelationData.Confirm(false, "nack"));
+    assertThat(lote.get(0).confirmacao()).isCompletedWithValue(true);
+    assertThat(lote.get(1).confirmacao()).isCompletedWithValue(false);
+  }
+
+  @Test
+  void falhaAoObterOCanalFalhaOLoteInteiro() {
+    when(rabbitTemplate.invoke(any())).thenThrow(new AmqpException("sem conexão"));
+    List<PublicacaoPendente> lote = List.of(publicacao("a"), publicacao("b"));
+
+    assertThat(new RabbitConfirmingSender(rabbitTemplate).send(lote)).isZero();
+    assertThat(lote).allMatch(p -> p.confirmacao().isCompletedExceptionally());
+  }
+
+  private static PublicacaoPendente publicacao(String routingKey) {
+    return new PublicacaoPendente("amq.direct", routingKey, "leitura".getBytes(StandardCharsets.UTF_8),
+        PublicacaoPendente.TEXTO, new CompletableFuture<>());
+  }
+}
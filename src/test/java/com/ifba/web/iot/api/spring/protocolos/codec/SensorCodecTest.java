@@ -0,0 +1,119 @@
+package com.ifba.web.iot.api.spring.protocolos.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.ifba.web.iot.api.spring.model.Alert;
+import com.ifba.web.iot.api.spring.model.SensorReading;
+import com.ifba.web.iot.api.spring.model.StatusAlerta;
+
+/**
+ * Garante que leituras e alertas sobrevivem à ida e volta pelo formato binário e que
+ * bytes truncados ou adulterados são recusados com
+ * {@link IllegalArgumentException}.
+ */
+class SensorCodecTest {
+
+  @Test
+  void alertaCompletoSobreviveAIdaEVolta() {
+    Alert alerta = new Alert("temperatura", 35.5, "°C", "🌡️ Alerta! Temperatura elevada detectada.");
+    alerta.setId(7L);
+    alerta.setUsuarioId(3L);
+    alerta.setRegraId(11L);
+    alerta.setStatus(StatusAlerta.FECHADO);
+    alerta.setTimestamp(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000));
+    alerta.setFechadoEm(LocalDateTime.of(2024, 5, 1, 12, 45));
+
+    Alert decodificado = SensorCodec.decodeAlert(ByteBuffer.wrap(SensorCodec.toBytes(alerta)));
+
+    assertThat(decodificado).usingRecursiveComparison().isEqualTo(alerta);
+  }
+
+  @Test
+  void leituraSobreviveAIdaEVolta() {
+    SensorReading leitura = new SensorReading(42L, "temperatura", 23.75, "°C",
+        LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000));
+    SensorReading semId = new SensorReading(null, "pressao", 1013.2, "hPa", null);
+
+    assertThat(SensorCodec.decodeReading(ByteBuffer.wrap(SensorCodec.toBytes(leitura)))).isEqualTo(leitura);
+    assertThat(SensorCodec.decodeReading(ByteBuffer.wrap(SensorCodec.toBytes(semId)))).isEqualTo(semId);
+    // Cabeçalho, sensor e unidade conhecidos, valor, instante e ID.
+    assertThat(SensorCodec.toBytes(leitura)).hasSize(3 + 1 + 8 + 1 + 8 + 8);
+  }
+
+  @Test
+  void leituraTruncadaOuDeOutroTipoEhRecusada() {
+    byte[] bytes = SensorCodec.toBytes(new SensorReading(1L, "umidade", 55, "%", LocalDateTime.of(2024, 1, 1, 0, 0)));
+
+    for (int tamanho = 0; tamanho < bytes.length; tamanho++) {
+      byte[] truncado = Arrays.copyOf(bytes, tamanho);
+      assertThatThrownBy(() -> SensorCodec.decodeReading(ByteBuffer.wrap(truncado)))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+    byte[] alerta = SensorCodec.toBytes(new Alert("umidade", 10, "%", "seco"));
+    assertThatThrownBy(() -> SensorCodec.decodeReading(ByteBuffer.wrap(alerta)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void alertaComCamposOpcionaisNulosETextosPorExtenso() {
+    Alert alerta = new Alert("pressao", -1.25, "hPa", null);
+    alerta.setTimestamp(null);
+
+    Alert decodificado = SensorCodec.decodeAlert(ByteBuffer.wrap(SensorCodec.toBytes(alerta)));
+
+    assertThat(decodificado).usingRecursiveComparison().isEqualTo(alerta);
+  }
+
+  @Test
+  void instanteEhTruncadoEmMicrossegundos() {
+    Alert alerta = new Alert("umidade", 10, "%", "seco");
+    alerta.setTimestamp(LocalDateTime.of(2024, 1, 1, 0, 0, 0, 123_456_789));
+
+    Alert decodificado = SensorCodec.decodeAlert(ByteBuffer.wrap(SensorCodec.toBytes(alerta)));
+
+    assertThat(decodificado.getTimestamp()).isEqualTo(LocalDateTime.of(2024, 1, 1, 0, 0, 0, 123_456_000));
+  }
+
+  @Test
+  void registroTruncadoEhRecusado() {
+    byte[] bytes = SensorCodec.toBytes(new Alert("temperatura", 35.5, "°C", "Temperatura elevada"));
+
+    for (int tamanho = 0; tamanho < bytes.length; tamanho++) {
+      byte[] truncado = Arrays.copyOf(bytes, tamanho);
+      assertThatThrownBy(() -> SensorCodec.decodeAlert(ByteBuffer.wrap(truncado)))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Test
+  void tamanhoDeMensagemMaiorQueOsBytesRestantesEhRecusado() {
+    byte[] bytes = SensorCodec.toBytes(new Alert("temperatura", 35.5, "°C", "curta"));
+    // O tamanho da mensagem fica logo antes dos seus 5 bytes finais.
+    ByteBuffer.wrap(bytes).putInt(bytes.length - 5 - Integer.BYTES, Integer.MAX_VALUE);
+
+    assertThatThrownBy(() -> SensorCodec.decodeAlert(ByteBuffer.wrap(bytes)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("excede");
+  }
+
+  @Test
+  void versaoOuTipoDesconhecidosSaoRecusados() {
+    byte[] bytes = SensorCodec.toBytes(new Alert("umidade", 10, "%", "seco"));
+    byte[] outraVersao = bytes.clone();
+    outraVersao[0] = 9;
+    byte[] outroTipo = bytes.clone();
+    outroTipo[1] = 1;
+
+    assertThatThrownBy(() -> SensorCodec.decodeAlert(ByteBuffer.wrap(outraVersao)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> SensorCodec.decodeAlert(ByteBuffer.wrap(outroTipo)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
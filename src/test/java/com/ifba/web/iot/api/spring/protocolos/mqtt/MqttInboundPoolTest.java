@@ -0,0 +1,118 @@
+package com.ifba.web.iot.api.spring.protocolos.mqtt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.mqtt.core.DefaultMqttPahoClientFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Verifica as conexões MQTT de entrada contra o broker MQTT embutido.
+ */
+class MqttInboundPoolTest {
+
+  private static final String TOPICO = "dados/sensores";
+
+  private EmbeddedMqttBroker broker;
+  private ThreadPoolTaskScheduler scheduler;
+  private MqttInboundPool pool;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    broker = new EmbeddedMqttBroker(0);
+    scheduler = new ThreadPoolTaskScheduler();
+    scheduler.initialize();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    if (pool != null) {
+      pool.stop();
+      pool.destroy();
+    }
+    scheduler.shutdown();
+    broker.close();
+  }
+
+  @Test
+  void assinaturaCompartilhadaRepartaAsMensagensEntreAsConexoes() throws Exception {
+    Set<String> recebidas = ConcurrentHashMap.newKeySet();
+    pool = iniciar(MqttInboundPool.distribuir(List.of(TOPICO), 3, true, "iot-api"), recebidas);
+    aguardar(() -> broker.getAssinaturas() == 3);
+
+    publicar(300);
+    aguardar(() -> pool.stats().received() == 300);
+
+    InboundPoolStats stats = pool.stats();
+    assertThat(recebidas).hasSize(300);
+    assertThat(stats.connections()).isEqualTo(3);
+    assertThat(stats.perConnection()).allSatisfy(c -> {
+      assertThat(c.received()).isPositive();
+      assertThat(c.topics()).containsExactly("$share/iot-api/" + TOPICO);
+    });
+    assertThat(stats.perConnection()).extracting(InboundPoolStats.ConnectionStats::clientId)
+        .containsExactly("teste-0", "teste-1", "teste-2");
+  }
+
+  @Test
+  void fragmentacaoDistribuiOsTopicosEntreAsConexoes() {
+    List<String[]> assinaturas = MqttInboundPool.distribuir(List.of("a", "b", "c"), 2, false, "iot-api");
+
+    assertThat(assinaturas).hasSize(2);
+    assertThat(assinaturas.get(0)).containsExactly("a", "c");
+    assertThat(assinaturas.get(1)).containsExactly("b");
+    assertThat(MqttInboundPool.distribuir(List.of("a"), 4, false, "iot-api")).hasSize(1);
+  }
+
+  private MqttInboundPool iniciar(List<String[]> assinaturas, Set<String> recebidas) {
+    DefaultMqttPahoClientFactory factory = new DefaultMqttPahoClientFactory();
+    MqttConnectOptions options = new MqttConnectOptions();
+    options.setServerURIs(new String[] { broker.getUrl() });
+    factory.setConnectionOptions(options);
+
+    DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    beanFactory.registerSingleton("taskScheduler", scheduler);
+
+    MqttInboundPool novo = new MqttInboundPool(factory, "teste", assinaturas, 1, (message, timeout) -> {
+      recebidas.add(message.getPayload().toString());
+      return true;
+    });
+    novo.setBeanFactory(beanFactory);
+    novo.afterPropertiesSet();
+    novo.start();
+    return novo;
+  }
+
+  private void publicar(int quantidade) throws Exception {
+    MqttClient cliente = new MqttClient(broker.getUrl(), "publicador", new MemoryPersistence());
+    MqttConnectOptions options = new MqttConnectOptions();
+    options.setMaxInflight(quantidade);
+    cliente.connect(options);
+    for (int i = 0; i < quantidade; i++) {
+      cliente.publish(TOPICO, ("{\"sensor\":\"s" + (i % 7) + "\",\"seq\":" + i + "}")
+          .getBytes(StandardCharsets.UTF_8), 1, false);
+    }
+    cliente.disconnect();
+    cliente.close();
+  }
+
+  private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+    long prazo = System.currentTimeMillis() + 10_000;
+    while (!condicao.getAsBoolean()) {
+      assertThat(System.currentTimeMillis()).as("tempo esgotado").isLessThan(prazo);
+      Thread.sleep(20);
+    }
+  }
+}
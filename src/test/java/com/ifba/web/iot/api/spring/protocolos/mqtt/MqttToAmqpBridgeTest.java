@@ -0,0 +1,63 @@
+package com.ifba.web.iot.api.spring.protocolos.mqtt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ifba.web.iot.api.spring.model.SensorReading;
+import com.ifba.web.iot.api.spring.protocolos.codec.SensorCodec;
+import com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation.ExchangeType;
+import com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation.InMemoryMessage;
+import com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation.InMemoryRabbitTemplate;
+import com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation.OverflowPolicy;
+
+/**
+ * Testa o formato das leituras encaminhadas ao RabbitMQ simulado: texto por
+ * padrão e o formato binário quando configurado.
+ */
+class MqttToAmqpBridgeTest {
+
+  private static final SensorReading LEITURA = new SensorReading(5L, "umidade", 61.5, "%",
+      LocalDateTime.of(2024, 5, 1, 12, 0));
+
+  private final InMemoryRabbitTemplate template = new InMemoryRabbitTemplate(16, OverflowPolicy.REJECT);
+  private final MqttToAmqpBridge bridge = new MqttToAmqpBridge();
+
+  @AfterEach
+  void tearDown() {
+    template.fechar();
+  }
+
+  @Test
+  void textoEhOFormatoPadrao() throws InterruptedException {
+    InMemoryMessage recebida = encaminhar("texto");
+
+    assertThat(recebida.isBinary()).isFalse();
+    assertThat(recebida.body()).isEqualTo(LEITURA.resumo());
+  }
+
+  @Test
+  void formatoBinarioUsaOCodecEOContentType() throws InterruptedException {
+    InMemoryMessage recebida = encaminhar("binario");
+
+    assertThat(recebida.contentType()).isEqualTo(SensorCodec.CONTENT_TYPE);
+    assertThat(SensorCodec.decodeReading(ByteBuffer.wrap(recebida.bodyBytes()))).isEqualTo(LEITURA);
+  }
+
+  private InMemoryMessage encaminhar(String formato) throws InterruptedException {
+    template.declareExchange("sensores", ExchangeType.TOPIC);
+    template.bind("fila", "sensores", "sensor.#");
+    ReflectionTestUtils.setField(bridge, "rabbitTemplate", template);
+    ReflectionTestUtils.setField(bridge, "exchange", "sensores");
+    ReflectionTestUtils.setField(bridge, "formato", formato);
+
+    bridge.forwardToQueue(LEITURA);
+    return template.receive("fila", Duration.ofSeconds(1));
+  }
+}
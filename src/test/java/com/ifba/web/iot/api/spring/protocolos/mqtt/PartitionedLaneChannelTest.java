@@ -0,0 +1,115 @@
+package com.ifba.web.iot.api.spring.protocolos.mqtt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+/**
+ * Testa a ordem por key de partição, o paralelismo entre faixas e o bloqueio
+ * do envio com a fila da faixa cheia.
+ */
+class PartitionedLaneChannelTest {
+
+  private static final String KEY = "key";
+
+  private PartitionedLaneChannel canal;
+
+  @AfterEach
+  void tearDown() {
+    if (canal != null) {
+      canal.destroy();
+    }
+  }
+
+  @Test
+  void keysIntercaladasMantemAOrdemPorKeyEAvancamEmParalelo() throws Exception {
+    // Com duas faixas, as keys inteiras 0 e 1 caem em faixas diferentes.
+    canal = new PartitionedLaneChannel(2, 100, message -> message.getHeaders().get(KEY));
+    CountDownLatch liberarKey0 = new CountDownLatch(1);
+    CountDownLatch key1Concluida = new CountDownLatch(10);
+    Map<Integer, List<Integer>> recebidas = new ConcurrentHashMap<>();
+    canal.subscribe(message -> {
+      int key = message.getHeaders().get(KEY, Integer.class);
+      int sequencia = (Integer) message.getPayload();
+      if (key == 0 && sequencia == 0) {
+        aguardar(liberarKey0);
+      }
+      recebidas.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(sequencia);
+      if (key == 1) {
+        key1Concluida.countDown();
+      }
+    });
+
+    for (int i = 0; i < 10; i++) {
+      canal.send(mensagem(0, i));
+      canal.send(mensagem(1, i));
+    }
+
+    // A key 0 está parada na primeira mensagem; a key 1 segue na outra faixa.
+    assertThat(key1Concluida.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(recebidas.get(0)).isNull();
+
+    liberarKey0.countDown();
+    List<Integer> esperadas = IntStream.range(0, 10).boxed().toList();
+    long prazo = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (recebidas.getOrDefault(0, List.of()).size() < 10 && System.nanoTime() < prazo) {
+      Thread.sleep(10);
+    }
+    assertThat(recebidas.get(0)).containsExactlyElementsOf(esperadas);
+    assertThat(recebidas.get(1)).containsExactlyElementsOf(esperadas);
+  }
+
+  @Test
+  void envioBloqueiaComAFaixaCheia() throws Exception {
+    canal = new PartitionedLaneChannel(1, 1, message -> message.getHeaders().get(KEY));
+    CountDownLatch processando = new CountDownLatch(1);
+    CountDownLatch liberar = new CountDownLatch(1);
+    List<Integer> recebidas = new CopyOnWriteArrayList<>();
+    canal.subscribe(message -> {
+      processando.countDown();
+      aguardar(liberar);
+      recebidas.add((Integer) message.getPayload());
+    });
+
+    canal.send(mensagem(0, 0));
+    assertThat(processando.await(5, TimeUnit.SECONDS)).isTrue();
+    canal.send(mensagem(0, 1)); // ocupa a única vaga da fila
+
+    CompletableFuture<Boolean> bloqueado = CompletableFuture.supplyAsync(() -> canal.send(mensagem(0, 2)));
+    Thread.sleep(300);
+    assertThat(bloqueado).isNotDone();
+    assertThat(canal.stats().get(0).depth()).isEqualTo(1);
+
+    liberar.countDown();
+    assertThat(bloqueado.get(5, TimeUnit.SECONDS)).isTrue();
+    long prazo = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (recebidas.size() < 3 && System.nanoTime() < prazo) {
+      Thread.sleep(10);
+    }
+    assertThat(recebidas).containsExactly(0, 1, 2);
+  }
+
+  private static Message<Integer> mensagem(int key, int sequencia) {
+    return MessageBuilder.withPayload(sequencia).setHeader(KEY, key).build();
+  }
+
+  private static void aguardar(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testa as regras de roteamento de cada tipo de exchange, em especial os
+ * curingas {@code *} e {@code #} dos padrões de tópico, e a resolução das
+ * filas pelo {@link InMemoryExchange}.
+ */
+class ExchangeTypeTest {
+
+  @Test
+  void directExigeChaveIgual() {
+    assertThat(ExchangeType.DIRECT.matches("sensores.temperatura", "sensores.temperatura")).isTrue();
+    assertThat(ExchangeType.DIRECT.matches("sensores.temperatura", "sensores.umidade")).isFalse();
+    assertThat(ExchangeType.DIRECT.matches("sensores.*", "sensores.umidade")).isFalse();
+  }
+
+  @Test
+  void fanoutIgnoraAChave() {
+    assertThat(ExchangeType.FANOUT.matches("", "qualquer.coisa")).isTrue();
+    assertThat(ExchangeType.FANOUT.matches("outra", "")).isTrue();
+  }
+
+  @Test
+  void asteriscoCasaExatamenteUmaPalavra() {
+    assertThat(topico("sensores.*", "sensores.temperatura")).isTrue();
+    assertThat(topico("*.temperatura", "sala.temperatura")).isTrue();
+    assertThat(topico("sensores.*.alerta", "sensores.umidade.alerta")).isTrue();
+
+    assertThat(topico("sensores.*", "sensores")).isFalse();
+    assertThat(topico("sensores.*", "sensores.sala.temperatura")).isFalse();
+    assertThat(topico("sensores.*.alerta", "sensores.alerta")).isFalse();
+  }
+
+  @Test
+  void cerquilhaCasaZeroOuMaisPalavras() {
+    assertThat(topico("sensores.#", "sensores.sala.temperatura")).isTrue();
+    assertThat(topico("sensores.#", "sensores.temperatura")).isTrue();
+    assertThat(topico("#.alerta", "sensores.sala.alerta")).isTrue();
+    assertThat(topico("sensores.#.alerta", "sensores.sala.umidade.alerta")).isTrue();
+
+    assertThat(topico("sensores.#", "atuadores.rele")).isFalse();
+    assertThat(topico("#.alerta", "sensores.sala")).isFalse();
+    assertThat(topico("sensores.#.alerta", "sensores.sala.umidade")).isFalse();
+  }
+
+  @Test
+  void cerquilhaCasaZeroPalavras() {
+    assertThat(topico("sensores.#", "sensores")).isTrue();
+    assertThat(topico("#.alerta", "alerta")).isTrue();
+    assertThat(topico("sensores.#.alerta", "sensores.alerta")).isTrue();
+    assertThat(topico("#", "")).isTrue();
+    assertThat(topico("#", "sensores.sala.temperatura")).isTrue();
+    assertThat(topico("#.#", "sensores")).isTrue();
+  }
+
+  @Test
+  void curingasCombinados() {
+    assertThat(topico("*.#", "sensores")).isTrue();
+    assertThat(topico("*.#", "sensores.sala.temperatura")).isTrue();
+    assertThat(topico("#.*", "sensores")).isTrue();
+    assertThat(topico("*.#.*", "sensores.alerta")).isTrue();
+
+    assertThat(topico("*.#", "")).isFalse();
+    assertThat(topico("*.#.*", "sensores")).isFalse();
+  }
+
+  @Test
+  void exchangeEntregaACadaFilaUmaVezEAtualizaARotaAposUnbind() {
+    InMemoryExchange exchange = new InMemoryExchange("sensores", ExchangeType.TOPIC);
+    exchange.bind("todas", "#");
+    exchange.bind("todas", "sensores.*");
+    exchange.bind("temperaturas", "*.temperatura");
+    exchange.bind("alertas", "sensores.#.alerta");
+
+    assertThat(exchange.route("sensores.temperatura")).containsExactly("todas", "temperaturas");
+    assertThat(exchange.route("sensores.alerta")).containsExactly("todas", "alertas");
+
+    exchange.unbind("temperaturas", "*.temperatura");
+    assertThat(exchange.route("sensores.temperatura")).containsExactly("todas");
+  }
+
+  private static boolean topico(String padrao, String chave) {
+    return ExchangeType.TOPIC.matches(padrao, chave);
+  }
+}
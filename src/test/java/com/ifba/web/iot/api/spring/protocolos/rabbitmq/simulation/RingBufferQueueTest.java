@@ -0,0 +1,169 @@
+package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testa a ordem da fila circular ao dar várias voltas no buffer e o
+ * comportamento de cada {@link OverflowPolicy} com a fila cheia.
+ */
+class RingBufferQueueTest {
+
+  @Test
+  void capacidadeEhArredondadaParaPotenciaDeDois() {
+    assertThat(new RingBufferQueue<Integer>(3, OverflowPolicy.REJECT, true).capacity()).isEqualTo(4);
+    assertThat(new RingBufferQueue<Integer>(4, OverflowPolicy.REJECT, true).capacity()).isEqualTo(4);
+    assertThat(new RingBufferQueue<Integer>(1, OverflowPolicy.REJECT, true).capacity()).isEqualTo(2);
+    assertThatThrownBy(() -> new RingBufferQueue<Integer>(0, OverflowPolicy.REJECT, true))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void mantemAOrdemAoDarVariasVoltasNoBuffer() throws InterruptedException {
+    RingBufferQueue<Integer> fila = new RingBufferQueue<>(4, OverflowPolicy.REJECT, true);
+    int proximo = 0;
+    int esperado = 0;
+    // A fila é completada e dois elementos saem por rodada: a cabeça e a cauda
+    // passam do fim do buffer várias vezes.
+    for (int rodada = 0; rodada < 10; rodada++) {
+      while (fila.size() < fila.capacity()) {
+        fila.offer(proximo++);
+      }
+      assertThat(fila.poll()).isEqualTo(esperado++);
+      assertThat(fila.poll()).isEqualTo(esperado++);
+    }
+    List<Integer> restantes = new ArrayList<>();
+    assertThat(fila.drainTo(restantes, Integer.MAX_VALUE)).isEqualTo(2);
+    assertThat(restantes).containsExactly(esperado, esperado + 1);
+    assertThat(proximo).isEqualTo(esperado + 2);
+    assertThat(fila.poll()).isNull();
+    assertThat(fila.size()).isZero();
+  }
+
+  @Test
+  void variosProdutoresNaoPerdemNemDuplicamElementos() throws Exception {
+    RingBufferQueue<Integer> fila = new RingBufferQueue<>(8, OverflowPolicy.BLOCK, false);
+    int produtores = 4;
+    int porProdutor = 5_000;
+    List<CompletableFuture<Void>> envios = new ArrayList<>();
+    for (int p = 0; p < produtores; p++) {
+      int base = p * porProdutor;
+      envios.add(CompletableFuture.runAsync(() -> {
+        for (int i = 0; i < porProdutor; i++) {
+          try {
+            fila.offer(base + i);
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      }));
+    }
+
+    boolean[] recebidos = new boolean[produtores * porProdutor];
+    int[] ultimoPorProdutor = new int[produtores];
+    Arrays.fill(ultimoPorProdutor, -1);
+    for (int n = 0; n < recebidos.length; n++) {
+      Integer e = fila.poll(5, TimeUnit.SECONDS);
+      assertThat(e).isNotNull();
+      assertThat(recebidos[e]).isFalse();
+      recebidos[e] = true;
+      // Os elementos de um mesmo produtor saem na ordem em que entraram.
+      assertThat(e).isGreaterThan(ultimoPorProdutor[e / porProdutor]);
+      ultimoPorProdutor[e / porProdutor] = e;
+    }
+    CompletableFuture.allOf(envios.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+    assertThat(fila.poll()).isNull();
+  }
+
+  @Test
+  void blockAguardaEspacoNaFila() throws Exception {
+    RingBufferQueue<Integer> fila = new RingBufferQueue<>(2, OverflowPolicy.BLOCK, true);
+    fila.offer(0);
+    fila.offer(1);
+
+    CompletableFuture<Boolean> envio = CompletableFuture.supplyAsync(() -> {
+      try {
+        return fila.offer(2);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    assertThatThrownBy(() -> envio.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+    assertThat(fila.poll()).isZero();
+    assertThat(envio.get(2, TimeUnit.SECONDS)).isTrue();
+    assertThat(fila.poll()).isEqualTo(1);
+    assertThat(fila.poll()).isEqualTo(2);
+    assertThat(fila.getDropped()).isZero();
+  }
+
+  @Test
+  void dropOldestDescartaOMaisAntigo() throws InterruptedException {
+    List<Integer> descartados = new ArrayList<>();
+    RingBufferQueue<Integer> fila = new RingBufferQueue<>(2, OverflowPolicy.DROP_OLDEST, true, descartados::add);
+    for (int i = 0; i < 5; i++) {
+      assertThat(fila.offer(i)).isTrue();
+    }
+
+    assertThat(descartados).containsExactly(0, 1, 2);
+    assertThat(fila.getDropped()).isEqualTo(3);
+    assertThat(fila.poll()).isEqualTo(3);
+    assertThat(fila.poll()).isEqualTo(4);
+  }
+
+  @Test
+  void dropNewestDescartaONovo() throws InterruptedException {
+    List<Integer> descartados = new ArrayList<>();
+    RingBufferQueue<Integer> fila = new RingBufferQueue<>(2, OverflowPolicy.DROP_NEWEST, true, descartados::add);
+    fila.offer(0);
+    fila.offer(1);
+
+    assertThat(fila.offer(2)).isFalse();
+    assertThat(descartados).containsExactly(2);
+    assertThat(fila.getDropped()).isEqualTo(1);
+    assertThat(fila.poll()).isZero();
+    assertThat(fila.poll()).isEqualTo(1);
+    assertThat(fila.poll()).isNull();
+  }
+
+  @Test
+  void rejectRecusaOEnvioSemAlterarAFila() throws InterruptedException {
+    RingBufferQueue<Integer> fila = new RingBufferQueue<>(2, OverflowPolicy.REJECT, true);
+    fila.offer(0);
+    fila.offer(1);
+
+    assertThatThrownBy(() -> fila.offer(2)).isInstanceOf(IllegalStateException.class);
+    assertThat(fila.getRejected()).isEqualTo(1);
+    assertThat(fila.getDropped()).isZero();
+    assertThat(fila.size()).isEqualTo(2);
+    assertThat(fila.poll()).isZero();
+    // Com espaço, volta a aceitar.
+    assertThat(fila.offer(2)).isTrue();
+  }
+
+  @Test
+  void pollComPrazoDevolveNullNaFilaVaziaEAcordaComNovoElemento() throws Exception {
+    RingBufferQueue<Integer> fila = new RingBufferQueue<>(2, OverflowPolicy.REJECT, true);
+    assertThat(fila.poll(50, TimeUnit.MILLISECONDS)).isNull();
+
+    CompletableFuture<Integer> consumo = CompletableFuture.supplyAsync(() -> {
+      try {
+        return fila.poll(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    Thread.sleep(50);
+    fila.offer(7);
+    assertThat(consumo.get(2, TimeUnit.SECONDS)).isEqualTo(7);
+  }
+}
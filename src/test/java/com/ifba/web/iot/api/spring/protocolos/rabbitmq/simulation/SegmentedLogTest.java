@@ -0,0 +1,218 @@
+package com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.AmqpIOException;
+
+/**
+ * Testa a recuperação, o descarte de registros corrompidos, o offset
+ * confirmado e a compactação do log de uma fila.
+ */
+class SegmentedLogTest {
+
+  /** Cabe três registros de {@code "mensagem-N"} (8 + 10 bytes). */
+  private static final int SEGMENTO_PEQUENO = 64;
+  private static final int SEGMENTO = 4096;
+
+  @TempDir
+  Path diretorio;
+
+  @Test
+  void reabrirEntregaApenasAsMensagensNaoConfirmadas() throws IOException {
+    try (SegmentedLog wal = abrir(SEGMENTO, new ArrayList<>())) {
+      anexar(wal, 3);
+      wal.ack(0);
+    }
+
+    List<InMemoryMessage> pendentes = new ArrayList<>();
+    try (SegmentedLog wal = abrir(SEGMENTO, pendentes)) {
+      assertThat(corpos(pendentes)).containsExactly("mensagem-1", "mensagem-2");
+      assertThat(pendentes).extracting(InMemoryMessage::offset).containsExactly(1L, 2L);
+      // Novas mensagens continuam a numeração.
+      assertThat(wal.append("nova")).isEqualTo(3);
+    }
+  }
+
+  @Test
+  void offsetGravadoSoAvancaSobreConfirmacoesContiguas() throws IOException {
+    try (SegmentedLog wal = abrir(SEGMENTO, new ArrayList<>())) {
+      anexar(wal, 4);
+      wal.ack(2);
+      wal.ack(0);
+    }
+    List<InMemoryMessage> pendentes = new ArrayList<>();
+    try (SegmentedLog wal = abrir(SEGMENTO, pendentes)) {
+      // A 2 foi confirmada fora de ordem: volta junto com a 1 (pelo menos uma vez).
+      assertThat(pendentes).extracting(InMemoryMessage::offset).containsExactly(1L, 2L, 3L);
+      wal.ack(2);
+      wal.ack(1);
+    }
+    pendentes.clear();
+    try (SegmentedLog wal = abrir(SEGMENTO, pendentes)) {
+      assertThat(pendentes).extracting(InMemoryMessage::offset).containsExactly(3L);
+    }
+  }
+
+  @Test
+  void registroComCrcInvalidoDescartaORestanteDoSegmento() throws IOException {
+    try (SegmentedLog wal = abrir(SEGMENTO, new ArrayList<>())) {
+      anexar(wal, 3);
+    }
+    // Corrompe um byte do corpo do segundo registro.
+    escrever(segmentos().get(0), 18 + 8, (byte) 'X');
+
+    List<InMemoryMessage> pendentes = new ArrayList<>();
+    try (SegmentedLog wal = abrir(SEGMENTO, pendentes)) {
+      assertThat(corpos(pendentes)).containsExactly("mensagem-0");
+      // O novo registro ocupa o lugar do corrompido, sem sobras da execução anterior.
+      assertThat(wal.append("depois")).isEqualTo(1);
+    }
+    pendentes.clear();
+    try (SegmentedLog wal = abrir(SEGMENTO, pendentes)) {
+      assertThat(corpos(pendentes)).containsExactly("mensagem-0", "depois");
+    }
+  }
+
+  @Test
+  void registroIncompletoNoFimEhDescartado() throws IOException {
+    try (SegmentedLog wal = abrir(SEGMENTO, new ArrayList<>())) {
+      anexar(wal, 2);
+    }
+    // Cabeçalho de um terceiro registro cuja escrita foi interrompida: tamanho
+    // gravado, CRC e corpo não.
+    try (RandomAccessFile arquivo = new RandomAccessFile(segmentos().get(0).toFile(), "rw")) {
+      arquivo.seek(2 * 18);
+      arquivo.writeInt(10);
+    }
+
+    List<InMemoryMessage> pendentes = new ArrayList<>();
+    try (SegmentedLog wal = abrir(SEGMENTO, pendentes)) {
+      assertThat(corpos(pendentes)).containsExactly("mensagem-0", "mensagem-1");
+      assertThat(wal.append("depois")).isEqualTo(2);
+    }
+    pendentes.clear();
+    try (SegmentedLog wal = abrir(SEGMENTO, pendentes)) {
+      assertThat(corpos(pendentes)).containsExactly("mensagem-0", "mensagem-1", "depois");
+    }
+  }
+
+  @Test
+  void compactacaoApagaSegmentosInteiramenteConfirmados() throws IOException {
+    try (SegmentedLog wal = abrir(SEGMENTO_PEQUENO, new ArrayList<>())) {
+      anexar(wal, 8); // segmentos com base 0, 3 e 6
+      assertThat(wal.getSegmentos()).isEqualTo(3);
+
+      for (long offset = 0; offset < 4; offset++) {
+        wal.ack(offset);
+      }
+      wal.flush();
+      // O segmento 3 ainda tem as mensagens 4 e 5 pendentes.
+      assertThat(wal.getSegmentos()).isEqualTo(2);
+      assertThat(segmentos()).extracting(p -> p.getFileName().toString())
+          .containsExactly("00000000000000000003.log", "00000000000000000006.log");
+
+      wal.ack(4);
+      wal.ack(5);
+      wal.flush();
+      assertThat(wal.getSegmentos()).isEqualTo(1);
+      // O segmento ativo nunca é apagado e segue aceitando mensagens.
+      assertThat(wal.append("depois")).isEqualTo(8);
+    }
+
+    List<InMemoryMessage> pendentes = new ArrayList<>();
+    try (SegmentedLog wal = abrir(SEGMENTO_PEQUENO, pendentes)) {
+      assertThat(corpos(pendentes)).containsExactly("mensagem-6", "mensagem-7", "depois");
+    }
+  }
+
+  @Test
+  void mensagemBinariaVoltaComOsMesmosBytesEContentType() throws IOException {
+    byte[] corpo = { 1, 1, 0, (byte) 0x80, (byte) 0xFF, 0, 42 };
+    try (SegmentedLog wal = abrir(SEGMENTO, new ArrayList<>())) {
+      wal.append("texto");
+      wal.append(InMemoryMessage.binaria(corpo, "application/x-teste"));
+    }
+
+    List<InMemoryMessage> pendentes = new ArrayList<>();
+    try (SegmentedLog wal = abrir(SEGMENTO, pendentes)) {
+      assertThat(pendentes).hasSize(2);
+      assertThat(pendentes.get(0).isBinary()).isFalse();
+      assertThat(pendentes.get(0).body()).isEqualTo("texto");
+      assertThat(pendentes.get(1).contentType()).isEqualTo("application/x-teste");
+      assertThat(pendentes.get(1).bodyBytes()).containsExactly(corpo);
+      assertThat(pendentes.get(1).offset()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void mensagemMaiorQueOSegmentoEhRecusada() throws IOException {
+    try (SegmentedLog wal = abrir(SEGMENTO_PEQUENO, new ArrayList<>())) {
+      assertThatThrownBy(() -> wal.append("x".repeat(SEGMENTO_PEQUENO)))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Test
+  void falhaAoCriarSegmentoChegaAoProdutorComoAmqpIOException() throws IOException {
+    InMemoryRabbitTemplate template = new InMemoryRabbitTemplate(16, OverflowPolicy.DROP_NEWEST, true, diretorio,
+        SEGMENTO_PEQUENO, 60_000);
+    try {
+      template.send("fila", "mensagem-0");
+      // Sem o diretório da fila, o próximo segmento não pode ser criado.
+      apagarRecursivamente(diretorio.resolve("fila"));
+      template.send("fila", "mensagem-1");
+      template.send("fila", "mensagem-2");
+
+      assertThatThrownBy(() -> template.send("fila", "mensagem-3")).isInstanceOf(AmqpIOException.class);
+      assertThat(template.size("fila")).isEqualTo(3);
+    } finally {
+      template.fechar();
+    }
+  }
+
+  private SegmentedLog abrir(int segmentoBytes, List<InMemoryMessage> pendentes) throws IOException {
+    return SegmentedLog.abrir(diretorio, segmentoBytes, pendentes);
+  }
+
+  private static void anexar(SegmentedLog wal, int quantidade) {
+    for (int i = 0; i < quantidade; i++) {
+      wal.append("mensagem-" + i);
+    }
+  }
+
+  private static List<String> corpos(List<InMemoryMessage> mensagens) {
+    return mensagens.stream().map(InMemoryMessage::body).toList();
+  }
+
+  private List<Path> segmentos() throws IOException {
+    try (Stream<Path> arquivos = Files.list(diretorio)) {
+      return arquivos.filter(p -> p.toString().endsWith(".log")).sorted().toList();
+    }
+  }
+
+  private static void escrever(Path arquivo, long posicao, byte valor) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(arquivo.toFile(), "rw")) {
+      raf.seek(posicao);
+      raf.write(valor);
+    }
+  }
+
+  private static void apagarRecursivamente(Path raiz) throws IOException {
+    try (Stream<Path> arquivos = Files.walk(raiz)) {
+      for (Path p : arquivos.sorted((a, b) -> b.compareTo(a)).toList()) {
+        Files.delete(p);
+      }
+    }
+  }
+}
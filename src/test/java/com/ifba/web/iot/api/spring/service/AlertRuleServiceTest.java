@@ -0,0 +1,62 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.ifba.web.iot.api.spring.model.AlertRule;
+import com.ifba.web.iot.api.spring.model.OperadorAlerta;
+import com.ifba.web.iot.api.spring.repository.AlertRuleRepository;
+
+/**
+ * Garante que recargas concorrentes das regras não publicam um instantâneo
+ * antigo por cima de um novo.
+ */
+class AlertRuleServiceTest {
+
+  private final AlertRuleRepository repository = mock(AlertRuleRepository.class);
+  private final AlertRuleEngine engine = new AlertRuleEngine();
+  private final AlertRuleService service = new AlertRuleService(repository, engine);
+
+  @Test
+  void recargaLentaNaoSobrescreveAMaisNova() throws Exception {
+    CountDownLatch emConsulta = new CountDownLatch(1);
+    CountDownLatch liberar = new CountDownLatch(1);
+    when(repository.findByAtivaTrueOrderBySensorAscPrioridadeAscIdAsc())
+        .thenAnswer(invocacao -> {
+          // A primeira recarga lê as regras antigas e demora para publicá-las.
+          emConsulta.countDown();
+          liberar.await(5, TimeUnit.SECONDS);
+          return List.of(regra("antiga"));
+        })
+        .thenReturn(List.of(regra("nova")));
+
+    CompletableFuture<Integer> lenta = CompletableFuture.supplyAsync(service::recarregar);
+    assertThat(emConsulta.await(5, TimeUnit.SECONDS)).isTrue();
+    Thread rapida = new Thread(service::recarregar);
+    rapida.start();
+    // Sem a serialização, a segunda recarga terminaria aqui com as regras novas.
+    long prazo = System.currentTimeMillis() + 5_000;
+    while (rapida.getState() != Thread.State.BLOCKED && rapida.isAlive() && System.currentTimeMillis() < prazo) {
+      Thread.sleep(5);
+    }
+
+    liberar.countDown();
+    lenta.get(5, TimeUnit.SECONDS);
+    rapida.join(5_000);
+
+    assertThat(engine.avaliar("temperatura", 35)).isEqualTo("nova");
+  }
+
+  private static AlertRule regra(String mensagem) {
+    return AlertRule.builder().id(1L).sensor("temperatura").operador(OperadorAlerta.MAIOR_QUE).limite(30)
+        .mensagem(mensagem).build();
+  }
+}
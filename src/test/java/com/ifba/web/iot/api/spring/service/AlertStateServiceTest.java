@@ -0,0 +1,212 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ifba.web.iot.api.spring.model.Alert;
+import com.ifba.web.iot.api.spring.model.AlertRule;
+import com.ifba.web.iot.api.spring.model.OperadorAlerta;
+import com.ifba.web.iot.api.spring.model.SensorData;
+
+/**
+ * Testa a avaliação com estado: tempo sustentado, histerese, média móvel e a
+ * reversão das transições não confirmadas.
+ */
+class AlertStateServiceTest {
+
+  private static final Long USUARIO = 1L;
+  private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+  private final AlertRuleEngine engine = new AlertRuleEngine();
+  private final AlertService alertService = mock(AlertService.class);
+  private final AtomicLong ids = new AtomicLong();
+  private AlertStateService stateService;
+
+  @BeforeEach
+  void setUp() {
+    when(alertService.isAlertSavingEnabled()).thenReturn(true);
+    when(alertService.saveAlert(any())).thenAnswer(invocacao -> {
+      Alert alert = invocacao.getArgument(0);
+      alert.setId(ids.incrementAndGet());
+      return alert;
+    });
+    stateService = new AlertStateService(engine, alertService);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void alertaSoAbreDepoisDoTempoSustentado() {
+    engine.compilar(List.of(regra(30, 10, 0, 0)));
+
+    assertThat(processar(leitura(0, 35))).isNull();
+    assertThat(processar(leitura(5, 35))).isNull();
+    assertThat(processar(leitura(10, 35))).isEqualTo("quente");
+
+    verify(alertService, times(1)).saveAlert(any());
+  }
+
+  @Test
+  void condicaoInterrompidaReiniciaOTempoSustentado() {
+    engine.compilar(List.of(regra(30, 10, 0, 0)));
+
+    processar(leitura(0, 35));
+    processar(leitura(6, 25));
+    assertThat(processar(leitura(12, 35))).isNull();
+    assertThat(processar(leitura(22, 35))).isEqualTo("quente");
+  }
+
+  @Test
+  void alertaSoFechaAposRecuarAlemDaHisterese() {
+    engine.compilar(List.of(regra(30, 0, 0, 2)));
+
+    assertThat(processar(leitura(0, 35))).isEqualTo("quente");
+    assertThat(processar(leitura(1, 29))).isEqualTo("quente");
+    verify(alertService, never()).fecharAlerta(anyLong(), any());
+
+    assertThat(processar(leitura(2, 28))).isNull();
+    verify(alertService).fecharAlerta(eq(1L), eq(INICIO.plusSeconds(2)));
+    // Leituras fora do limite com o alerta aberto não geram novos registros.
+    processar(leitura(3, 40));
+    processar(leitura(4, 41));
+    verify(alertService, times(2)).saveAlert(any());
+  }
+
+  @Test
+  void janelaComparaAMediaDasLeiturasRecentes() {
+    engine.compilar(List.of(regra(30, 0, 60, 0)));
+
+    assertThat(processar(leitura(0, 20))).isNull();
+    assertThat(processar(leitura(10, 20))).isNull();
+    assertThat(processar(leitura(20, 50))).isNull(); // média 30
+    assertThat(processar(leitura(30, 60))).isEqualTo("quente"); // média 37,5
+    // As duas primeiras saem da janela: média de 50, 60 e 10 = 40.
+    assertThat(processar(leitura(70, 10))).isEqualTo("quente");
+  }
+
+  @Test
+  void transacaoDesfeitaReverteAAbertura() {
+    engine.compilar(List.of(regra(30, 0, 0, 0)));
+    TransactionSynchronizationManager.initSynchronization();
+
+    assertThat(processar(leitura(0, 35))).isEqualTo("quente");
+    concluirTransacao(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    // Sem a reversão o alerta seguiria aberto e esta leitura não o gravaria.
+    assertThat(processar(leitura(1, 35))).isEqualTo("quente");
+    verify(alertService, times(2)).saveAlert(any());
+  }
+
+  @Test
+  void transacaoConfirmadaMantemAAbertura() {
+    engine.compilar(List.of(regra(30, 0, 0, 0)));
+    TransactionSynchronizationManager.initSynchronization();
+
+    processar(leitura(0, 35));
+    concluirTransacao(TransactionSynchronization.STATUS_COMMITTED);
+
+    processar(leitura(1, 35));
+    verify(alertService, times(1)).saveAlert(any());
+  }
+
+  @Test
+  void gravacaoLentaNaoSeguraAsDemaisLeiturasDoSensor() throws Exception {
+    engine.compilar(List.of(regra(30, 0, 0, 0)));
+    CountDownLatch gravando = new CountDownLatch(1);
+    CountDownLatch liberar = new CountDownLatch(1);
+    doAnswer(invocacao -> {
+      gravando.countDown();
+      liberar.await(5, TimeUnit.SECONDS);
+      Alert alert = invocacao.getArgument(0);
+      alert.setId(1L);
+      return alert;
+    }).when(alertService).saveAlert(any());
+
+    CompletableFuture<String> abertura = CompletableFuture.supplyAsync(
+        () -> processar(leitura(0, 35)));
+    assertThat(gravando.await(5, TimeUnit.SECONDS)).isTrue();
+    try {
+      // O alerta segue aberto; a leitura não depende da gravação em andamento.
+      String mensagem = CompletableFuture.supplyAsync(() -> processar(leitura(1, 36)))
+          .get(2, TimeUnit.SECONDS);
+      assertThat(mensagem).isEqualTo("quente");
+    } finally {
+      liberar.countDown();
+    }
+    assertThat(abertura.get(5, TimeUnit.SECONDS)).isEqualTo("quente");
+  }
+
+  @Test
+  void avaliacaoDesfeitaReverteAAberturaSemGravar() {
+    engine.compilar(List.of(regra(30, 0, 0, 0)));
+
+    AlertStateService.Avaliacao avaliacao = stateService.preparar(USUARIO, leitura(0, 35));
+    assertThat(avaliacao.mensagem()).isEqualTo("quente");
+    stateService.desfazer(avaliacao);
+    verify(alertService, never()).saveAlert(any());
+
+    assertThat(processar(leitura(1, 35))).isEqualTo("quente");
+    verify(alertService, times(1)).saveAlert(any());
+  }
+
+  /** Avalia e grava a leitura como o {@link SensorDataService} faz. */
+  private String processar(SensorData leitura) {
+    AlertStateService.Avaliacao avaliacao = stateService.preparar(USUARIO, leitura);
+    stateService.gravar(avaliacao);
+    return avaliacao.mensagem();
+  }
+
+  private static void concluirTransacao(int status) {
+    List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+    TransactionSynchronizationManager.clearSynchronization();
+    sincronizacoes.forEach(s -> s.afterCompletion(status));
+  }
+
+  private static AlertRule regra(double limite, int sustentadoSegundos, int janelaSegundos, double histerese) {
+    return AlertRule.builder()
+        .id(1L)
+        .sensor("temperatura")
+        .operador(OperadorAlerta.MAIOR_QUE)
+        .limite(limite)
+        .mensagem("quente")
+        .sustentadoSegundos(sustentadoSegundos)
+        .janelaSegundos(janelaSegundos)
+        .histerese(histerese)
+        .build();
+  }
+
+  private static SensorData leitura(int segundos, double valor) {
+    SensorData leitura = new SensorData();
+    leitura.setSensor("temperatura");
+    leitura.setValor(valor);
+    leitura.setUnidade("°C");
+    leitura.setTimestamp(INICIO.plusSeconds(segundos));
+    return leitura;
+  }
+}
@@ -0,0 +1,120 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.ifba.web.iot.api.spring.protocolos.amqp.ConfirmingSender;
+import com.ifba.web.iot.api.spring.protocolos.amqp.PublicacaoPendente;
+
+/**
+ * Testa a janela de confirmações do produtor em lote, o tempo limite de
+ * confirmação, os nacks e o prazo de encerramento.
+ */
+class AmqpBatchProducerTest {
+
+  /** Cópias dos lotes entregues ao broker falso, que só confirma quando o teste manda. */
+  private final LinkedBlockingQueue<List<PublicacaoPendente>> lotes = new LinkedBlockingQueue<>();
+  private AmqpBatchProducer producer;
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    if (producer != null) {
+      lotes.forEach(lote -> lote.forEach(p -> p.confirmacao().complete(true)));
+      producer.encerrar();
+    }
+  }
+
+  @Test
+  void janelaCheiaSeguraOProximoLoteAteAsConfirmacoes() throws Exception {
+    producer = criar(2, 2, 10_000, 1_000);
+    List<CompletableFuture<Boolean>> futuros = List.of(publicar(), publicar(), publicar(), publicar());
+
+    List<PublicacaoPendente> primeiro = lotes.poll(2, TimeUnit.SECONDS);
+    assertThat(primeiro).hasSize(2);
+    // Duas mensagens em voo esgotam a janela: o segundo lote não sai.
+    assertThat(lotes.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    assertThat(producer.getMetricas().getEmVoo()).isEqualTo(2);
+
+    primeiro.forEach(p -> p.confirmacao().complete(true));
+    List<PublicacaoPendente> segundo = lotes.poll(2, TimeUnit.SECONDS);
+    assertThat(segundo).hasSize(2);
+    segundo.forEach(p -> p.confirmacao().complete(true));
+
+    for (CompletableFuture<Boolean> futuro : futuros) {
+      assertThat(futuro.get(2, TimeUnit.SECONDS)).isTrue();
+    }
+    assertThat(producer.getMetricas().getConfirmadas()).isEqualTo(4);
+  }
+
+  @Test
+  void confirmacaoAtrasadaContaComoFalhaELiberaAJanela() throws Exception {
+    producer = criar(1, 1, 100, 1_000);
+    CompletableFuture<Boolean> futuro = publicar();
+    lotes.poll(2, TimeUnit.SECONDS); // nunca confirmado
+
+    assertThatThrownBy(() -> futuro.get(2, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(TimeoutException.class);
+    aguardar(() -> producer.getMetricas().getFalhas() == 1);
+    assertThat(producer.getMetricas().getEmVoo()).isZero();
+
+    // A janela de uma mensagem foi devolvida: a próxima é publicada.
+    publicar();
+    assertThat(lotes.poll(2, TimeUnit.SECONDS)).hasSize(1);
+  }
+
+  @Test
+  void nackCompletaComFalseEContaComoRecusa() throws Exception {
+    producer = criar(1, 1, 10_000, 1_000);
+    CompletableFuture<Boolean> futuro = publicar();
+    lotes.poll(2, TimeUnit.SECONDS).forEach(p -> p.confirmacao().complete(false));
+
+    assertThat(futuro.get(2, TimeUnit.SECONDS)).isFalse();
+    aguardar(() -> producer.getMetricas().getRejeitadas() == 1);
+    assertThat(producer.getMetricas().getConfirmadas()).isZero();
+    assertThat(producer.getMetricas().getEmVoo()).isZero();
+  }
+
+  @Test
+  void encerramentoRespeitaOPrazoMesmoSemConfirmacoes() throws Exception {
+    producer = criar(1, 1, 10_000, 200);
+    publicar();
+    lotes.poll(2, TimeUnit.SECONDS); // nunca confirmado
+    publicar(); // fica na fila: a janela está cheia
+
+    long inicio = System.nanoTime();
+    producer.encerrar();
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(2_000);
+  }
+
+  private AmqpBatchProducer criar(int lote, int maxEmVoo, long confirmTimeoutMs, long encerramentoMs) {
+    ConfirmingSender sender = enviado -> {
+      lotes.add(List.copyOf(enviado));
+      return enviado.size();
+    };
+    return new AmqpBatchProducer(sender, lote, 50, maxEmVoo, 100, confirmTimeoutMs, encerramentoMs);
+  }
+
+  private CompletableFuture<Boolean> publicar() {
+    return producer.publicar("", "fila", "mensagem");
+  }
+
+  private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+    long prazo = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+    while (!condicao.getAsBoolean() && System.nanoTime() < prazo) {
+      Thread.sleep(10);
+    }
+    assertThat(condicao.getAsBoolean()).isTrue();
+  }
+}
@@ -0,0 +1,69 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Testa o envio para a DLQ: mensagens mortas são persistentes, e falhas de
+ * transação não devolvem o lote à fila.
+ */
+class AmqpConsumerServiceTest {
+
+  private final AlertService alertService = mock(AlertService.class);
+  private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+  private final AmqpConsumerService consumer = new AmqpConsumerService(new ObjectMapper(), alertService,
+      rabbitTemplate, "alertas.dlq");
+
+  @Test
+  void payloadInvalidoVaiParaADlqComoPersistente() {
+    MessageProperties propriedades = new MessageProperties();
+    propriedades.setDeliveryMode(MessageDeliveryMode.NON_PERSISTENT);
+
+    consumer.receiveMessages(List.of(new Message("não é json".getBytes(StandardCharsets.UTF_8), propriedades)));
+
+    Message morta = enviadaParaDlq(1).get(0);
+    assertThat(morta.getMessageProperties().getDeliveryMode()).isEqualTo(MessageDeliveryMode.PERSISTENT);
+    assertThat((String) morta.getMessageProperties().getHeader(AmqpConsumerService.CABECALHO_ERRO))
+        .startsWith("Payload inválido");
+  }
+
+  @Test
+  void falhaDeTransacaoEnviaParaADlqEmVezDeDevolverOLote() {
+    doThrow(new CannotCreateTransactionException("sem conexão")).when(alertService).saveAll(anyList());
+
+    consumer.receiveMessages(List.of(alerta("temperatura"), alerta("umidade")));
+
+    List<Message> mortas = enviadaParaDlq(2);
+    assertThat(mortas).allSatisfy(m -> assertThat((String) m.getMessageProperties()
+        .getHeader(AmqpConsumerService.CABECALHO_ERRO)).startsWith("Falha ao gravar"));
+  }
+
+  private List<Message> enviadaParaDlq(int vezes) {
+    ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+    verify(rabbitTemplate, times(vezes)).send(eq(""), eq("alertas.dlq"), captor.capture());
+    return captor.getAllValues();
+  }
+
+  private static Message alerta(String sensor) {
+    String json = "{\"sensor\":\"" + sensor + "\",\"valor\":40.0,\"alertMessage\":\"alto\"}";
+    return new Message(json.getBytes(StandardCharsets.UTF_8), new MessageProperties());
+  }
+}
@@ -0,0 +1,81 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ifba.web.iot.api.spring.controller.dto.view.ChaveDispositivoView;
+import com.ifba.web.iot.api.spring.model.ChaveDispositivo;
+import com.ifba.web.iot.api.spring.model.ChaveDispositivoAtiva;
+import com.ifba.web.iot.api.spring.repository.ChaveDispositivoRepository;
+import com.ifba.web.iot.api.spring.repository.UsuarioRepository;
+
+/**
+ * Garante que uma recarga do índice de chaves não desfaz as criações e
+ * revogações locais que acontecem enquanto ela lê o banco.
+ */
+class ChaveDispositivoIndiceTest {
+
+  private static final String EMAIL = "teste@example.com";
+
+  private final ChaveDispositivoRepository chaveRepository = mock(ChaveDispositivoRepository.class);
+  private final AtomicReference<ChaveDispositivo> gravada = new AtomicReference<>();
+  private ChaveDispositivoService chaveService;
+
+  @BeforeEach
+  void setUp() {
+    UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+    when(usuarioRepository.findIdByEmail(EMAIL)).thenReturn(Optional.of(1L));
+    when(chaveRepository.findAtivas()).thenReturn(List.of());
+    when(chaveRepository.save(any())).thenAnswer(invocacao -> {
+      ChaveDispositivo chave = invocacao.getArgument(0);
+      chave.setId(10L);
+      gravada.set(chave);
+      return chave;
+    });
+    when(chaveRepository.findByIdAndUsuarioId(anyLong(), anyLong()))
+        .thenAnswer(invocacao -> Optional.ofNullable(gravada.get()));
+    chaveService = new ChaveDispositivoService(chaveRepository, new UsuarioIdCache(usuarioRepository, 100),
+        "pepper-de-teste");
+  }
+
+  @Test
+  void revogacaoDuranteARecargaNaoEhDesfeita() {
+    ChaveDispositivoView criada = chaveService.criar(EMAIL, "gateway");
+    ChaveDispositivo chave = gravada.get();
+    // A recarga lê a chave ainda ativa; a revogação é confirmada antes da troca do índice.
+    when(chaveRepository.findAtivas()).thenAnswer(invocacao -> {
+      List<ChaveDispositivoAtiva> antesDaRevogacao = List.of(
+          new ChaveDispositivoAtiva(chave.getPrefixo(), chave.getHash(), EMAIL));
+      chaveService.revogar(EMAIL, chave.getId());
+      return antesDaRevogacao;
+    });
+
+    chaveService.recarregar();
+
+    assertThat(chaveService.autenticar(criada.getChave())).isNull();
+  }
+
+  @Test
+  void criacaoDuranteARecargaNaoEhDescartada() {
+    AtomicReference<ChaveDispositivoView> criada = new AtomicReference<>();
+    // A recarga lê o banco antes da nova chave; a criação é confirmada antes da troca do índice.
+    when(chaveRepository.findAtivas()).thenAnswer(invocacao -> {
+      criada.set(chaveService.criar(EMAIL, "gateway"));
+      return List.of();
+    });
+
+    chaveService.recarregar();
+
+    assertThat(chaveService.autenticar(criada.get().getChave())).isEqualTo(EMAIL);
+  }
+}
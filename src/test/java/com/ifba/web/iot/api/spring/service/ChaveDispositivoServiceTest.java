@@ -0,0 +1,91 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.ifba.web.iot.api.spring.controller.dto.view.ChaveDispositivoView;
+import com.ifba.web.iot.api.spring.model.Usuario;
+
+/**
+ * Garante que as chaves de dispositivo são aceitas apenas com o segredo
+ * correto e deixam de valer quando revogadas. Como cada teste é desfeito ao
+ * final (sem commit), o índice é atualizado pela recarga.
+ */
+@DataJpaTest(properties = "dispositivo.chave.pepper=pepper-de-teste")
+@Import({ ChaveDispositivoService.class, UsuarioIdCache.class })
+class ChaveDispositivoServiceTest {
+
+  @Autowired
+  private ChaveDispositivoService chaveService;
+
+  @Autowired
+  private UsuarioIdCache usuarioIdCache;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  private Usuario usuario;
+
+  @BeforeEach
+  void setUp() {
+    usuario = entityManager.persistFlushFind(
+        Usuario.builder().nome("Usuário Teste").email("teste@example.com").senha("123456").build());
+    usuarioIdCache.invalidar(usuario.getEmail());
+  }
+
+  @Test
+  void chaveCriadaAutenticaODonoDoDispositivo() {
+    ChaveDispositivoView criada = criar();
+
+    assertThat(criada.getChave()).startsWith("iotk_" + criada.getPrefixo() + "_");
+    assertThat(chaveService.autenticar(criada.getChave())).isEqualTo(usuario.getEmail());
+    assertThat(chaveService.listar(usuario.getEmail()))
+        .singleElement()
+        .satisfies(chave -> assertThat(chave.getChave()).isNull());
+  }
+
+  @Test
+  void chaveComSegredoErradoOuMalFormadaEhRecusada() {
+    String chave = criar().getChave();
+
+    assertThat(chaveService.autenticar(chave.substring(0, chave.length() - 1) + "x")).isNull();
+    assertThat(chaveService.autenticar("iotk_0000000000000000_segredo")).isNull();
+    assertThat(chaveService.autenticar("token-qualquer")).isNull();
+    assertThat(chaveService.autenticar(null)).isNull();
+  }
+
+  @Test
+  void chaveRevogadaDeixaDeAutenticar() {
+    ChaveDispositivoView criada = criar();
+
+    assertThat(chaveService.revogar(usuario.getEmail(), criada.getId())).isTrue();
+    entityManager.flush();
+
+    assertThat(chaveService.recarregar()).isZero();
+    assertThat(chaveService.autenticar(criada.getChave())).isNull();
+  }
+
+  @Test
+  void chaveDeOutroUsuarioNaoPodeSerRevogada() {
+    Usuario outro = entityManager.persistFlushFind(
+        Usuario.builder().nome("Outro").email("outro@example.com").senha("123456").build());
+    usuarioIdCache.invalidar(outro.getEmail());
+    ChaveDispositivoView criada = criar();
+
+    assertThat(chaveService.revogar(outro.getEmail(), criada.getId())).isFalse();
+    assertThat(chaveService.autenticar(criada.getChave())).isEqualTo(usuario.getEmail());
+  }
+
+  private ChaveDispositivoView criar() {
+    ChaveDispositivoView criada = chaveService.criar(usuario.getEmail(), "gateway-estufa");
+    entityManager.flush();
+    chaveService.recarregar();
+    return criada;
+  }
+}
@@ -0,0 +1,135 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.security.Key;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ifba.web.iot.api.spring.jwt.JwtUtil;
+import com.ifba.web.iot.api.spring.jwt.TokenCacheStats;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Testa o cache de tokens verificados do {@link JwtUtil}: validade até o
+ * {@code exp}, tokens com assinatura inválida e o descarte com o cache cheio.
+ */
+class JwtUtilTest {
+
+  @Test
+  void tokenEmCacheDeixaDeValerNoExp() throws InterruptedException {
+    JwtUtil jwtUtil = new JwtUtil(10);
+    // O exp do JWT tem resolução de segundos: entre 1 e 2 segundos à frente.
+    long exp = (System.currentTimeMillis() / 1000 + 2) * 1000;
+    String token = assinar(jwtUtil, "teste@example.com", exp);
+
+    assertThat(jwtUtil.validateToken(token)).isEqualTo("teste@example.com");
+    assertThat(jwtUtil.validateToken(token)).isEqualTo("teste@example.com");
+    assertThat(jwtUtil.getCacheStats().hits()).isEqualTo(1);
+
+    while (System.currentTimeMillis() < exp) {
+      Thread.sleep(50);
+    }
+    assertThatThrownBy(() -> jwtUtil.validateToken(token)).isInstanceOf(ExpiredJwtException.class);
+    TokenCacheStats stats = jwtUtil.getCacheStats();
+    assertThat(stats.hits()).isEqualTo(1);
+    assertThat(stats.size()).isZero();
+  }
+
+  @Test
+  void assinaturaInvalidaNuncaEntraNoCache() {
+    JwtUtil jwtUtil = new JwtUtil(10);
+    Key outraChave = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    String forjado = Jwts.builder()
+        .setSubject("teste@example.com")
+        .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+        .signWith(outraChave)
+        .compact();
+
+    assertThatThrownBy(() -> jwtUtil.validateToken(forjado)).isInstanceOf(JwtException.class);
+    assertThatThrownBy(() -> jwtUtil.validateToken(forjado)).isInstanceOf(JwtException.class);
+
+    TokenCacheStats stats = jwtUtil.getCacheStats();
+    assertThat(stats.hits()).isZero();
+    assertThat(stats.misses()).isEqualTo(2);
+    assertThat(stats.size()).isZero();
+  }
+
+  @Test
+  void assinaturaAdulteradaDeTokenEmCacheEhRecusada() {
+    JwtUtil jwtUtil = new JwtUtil(10);
+    String token = jwtUtil.generateToken("teste@example.com");
+    jwtUtil.validateToken(token);
+
+    // Troca um caractere do meio da assinatura (o último carrega bits de
+    // preenchimento do Base64).
+    int posicao = token.length() - 5;
+    char trocado = (token.charAt(posicao) == 'A') ? 'B' : 'A';
+    String adulterado = token.substring(0, posicao) + trocado + token.substring(posicao + 1);
+
+    assertThatThrownBy(() -> jwtUtil.validateToken(adulterado)).isInstanceOf(JwtException.class);
+    assertThat(jwtUtil.getCacheStats().size()).isEqualTo(1);
+  }
+
+  @Test
+  void cacheCheioDescartaEntradasSemPassarDaCapacidade() {
+    JwtUtil jwtUtil = new JwtUtil(2);
+    long exp = System.currentTimeMillis() + 60_000;
+    String primeiro = assinar(jwtUtil, "a@example.com", exp);
+    String segundo = assinar(jwtUtil, "b@example.com", exp);
+    String terceiro = assinar(jwtUtil, "c@example.com", exp);
+
+    jwtUtil.validateToken(primeiro);
+    jwtUtil.validateToken(segundo);
+    jwtUtil.validateToken(terceiro);
+    assertThat(jwtUtil.getCacheStats().size()).isEqualTo(2);
+
+    // O último guardado segue em cache; um dos anteriores foi descartado.
+    assertThat(jwtUtil.validateToken(terceiro)).isEqualTo("c@example.com");
+    assertThat(jwtUtil.getCacheStats().hits()).isEqualTo(1);
+    assertThat(jwtUtil.validateToken(primeiro)).isEqualTo("a@example.com");
+    assertThat(jwtUtil.validateToken(segundo)).isEqualTo("b@example.com");
+    assertThat(jwtUtil.getCacheStats().size()).isEqualTo(2);
+    assertThat(jwtUtil.getCacheStats().hits()).isBetween(1L, 2L);
+  }
+
+  @Test
+  void cacheCheioDescartaPrimeiroOsExpirados() throws InterruptedException {
+    JwtUtil jwtUtil = new JwtUtil(2);
+    long expCurto = (System.currentTimeMillis() / 1000 + 2) * 1000;
+    long expLongo = System.currentTimeMillis() + 60_000;
+    String curto = assinar(jwtUtil, "a@example.com", expCurto);
+    String longo = assinar(jwtUtil, "b@example.com", expLongo);
+    jwtUtil.validateToken(curto);
+    jwtUtil.validateToken(longo);
+
+    while (System.currentTimeMillis() < expCurto) {
+      Thread.sleep(50);
+    }
+    jwtUtil.validateToken(assinar(jwtUtil, "c@example.com", expLongo));
+
+    // Só o expirado saiu: o token longo continua sendo atendido pelo cache.
+    assertThat(jwtUtil.validateToken(longo)).isEqualTo("b@example.com");
+    assertThat(jwtUtil.getCacheStats().hits()).isEqualTo(1);
+    assertThat(jwtUtil.getCacheStats().size()).isEqualTo(2);
+  }
+
+  /** Assina um token com a chave do {@link JwtUtil} e o exp informado. */
+  private static String assinar(JwtUtil jwtUtil, String subject, long expiraEm) {
+    Key chave = (Key) ReflectionTestUtils.getField(jwtUtil, "key");
+    return Jwts.builder()
+        .setSubject(subject)
+        .setIssuedAt(new Date())
+        .setExpiration(new Date(expiraEm))
+        .signWith(chave)
+        .compact();
+  }
+}
@@ -0,0 +1,87 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import com.ifba.web.iot.api.spring.jwt.JwtUtil;
+
+/**
+ * Garante que os logins rodam no pool limitado, que, com a fila cheia, são
+ * recusados na hora, e que o encerramento não deixa logins sem resposta.
+ */
+class LoginServiceTest {
+
+  private final CountDownLatch liberar = new CountDownLatch(1);
+  private final JwtUtil jwtUtil = new JwtUtil(0);
+
+  private final LoginService loginService = new LoginService(autenticacao -> {
+    try {
+      liberar.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!"senha".equals(autenticacao.getCredentials())) {
+      throw new BadCredentialsException("Credenciais inválidas");
+    }
+    return autenticacao;
+  }, jwtUtil, 1, 1);
+
+  @AfterEach
+  void tearDown() {
+    loginService.encerrar();
+  }
+
+  @Test
+  void loginAlemDaFilaEhRecusadoNaHora() throws Exception {
+    CompletableFuture<String> emAndamento = loginService.autenticar("a@example.com", "senha");
+    aguardarInicio();
+    CompletableFuture<String> naFila = loginService.autenticar("b@example.com", "errada");
+
+    assertThatThrownBy(() -> loginService.autenticar("c@example.com", "senha"))
+        .isInstanceOf(RejectedExecutionException.class);
+    assertThat(loginService.stats().queueDepth()).isEqualTo(1);
+
+    liberar.countDown();
+    assertThat(jwtUtil.validateToken(emAndamento.get(5, TimeUnit.SECONDS))).isEqualTo("a@example.com");
+    assertThatThrownBy(() -> naFila.get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(BadCredentialsException.class);
+
+    LoginStats stats = loginService.stats();
+    assertThat(stats.completed()).isEqualTo(2);
+    assertThat(stats.rejected()).isEqualTo(1);
+    assertThat(stats.maxQueueDepth()).isEqualTo(1);
+    assertThat(stats.queueDepth()).isZero();
+  }
+
+  @Test
+  void encerrarCompletaOsLoginsQueAindaEstavamNaFila() throws Exception {
+    loginService.autenticar("a@example.com", "senha");
+    aguardarInicio();
+    CompletableFuture<String> naFila = loginService.autenticar("b@example.com", "senha");
+
+    loginService.encerrar();
+
+    assertThatThrownBy(() -> naFila.get(1, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(RejectedExecutionException.class);
+  }
+
+  /** Espera a primeira tarefa sair da fila e ocupar a única thread. */
+  private void aguardarInicio() throws InterruptedException {
+    long prazo = System.currentTimeMillis() + 5_000;
+    while (loginService.stats().queueDepth() > 0 && System.currentTimeMillis() < prazo) {
+      Thread.sleep(5);
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.mqtt.core.DefaultMqttPahoClientFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ifba.web.iot.api.spring.protocolos.amqp.PublicacaoPendente;
+import com.ifba.web.iot.api.spring.protocolos.mqtt.EmbeddedMqttBroker;
+import com.ifba.web.iot.api.spring.protocolos.mqtt.MqttInboundPool;
+import com.ifba.web.iot.api.spring.protocolos.mqtt.PartitionedLaneChannel;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mede, sem serviços de rede, a latência da ponte MQTT → AMQP: da publicação
+ * no broker embutido até o canal de entrada ({@code mqttInputChannel}) e até o
+ * envio ao broker AMQP.
+ * <p>
+ * A carga é publicada a uma taxa fixa e o p99 até o envio AMQP precisa ficar
+ * abaixo de {@code ponte.p99-maximo-ms}. Por ser uma medição, o teste fica
+ * fora do {@code mvn test} padrão (tag {@code carga}); ajuste as propriedades
+ * de sistema {@code ponte.taxa} (mensagens/s), {@code ponte.segundos},
+ * {@code ponte.sensores} e {@code ponte.conexoes}, ex:
+ * {@code mvn -Pcarga test -Dtest=MqttAmqpBridgeLatencyTest -Dponte.taxa=20000 -Dponte.segundos=30}.
+ * </p>
+ */
+@Slf4j
+@Tag("carga")
+class MqttAmqpBridgeLatencyTest {
+
+  private static final String TOPICO = "dados/sensores";
+
+  private final int taxa = Integer.getInteger("ponte.taxa", 1000);
+  private final int segundos = Integer.getInteger("ponte.segundos", 2);
+  private final int sensores = Integer.getInteger("ponte.sensores", 16);
+  private final int conexoes = Integer.getInteger("ponte.conexoes", 2);
+  private final long p99MaximoMs = Long.getLong("ponte.p99-maximo-ms", 1000);
+
+  private EmbeddedMqttBroker broker;
+  private ThreadPoolTaskScheduler scheduler;
+  private MqttInboundPool pool;
+  private PartitionedLaneChannel canal;
+  private AmqpBatchProducer producer;
+
+  @AfterEach
+  void tearDown() throws Exception {
+    // O setUp pode ter falhado no meio: libera só o que chegou a ser criado.
+    if (pool != null) {
+      pool.stop();
+      pool.destroy();
+    }
+    if (canal != null) {
+      canal.destroy();
+    }
+    if (producer != null) {
+      producer.encerrar();
+    }
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+    if (broker != null) {
+      broker.close();
+    }
+  }
+
+  @Test
+  void medeLatenciaDaPublicacaoAteOEnvioAmqp() throws Exception {
+    int total = taxa * segundos;
+    AtomicLongArray ateCanal = new AtomicLongArray(total);
+    AtomicLongArray ateAmqp = new AtomicLongArray(total);
+    AtomicInteger noCanal = new AtomicInteger();
+    AtomicInteger enviadas = new AtomicInteger();
+
+    broker = new EmbeddedMqttBroker(0);
+    scheduler = new ThreadPoolTaskScheduler();
+    scheduler.initialize();
+
+    producer = new AmqpBatchProducer(lote -> {
+      long agora = System.nanoTime();
+      for (PublicacaoPendente publicacao : lote) {
+        String payload = publicacao.getTexto();
+        ateAmqp.set(sequencia(payload), agora - publicadoEm(payload));
+        enviadas.incrementAndGet();
+        publicacao.confirmacao().complete(true);
+      }
+      return lote.size();
+    }, 64, 5, 1024, 10_000, 10_000, 5_000);
+    MqttAmqpBridgeService bridge = new MqttAmqpBridgeService(producer);
+    ReflectionTestUtils.setField(bridge, "amqpExchange", "amq.topic");
+    ReflectionTestUtils.setField(bridge, "amqpRoutingKey", "iot.routing");
+
+    canal = new PartitionedLaneChannel(Runtime.getRuntime().availableProcessors(), 1000,
+        message -> sensor(message.getPayload().toString()));
+    canal.addInterceptor(new ChannelInterceptor() {
+      @Override
+      public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String payload = message.getPayload().toString();
+        ateCanal.set(sequencia(payload), System.nanoTime() - publicadoEm(payload));
+        noCanal.incrementAndGet();
+        return message;
+      }
+    });
+    canal.subscribe(bridge::handleMqttMessage);
+    pool = iniciarConexoes();
+
+    publicar(total);
+    aguardar(() -> enviadas.get() == total, 30_000);
+
+    assertThat(noCanal.get()).isEqualTo(total);
+    assertThat(enviadas.get()).isEqualTo(total);
+    long[] canalOrdenadas = ordenar(ateCanal);
+    long[] amqpOrdenadas = ordenar(ateAmqp);
+    log.info("Ponte MQTT → AMQP: {} msgs a {} msg/s, {} sensores, {} conexões", total, taxa, sensores, conexoes);
+    log.info("  publicação → mqttInputChannel: {}", resumo(canalOrdenadas));
+    log.info("  publicação → envio AMQP:       {}", resumo(amqpOrdenadas));
+    assertThat(TimeUnit.NANOSECONDS.toMillis(percentil(amqpOrdenadas, 0.99)))
+        .as("p99 da publicação até o envio AMQP, em ms")
+        .isLessThan(p99MaximoMs);
+  }
+
+  private MqttInboundPool iniciarConexoes() throws InterruptedException {
+    DefaultMqttPahoClientFactory factory = new DefaultMqttPahoClientFactory();
+    MqttConnectOptions options = new MqttConnectOptions();
+    options.setServerURIs(new String[] { broker.getUrl() });
+    factory.setConnectionOptions(options);
+    DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    beanFactory.registerSingleton("taskScheduler", scheduler);
+
+    MqttInboundPool novo = new MqttInboundPool(factory, "carga",
+        MqttInboundPool.distribuir(List.of(TOPICO), conexoes, true, "iot-api"), 1, canal);
+    novo.setBeanFactory(beanFactory);
+    novo.afterPropertiesSet();
+    novo.start();
+    aguardar(() -> broker.getAssinaturas() == conexoes, 10_000);
+    return novo;
+  }
+
+  /** Publica {@code total} mensagens em ritmo constante de {@code taxa}/s. */
+  private void publicar(int total) throws Exception {
+    MqttAsyncClient cliente = new MqttAsyncClient(broker.getUrl(), "publicador-carga", new MemoryPersistence());
+    MqttConnectOptions options = new MqttConnectOptions();
+    options.setMaxInflight(65_535);
+    cliente.connect(options).waitForCompletion();
+
+    long intervalo = TimeUnit.SECONDS.toNanos(1) / taxa;
+    long inicio = System.nanoTime();
+    for (int i = 0; i < total; i++) {
+      long alvo = inicio + i * intervalo;
+      long espera = alvo - System.nanoTime();
+      if (espera > 0) {
+        LockSupport.parkNanos(espera);
+      }
+      String payload = String.format("{\"sensor\":\"s%03d\",\"seq\":%d,\"t\":%d}", i % sensores, i, System.nanoTime());
+      cliente.publish(TOPICO, payload.getBytes(StandardCharsets.UTF_8), 1, false);
+    }
+    cliente.disconnect().waitForCompletion();
+    cliente.close();
+  }
+
+  private static int sequencia(String payload) {
+    int inicio = payload.indexOf("\"seq\":") + 6;
+    return Integer.parseInt(payload.substring(inicio, payload.indexOf(',', inicio)));
+  }
+
+  private static String sensor(String payload) {
+    int inicio = payload.indexOf("\"sensor\":\"") + 10;
+    return payload.substring(inicio, payload.indexOf('"', inicio));
+  }
+
+  private static long publicadoEm(String payload) {
+    int inicio = payload.indexOf("\"t\":") + 4;
+    return Long.parseLong(payload.substring(inicio, payload.indexOf('}', inicio)));
+  }
+
+  private static long[] ordenar(AtomicLongArray latencias) {
+    long[] ordenadas = new long[latencias.length()];
+    for (int i = 0; i < ordenadas.length; i++) {
+      ordenadas[i] = latencias.get(i);
+    }
+    Arrays.sort(ordenadas);
+    return ordenadas;
+  }
+
+  private static String resumo(long[] ordenadas) {
+    return String.format("p50=%d µs, p99=%d µs, máx=%d µs", percentil(ordenadas, 0.50) / 1_000,
+        percentil(ordenadas, 0.99) / 1_000, ordenadas[ordenadas.length - 1] / 1_000);
+  }
+
+  private static long percentil(long[] ordenadas, double p) {
+    return ordenadas[(int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1)];
+  }
+
+  private static void aguardar(BooleanSupplier condicao, long timeoutMs)
+      throws InterruptedException {
+    long prazo = System.currentTimeMillis() + timeoutMs;
+    while (!condicao.getAsBoolean()) {
+      assertThat(System.currentTimeMillis()).as("tempo esgotado").isLessThan(prazo);
+      Thread.sleep(10);
+    }
+  }
+}
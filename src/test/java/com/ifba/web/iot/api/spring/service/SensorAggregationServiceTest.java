@@ -0,0 +1,46 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.ifba.web.iot.api.spring.controller.dto.view.AgregadoView;
+import com.ifba.web.iot.api.spring.model.IntervaloAgregacao;
+
+/**
+ * Testa a combinação de agregados pré-calculados em intervalos maiores.
+ */
+class SensorAggregationServiceTest {
+
+  private static final LocalDateTime MEIA_NOITE = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+  @Test
+  void combinarVariosAgregadosMarcaOsPercentisComoAproximados() {
+    List<AgregadoView> horas = SensorAggregationService.combinar(List.of(
+        new AgregadoView("temperatura", MEIA_NOITE, 1, 10.0, 10.0, 10.0, 10.0, 10.0),
+        new AgregadoView("temperatura", MEIA_NOITE.plusMinutes(1), 3, 20.0, 40.0, 30.0, 30.0, 39.0)),
+        IntervaloAgregacao.UMA_HORA);
+
+    assertThat(horas).hasSize(1);
+    AgregadoView hora = horas.get(0);
+    assertThat(hora.getQuantidade()).isEqualTo(4);
+    assertThat(hora.getMinimo()).isEqualTo(10.0);
+    assertThat(hora.getMaximo()).isEqualTo(40.0);
+    assertThat(hora.getMedia()).isEqualTo(25.0);
+    assertThat(hora.isPercentisAproximados()).isTrue();
+  }
+
+  @Test
+  void agregadoUnicoNoIntervaloMantemOsPercentisExatos() {
+    List<AgregadoView> horas = SensorAggregationService.combinar(List.of(
+        new AgregadoView("temperatura", MEIA_NOITE, 3, 20.0, 40.0, 30.0, 30.0, 39.0),
+        new AgregadoView("umidade", MEIA_NOITE, 1, 50.0, 50.0, 50.0, 50.0, 50.0)),
+        IntervaloAgregacao.UMA_HORA);
+
+    assertThat(horas).extracting(AgregadoView::getP95).containsExactly(39.0, 50.0);
+    assertThat(horas).noneMatch(AgregadoView::isPercentisAproximados);
+  }
+}
@@ -0,0 +1,211 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import com.ifba.web.iot.api.spring.controller.dto.view.AgregadoView;
+import com.ifba.web.iot.api.spring.controller.dto.view.HistoricoView;
+import com.ifba.web.iot.api.spring.model.IntervaloAgregacao;
+import com.ifba.web.iot.api.spring.model.SensorData;
+import com.ifba.web.iot.api.spring.model.SensorReading;
+import com.ifba.web.iot.api.spring.model.UltimaLeitura;
+import com.ifba.web.iot.api.spring.model.Usuario;
+import com.ifba.web.iot.api.spring.protocolos.amqp.AmqpPublisher;
+import com.ifba.web.iot.api.spring.protocolos.mqtt.MqttPublisher;
+import com.ifba.web.iot.api.spring.protocolos.mqtt.MqttToAmqpBridge;
+import com.ifba.web.iot.api.spring.protocolos.rabbitmq.simulation.InMemoryRabbitTemplate;
+import com.ifba.web.iot.api.spring.repository.AlertBatchRepository;
+import com.ifba.web.iot.api.spring.repository.SensorRollupRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Garante que cada leitura processada gere apenas as instruções SQL
+ * necessárias, sem regravações feitas pelas etapas de publicação.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ SensorDataService.class, AlertService.class, MqttPublisher.class, AmqpPublisher.class,
+    MqttToAmqpBridge.class, InMemoryRabbitTemplate.class, UltimaLeituraCache.class,
+    SensorStreamService.class, AlertRuleEngine.class, AlertRuleService.class,
+    AlertStateService.class, AlertBatchRepository.class, UsuarioIdCache.class,
+    SensorAggregationService.class, SensorRollupRepository.class, SensorRollupService.class })
+class SensorDataServicePersistenceTest {
+
+  @Autowired
+  private SensorDataService sensorDataService;
+
+  @Autowired
+  private UsuarioIdCache usuarioIdCache;
+
+  @Autowired
+  private UltimaLeituraCache ultimaLeituraCache;
+
+  @Autowired
+  private SensorRollupRepository rollupRepository;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Usuario usuario;
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    usuario = entityManager.persistFlushFind(
+        Usuario.builder().nome("Usuário Teste").email("teste@example.com").senha("123456").build());
+    // Cada teste é desfeito ao final, e o usuário é recriado com outro ID.
+    usuarioIdCache.invalidar(usuario.getEmail());
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void leituraPublicadaViaAmqpGeraUmUnicoInsert() {
+    sensorDataService.saveAndProcess(new SensorData("umidade", 50.0), usuario);
+    entityManager.flush();
+
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+    assertThat(statistics.getEntityUpdateCount()).isZero();
+  }
+
+  @Test
+  void leituraPublicadaViaMqttGeraUmUnicoInsert() {
+    sensorDataService.saveAndProcess(new SensorData("temperatura", 25.0), usuario);
+    entityManager.flush();
+
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+    assertThat(statistics.getEntityUpdateCount()).isZero();
+  }
+
+  @Test
+  void leituraComAlertaGeraApenasOsInsertsDaLeituraEDoAlerta() {
+    sensorDataService.saveAndProcess(new SensorData("temperatura", 35.0), usuario);
+    entityManager.flush();
+
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    assertThat(statistics.getEntityInsertCount()).isEqualTo(2);
+    assertThat(statistics.getEntityUpdateCount()).isZero();
+  }
+
+  @Test
+  void leituraDeRequisicaoNaoConsultaOUsuarioAposAPrimeira() {
+    UsernamePasswordAuthenticationToken principal = new UsernamePasswordAuthenticationToken(usuario.getEmail(), null);
+    sensorDataService.saveAndProcess(new SensorData("umidade", 50.0), principal);
+    entityManager.flush();
+    entityManager.clear();
+    statistics.clear();
+
+    SensorData salva = sensorDataService.saveAndProcess(new SensorData("umidade", 51.0), principal).getMiddle();
+    entityManager.flush();
+
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    assertThat(statistics.getEntityLoadCount()).isZero();
+    assertThat(salva.getUsuario().getId()).isEqualTo(usuario.getId());
+  }
+
+  @Test
+  void verificacaoDePropriedadeUsaUmaUnicaConsulta() {
+    SensorData salva = sensorDataService.saveAndProcess(new SensorData("umidade", 50.0), usuario).getMiddle();
+    entityManager.flush();
+    entityManager.clear();
+    sensorDataService.buscarUsuarioId(usuario.getEmail());
+    statistics.clear();
+
+    assertThat(sensorDataService.isUserSensorOwner(usuario.getEmail(), salva.getId())).isTrue();
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    assertThat(sensorDataService.isUserSensorOwner("outro@example.com", salva.getId())).isFalse();
+    assertThat(sensorDataService.isUserSensorOwner(usuario.getEmail(), salva.getId() + 1)).isFalse();
+    assertThat(statistics.getEntityLoadCount()).isZero();
+  }
+
+  @Test
+  void ultimasLeiturasSoConsultamOBancoNaFaltaDoCache() {
+    sensorDataService.saveAndProcess(new SensorData("umidade", 50.0), usuario);
+    entityManager.flush();
+    entityManager.clear();
+    sensorDataService.buscarUsuarioId(usuario.getEmail());
+    ultimaLeituraCache.invalidar();
+    statistics.clear();
+
+    assertThat(sensorDataService.buscarUltimasLeituras(usuario.getEmail()))
+        .extracting(UltimaLeitura::sensor).containsExactly("umidade");
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+    statistics.clear();
+    assertThat(sensorDataService.buscarUltimasLeituras(usuario.getEmail())).hasSize(1);
+    assertThat(sensorDataService.buscarUltimasLeituras(null)).isNotEmpty();
+    assertThat(sensorDataService.buscarUltimaLeitura()).isNotNull();
+    // O aquecimento do cache geral é a única consulta depois da primeira.
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @Test
+  void historicoAnteriorAsLeiturasBrutasVemDosAgregados() {
+    prepararRetencao();
+
+    HistoricoView historico = sensorDataService.buscarHistorico(usuario.getEmail(), null,
+        LocalDateTime.of(2019, 12, 31, 23, 0), LocalDateTime.of(2020, 1, 1, 0, 5), null, 50);
+
+    assertThat(historico.getLeituras()).extracting(SensorData::getValor).containsExactly(25.0);
+    assertThat(historico.getProximoCursor()).isNull();
+    // Do mais recente ao mais antigo; o minuto da leitura bruta fica de fora.
+    assertThat(historico.getAgregados()).extracting(AgregadoView::getInicio).containsExactly(
+        LocalDateTime.of(2020, 1, 1, 0, 1), LocalDateTime.of(2020, 1, 1, 0, 0),
+        LocalDateTime.of(2019, 12, 31, 23, 0));
+  }
+
+  @Test
+  void exportacaoAnteriorAsLeiturasBrutasVemDosAgregados() {
+    prepararRetencao();
+    List<SensorReading> exportadas = new ArrayList<>();
+
+    long total = sensorDataService.exportar(usuario.getEmail(), "temperatura",
+        LocalDateTime.of(2019, 12, 31, 23, 0), LocalDateTime.of(2020, 1, 1, 0, 5), exportadas::add);
+
+    assertThat(total).isEqualTo(4);
+    assertThat(exportadas).extracting(SensorReading::valor).containsExactly(20.0, 21.0, 22.0, 25.0);
+    assertThat(exportadas).extracting(SensorReading::unidade).containsOnly("°C");
+    assertThat(exportadas.get(0).id()).isNull();
+    assertThat(exportadas.get(3).id()).isNotNull();
+  }
+
+  /**
+   * Simula a retenção: a leitura bruta mais antiga é das 00:02:30, e os
+   * agregados cobrem a hora anterior e os minutos seguintes.
+   */
+  private void prepararRetencao() {
+    SensorData leitura = new SensorData("temperatura", 25.0, "°C");
+    leitura.setTimestamp(LocalDateTime.of(2020, 1, 1, 0, 2, 30));
+    leitura.setUsuario(usuario);
+    entityManager.persistAndFlush(leitura);
+
+    rollupRepository.inserir(IntervaloAgregacao.UMA_HORA, usuario.getId(),
+        List.of(agregado(LocalDateTime.of(2019, 12, 31, 23, 0), 20.0)));
+    rollupRepository.inserir(IntervaloAgregacao.UM_MINUTO, usuario.getId(), List.of(
+        agregado(LocalDateTime.of(2020, 1, 1, 0, 0), 21.0),
+        agregado(LocalDateTime.of(2020, 1, 1, 0, 1), 22.0),
+        agregado(LocalDateTime.of(2020, 1, 1, 0, 2), 25.0)));
+  }
+
+  private static AgregadoView agregado(LocalDateTime inicio, double media) {
+    return new AgregadoView("temperatura", inicio, 1, media, media, media, media, media);
+  }
+}
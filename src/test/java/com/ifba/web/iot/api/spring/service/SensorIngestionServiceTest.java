@@ -0,0 +1,79 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.ifba.web.iot.api.spring.model.SensorData;
+import com.ifba.web.iot.api.spring.model.Usuario;
+import com.ifba.web.iot.api.spring.service.SensorIngestionService.Durabilidade;
+import com.ifba.web.iot.api.spring.service.SensorIngestionService.ModoIngestao;
+
+/**
+ * Garante que, no modo em lote, os alertas só são gravados depois da leitura
+ * e que a publicação não roda na thread do gravador.
+ */
+class SensorIngestionServiceTest {
+
+  private final SensorDataService sensorService = mock(SensorDataService.class);
+  private final AlertStateService alertStateService = mock(AlertStateService.class);
+  private final SensorWriteBehindBuffer buffer = mock(SensorWriteBehindBuffer.class);
+  private final Usuario usuario = new Usuario();
+  private final SensorData leitura = new SensorData("umidade", 50);
+  private SensorIngestionService ingestionService;
+
+  @BeforeEach
+  void setUp() {
+    AlertStateService.Avaliacao avaliacao = new AlertStateService(new AlertRuleEngine(), mock(AlertService.class))
+        .preparar(1L, leitura);
+    when(sensorService.prepararLeitura(leitura, usuario)).thenReturn(avaliacao);
+    ingestionService = new SensorIngestionService(sensorService, alertStateService, buffer,
+        ModoIngestao.BUFFER, Durabilidade.PERSISTIDO, 2000, 1, 16);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    ingestionService.encerrar();
+  }
+
+  @Test
+  void loteComFalhaDesfazOsAlertasSemGravalos() {
+    when(buffer.enfileirar(leitura))
+        .thenReturn(CompletableFuture.failedFuture(new DataAccessResourceFailureException("banco fora")));
+
+    assertThatThrownBy(() -> ingestionService.ingerir(leitura, usuario))
+        .isInstanceOf(DataAccessResourceFailureException.class);
+
+    verify(alertStateService).desfazer(any());
+    verify(alertStateService, never()).gravar(any());
+    verify(sensorService, never()).publicar(any());
+  }
+
+  @Test
+  void alertasEPublicacaoRodamForaDaThreadDoGravador() {
+    when(buffer.enfileirar(leitura)).thenReturn(CompletableFuture.completedFuture(leitura));
+    AtomicReference<String> threadDosAlertas = new AtomicReference<>();
+    doAnswer(invocacao -> {
+      threadDosAlertas.set(Thread.currentThread().getName());
+      return null;
+    }).when(alertStateService).gravar(any());
+    when(sensorService.publicar(leitura)).thenReturn("publicada");
+
+    assertThat(ingestionService.ingerir(leitura, usuario).getRight()).isEqualTo("publicada");
+    assertThat(threadDosAlertas.get()).startsWith("sensor-publicacao-");
+    verify(alertStateService, never()).desfazer(any());
+  }
+}
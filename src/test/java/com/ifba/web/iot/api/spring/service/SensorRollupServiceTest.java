@@ -0,0 +1,111 @@
+package com.ifba.web.iot.api.spring.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ifba.web.iot.api.spring.model.IntervaloAgregacao;
+import com.ifba.web.iot.api.spring.repository.SensorDataRepository;
+import com.ifba.web.iot.api.spring.repository.SensorRollupRepository;
+
+/**
+ * Testa a retenção das leituras brutas após a agregação e o recálculo dos
+ * agregados de leituras alteradas.
+ */
+class SensorRollupServiceTest {
+
+  private static final LocalDateTime AGORA = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+  private final SensorAggregationService aggregationService = mock(SensorAggregationService.class);
+  private final SensorRollupRepository rollupRepository = mock(SensorRollupRepository.class);
+  private final SensorDataRepository sensorDataRepository = mock(SensorDataRepository.class);
+
+  @Test
+  void retencaoZeroMantemAsLeiturasBrutas() {
+    SensorRollupService service = criar(0);
+    agregarTudo(service);
+
+    service.aplicarRetencao(AGORA);
+
+    verify(sensorDataRepository, never()).deleteAnteriores(any());
+  }
+
+  @Test
+  void retencaoRemoveLeiturasBrutasJaAgregadasForaDoPrazo() {
+    SensorRollupService service = criar(7);
+    agregarTudo(service);
+
+    service.aplicarRetencao(AGORA);
+
+    verify(sensorDataRepository).deleteAnteriores(AGORA.minusDays(7));
+  }
+
+  @Test
+  void leiturasAindaNaoAgregadasNuncaSaoRemovidas() {
+    SensorRollupService service = criar(7);
+
+    service.aplicarRetencao(AGORA);
+
+    verify(sensorDataRepository, never()).deleteAnteriores(any());
+  }
+
+  @Test
+  void leituraAlteradaRecalculaOsIntervalosJaAgregados() {
+    SensorRollupService service = criar(0);
+    agregarTudo(service);
+    when(sensorDataRepository.findPrimeiroTimestamp()).thenReturn(Optional.of(AGORA.minusDays(30)));
+    LocalDateTime instante = AGORA.minusDays(2).plusMinutes(90).plusSeconds(15);
+
+    service.reagregar(1L, instante);
+
+    for (IntervaloAgregacao resolucao : SensorRollupRepository.RESOLUCOES) {
+      LocalDateTime de = resolucao.inicioDe(instante);
+      LocalDateTime ate = de.plusSeconds(resolucao.getSegundos());
+      verify(rollupRepository).remover(resolucao, 1L, de, ate);
+      verify(aggregationService).agregarBruto(1L, null, resolucao, de, ate);
+    }
+    verify(rollupRepository, times(3)).inserir(any(), eq(1L), any());
+  }
+
+  @Test
+  void leituraAlteradaAindaNaoAgregadaFicaParaAProximaExecucao() {
+    SensorRollupService service = criar(0);
+    agregarTudo(service);
+    when(sensorDataRepository.findPrimeiroTimestamp()).thenReturn(Optional.of(AGORA.minusDays(30)));
+
+    // Os minutos seguem agregados por mais meia hora; a hora e o dia não.
+    service.atualizar(IntervaloAgregacao.UM_MINUTO, AGORA.plusMinutes(30));
+
+    service.reagregar(1L, AGORA.plusMinutes(10));
+
+    verify(rollupRepository).remover(eq(IntervaloAgregacao.UM_MINUTO), eq(1L), any(), any());
+    verify(rollupRepository, never()).remover(eq(IntervaloAgregacao.UMA_HORA), anyLong(), any(), any());
+    verify(rollupRepository, never()).remover(eq(IntervaloAgregacao.UM_DIA), anyLong(), any(), any());
+  }
+
+  private SensorRollupService criar(int retencaoBrutoDias) {
+    return new SensorRollupService(aggregationService, rollupRepository, sensorDataRepository,
+        mock(PlatformTransactionManager.class), true, 0, 1440, 1_000, retencaoBrutoDias, 0, 0, 0);
+  }
+
+  private void agregarTudo(SensorRollupService service) {
+    when(rollupRepository.ultimoInicio(any(IntervaloAgregacao.class))).thenReturn(Optional.of(AGORA.minusDays(30)));
+    when(sensorDataRepository.findUsuariosComLeituras(any(), any())).thenReturn(List.of());
+    for (IntervaloAgregacao resolucao : SensorRollupRepository.RESOLUCOES) {
+      service.atualizar(resolucao, AGORA);
+    }
+    verify(rollupRepository, never()).inserir(any(), anyLong(), any());
+  }
+}